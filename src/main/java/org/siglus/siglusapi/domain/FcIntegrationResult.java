@@ -59,4 +59,6 @@ public class FcIntegrationResult extends BaseEntity {
 
   private String errorMessage;
 
+  private Integer lastPage;
+
 }
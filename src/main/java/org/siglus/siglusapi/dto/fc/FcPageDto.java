@@ -13,24 +13,31 @@
  * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
  */
 
-package org.siglus.siglusapi.localmachine;
+package org.siglus.siglusapi.dto.fc;
 
+import java.util.Collections;
 import java.util.List;
-import java.util.UUID;
-import lombok.RequiredArgsConstructor;
-import org.siglus.siglusapi.localmachine.eventstore.EventPayloadRepository;
-import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 
-@RequiredArgsConstructor
-@Service
-public class EventBackupDeleteTask {
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FcPageDto {
 
-  private final EventPayloadRepository eventPayloadRepository;
+  private PageInfoDto pageInfo;
 
-  @Transactional
-  public void delete(List<UUID> eventIds) {
-    eventPayloadRepository.deleteByEventIds(eventIds);
+  private List<? extends ResponseBaseDto> content;
+
+  public static FcPageDto empty() {
+    return new FcPageDto(new PageInfoDto(), Collections.emptyList());
+  }
+
+  public boolean isEmpty() {
+    return content == null || content.isEmpty();
   }
 
 }
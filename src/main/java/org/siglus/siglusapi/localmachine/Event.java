@@ -21,10 +21,13 @@ import static org.siglus.siglusapi.dto.enums.EventCategoryEnum.MASTER_DATA;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.ZonedDateTime;
 import java.util.UUID;
+import java.util.function.Supplier;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.siglus.common.util.Uuid5Generator;
 
 @Builder
@@ -51,6 +54,25 @@ public class Event {
   @JsonIgnore
   private Ack ack;
 
+  // decodes the stored payload on first access, so that callers only reading the metadata skip the json work
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private transient Supplier<Object> payloadLoader;
+
+  public Object getPayload() {
+    if (payload == null && payloadLoader != null) {
+      payload = payloadLoader.get();
+      payloadLoader = null;
+    }
+    return payload;
+  }
+
+  public void setPayload(Object payload) {
+    this.payload = payload;
+    this.payloadLoader = null;
+  }
+
   @JsonIgnore
   public void confirmedReceiverSynced() {
     this.setReceiverSynced(true);
@@ -75,6 +75,15 @@ public abstract class EventImporter {
   }
 
   private List<Event> importGetNewAdded(List<Event> acceptedEvents) {
+    try {
+      return eventStore.importAllQuietly(acceptedEvents);
+    } catch (DataIntegrityViolationException e) {
+      log.warn("fail to import events in bulk, fall back to import one by one, err:{}", e.getMessage());
+      return importOneByOne(acceptedEvents);
+    }
+  }
+
+  private List<Event> importOneByOne(List<Event> acceptedEvents) {
     List<Event> newAdded = new LinkedList<>();
     acceptedEvents.forEach(
         it -> {
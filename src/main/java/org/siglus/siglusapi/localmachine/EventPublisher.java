@@ -28,6 +28,7 @@ import org.siglus.siglusapi.localmachine.agent.SyncRecordService;
 import org.siglus.siglusapi.localmachine.constant.ErrorType;
 import org.siglus.siglusapi.localmachine.event.masterdata.MasterDataTableChangeEvent;
 import org.siglus.siglusapi.localmachine.eventstore.EventStore;
+import org.siglus.siglusapi.localmachine.eventstore.MasterDataEventRecord;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Propagation;
@@ -73,11 +74,20 @@ public class EventPublisher {
   }
 
   public void emitMasterDataEvent(MasterDataTableChangeEvent payload, UUID facilityId) {
-    if (CollectionUtils.isNotEmpty(payload.getTableChangeEvents())) {
-      MasterDataEvent.MasterDataEventBuilder eventBuilder = baseMasterDataEventBuilder(payload, facilityId);
-      MasterDataEvent masterDataEvent = eventBuilder.build();
-      eventStore.emit(masterDataEvent);
+    prepareMasterDataEvent(payload, facilityId).run();
+  }
+
+  /**
+   * Builds and serializes the master data event right away, which is safe off the emitting thread. The insert, which
+   * allocates the offset local machines pull from, is left to the returned action so it follows the capture order.
+   */
+  public Runnable prepareMasterDataEvent(MasterDataTableChangeEvent payload, UUID facilityId) {
+    if (CollectionUtils.isEmpty(payload.getTableChangeEvents())) {
+      return () -> { };
     }
+    MasterDataEvent.MasterDataEventBuilder eventBuilder = baseMasterDataEventBuilder(payload, facilityId);
+    MasterDataEventRecord masterDataEventRecord = eventStore.toMasterDataEventRecord(eventBuilder.build());
+    return () -> eventStore.emit(masterDataEventRecord);
   }
 
   @Transactional(propagation = Propagation.REQUIRES_NEW)
@@ -17,8 +17,12 @@ package org.siglus.siglusapi.localmachine;
 
 import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 import static org.apache.commons.collections.CollectionUtils.isEmpty;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.time.Duration;
+import java.time.ZonedDateTime;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
@@ -26,19 +30,31 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import lombok.RequiredArgsConstructor;
+import java.util.function.Function;
+import javax.annotation.PreDestroy;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.siglus.siglusapi.exception.DeferredException;
 import org.siglus.siglusapi.localmachine.ShedLockFactory.AutoClosableLock;
 import org.siglus.siglusapi.localmachine.eventstore.EventStore;
+import org.siglus.siglusapi.util.AsyncExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class EventReplayer {
 
@@ -46,9 +62,38 @@ public class EventReplayer {
   private static final String DEFAULT_REPLAY_GROUP_LOCK = "lock.replay.group.default.";
   private static final String DEFAULT_REPLAY_MASTER_DATA_LOCK = "lock.replay.master.data.default.";
   private static final int TIMEOUT_MILLIS = 1000;
+  private static final int REPLAY_THREADS = 4;
+  private static final int REPLAY_QUEUE_SIZE = 16;
   private final EventPublisher eventPublisher;
   private final EventStore eventStore;
   private final ShedLockFactory lockFactory;
+  private final ExecutorService executorService;
+  // the groups waiting for or in replay
+  private final Set<String> pendingGroups = ConcurrentHashMap.newKeySet();
+
+  @Autowired
+  public EventReplayer(EventPublisher eventPublisher, EventStore eventStore, ShedLockFactory lockFactory) {
+    // own pool, so replay never competes with the other jobs on the shared executor, and a full queue makes the
+    // replaying thread play the receiver's groups itself
+    this(eventPublisher, eventStore, lockFactory,
+        new ThreadPoolExecutor(REPLAY_THREADS, REPLAY_THREADS, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(REPLAY_QUEUE_SIZE),
+            new ThreadFactoryBuilder().setNameFormat("event-replay-%d").setDaemon(true).build(),
+            new ThreadPoolExecutor.CallerRunsPolicy()));
+  }
+
+  EventReplayer(EventPublisher eventPublisher, EventStore eventStore, ShedLockFactory lockFactory,
+      ExecutorService executorService) {
+    this.eventPublisher = eventPublisher;
+    this.eventStore = eventStore;
+    this.lockFactory = lockFactory;
+    this.executorService = executorService;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executorService.shutdownNow();
+  }
 
   @SneakyThrows
   public void replay(List<Event> events) {
@@ -72,18 +117,60 @@ public class EventReplayer {
   protected void playGroups(List<Event> groupEvents) {
     Map<String, List<Event>> eventGroups =
         groupEvents.stream().collect(groupingBy(Event::getGroupId, LinkedHashMap::new, toList()));
+    // groups of different receivers are independent and replayed in parallel, groups of the same receiver are
+    // replayed one after another in the original order, as they would wait for the same receiver lock anyway
+    Map<UUID, List<String>> receiverGroupIds = new LinkedHashMap<>();
+    eventGroups.forEach((groupId, events) -> {
+      pendingGroups.add(groupId);
+      receiverGroupIds.computeIfAbsent(events.get(0).getReceiverId(), k -> new LinkedList<>()).add(groupId);
+    });
+    Map<String, Exception> failures = new ConcurrentHashMap<>();
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    CompletableFuture<?>[] futures = receiverGroupIds.values().stream()
+        .map(groupIds -> CompletableFuture.runAsync(
+            () -> groupIds.forEach(groupId -> AsyncExecutor.supplyWithContext(newContext(authentication), () -> {
+              playGroupAndRecordFailure(groupId, failures);
+              return null;
+            })),
+            executorService))
+        .toArray(CompletableFuture[]::new);
+    CompletableFuture.allOf(futures).join();
     DeferredException deferredExceptions = new DeferredException();
-    for (String groupId : eventGroups.keySet()) {
-      try {
-        this.playGroup(groupId);
-      } catch (Exception e) {
-        log.error("fail to replay group:" + groupId, e);
-        deferredExceptions.add(groupId, e);
-      }
-    }
+    eventGroups.keySet().stream()
+        .filter(failures::containsKey)
+        .forEach(groupId -> deferredExceptions.add(groupId, failures.get(groupId)));
     deferredExceptions.emit();
   }
 
+  public int getQueueDepth() {
+    return pendingGroups.size();
+  }
+
+  public long getReplayLagSeconds() {
+    return eventStore.getOldestNotReplayedSyncedTime()
+        .map(oldest -> Duration.between(oldest, ZonedDateTime.now()).getSeconds())
+        .orElse(0L);
+  }
+
+  // replayers simulate the event's user on the context, so every group gets its own copy of the caller's
+  // authentication, and the pool thread gets its previous context back afterwards
+  private SecurityContext newContext(Authentication authentication) {
+    SecurityContext context = SecurityContextHolder.createEmptyContext();
+    context.setAuthentication(authentication);
+    return context;
+  }
+
+  private void playGroupAndRecordFailure(String groupId, Map<String, Exception> failures) {
+    try {
+      this.playGroup(groupId);
+    } catch (Exception e) {
+      log.error("fail to replay group:" + groupId, e);
+      failures.put(groupId, e);
+    } finally {
+      pendingGroups.remove(groupId);
+    }
+  }
+
   protected void playGroup(String groupId) throws InterruptedException {
     try (AutoClosableLock lock = lockFactory.waitLock(groupId, TIMEOUT_MILLIS)) {
       if (!lock.isPresent()) {
@@ -95,32 +182,31 @@ public class EventReplayer {
   }
 
   protected void tryToPlayGroupEvents(String groupId) {
-    List<Event> leafEvents = eventStore.getNotReplayedLeafEventsInGroup(groupId);
-    List<UUID> leafEventIds = leafEvents.stream().map(Event::getId).collect(toList());
-    if (CollectionUtils.isEmpty(leafEvents)) {
+    // ancestors come before descendants, so a parent is settled before any of its children is checked
+    List<Event> chainEvents = eventStore.getNotReplayedEventChainsInGroup(groupId);
+    if (CollectionUtils.isEmpty(chainEvents)) {
       log.info("no leaf events in group pending replay, group id:{}", groupId);
       return;
     }
-    log.info("start to play group:{}, leaf event ids:{}", groupId, leafEventIds);
-    for (Event event : leafEvents) {
-      playGroupEvent(event);
+    List<UUID> pendingEventIds = chainEvents.stream()
+        .filter(it -> !it.isLocalReplayed())
+        .map(Event::getId)
+        .collect(toList());
+    log.info("start to play group:{}, pending event ids:{}", groupId, pendingEventIds);
+    Map<UUID, Event> loadedEvents = chainEvents.stream().collect(toMap(Event::getId, Function.identity()));
+    for (Event event : chainEvents) {
+      playGroupEvent(event, loadedEvents);
     }
   }
 
-  private void playGroupEvent(Event current) {
-    if (Objects.isNull(current) || current.isLocalReplayed()) {
+  private void playGroupEvent(Event current, Map<UUID, Event> loadedEvents) {
+    if (current.isLocalReplayed()) {
       return;
     }
     UUID parentId = current.getParentId();
-    boolean canReplayCurrentEvent;
-    if (Objects.nonNull(parentId)) {
-      Optional<Event> parentEvent = eventStore.findEvent(parentId);
-      playGroupEvent(parentEvent.orElse(null));
-      canReplayCurrentEvent = parentEvent.map(Event::isLocalReplayed).orElse(false);
-    } else {
-      // parent id is null, current event is root event
-      canReplayCurrentEvent = true;
-    }
+    // parent id is null, current event is root event; a parent not loaded is missing locally
+    boolean canReplayCurrentEvent = Objects.isNull(parentId)
+        || Optional.ofNullable(loadedEvents.get(parentId)).map(Event::isLocalReplayed).orElse(false);
     if (canReplayCurrentEvent) {
       playEventWithLock(current);
     }
@@ -13,31 +13,25 @@
  * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
  */
 
-package org.siglus.siglusapi.localmachine.eventstore;
-
-import static org.mockito.Matchers.anyListOf;
-import static org.mockito.Mockito.verify;
+package org.siglus.siglusapi.localmachine;
 
 import java.util.Arrays;
-import java.util.UUID;
-import org.junit.Test;
-import org.junit.runner.RunWith;
-import org.mockito.Mock;
-import org.mockito.runners.MockitoJUnitRunner;
-
-@RunWith(MockitoJUnitRunner.class)
-public class EventBackupDeleteTaskTest {
-
-  @Mock
-  private EventPayloadRepository eventPayloadRepository;
-
-  @Test
-  public void shouldNotBackupWhenNothingToArchive() {
-
-    // when
-    eventPayloadRepository.deleteByEventIds(Arrays.asList(UUID.randomUUID(), UUID.randomUUID()));
-
-    // then
-    verify(eventPayloadRepository).deleteByEventIds(anyListOf(UUID.class));
+import java.util.Collection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class EventReplayerMetrics implements PublicMetrics {
+
+  private final EventReplayer eventReplayer;
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    return Arrays.asList(
+        new Metric<>("localmachine.replay.queue.depth", eventReplayer.getQueueDepth()),
+        new Metric<>("localmachine.replay.lag.seconds", eventReplayer.getReplayLagSeconds()));
   }
-}
\ No newline at end of file
+}
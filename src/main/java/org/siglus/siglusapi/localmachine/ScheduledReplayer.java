@@ -29,6 +29,9 @@ import org.springframework.transaction.annotation.Transactional;
 @RequiredArgsConstructor
 @Slf4j
 public class ScheduledReplayer {
+  // groups in one batch are replayed concurrently, so a larger batch keeps more workers busy
+  private static final int BATCH_SIZE = 200;
+
   private final EventStore eventStore;
   private final EventReplayer replayer;
 
@@ -37,13 +40,12 @@ public class ScheduledReplayer {
   public void start() {
     log.info("start scheduled replay task");
     Spliterator<Event> spliterator = eventStore.streamNotReplayedEvents().sequential().spliterator();
-    int batchSize = 24;
     List<Event> currentBatch = new LinkedList<>();
     boolean hasNext;
     // split and replay events in batches
     do {
       hasNext = spliterator.tryAdvance(currentBatch::add);
-      if (currentBatch.size() >= batchSize) {
+      if (currentBatch.size() >= BATCH_SIZE) {
         // flush and reset
         replayer.replay(currentBatch);
         currentBatch.clear();
@@ -16,15 +16,22 @@
 package org.siglus.siglusapi.localmachine.agent;
 
 import static java.util.Collections.singletonList;
+import static org.siglus.siglusapi.localmachine.io.EventStreamWriter.EVENT_COUNT_HEADER;
+import static org.siglus.siglusapi.localmachine.io.EventStreamWriter.EVENT_STREAM_MEDIA_TYPE;
+import static org.siglus.siglusapi.localmachine.io.EventStreamWriter.REMAINING_EVENTS_HEADER;
 
+import java.io.IOException;
 import java.net.URI;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.siglus.siglusapi.localmachine.Ack;
 import org.siglus.siglusapi.localmachine.Event;
 import org.siglus.siglusapi.localmachine.ExternalEventDtoMapper;
 import org.siglus.siglusapi.localmachine.auth.LocalTokenInterceptor;
+import org.siglus.siglusapi.localmachine.io.EventFileReader;
 import org.siglus.siglusapi.localmachine.webapi.AckExchange;
 import org.siglus.siglusapi.localmachine.webapi.ActivationResponse;
 import org.siglus.siglusapi.localmachine.webapi.EventsResponse;
@@ -34,10 +41,14 @@ import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 @Component
@@ -45,13 +56,16 @@ public class OnlineWebClient {
 
   private static final String PATH_ACTIVATE_AGENT = "/server/agents";
   private final RestTemplate restTemplate;
+  private final EventFileReader eventFileReader;
   private final ExternalEventDtoMapper externalEventDtoMapper;
 
   @Value("${machine.web.url}")
   private String webBaseUrl;
 
   public OnlineWebClient(
-      LocalTokenInterceptor localTokenInterceptor, ExternalEventDtoMapper externalEventDtoMapper) {
+      LocalTokenInterceptor localTokenInterceptor, EventFileReader eventFileReader,
+      ExternalEventDtoMapper externalEventDtoMapper) {
+    this.eventFileReader = eventFileReader;
     this.externalEventDtoMapper = externalEventDtoMapper;
     this.restTemplate = new RestTemplateBuilder().setConnectTimeout(5 * 1000).build();
     configureLocalTokenInterceptor(localTokenInterceptor);
@@ -68,18 +82,14 @@ public class OnlineWebClient {
     restTemplate.postForEntity(url, request, Void.class);
   }
 
-  public List<Event> exportPeeringEvents() {
-    URI url = URI.create(webBaseUrl + "/server/peeringEvents");
-    return restTemplate.getForObject(url, EventsResponse.class).getEvents().stream()
-        .map(externalEventDtoMapper::map)
-        .collect(Collectors.toList());
+  public EventBatch exportPeeringEvents(long capacityBytes) {
+    URI url = URI.create(webBaseUrl + "/server/peeringEvents?capacityBytes=" + capacityBytes);
+    return downloadEvents(url);
   }
 
   public List<Event> exportMasterDataEvents(long offsetId) {
     URI url = URI.create(webBaseUrl + "/server/masterDataEvents/" + offsetId);
-    return restTemplate.getForObject(url, EventsResponse.class).getEvents().stream()
-        .map(externalEventDtoMapper::map)
-        .collect(Collectors.toList());
+    return downloadEvents(url).getEvents();
   }
 
   public ActivationResponse activate(RemoteActivationRequest remoteActivationRequest) {
@@ -99,6 +109,43 @@ public class OnlineWebClient {
     restTemplate.put(url, request);
   }
 
+  private EventBatch downloadEvents(URI url) {
+    try {
+      return restTemplate.execute(url, HttpMethod.GET,
+          request -> request.getHeaders().setAccept(singletonList(MediaType.valueOf(EVENT_STREAM_MEDIA_TYPE))),
+          this::readEventStream);
+    } catch (HttpClientErrorException e) {
+      if (e.getStatusCode() != HttpStatus.NOT_ACCEPTABLE) {
+        throw e;
+      }
+      // online web without the event stream endpoints, pull the same events as json
+      return downloadJsonEvents(url);
+    }
+  }
+
+  private EventBatch readEventStream(ClientHttpResponse response) throws IOException {
+    String eventCount = response.getHeaders().getFirst(EVENT_COUNT_HEADER);
+    if (eventCount == null) {
+      throw new IOException("event stream without " + EVENT_COUNT_HEADER + " header");
+    }
+    List<Event> events = new LinkedList<>();
+    eventFileReader.read(response.getBody(), events::add);
+    // a cut stream reads as a clean end, so only a full count tells the batch is safe to import and ack
+    if (events.size() != Long.parseLong(eventCount)) {
+      throw new IOException("incomplete event stream, expected " + eventCount + " events, got " + events.size());
+    }
+    String remaining = response.getHeaders().getFirst(REMAINING_EVENTS_HEADER);
+    return new EventBatch(events, remaining == null ? 0L : Long.parseLong(remaining));
+  }
+
+  private EventBatch downloadJsonEvents(URI url) {
+    EventsResponse response = restTemplate.getForObject(url, EventsResponse.class);
+    List<Event> events = response.getEvents().stream()
+        .map(externalEventDtoMapper::map)
+        .collect(Collectors.toList());
+    return new EventBatch(events, Optional.ofNullable(response.getRemaining()).orElse(0L));
+  }
+
   private void configureLocalTokenInterceptor(LocalTokenInterceptor localTokenInterceptor) {
     localTokenInterceptor.setAcceptFunc(
         httpRequest -> !httpRequest.getURI().getRawPath().contains(PATH_ACTIVATE_AGENT));
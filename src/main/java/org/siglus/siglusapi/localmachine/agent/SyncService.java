@@ -50,6 +50,7 @@ import org.springframework.transaction.annotation.Transactional;
 public class SyncService {
 
   static int PUSH_CAPACITY_BYTES_PER_REQUEST = 20 * 1024 * 1024;
+  static int PULL_CAPACITY_BYTES_PER_REQUEST = 20 * 1024 * 1024;
   private final EventStore localEventStore;
   private final OnlineWebClient webClient;
   private final EventImporter eventImporter;
@@ -59,13 +60,20 @@ public class SyncService {
   private final Machine machine;
   private final SiglusCacheService siglusCacheService;
 
+  /**
+   * Ships the local acks to online web and downloads the acks for the local events.
+   *
+   * @return whether the local acks reached online web, only then are they marked as shipped.
+   */
   @Transactional
-  public void exchangeAcks() {
+  public boolean exchangeAcks() {
     Set<Ack> notShippedAcks = localEventStore.getNotShippedAcks();
     Set<Ack> downloadedAcks = new HashSet<>();
+    boolean shipped = false;
     try {
       log.info("exchange Acks to web online,notShippedAcks: {}", notShippedAcks.size());
       downloadedAcks = webClient.exchangeAcks(notShippedAcks);
+      shipped = true;
     } catch (NetworkException ne) {
       log.error("fail to download ack with network exception", ne);
     } catch (Exception e) {
@@ -73,7 +81,9 @@ public class SyncService {
       List<UUID> eventIds = notShippedAcks.stream().map(Ack::getEventId).collect(Collectors.toList());
       errorHandler.storeErrorRecord(eventIds, e, ErrorType.EXCHANGE_DOWN);
     }
-    localEventStore.confirmAckShipped(notShippedAcks);
+    if (shipped) {
+      localEventStore.confirmAckShipped(notShippedAcks);
+    }
     localEventStore.confirmEventsByAcks(downloadedAcks);
     try {
       webClient.confirmAcks(downloadedAcks);
@@ -84,33 +94,38 @@ public class SyncService {
       List<UUID> eventIds = downloadedAcks.stream().map(Ack::getEventId).collect(Collectors.toList());
       errorHandler.storeErrorRecord(eventIds, e, ErrorType.EXCHANGE_UP);
     }
+    return shipped;
   }
 
+  /**
+   * Pulls one batch of master data or peering events.
+   *
+   * @return whether online web has more to pull, the caller should keep pulling (and exchanging acks, which is how
+   *     online web learns the batch was received) until it doesn't.
+   */
   @Transactional
-  public void pull() {
+  public boolean pull() {
     try {
       boolean hasNewMasterData = pullMasterData();
-      if (!hasNewMasterData) {
-        pullPeeringEvents();
-      }
+      return hasNewMasterData || pullPeeringEvents();
     } catch (NetworkException ne) {
       log.error("fail to pull events with network exception", ne);
     } catch (Exception e) {
       log.error("fail to pull events", e);
       errorHandler.storeErrorRecord(e, ErrorType.SYNC_DOWN);
     }
+    return false;
   }
 
-  private void pullPeeringEvents() {
-    List<Event> events;
-    events = webClient.exportPeeringEvents();
-    log.info("pull events, got {}", events.size());
-    if (CollectionUtils.isEmpty(events)) {
-      syncRecordService.storeLastSyncRecord();
-    }
+  private boolean pullPeeringEvents() {
+    EventBatch eventBatch = webClient.exportPeeringEvents(PULL_CAPACITY_BYTES_PER_REQUEST);
+    List<Event> events = eventBatch.getEvents();
+    long remaining = eventBatch.getRemaining();
+    log.info("pull events, got {}, remaining {}", events.size(), remaining);
     events.forEach(it -> it.setOnlineWebSynced(true));
     eventImporter.importEvents(events);
     syncRecordService.storeLastSyncRecord();
+    return CollectionUtils.isNotEmpty(events) && remaining > 0;
   }
 
   private boolean pullMasterData() {
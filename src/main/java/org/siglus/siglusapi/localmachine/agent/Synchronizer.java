@@ -34,6 +34,8 @@ public class Synchronizer {
   private final Machine machine;
   private final ShedLockFactory lockFactory;
   private static final int TIMEOUT_MILLIS = 3 * 1000;
+  static final int MAX_PULL_ROUNDS = 50;
+  static final long PULL_TIME_BUDGET_MILLIS = 5 * 60 * 1000L;
 
   @Scheduled(fixedRate = 60 * 1000, initialDelay = 60 * 1000)
   public void scheduledSync() {
@@ -51,14 +53,33 @@ public class Synchronizer {
         log.warn("[sync] fail to get lock, cancel this round");
         return;
       }
-      log.info("[LM] start sync down");
-      syncService.pull();
-      log.info("[LM] start exchange acks");
-      syncService.exchangeAcks();
+      pullUntilDrained();
       log.info("[LM] start sync up");
       syncService.push();
     } catch (InterruptedException e) {
       log.error("sync thread is interrupted", e);
     }
   }
+
+  private void pullUntilDrained() {
+    long deadline = System.currentTimeMillis() + PULL_TIME_BUDGET_MILLIS;
+    for (int round = 1; ; round++) {
+      log.info("[LM] start sync down");
+      boolean hasMore = syncService.pull();
+      log.info("[LM] start exchange acks");
+      boolean acksShipped = syncService.exchangeAcks();
+      if (!hasMore) {
+        return;
+      }
+      // online web only moves past the pulled events once it has their acks, otherwise it returns them again
+      if (!acksShipped) {
+        log.warn("[LM] acks are not shipped, stop pulling until the next round");
+        return;
+      }
+      if (round >= MAX_PULL_ROUNDS || System.currentTimeMillis() >= deadline) {
+        log.info("[LM] pulled {} rounds, continue in the next round", round);
+        return;
+      }
+    }
+  }
 }
@@ -15,6 +15,7 @@
 
 package org.siglus.siglusapi.localmachine.cdc;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -24,8 +25,15 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -36,11 +44,26 @@ public class CdcDispatcher {
   private final Map<String, List<CdcListener>> tableIdToListeners = new LinkedHashMap<>();
   private final CdcRecordRepository cdcRecordRepository;
   private final CdcHelper cdcHelper;
+  private final ExecutorService executorService;
 
   private static final int MAX_RECORD_SIZE = 1000;
+  private static final int PREPARE_THREADS = 4;
+  private static final int PREPARE_QUEUE_SIZE = 16;
 
+  @Autowired
   public CdcDispatcher(List<CdcListener> cdcListeners, CdcRecordRepository cdcRecordRepository) {
+    // own pool, so a dispatch never waits behind other work, and a full queue makes the dispatching thread prepare
+    this(cdcListeners, cdcRecordRepository,
+        new ThreadPoolExecutor(PREPARE_THREADS, PREPARE_THREADS, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(PREPARE_QUEUE_SIZE),
+            new ThreadFactoryBuilder().setNameFormat("cdc-prepare-%d").setDaemon(true).build(),
+            new ThreadPoolExecutor.CallerRunsPolicy()));
+  }
+
+  CdcDispatcher(List<CdcListener> cdcListeners, CdcRecordRepository cdcRecordRepository,
+      ExecutorService executorService) {
     this.cdcRecordRepository = cdcRecordRepository;
+    this.executorService = executorService;
     this.cdcHelper = new CdcHelper(cdcRecordRepository);
     cdcListeners.forEach(
         it -> Arrays.stream(it.acceptedTables()).forEach(
@@ -55,7 +78,18 @@ public class CdcDispatcher {
     return tableIdToListeners.keySet();
   }
 
+  @PreDestroy
+  public void shutdown() {
+    executorService.shutdownNow();
+  }
+
+  /**
+   * Dispatches the records of one transaction. Each table's change set is prepared by the listeners on the dispatch
+   * pool, then applied on the calling thread in capture order, so the next transaction only starts once this one is
+   * applied. A table's change set is never split, so it still becomes a single master data event.
+   */
   public void doDispatch(List<CdcRecord> cdcRecords) {
+    List<CompletableFuture<List<Runnable>>> preparedTables = new ArrayList<>();
     cdcRecords.stream()
         .collect(Collectors.groupingBy(CdcRecord::tableId, LinkedHashMap::new, Collectors.toList()))
         .forEach(
@@ -64,10 +98,11 @@ public class CdcDispatcher {
               if (listeners.isEmpty()) {
                 log.warn("no listeners for table id: {}", tableId);
               }
-              for (CdcListener cdcListener : listeners) {
-                cdcListener.on(records);
-              }
+              preparedTables.add(CompletableFuture.supplyAsync(
+                  () -> listeners.stream().map(listener -> listener.prepare(records)).collect(Collectors.toList()),
+                  executorService));
             });
+    preparedTables.forEach(preparedTable -> preparedTable.join().forEach(Runnable::run));
   }
 
   @Transactional
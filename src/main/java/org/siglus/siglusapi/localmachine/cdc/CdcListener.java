@@ -20,5 +20,13 @@ import java.util.List;
 public interface CdcListener {
   void on(List<CdcRecord> records);
 
+  /**
+   * Handles the records of one table in two steps for the parallel dispatch: this method may run on a worker thread
+   * and the returned action is run on the dispatching thread, in capture order. By default all work is in the action.
+   */
+  default Runnable prepare(List<CdcRecord> records) {
+    return () -> on(records);
+  }
+
   String[] acceptedTables();
 }
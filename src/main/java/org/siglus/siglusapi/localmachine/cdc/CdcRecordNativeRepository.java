@@ -0,0 +1,62 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.siglus.siglusapi.localmachine.cdc;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.siglus.siglusapi.localmachine.cdc.CdcRecord.PayloadConverter;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+@RequiredArgsConstructor
+public class CdcRecordNativeRepository {
+
+  private final PayloadConverter payloadConverter = new PayloadConverter();
+  private final JdbcTemplate jdbcTemplate;
+
+  // records re-delivered after a restart (offsets not yet flushed) were persisted already, so they are skipped
+  @Transactional
+  public void batchInsertIgnoreExisted(List<CdcRecord> cdcRecords) {
+    jdbcTemplate.batchUpdate("insert into localmachine.cdc_records "
+            + "(lsn, txid, tablename, schemaname, operationcode, capturedat, payload) "
+            + "values (?, ?, ?, ?, ?, ?, ?) "
+            + "on conflict (lsn) do nothing",
+        new BatchPreparedStatementSetter() {
+          @Override
+          public void setValues(PreparedStatement ps, int i) throws SQLException {
+            CdcRecord cdcRecord = cdcRecords.get(i);
+            ps.setLong(1, cdcRecord.getId());
+            ps.setLong(2, cdcRecord.getTxId());
+            ps.setString(3, cdcRecord.getTable());
+            ps.setString(4, cdcRecord.getSchema());
+            ps.setString(5, cdcRecord.getOperationCode());
+            ps.setTimestamp(6, Timestamp.from(cdcRecord.getCapturedAt().toInstant()));
+            ps.setBytes(7, payloadConverter.convertToDatabaseColumn(cdcRecord.getPayload()));
+          }
+
+          @Override
+          public int getBatchSize() {
+            return cdcRecords.size();
+          }
+        });
+  }
+}
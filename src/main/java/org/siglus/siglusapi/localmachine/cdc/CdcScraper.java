@@ -25,16 +25,21 @@ import com.google.common.collect.Maps;
 import io.debezium.config.Configuration;
 import io.debezium.embedded.Connect;
 import io.debezium.engine.DebeziumEngine;
+import io.debezium.engine.DebeziumEngine.RecordCommitter;
 import io.debezium.engine.RecordChangeEvent;
 import io.debezium.engine.format.ChangeEventFormat;
 import io.debezium.util.Strings;
 import java.io.IOException;
+import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.ExecutorService;
@@ -51,8 +56,6 @@ import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.source.SourceRecord;
 import org.siglus.siglusapi.localmachine.Machine;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 
 @Slf4j
 @Component
@@ -63,7 +66,7 @@ public class CdcScraper {
   private static final int DISPATCH_BUFFER_CAPACITY = 10240;
   private final AtomicLong currentTxId = new AtomicLong(DUMMY_TX_ID);
   private final Machine machine;
-  private final CdcRecordRepository cdcRecordRepository;
+  private final CdcRecordNativeRepository cdcRecordNativeRepository;
   final LinkedList<CdcRecord> dispatchBuffer = new LinkedList<>();
   final BlockingDeque<CdcRecord> dispatchQueueForOnlineWeb = new LinkedBlockingDeque<>(DISPATCH_BUFFER_CAPACITY);
   final BlockingDeque<Long> dispatchQueueForLocalMachine = new LinkedBlockingDeque<>();
@@ -79,41 +82,86 @@ public class CdcScraper {
 
   public CdcScraper(
       Machine machine,
-      CdcRecordRepository cdcRecordRepository,
+      CdcRecordNativeRepository cdcRecordNativeRepository,
       CdcDispatcher cdcDispatcher,
       ConfigBuilder baseConfig,
       PublicationPreparer publicationPreparer,
       OffsetBackingStoreWrapper offsetBackingStoreWrapper) {
     this.machine = machine;
-    this.cdcRecordRepository = cdcRecordRepository;
+    this.cdcRecordNativeRepository = cdcRecordNativeRepository;
     this.cdcDispatcher = cdcDispatcher;
     this.baseConfig = baseConfig;
     this.offsetBackingStoreWrapper = offsetBackingStoreWrapper;
     this.publicationPreparer = publicationPreparer;
   }
 
+  /**
+   * Handles a batch of change events from the engine. On the local machine the records of each source transaction
+   * are persisted in one batched insert, when the transaction ends or at the end of the batch, whichever comes
+   * first. The offsets are only committed after the whole batch is persisted, so the delivery stays at-least-once.
+   */
   @SneakyThrows
-  @Transactional(propagation = Propagation.REQUIRES_NEW)
-  public void handleChangeEvent(RecordChangeEvent<SourceRecord> sourceRecordRecordChangeEvent) {
+  public void handleChangeEvents(List<RecordChangeEvent<SourceRecord>> changeEvents,
+      RecordCommitter<RecordChangeEvent<SourceRecord>> committer) {
+    List<CdcRecord> currentTxRecords = new ArrayList<>();
+    for (RecordChangeEvent<SourceRecord> changeEvent : changeEvents) {
+      CdcRecord cdcRecord = toCdcRecord(changeEvent);
+      if (Objects.isNull(cdcRecord)) {
+        continue;
+      }
+      if (machine.isOnlineWeb()) {
+        dispatchQueueForOnlineWeb.put(cdcRecord);
+        continue;
+      }
+      if (!currentTxRecords.isEmpty() && !currentTxRecords.get(0).getTxId().equals(cdcRecord.getTxId())) {
+        persistAndMayDispatch(currentTxRecords);
+        currentTxRecords = new ArrayList<>();
+      }
+      currentTxRecords.add(cdcRecord);
+    }
+    persistAndMayDispatch(currentTxRecords);
+    for (RecordChangeEvent<SourceRecord> changeEvent : changeEvents) {
+      committer.markProcessed(changeEvent);
+    }
+    committer.markBatchFinished();
+  }
+
+  private CdcRecord toCdcRecord(RecordChangeEvent<SourceRecord> sourceRecordRecordChangeEvent) {
     SourceRecord sourceRecord = sourceRecordRecordChangeEvent.record();
     Struct sourceRecordChangeValue = (Struct) sourceRecord.value();
     if (Objects.isNull(sourceRecordChangeValue)) {
       log.info("receive null source record value");
-      return;
+      return null;
     }
     Operation operation = Operation.forCode((String) sourceRecordChangeValue.get(OPERATION));
     if (operation == Operation.READ) {
-      return;
+      return null;
     }
     Map<String, Object> payload = extractPayload(sourceRecordChangeValue, operation);
     CdcRecord cdcRecord = buildCdcRecord(sourceRecord, operation, payload);
-    log.info("receive cdc record: {}, payload: {} operation: {}", sourceRecord, payload, operation.name());
-    if (machine.isOnlineWeb()) {
-      dispatchQueueForOnlineWeb.put(cdcRecord);
-    } else {
-      cdcRecordRepository.saveAndFlush(cdcRecord);
-      mayNeedToDispatch(cdcRecord.getTxId());
+    log.debug("receive cdc record: {}, operation: {}", sourceRecord.sourceOffset(), operation.name());
+    return cdcRecord;
+  }
+
+  private void persistAndMayDispatch(List<CdcRecord> txRecords) throws InterruptedException {
+    if (txRecords.isEmpty()) {
+      return;
     }
+    Long txId = txRecords.get(0).getTxId();
+    log.info("persist {} cdc records of tx {}", txRecords.size(), txId);
+    cdcRecordNativeRepository.batchInsertIgnoreExisted(txRecords);
+    mayNeedToDispatch(txId);
+  }
+
+  public int getDispatchQueueDepth() {
+    return dispatchQueueForOnlineWeb.size() + dispatchQueueForLocalMachine.size();
+  }
+
+  // only the online web queue holds the records, the local machine one just the ids of persisted transactions
+  public long getDispatchLagSeconds() {
+    return Optional.ofNullable(dispatchQueueForOnlineWeb.peekFirst())
+        .map(oldest -> Duration.between(oldest.getCapturedAt(), ZonedDateTime.now()).getSeconds())
+        .orElse(0L);
   }
 
   void mayNeedToDispatch(Long txId) throws InterruptedException {
@@ -185,7 +233,7 @@ public class CdcScraper {
     this.debeziumEngine =
         DebeziumEngine.create(ChangeEventFormat.of(Connect.class))
             .using(config.asProperties())
-            .notifying(this::handleChangeEvent)
+            .notifying(this::handleChangeEvents)
             .build();
     this.executor.execute(debeziumEngine);
     if (machine.isOnlineWeb()) {
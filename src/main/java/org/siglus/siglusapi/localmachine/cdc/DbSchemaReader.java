@@ -27,9 +27,21 @@ import io.debezium.connector.postgresql.connection.PostgresDefaultValueConverter
 import io.debezium.relational.TableId;
 import io.debezium.schema.TopicSelector;
 import java.nio.charset.Charset;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
 import lombok.SneakyThrows;
 
 public class DbSchemaReader extends PostgresSchema {
+  private static final String UNIQUE_INDEXED_TABLES_SQL = "SELECT DISTINCT n.nspname, c.relname FROM pg_index i "
+      + "JOIN pg_class c ON c.oid = i.indrelid JOIN pg_namespace n ON n.oid = c.relnamespace "
+      + "WHERE i.indisunique AND NOT i.indisprimary";
+  private static final String SELF_REFERENCING_TABLES_SQL = "SELECT DISTINCT n.nspname, c.relname FROM pg_constraint f "
+      + "JOIN pg_class c ON c.oid = f.conrelid JOIN pg_namespace n ON n.oid = c.relnamespace "
+      + "WHERE f.contype = 'f' AND f.conrelid = f.confrelid";
+  private final Set<String> uniqueIndexedTables = new HashSet<>();
+  private final Set<String> selfReferencingTables = new HashSet<>();
+
   private DbSchemaReader(
       PostgresConnectorConfig config,
       TypeRegistry typeRegistry,
@@ -71,6 +83,40 @@ public class DbSchemaReader extends PostgresSchema {
   @Override
   protected DbSchemaReader refresh(PostgresConnection connection, boolean printReplicaIdentityInfo) {
     super.refresh(connection, printReplicaIdentityInfo);
+    Set<String> uniqueIndexed = queryTables(connection, UNIQUE_INDEXED_TABLES_SQL);
+    Set<String> selfReferencing = queryTables(connection, SELF_REFERENCING_TABLES_SQL);
+    uniqueIndexedTables.clear();
+    uniqueIndexedTables.addAll(uniqueIndexed);
+    selfReferencingTables.clear();
+    selfReferencingTables.addAll(selfReferencing);
     return this;
   }
+
+  private static Set<String> queryTables(PostgresConnection connection, String sql) throws SQLException {
+    Set<String> tables = new HashSet<>();
+    connection.query(sql, rs -> {
+      while (rs.next()) {
+        tables.add(rs.getString(1) + "." + rs.getString(2));
+      }
+    });
+    return tables;
+  }
+
+  /**
+   * Whether the table has a unique index or constraint other than its primary key.
+   *
+   * @param tableFullName the table name qualified by its schema, as in {@link TableChangeEvent#getTableFullName()}
+   */
+  public boolean hasUniqueIndexBesidesPrimaryKey(String tableFullName) {
+    return uniqueIndexedTables.contains(tableFullName);
+  }
+
+  /**
+   * Whether the table has a foreign key to itself, like a parent id referencing another row of the same table.
+   *
+   * @param tableFullName the table name qualified by its schema, as in {@link TableChangeEvent#getTableFullName()}
+   */
+  public boolean hasForeignKeyToItself(String tableFullName) {
+    return selfReferencingTables.contains(tableFullName);
+  }
 }
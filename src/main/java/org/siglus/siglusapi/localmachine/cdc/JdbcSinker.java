@@ -15,20 +15,25 @@
 
 package org.siglus.siglusapi.localmachine.cdc;
 
-import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 
 import io.confluent.connect.jdbc.sink.JdbcSinkTask;
 import io.debezium.relational.TableId;
 import io.debezium.relational.TableSchema;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.PreDestroy;
 import lombok.SneakyThrows;
 import org.apache.kafka.connect.data.Field;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.sink.SinkRecord;
+import org.siglus.siglusapi.localmachine.cdc.TableChangeEvent.RowChangeEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -42,6 +47,7 @@ public class JdbcSinker {
   private final JdbcSinkerContext context;
   private final JdbcSinkTask jdbcSinkTask;
   private final SinkerConvertObjectUtil sinkerConvertObjectUtil;
+  private final Map<String, TableSink> tableSinks = new ConcurrentHashMap<>();
 
   public JdbcSinker(ConfigBuilder configBuilder, DbSchemaReader schemaReader,
       SinkerConvertObjectUtil sinkerConvertObjectUtil) {
@@ -74,49 +80,39 @@ public class JdbcSinker {
     }
   }
 
+  /**
+   * Only the last change of each row is kept, at the position where the row first changed, then the rows of each
+   * table are grouped by operation, so the sink task writes each table with one batched delete and one batched upsert
+   * instead of flushing on every switch. Tables are written in the order they first appear, so a row is still written
+   * after the rows it references in the tables changed before. Tables with a unique index besides the primary key or
+   * with a foreign key to themselves keep every change in source order, as a unique value swapped between rows or a
+   * row referencing another row of the same table conflicts once the changes are dropped or reordered.
+   */
   private Collection<SinkRecord> convertEvents(Collection<TableChangeEvent> events) {
-    return events.stream()
-        .map(it -> this.convertEvent(schemaReader, it))
-        .flatMap(Collection::stream)
-        .collect(toList());
+    Map<String, TableRecords> recordsPerTable = new LinkedHashMap<>();
+    for (TableChangeEvent event : events) {
+      String tableFullName = event.getTableFullName();
+      TableRecords tableRecords = recordsPerTable.computeIfAbsent(tableFullName,
+          tableId -> new TableRecords(schemaReader.hasUniqueIndexBesidesPrimaryKey(tableFullName)
+              || schemaReader.hasForeignKeyToItself(tableFullName)));
+      convertEvent(schemaReader, event).forEach(tableRecords::add);
+    }
+    List<SinkRecord> sinkRecords = new ArrayList<>();
+    recordsPerTable.values().forEach(tableRecords -> tableRecords.appendTo(sinkRecords));
+    return sinkRecords;
   }
 
   List<SinkRecord> convertEvent(DbSchemaReader schemaReader, TableChangeEvent event) {
-    TableId tableId = new TableId("", event.getSchemaName(), event.getTableName());
-    TableSchema tableSchema = schemaReader.schemaFor(tableId);
-    List<String> keyColumns =
-        tableSchema.keySchema().fields().stream().map(Field::name).collect(toList());
-    return event.getRowChangeEvents().stream()
-        .map(
-            row -> {
-              List<String> columns = event.getColumns();
-              List<?> values = row.getValues();
-              // key is identifier of the row
-              Struct keyStruct = new Struct(tableSchema.keySchema());
-              // values are value of all columns
-              Struct valueStruct = new Struct(tableSchema.valueSchema());
-              for (int i = 0; i < columns.size(); i++) {
-                String column = columns.get(i);
-                Field field = valueStruct.schema().field(column);
-                Object value = sinkerConvertObjectUtil.convertObjectByType(field.schema(), values.get(i));
-                if (keyColumns.contains(column)) {
-                  keyStruct.put(column, value);
-                } else if (!row.isDeletion()) {
-                  valueStruct.put(column, value);
-                  // for deletion record, the value may be truncated to zero and lost correct type,
-                  // so don't put it in struct otherwise may cause validation failure.
-                }
-              }
-              String topic = tableId.identifier();
-              Schema valueSchema = valueStruct.schema();
-              if (row.isDeletion()) {
-                // make the valueStruct to null as a flag of deletion
-                valueStruct = null;
-              }
-              return new SinkRecord(
-                  topic, 0, keyStruct.schema(), keyStruct, valueSchema, valueStruct, 0);
-            })
-        .collect(toList());
+    TableSink tableSink = tableSinks.get(event.getTableFullName());
+    if (tableSink == null || !tableSink.columns.equals(event.getColumns())) {
+      tableSink = new TableSink(schemaReader, event);
+      tableSinks.put(event.getTableFullName(), tableSink);
+    }
+    List<SinkRecord> sinkRecords = new ArrayList<>(event.getRowChangeEvents().size());
+    for (RowChangeEvent row : event.getRowChangeEvents()) {
+      sinkRecords.add(tableSink.toSinkRecord(row));
+    }
+    return sinkRecords;
   }
 
   @PreDestroy
@@ -124,4 +120,80 @@ public class JdbcSinker {
     this.jdbcSinkTask.stop();
   }
 
+  private static class TableRecords {
+
+    private final List<SinkRecord> sourceOrderedRecords;
+    private final Map<Object, SinkRecord> lastChangeByKey;
+
+    TableRecords(boolean keepSourceOrder) {
+      this.sourceOrderedRecords = keepSourceOrder ? new ArrayList<>() : null;
+      this.lastChangeByKey = keepSourceOrder ? null : new LinkedHashMap<>();
+    }
+
+    void add(SinkRecord sinkRecord) {
+      if (sourceOrderedRecords != null) {
+        sourceOrderedRecords.add(sinkRecord);
+      } else {
+        // replacing the value keeps the key at the position of its first change
+        lastChangeByKey.put(sinkRecord.key(), sinkRecord);
+      }
+    }
+
+    void appendTo(List<SinkRecord> sinkRecords) {
+      if (sourceOrderedRecords != null) {
+        sinkRecords.addAll(sourceOrderedRecords);
+        return;
+      }
+      // each key is left once and no other column is unique, so the rows can't conflict in any order
+      lastChangeByKey.values().stream().filter(it -> it.value() == null).forEach(sinkRecords::add);
+      lastChangeByKey.values().stream().filter(it -> it.value() != null).forEach(sinkRecords::add);
+    }
+  }
+
+  // the schema reader is loaded once on startup, so the per-table schema and column mapping never go stale
+  private class TableSink {
+
+    private final String topic;
+    private final List<String> columns;
+    private final Schema keySchema;
+    private final Schema valueSchema;
+    private final Field[] fields;
+    private final boolean[] keyColumns;
+
+    TableSink(DbSchemaReader schemaReader, TableChangeEvent event) {
+      TableId tableId = new TableId("", event.getSchemaName(), event.getTableName());
+      TableSchema tableSchema = schemaReader.schemaFor(tableId);
+      this.topic = tableId.identifier();
+      this.columns = event.getColumns();
+      this.keySchema = tableSchema.keySchema();
+      this.valueSchema = tableSchema.valueSchema();
+      Set<String> keyColumnNames = keySchema.fields().stream().map(Field::name).collect(toSet());
+      this.fields = new Field[columns.size()];
+      this.keyColumns = new boolean[columns.size()];
+      for (int i = 0; i < columns.size(); i++) {
+        fields[i] = valueSchema.field(columns.get(i));
+        keyColumns[i] = keyColumnNames.contains(columns.get(i));
+      }
+    }
+
+    SinkRecord toSinkRecord(RowChangeEvent row) {
+      List<?> values = row.getValues();
+      // key is identifier of the row
+      Struct keyStruct = new Struct(keySchema);
+      // values are value of all columns
+      Struct valueStruct = new Struct(valueSchema);
+      for (int i = 0; i < fields.length; i++) {
+        Object value = sinkerConvertObjectUtil.convertObjectByType(fields[i].schema(), values.get(i));
+        if (keyColumns[i]) {
+          keyStruct.put(fields[i].name(), value);
+        } else if (!row.isDeletion()) {
+          valueStruct.put(fields[i].name(), value);
+          // for deletion record, the value may be truncated to zero and lost correct type,
+          // so don't put it in struct otherwise may cause validation failure.
+        }
+      }
+      // make the valueStruct to null as a flag of deletion
+      return new SinkRecord(topic, 0, keySchema, keyStruct, valueSchema, row.isDeletion() ? null : valueStruct, 0);
+    }
+  }
 }
@@ -0,0 +1,112 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.siglus.siglusapi.localmachine.event.masterdata;
+
+import static org.siglus.siglusapi.constant.CacheConstants.SIGLUS_APPROVED_PRODUCTS;
+import static org.siglus.siglusapi.constant.CacheConstants.SIGLUS_APPROVED_PRODUCTS_BY_ORDERABLES;
+import static org.siglus.siglusapi.constant.CacheConstants.SIGLUS_DESTINATIONS;
+import static org.siglus.siglusapi.constant.CacheConstants.SIGLUS_FACILITY;
+import static org.siglus.siglusapi.constant.CacheConstants.SIGLUS_KIT_ORDERABLE_IDS;
+import static org.siglus.siglusapi.constant.CacheConstants.SIGLUS_ORDERABLES;
+import static org.siglus.siglusapi.constant.CacheConstants.SIGLUS_PROCESSING_PERIOD_EXTENSION;
+import static org.siglus.siglusapi.constant.CacheConstants.SIGLUS_PROGRAM;
+import static org.siglus.siglusapi.constant.CacheConstants.SIGLUS_PROGRAMS;
+import static org.siglus.siglusapi.constant.CacheConstants.SIGLUS_PROGRAM_BY_CODE;
+import static org.siglus.siglusapi.constant.CacheConstants.SIGLUS_PROGRAM_ORDERABLES;
+import static org.siglus.siglusapi.constant.CacheConstants.SIGLUS_REASONS;
+import static org.siglus.siglusapi.constant.CacheConstants.SIGLUS_REQUISITION_GROUPS;
+import static org.siglus.siglusapi.constant.CacheConstants.SIGLUS_SOURCES;
+import static org.siglus.siglusapi.constant.CacheConstants.SIGLUS_USER;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * The siglus caches built from each captured master data table, so a replay only evicts the caches its changes can
+ * affect. A table not listed here clears all siglus caches, so a newly captured table is never served stale.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class MasterDataCacheDependencies {
+
+  private static final Map<String, Set<String>> tableToCacheNames = new HashMap<>();
+
+  static {
+    dependsOn(SIGLUS_PROGRAMS, "referencedata.programs");
+    dependsOn(SIGLUS_PROGRAM, "referencedata.programs");
+    dependsOn(SIGLUS_PROGRAM_BY_CODE, "referencedata.programs");
+    dependsOn(SIGLUS_PROGRAM_ORDERABLES, "referencedata.program_orderables");
+    dependsOn(SIGLUS_KIT_ORDERABLE_IDS, "referencedata.orderables");
+    dependsOn(SIGLUS_PROCESSING_PERIOD_EXTENSION, "siglusintegration.processing_period_extension");
+    dependsOn(SIGLUS_ORDERABLES, "referencedata.orderables", "referencedata.program_orderables",
+        "referencedata.programs", "referencedata.dispensables", "referencedata.dispensable_attributes",
+        "referencedata.orderable_display_categories", "referencedata.orderable_identifiers",
+        "referencedata.orderable_children", "referencedata.trade_items");
+    for (String approvedProducts : Arrays.asList(SIGLUS_APPROVED_PRODUCTS, SIGLUS_APPROVED_PRODUCTS_BY_ORDERABLES)) {
+      dependsOn(approvedProducts, "referencedata.facility_type_approved_products", "referencedata.facility_types",
+          "referencedata.orderables", "referencedata.program_orderables", "referencedata.programs",
+          "referencedata.dispensables", "referencedata.dispensable_attributes",
+          "referencedata.orderable_display_categories", "referencedata.orderable_identifiers",
+          "referencedata.orderable_children");
+    }
+    dependsOn(SIGLUS_FACILITY, "referencedata.facilities", "referencedata.facility_types",
+        "referencedata.geographic_zones", "referencedata.geographic_levels", "referencedata.supported_programs",
+        "referencedata.programs", "siglusintegration.facility_extension");
+    dependsOn(SIGLUS_REQUISITION_GROUPS, "referencedata.requisition_groups",
+        "referencedata.requisition_group_members", "referencedata.requisition_group_program_schedules",
+        "referencedata.processing_schedules", "referencedata.supervisory_nodes", "referencedata.facilities",
+        "referencedata.facility_types", "referencedata.geographic_zones", "referencedata.geographic_levels",
+        "referencedata.supported_programs", "referencedata.programs");
+    dependsOn(SIGLUS_REASONS, "stockmanagement.valid_reason_assignments",
+        "stockmanagement.stock_card_line_item_reasons", "stockmanagement.stock_card_line_item_reason_tags");
+    for (String sourcesOrDestinations : Arrays.asList(SIGLUS_SOURCES, SIGLUS_DESTINATIONS)) {
+      dependsOn(sourcesOrDestinations, "stockmanagement.valid_source_assignments",
+          "stockmanagement.valid_destination_assignments", "stockmanagement.nodes", "stockmanagement.organizations",
+          "referencedata.facilities");
+    }
+    dependsOn(SIGLUS_USER, "auth.auth_users", "notification.user_contact_details", "referencedata.users",
+        "referencedata.roles", "referencedata.rights", "referencedata.role_rights", "referencedata.role_assignments",
+        "referencedata.right_assignments", "referencedata.supervisory_nodes");
+    noCacheDependsOn("fulfillment.configuration_settings", "fulfillment.order_number_configurations",
+        "fulfillment.file_templates", "fulfillment.file_columns", "notification.email_verification_tokens",
+        "notification.digest_configurations", "referencedata.processing_periods", "referencedata.supply_lines",
+        "referencedata.system_notifications", "report.jasper_templates", "report.jaspertemplate_requiredrights",
+        "report.template_parameters", "stockmanagement.available_stock_card_fields",
+        "stockmanagement.available_stock_card_line_item_fields", "stockmanagement.jasper_templates");
+  }
+
+  private static void dependsOn(String cacheName, String... tableFullNames) {
+    for (String tableFullName : tableFullNames) {
+      tableToCacheNames.computeIfAbsent(tableFullName, table -> new HashSet<>()).add(cacheName);
+    }
+  }
+
+  private static void noCacheDependsOn(String... tableFullNames) {
+    for (String tableFullName : tableFullNames) {
+      tableToCacheNames.putIfAbsent(tableFullName, new HashSet<>());
+    }
+  }
+
+  static Optional<Set<String>> cacheNamesOf(String tableFullName) {
+    return Optional.ofNullable(tableToCacheNames.get(tableFullName)).map(Collections::unmodifiableSet);
+  }
+}
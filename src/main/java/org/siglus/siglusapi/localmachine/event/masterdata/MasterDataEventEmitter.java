@@ -31,7 +31,11 @@ import org.siglus.siglusapi.localmachine.server.OnlineWebService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Component
 @RequiredArgsConstructor
@@ -47,6 +51,8 @@ public class MasterDataEventEmitter implements CdcListener {
   private CdcRecordMapper cdcRecordMapper;
   @Autowired
   private UserRepository userRepository;
+  @Autowired
+  private PlatformTransactionManager transactionManager;
   private static final String USER_ID = "userid";
   private static final String REFERENCE_DATA = "referencedata";
   private static final String RIGHT_ASSIGNMENTS = "right_assignments";
@@ -143,6 +149,20 @@ public class MasterDataEventEmitter implements CdcListener {
     evictIncompatibleMasterDataSnapshots(records);
   }
 
+  @Override
+  public Runnable prepare(List<CdcRecord> records) {
+    Runnable emit = eventPublisher.prepareMasterDataEvent(
+        new MasterDataTableChangeEvent(cdcRecordMapper.buildEvents(records)), null);
+    // the action is not called through the proxy, so it opens the transaction that on() gets from @Transactional
+    return () -> new TransactionTemplate(transactionManager).execute(new TransactionCallbackWithoutResult() {
+      @Override
+      protected void doInTransactionWithoutResult(TransactionStatus status) {
+        emit.run();
+        evictIncompatibleMasterDataSnapshots(records);
+      }
+    });
+  }
+
   void evictIncompatibleMasterDataSnapshots(List<CdcRecord> records) {
     List<String> snapshotIncompatibleTableIds =
         records.stream()
@@ -15,11 +15,13 @@
 
 package org.siglus.siglusapi.localmachine.event.masterdata;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
-import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.BooleanUtils;
 import org.siglus.siglusapi.domain.FacilityExtension;
 import org.siglus.siglusapi.localmachine.Machine;
@@ -54,17 +56,26 @@ public class MasterDataEventReplayer {
     List<TableChangeEvent> tableChangeEvents = masterDataTableChangeEvent.getTableChangeEvents();
     resetDraftAndLocationWhenToggledLocationManagement(tableChangeEvents);
     jdbcSinker.sink(tableChangeEvents);
-    if (needClearCache(tableChangeEvents)) {
-      siglusCacheService.invalidateCache();
-    }
+    invalidateAffectedCaches(tableChangeEvents);
   }
 
-  private boolean needClearCache(List<TableChangeEvent> tableChangeEvents) {
-    if (CollectionUtils.isEmpty(tableChangeEvents)) {
-      return false;
+  private void invalidateAffectedCaches(List<TableChangeEvent> tableChangeEvents) {
+    Set<String> affectedCacheNames = new HashSet<>();
+    for (TableChangeEvent tableChangeEvent : tableChangeEvents) {
+      String tableFullName = tableChangeEvent.getTableFullName();
+      if (MasterDataEventEmitter.doNotClearCacheTableNames.contains(tableFullName)) {
+        continue;
+      }
+      Optional<Set<String>> cacheNames = MasterDataCacheDependencies.cacheNamesOf(tableFullName);
+      if (!cacheNames.isPresent()) {
+        siglusCacheService.invalidateCache();
+        return;
+      }
+      affectedCacheNames.addAll(cacheNames.get());
+    }
+    if (!affectedCacheNames.isEmpty()) {
+      siglusCacheService.invalidateCache(affectedCacheNames);
     }
-    String tableFullName = tableChangeEvents.get(0).getTableFullName();
-    return !MasterDataEventEmitter.doNotClearCacheTableNames.contains(tableFullName);
   }
 
   private void resetDraftAndLocationWhenToggledLocationManagement(List<TableChangeEvent> tableChangeEvents) {
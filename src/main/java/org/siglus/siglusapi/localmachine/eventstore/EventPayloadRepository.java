@@ -15,17 +15,9 @@
 
 package org.siglus.siglusapi.localmachine.eventstore;
 
-import java.util.List;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 
 public interface EventPayloadRepository extends JpaRepository<EventPayload, UUID> {
 
-  @Modifying
-  @Query(value = "DELETE FROM localmachine.event_payload WHERE eventid IN :eventIds", nativeQuery = true)
-  void deleteByEventIds(@Param("eventIds") List<UUID> eventIds);
-
 }
@@ -92,6 +92,7 @@ public class EventRecord {
   }
 
   public Event toEvent(Function<byte[], Object> payloadMapper) {
+    byte[] storedPayload = payload;
     return Event.builder()
         .id(id)
         .protocolVersion(protocolVersion)
@@ -101,7 +102,7 @@ public class EventRecord {
         .receiverId(receiverId)
         .groupId(groupId)
         .parentId(parentId)
-        .payload(payloadMapper.apply(payload))
+        .payloadLoader(() -> payloadMapper.apply(storedPayload))
         .onlineWebSynced(onlineWebSynced)
         .receiverSynced(receiverSynced)
         .localReplayed(localReplayed)
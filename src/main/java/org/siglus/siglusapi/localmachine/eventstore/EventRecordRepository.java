@@ -15,6 +15,7 @@
 
 package org.siglus.siglusapi.localmachine.eventstore;
 
+import java.time.ZonedDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -31,6 +32,9 @@ public interface EventRecordRepository extends JpaRepository<EventRecord, UUID>,
 
   Stream<EventRecord> streamByLocalReplayedOrderBySyncedTime(Boolean localReplayed);
 
+  @Query("select min(e.syncedTime) from EventRecord e where e.localReplayed = false")
+  ZonedDateTime findOldestNotReplayedSyncedTime();
+
   EventRecord findTopByOnlineWebSynced(boolean onlineWebSynced);
 
   List<EventRecord> findTop100ByOnlineWebSyncedAndArchivedOrderByOccurredTimeAsc(
@@ -38,12 +42,19 @@ public interface EventRecordRepository extends JpaRepository<EventRecord, UUID>,
 
   List<EventRecord> findEventRecordByGroupId(String groupId);
 
-  @Query(value = "select * from localmachine.events e left join"
-      + " localmachine.event_payload p on e.id=p.eventid "
-      + " where e.groupid=:groupId and e.localreplayed=false and e.id not in "
-      + " (select e2.parentid from localmachine.events e2 where e2.groupid=:groupId and e2.parentid is not null)",
+  // walks up from the not replayed leaves until the first replayed ancestor (included), ancestors first
+  @Query(value = "with recursive chain(id, parentid, localreplayed, depth) as ("
+      + "select e.id, e.parentid, e.localreplayed, 0 from localmachine.events e "
+      + "where e.groupid=:groupId and e.localreplayed=false and e.id not in "
+      + "(select e2.parentid from localmachine.events e2 where e2.groupid=:groupId and e2.parentid is not null) "
+      + "union all "
+      + "select p.id, p.parentid, p.localreplayed, c.depth + 1 from localmachine.events p "
+      + "join chain c on p.id=c.parentid where c.localreplayed=false) "
+      + "select e.*, ep.* from localmachine.events e left join localmachine.event_payload ep on e.id=ep.eventid "
+      + "join (select id, max(depth) as depth from chain group by id) c on e.id=c.id "
+      + "order by c.depth desc, e.syncedtime",
       nativeQuery = true)
-  List<EventRecord> findNotReplayedLeafNodeIdsInGroup(@Param("groupId") String groupId);
+  List<EventRecord> findNotReplayedEventChainsInGroup(@Param("groupId") String groupId);
 
   @Modifying
   @Query(
@@ -74,7 +85,26 @@ public interface EventRecordRepository extends JpaRepository<EventRecord, UUID>,
       nativeQuery = true)
   List<EventRecord> findEventsForReceiver(@Param("receiverId") UUID receiverId, @Param("limit") int limit);
 
-  List<EventRecord> findFirst100ByArchivedFalseAndReceiverSyncedTrueAndOnlineWebSyncedTrueAndLocalReplayedTrue();
+  @Query(
+      value = "select * from localmachine.events e left join localmachine.event_payload ep on e.id=ep.eventid "
+          + "where e.id in ("
+          + "select id from ("
+          + "select id, sum(payloadsize) over (order by syncedtime, id) - payloadsize as precedingsize from ("
+          + "select ce.id, ce.syncedtime, coalesce(octet_length(cep.payload), 0) as payloadsize "
+          + "from localmachine.events ce left join localmachine.event_payload cep on ce.id=cep.eventid "
+          + "where ce.receiverid=:receiverId and ce.receiversynced=false and ce.archived=false "
+          + "order by ce.syncedtime limit :limit) candidates) sized "
+          + "where precedingsize < :capacityBytes) "
+          + "order by e.syncedtime",
+      nativeQuery = true)
+  List<EventRecord> findEventsForReceiverWithinCapacity(@Param("receiverId") UUID receiverId,
+      @Param("capacityBytes") long capacityBytes, @Param("limit") int limit);
+
+  @Query(
+      value = "select count(*) from localmachine.events "
+          + "where receiverid=:receiverId and receiversynced=false and archived=false",
+      nativeQuery = true)
+  long countEventsForReceiver(@Param("receiverId") UUID receiverId);
 
   @Query(value = "select cast(id as varchar) \n"
       + "from localmachine.events e \n"
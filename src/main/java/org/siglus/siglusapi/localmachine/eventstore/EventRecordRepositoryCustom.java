@@ -15,9 +15,20 @@
 
 package org.siglus.siglusapi.localmachine.eventstore;
 
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
 public interface EventRecordRepositoryCustom {
 
   void importExternalEvent(EventRecord eventRecord);
 
+  /**
+   * Inserts the events and their payloads, skipping the ones whose id already exists.
+   *
+   * @return ids of the events actually inserted
+   */
+  Set<UUID> importExternalEvents(List<EventRecord> eventRecords);
+
   void insertAndAllocateLocalSequenceNumber(EventRecord eventRecord);
 }
@@ -15,17 +15,37 @@
 
 package org.siglus.siglusapi.localmachine.eventstore;
 
+import com.google.common.collect.Lists;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
+import org.hibernate.Session;
 
 @RequiredArgsConstructor
 public class EventRecordRepositoryImpl implements EventRecordRepositoryCustom {
+  // keeps every multi-row insert well below the 32767 bind parameters postgres accepts per statement
+  private static final int IMPORT_BATCH_SIZE = 500;
+  private static final String POSTGRESQL = "PostgreSQL";
+  private static final List<String> IMPORT_COLUMNS = Arrays.asList("id", "protocolversion", "localsequencenumber",
+      "senderid", "receiverid", "groupid", "parentid", "onlinewebsynced", "receiversynced", "localreplayed",
+      "archived", "occurredtime", "syncedtime", "category");
   private final EntityManager entityManager;
 
   @Override
@@ -35,6 +55,21 @@ public class EventRecordRepositoryImpl implements EventRecordRepositoryCustom {
     entityManager.detach(eventRecord);
   }
 
+  @Override
+  public Set<UUID> importExternalEvents(List<EventRecord> eventRecords) {
+    Set<UUID> insertedIds = new HashSet<>();
+    for (List<EventRecord> batch : Lists.partition(eventRecords, IMPORT_BATCH_SIZE)) {
+      entityManager.unwrap(Session.class).doWork(connection -> {
+        Set<UUID> batchInsertedIds = insertEvents(connection, batch);
+        insertPayloads(connection, batch.stream()
+            .filter(it -> batchInsertedIds.contains(it.getId()))
+            .collect(Collectors.toList()));
+        insertedIds.addAll(batchInsertedIds);
+      });
+    }
+    return insertedIds;
+  }
+
   @Override
   public void insertAndAllocateLocalSequenceNumber(EventRecord eventRecord) {
     LinkedList<Pair<String, Object>> fields = new LinkedList<>();
@@ -74,4 +109,78 @@ public class EventRecordRepositoryImpl implements EventRecordRepositoryCustom {
         + placeHolderSection
         + ")";
   }
+
+  private static Set<UUID> insertEvents(Connection connection, List<EventRecord> eventRecords) throws SQLException {
+    String sql = "INSERT INTO localmachine.events(" + StringUtils.join(IMPORT_COLUMNS, ",") + ") VALUES "
+        + StringUtils.repeat("(" + StringUtils.repeat("?", ",", IMPORT_COLUMNS.size()) + ")", ",",
+        eventRecords.size())
+        + onConflictDoNothing(connection, "id");
+    Set<UUID> insertedIds = new HashSet<>();
+    // the generated keys only hold the rows actually inserted, the conflicting ones are skipped
+    try (PreparedStatement ps = connection.prepareStatement(sql, new String[] {"id"})) {
+      int index = 1;
+      for (EventRecord eventRecord : eventRecords) {
+        ps.setObject(index++, eventRecord.getId());
+        ps.setInt(index++, eventRecord.getProtocolVersion());
+        ps.setObject(index++, eventRecord.getLocalSequenceNumber(), Types.BIGINT);
+        setUuid(ps, index++, eventRecord.getSenderId());
+        setUuid(ps, index++, eventRecord.getReceiverId());
+        ps.setString(index++, eventRecord.getGroupId());
+        setUuid(ps, index++, eventRecord.getParentId());
+        ps.setBoolean(index++, eventRecord.isOnlineWebSynced());
+        ps.setBoolean(index++, eventRecord.isReceiverSynced());
+        ps.setBoolean(index++, eventRecord.isLocalReplayed());
+        ps.setBoolean(index++, eventRecord.isArchived());
+        ps.setTimestamp(index++, toTimestamp(eventRecord.getOccurredTime()));
+        ps.setTimestamp(index++, toTimestamp(eventRecord.getSyncedTime()));
+        ps.setString(index++, eventRecord.getCategory());
+      }
+      ps.executeUpdate();
+      try (ResultSet resultSet = ps.getGeneratedKeys()) {
+        while (resultSet.next()) {
+          insertedIds.add(UUID.fromString(resultSet.getString(1)));
+        }
+      }
+    }
+    return insertedIds;
+  }
+
+  private static void insertPayloads(Connection connection, List<EventRecord> eventRecords) throws SQLException {
+    if (eventRecords.isEmpty()) {
+      return;
+    }
+    String sql = "INSERT INTO localmachine.event_payload(eventid, payload) VALUES "
+        + StringUtils.repeat("(?,?)", ",", eventRecords.size())
+        + onConflictDoNothing(connection, "eventid");
+    try (PreparedStatement ps = connection.prepareStatement(sql)) {
+      int index = 1;
+      for (EventRecord eventRecord : eventRecords) {
+        ps.setObject(index++, eventRecord.getId());
+        ps.setBytes(index++, eventRecord.getPayload());
+      }
+      ps.executeUpdate();
+    }
+  }
+
+  // only the primary key conflict is skipped, any other unique violation still fails the import. h2, which runs the
+  // integration tests in postgres mode, only takes the untargeted form, and its test schema has no other unique key
+  private static String onConflictDoNothing(Connection connection, String conflictColumn) throws SQLException {
+    if (POSTGRESQL.equals(connection.getMetaData().getDatabaseProductName())) {
+      return " ON CONFLICT (" + conflictColumn + ") DO NOTHING";
+    }
+    return " ON CONFLICT DO NOTHING";
+  }
+
+  private static void setUuid(PreparedStatement ps, int index, UUID value) throws SQLException {
+    if (value == null) {
+      // untyped, so postgres takes the type of the column
+      ps.setNull(index, Types.OTHER);
+    } else {
+      ps.setObject(index, value);
+    }
+  }
+
+  private static Timestamp toTimestamp(ZonedDateTime zonedDateTime) {
+    return zonedDateTime == null ? null : Timestamp.from(zonedDateTime.toInstant());
+  }
 }
@@ -15,13 +15,13 @@
 
 package org.siglus.siglusapi.localmachine.eventstore;
 
+import java.time.ZonedDateTime;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.Spliterator;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -44,6 +44,7 @@ public class EventStore {
 
   static final int MASTER_DATA_EVENT_BATCH_LIMIT = 100;
   static final int PEERING_EVENT_BATCH_LIMIT = 8;
+  static final int PEERING_EVENT_CAPACITY_BATCH_LIMIT = 1000;
   private final EventRecordRepository repository;
   private final EventPayloadRepository eventPayloadRepository;
   private final MasterDataEventRecordRepository masterDataEventRecordRepository;
@@ -61,13 +62,20 @@ public class EventStore {
     eventPayloadRepository.saveAndFlush(new EventPayload(eventRecord.getId(), eventRecord.getPayload()));
   }
 
-  @SneakyThrows
   @Transactional
   public void emit(MasterDataEvent masterDataEvent) {
-    MasterDataEventRecord masterDataEventRecord = MasterDataEventRecord
-        .from(masterDataEvent, payloadSerializer.dump(masterDataEvent.getPayload()));
-    log.info("insert master data event emitted event:{}", masterDataEvent.getId());
-    if (masterDataEvent.getFacilityId() == null) {
+    emit(toMasterDataEventRecord(masterDataEvent));
+  }
+
+  @SneakyThrows
+  public MasterDataEventRecord toMasterDataEventRecord(MasterDataEvent masterDataEvent) {
+    return MasterDataEventRecord.from(masterDataEvent, payloadSerializer.dump(masterDataEvent.getPayload()));
+  }
+
+  @Transactional
+  public void emit(MasterDataEventRecord masterDataEventRecord) {
+    log.info("insert master data event emitted event:{}", masterDataEventRecord.getId());
+    if (masterDataEventRecord.getFacilityId() == null) {
       masterDataEventRecordRepository.insertMasterDataEvents(masterDataEventRecord);
     } else {
       masterDataEventRecordRepository.insertMarkFacilityIdMasterDataEvents(masterDataEventRecord);
@@ -86,6 +94,21 @@ public class EventStore {
         .collect(Collectors.toList());
   }
 
+  /**
+   * Returns the oldest events for the receiver whose payloads fit in the capacity, at least one event if there is
+   * any, so that a receiver catching up on a large backlog pulls as much as the bandwidth allows per request.
+   */
+  public List<Event> getEventsForReceiver(UUID receiverId, long capacityBytes) {
+    return repository.findEventsForReceiverWithinCapacity(receiverId, capacityBytes,
+            PEERING_EVENT_CAPACITY_BATCH_LIMIT).stream()
+        .map(it -> it.toEvent(payloadSerializer::load))
+        .collect(Collectors.toList());
+  }
+
+  public long countEventsForReceiver(UUID receiverId) {
+    return repository.countEventsForReceiver(receiverId);
+  }
+
   public List<Event> getEventsForExport(UUID facilityId) {
     List<UUID> exportEventIds = repository.findExportEventIds(facilityId).stream()
         .map(UUID::fromString)
@@ -124,6 +147,30 @@ public class EventStore {
     emitAckForEvent(event);
   }
 
+  /**
+   * Bulk version of {@link #importQuietly(Event)}: existing events are skipped instead of failing the import, and
+   * the acks of all the given events are emitted in one go, as importQuietly and its duplicate handling do.
+   *
+   * @return the events actually imported
+   */
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public List<Event> importAllQuietly(List<Event> events) {
+    if (events.isEmpty()) {
+      return events;
+    }
+    List<EventRecord> eventRecords = events.stream()
+        .map(it -> EventRecord.from(it, payloadSerializer.dump(it.getPayload())))
+        .collect(Collectors.toList());
+    Set<UUID> insertedIds = repository.importExternalEvents(eventRecords);
+    log.info("import events, inserted:{}, skipped existing:{}", insertedIds.size(),
+        events.size() - insertedIds.size());
+    Set<Ack> acks = events.stream().map(Event::getAck).filter(Objects::nonNull).collect(Collectors.toSet());
+    if (!acks.isEmpty()) {
+      saveAcks(acks);
+    }
+    return events.stream().filter(it -> insertedIds.contains(it.getId())).collect(Collectors.toList());
+  }
+
   @Transactional
   public void emitAckForEvent(Event event) {
     if (Objects.nonNull(event.getAck())) {
@@ -137,17 +184,16 @@ public class EventStore {
         .collect(Collectors.toList());
   }
 
-  public List<Event> getNotReplayedLeafEventsInGroup(String groupId) {
-    return repository.findNotReplayedLeafNodeIdsInGroup(groupId).stream()
+  /**
+   * Loads the not replayed leaves of the group with all their ancestors up to the first replayed one in one query,
+   * ancestors before descendants, so a group can be replayed without loading its parents one by one.
+   */
+  public List<Event> getNotReplayedEventChainsInGroup(String groupId) {
+    return repository.findNotReplayedEventChainsInGroup(groupId).stream()
         .map(it -> it.toEvent(payloadSerializer::load))
         .collect(Collectors.toList());
   }
 
-  public Optional<Event> findEvent(UUID parentId) {
-    return Optional.ofNullable(repository.findOne(parentId))
-        .map(it -> it.toEvent(payloadSerializer::load));
-  }
-
   @Transactional
   public void confirmReplayed(Event event) {
     log.info("mark event replayed:{}", event.getId());
@@ -193,6 +239,10 @@ public class EventStore {
     return nonExistEvents;
   }
 
+  public Optional<ZonedDateTime> getOldestNotReplayedSyncedTime() {
+    return Optional.ofNullable(repository.findOldestNotReplayedSyncedTime());
+  }
+
   public Stream<Event> streamNotReplayedEvents() {
     return repository
         .streamByLocalReplayedOrderBySyncedTime(Boolean.FALSE)
@@ -228,25 +278,8 @@ public class EventStore {
     saveAcks(acks);
   }
 
-  @Transactional
   public List<MasterDataEventRecord> getMasterDataRecords(Long offset, UUID facilityId, int limit) {
-    LinkedList<MasterDataEventRecord> bufferedMasterDataRecords = new LinkedList<>();
-    Spliterator<MasterDataEventRecord> spliterator =
-        masterDataEventRecordRepository
-            .streamMasterDataEventRecordsByIdAfterOrderById(offset)
-            .sequential()
-            .spliterator();
-    boolean hasNext;
-    do {
-      hasNext =
-          spliterator.tryAdvance(
-              it -> {
-                if (filterMasterDataEventRecord(it, facilityId)) {
-                  bufferedMasterDataRecords.add(it);
-                }
-              });
-    } while (hasNext && bufferedMasterDataRecords.size() < limit);
-    return bufferedMasterDataRecords;
+    return masterDataEventRecordRepository.findMasterDataEventRecordsForFacility(offset, facilityId, limit);
   }
 
   public long getCurrentMasterDataOffset() {
@@ -265,14 +298,6 @@ public class EventStore {
     return repository.findLastNoFinalApproveEventIdGroupId(groupId).map(UUID::fromString);
   }
 
-  boolean filterMasterDataEventRecord(MasterDataEventRecord eventRecord, UUID facilityId) {
-    boolean isSharedIncrementalRecord =
-        eventRecord.getFacilityId() == null && eventRecord.getSnapshotVersion() == null;
-    boolean isFacilityOwnedRecord =
-        eventRecord.getFacilityId() != null && eventRecord.getFacilityId().equals(facilityId);
-    return isSharedIncrementalRecord || isFacilityOwnedRecord;
-  }
-
   private void saveAcks(Set<Ack> acks) {
     List<AckRecord> ackRecords = acks.stream().map(AckRecord::from).collect(Collectors.toList());
     log.info("save acks:{}", ackRecords.stream().map(AckRecord::getEventId).collect(Collectors.toList()));
@@ -17,7 +17,6 @@ package org.siglus.siglusapi.localmachine.eventstore;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Stream;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -25,7 +24,18 @@ import org.springframework.data.repository.query.Param;
 
 public interface MasterDataEventRecordRepository extends JpaRepository<MasterDataEventRecord, UUID> {
 
-  Stream<MasterDataEventRecord> streamMasterDataEventRecordsByIdAfterOrderById(Long id);
+  // shared incremental records and the records owned by the facility, each branch an index range scan on its own
+  @Query(
+      value = "select * from ("
+          + "(select * from localmachine.master_data_events "
+          + "where facilityid is null and snapshotversion is null and id > :offset order by id limit :limit) "
+          + "union all "
+          + "(select * from localmachine.master_data_events "
+          + "where facilityid = :facilityId and id > :offset order by id limit :limit)"
+          + ") e order by id limit :limit",
+      nativeQuery = true)
+  List<MasterDataEventRecord> findMasterDataEventRecordsForFacility(@Param("offset") Long offset,
+      @Param("facilityId") UUID facilityId, @Param("limit") int limit);
 
   @Modifying
   @Query(
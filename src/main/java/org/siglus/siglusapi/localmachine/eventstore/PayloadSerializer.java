@@ -15,11 +15,20 @@
 
 package org.siglus.siglusapi.localmachine.eventstore;
 
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -35,6 +44,7 @@ import org.joda.money.Money;
 import org.siglus.common.serializer.MoneySerializer;
 import org.siglus.siglusapi.localmachine.EventPayload;
 import org.siglus.siglusapi.localmachine.utils.MoneyDeserializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
@@ -48,6 +58,21 @@ public class PayloadSerializer {
   // event in db. here to maintain the class name mapping.
   private static final Map<String, Class<?>> payloadNameToClass = new HashMap<>();
   private static final Map<Class<?>, String> payloadClassToName = new HashMap<>();
+  private static final String NAME_FIELD = "name";
+  private static final String DATA_FIELD = "data";
+  private static final String LEGACY_PAYLOAD_FIELD = "payload";
+  private static final int PAYLOAD_READER_CACHE_SIZE = 256;
+  private final LoadingCache<Class<?>, ObjectReader> payloadReaders = CacheBuilder.newBuilder()
+      .maximumSize(PAYLOAD_READER_CACHE_SIZE)
+      .build(new CacheLoader<Class<?>, ObjectReader>() {
+        @Override
+        public ObjectReader load(Class<?> payloadClass) {
+          return LOCALMACHINE_EVENT_OBJECT_MAPPER.readerFor(payloadClass);
+        }
+      });
+  // payloads are shipped as stored in the resync zip, so keep the legacy format until every agent can load inline
+  @Value("${machine.event.payload.inline:false}")
+  private boolean inlinePayload;
 
   static {
     LOCALMACHINE_EVENT_OBJECT_MAPPER = new ObjectMapper();
@@ -65,25 +90,48 @@ public class PayloadSerializer {
 
   @SneakyThrows
   public byte[] dump(Object payload) {
-    PayloadWrapper payloadWrapper;
     if (PayloadWrapper.class.isAssignableFrom(payload.getClass())) {
-      payloadWrapper = (PayloadWrapper) payload;
-    } else {
-      byte[] payloadBytes = LOCALMACHINE_EVENT_OBJECT_MAPPER.writeValueAsBytes(payload);
-      payloadWrapper = new PayloadWrapper(getPayloadName(payload), payloadBytes);
+      return LOCALMACHINE_EVENT_OBJECT_MAPPER.writeValueAsBytes(payload);
     }
-    return LOCALMACHINE_EVENT_OBJECT_MAPPER.writeValueAsBytes(payloadWrapper);
+    if (inlinePayload) {
+      // the payload is written inline in the same pass as its name, instead of as base64 encoded json in json
+      return LOCALMACHINE_EVENT_OBJECT_MAPPER.writeValueAsBytes(new InlinePayloadWrapper(getPayloadName(payload),
+          payload));
+    }
+    byte[] payloadBytes = LOCALMACHINE_EVENT_OBJECT_MAPPER.writeValueAsBytes(payload);
+    return LOCALMACHINE_EVENT_OBJECT_MAPPER.writeValueAsBytes(new PayloadWrapper(getPayloadName(payload),
+        payloadBytes));
   }
 
+  /**
+   * Loads both the inline format and the legacy {@link PayloadWrapper} format written by {@link #dump(Object)},
+   * in a single pass over the bytes when the name comes first, as dump writes it.
+   */
   @SneakyThrows
   public Object load(byte[] payload) {
     if (ArrayUtils.isEmpty(payload)) {
       return null;
     }
-    PayloadWrapper payloadWrapper =
-        LOCALMACHINE_EVENT_OBJECT_MAPPER.readValue(payload, PayloadWrapper.class);
-    return LOCALMACHINE_EVENT_OBJECT_MAPPER.readValue(
-        payloadWrapper.getPayload(), getPayloadClass(payloadWrapper));
+    try (JsonParser parser = LOCALMACHINE_EVENT_OBJECT_MAPPER.getFactory().createParser(payload)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IllegalStateException("invalid event payload");
+      }
+      String name = null;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String fieldName = parser.getCurrentName();
+        JsonToken valueToken = parser.nextToken();
+        if (NAME_FIELD.equals(fieldName)) {
+          name = parser.getText();
+        } else if (name != null && DATA_FIELD.equals(fieldName)) {
+          return getPayloadReader(name).readValue(parser);
+        } else if (name != null && LEGACY_PAYLOAD_FIELD.equals(fieldName) && valueToken == JsonToken.VALUE_STRING) {
+          return getPayloadReader(name).readValue(parser.getBinaryValue());
+        } else {
+          parser.skipChildren();
+        }
+      }
+    }
+    return loadFromTree(payload);
   }
 
   @PostConstruct
@@ -115,9 +163,17 @@ public class PayloadSerializer {
     return payloadClass;
   }
 
-  private Class<?> getPayloadClass(PayloadWrapper payloadWrapper) throws ClassNotFoundException {
-    String name = payloadWrapper.getName();
-    return getPayloadClass(name);
+  private Object loadFromTree(byte[] payload) throws IOException, ClassNotFoundException {
+    JsonNode tree = LOCALMACHINE_EVENT_OBJECT_MAPPER.readTree(payload);
+    ObjectReader payloadReader = getPayloadReader(tree.path(NAME_FIELD).asText());
+    if (tree.has(DATA_FIELD)) {
+      return payloadReader.readValue(tree.get(DATA_FIELD));
+    }
+    return payloadReader.readValue(tree.path(LEGACY_PAYLOAD_FIELD).binaryValue());
+  }
+
+  private ObjectReader getPayloadReader(String name) throws ClassNotFoundException {
+    return payloadReaders.getUnchecked(getPayloadClass(name));
   }
 
   public String getPayloadName(Object payload) {
@@ -131,4 +187,13 @@ public class PayloadSerializer {
     private String name;
     private byte[] payload;
   }
+
+  @Data
+  @AllArgsConstructor
+  @NoArgsConstructor
+  @JsonPropertyOrder({NAME_FIELD, DATA_FIELD})
+  static class InlinePayloadWrapper {
+    private String name;
+    private Object data;
+  }
 }
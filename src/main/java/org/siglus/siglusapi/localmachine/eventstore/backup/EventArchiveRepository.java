@@ -0,0 +1,58 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.siglus.siglusapi.localmachine.eventstore.backup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@RequiredArgsConstructor
+public class EventArchiveRepository {
+
+  public static final UUID FIRST_EVENT_ID = new UUID(0L, 0L);
+
+  // the data-modifying ctes always run to completion, whether the final select reads them or not
+  private static final String ARCHIVE_CHUNK_SQL = "with chunk as ("
+      + "select id from localmachine.events "
+      + "where archived = false and receiversynced = true and onlinewebsynced = true and localreplayed = true "
+      + "and id > ? order by id limit ?), "
+      + "archived as ("
+      + "update localmachine.events e set archived = true from chunk where e.id = chunk.id returning e.id), "
+      + "moved as ("
+      + "delete from localmachine.event_payload p using archived where p.eventid = archived.id "
+      + "returning p.eventid, p.payload), "
+      + "backup as ("
+      + "insert into localmachine.event_payload_backup (eventid, payload) select eventid, payload from moved "
+      + "on conflict (eventid) do nothing) "
+      + "select cast(id as varchar) from chunk order by id desc limit 1";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Archives the next chunk of archivable events after the given id in one statement, so in its own transaction:
+   * flags them as archived and moves their payloads to the backup table without loading them.
+   *
+   * @return the last event id of the chunk, to archive the next chunk from; empty when nothing is left
+   */
+  public Optional<UUID> archiveChunk(UUID afterEventId, int chunkSize) {
+    List<String> lastEventIds = jdbcTemplate.queryForList(ARCHIVE_CHUNK_SQL, String.class, afterEventId, chunkSize);
+    return lastEventIds.stream().findFirst().map(UUID::fromString);
+  }
+}
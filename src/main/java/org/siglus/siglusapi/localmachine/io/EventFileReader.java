@@ -19,8 +19,10 @@ import java.io.BufferedInputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.zip.InflaterInputStream;
 import lombok.RequiredArgsConstructor;
 import org.siglus.siglusapi.localmachine.Event;
@@ -31,6 +33,7 @@ import org.springframework.web.multipart.MultipartFile;
 @Component
 @RequiredArgsConstructor
 public class EventFileReader {
+  public static final int IMPORT_CHUNK_SIZE = 100;
   private final ExternalEventDtoMapper mapper;
 
   public List<Event> readAll(MultipartFile file) throws IOException {
@@ -39,18 +42,43 @@ public class EventFileReader {
   }
 
   public List<Event> readAll(InputStream in) throws IOException {
+    List<Event> events = new LinkedList<>();
+    read(in, events::add);
+    return events;
+  }
+
+  public void readInChunks(MultipartFile file, int chunkSize, Consumer<List<Event>> chunkConsumer)
+      throws IOException {
+    readInChunks(file.getInputStream(), chunkSize, chunkConsumer);
+  }
+
+  // hands the events over chunkSize at a time, so a large file is never held in memory as a whole
+  public void readInChunks(InputStream in, int chunkSize, Consumer<List<Event>> chunkConsumer) throws IOException {
+    List<Event> chunk = new ArrayList<>(chunkSize);
+    read(in, event -> {
+      chunk.add(event);
+      if (chunk.size() >= chunkSize) {
+        chunkConsumer.accept(new ArrayList<>(chunk));
+        chunk.clear();
+      }
+    });
+    if (!chunk.isEmpty()) {
+      chunkConsumer.accept(chunk);
+    }
+  }
+
+  // decodes the events one by one as the stream arrives, without buffering the whole stream first
+  public void read(InputStream in, Consumer<Event> consumer) throws IOException {
     EventReader reader =
         new EventReader(
             new EntryReader(new InflaterInputStream(new BufferedInputStream(in))), mapper);
-    List<Event> events = new LinkedList<>();
     while (true) {
       try {
-        events.add(reader.read());
+        consumer.accept(reader.read());
       } catch (EOFException eof) {
         break;
       }
     }
     reader.close();
-    return events;
   }
 }
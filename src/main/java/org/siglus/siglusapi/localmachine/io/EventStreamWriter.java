@@ -0,0 +1,48 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.siglus.siglusapi.localmachine.io;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import lombok.RequiredArgsConstructor;
+import org.siglus.siglusapi.localmachine.Event;
+import org.siglus.siglusapi.localmachine.ExternalEventDtoMapper;
+import org.springframework.stereotype.Component;
+
+// writes events in the same deflated entry layout as the uploaded event files, read back by EventFileReader
+@Component
+@RequiredArgsConstructor
+public class EventStreamWriter {
+
+  public static final String EVENT_STREAM_MEDIA_TYPE = "application/vnd.siglus.events+deflate";
+  public static final String REMAINING_EVENTS_HEADER = "X-Remaining-Events";
+  // number of events written to the stream, lets the reader tell a complete stream from a cut one
+  public static final String EVENT_COUNT_HEADER = "X-Event-Count";
+
+  private final ExternalEventDtoMapper mapper;
+
+  public void write(List<Event> events, OutputStream out) throws IOException {
+    try (EventWriter eventWriter = new EventWriter(
+        new EntryWriter(new DeflaterOutputStream(new BufferedOutputStream(out))), mapper)) {
+      for (Event event : events) {
+        eventWriter.write(event);
+      }
+    }
+  }
+}
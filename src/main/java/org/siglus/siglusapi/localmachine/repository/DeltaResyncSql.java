@@ -0,0 +1,55 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.siglus.siglusapi.localmachine.repository;
+
+import static org.siglus.siglusapi.localmachine.repository.MovementSql.STOCK_CARD_LINE_ITEMS;
+import static org.siglus.siglusapi.localmachine.repository.MovementSql.STOCK_EVENTS;
+import static org.siglus.siglusapi.localmachine.repository.MovementSql.STOCK_EVENT_LINE_ITEMS;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Queries of the append-only business tables returning only the rows processed since the resync watermark ('##'), for
+ * the delta resync. Tables whose rows are updated in place are not here and are always copied in full.
+ */
+public class DeltaResyncSql {
+
+  public static final String HIGH_WATER_MARK_PLACEHOLDER = "##";
+
+  private DeltaResyncSql() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  public static final String STOCK_EVENTS_DELTA_QUERY = "select * from stockmanagement.stock_events "
+      + "where facilityid = '@@' and processeddate >= '##'";
+
+  public static final String STOCK_EVENT_LINE_ITEMS_DELTA_QUERY =
+      "select * from stockmanagement.stock_event_line_items where stockeventid in "
+          + "(select id from stockmanagement.stock_events where facilityid = '@@' and processeddate >= '##')";
+
+  public static final String STOCK_CARD_LINE_ITEMS_DELTA_QUERY = "select * from stockmanagement.stock_card_line_items "
+      + "where stockcardid in (select id from stockmanagement.stock_cards where facilityid = '@@') "
+      + "and processeddate >= '##'";
+
+  public static Map<String, String> getDeltaSql() {
+    Map<String, String> deltaSql = new HashMap<>();
+    deltaSql.put(STOCK_EVENTS, STOCK_EVENTS_DELTA_QUERY);
+    deltaSql.put(STOCK_EVENT_LINE_ITEMS, STOCK_EVENT_LINE_ITEMS_DELTA_QUERY);
+    deltaSql.put(STOCK_CARD_LINE_ITEMS, STOCK_CARD_LINE_ITEMS_DELTA_QUERY);
+    return deltaSql;
+  }
+}
@@ -17,18 +17,33 @@ package org.siglus.siglusapi.localmachine.repository;
 
 import static org.siglus.siglusapi.localmachine.repository.MovementSql.PHYSICAL_INVENTORIES_HISTORIES;
 
-import java.io.File;
-import java.io.FileOutputStream;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.IOException;
-import java.sql.PreparedStatement;
+import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.DeferredFileOutputStream;
 import org.postgresql.copy.CopyManager;
 import org.postgresql.core.BaseConnection;
 import org.siglus.siglusapi.dto.Message;
@@ -41,37 +56,182 @@ import org.springframework.stereotype.Repository;
 @Slf4j
 public class TableCopyRepository {
 
+  // tables bigger than this spill to a temp file while waiting for their turn in the zip
+  private static final int SPOOL_THRESHOLD_BYTES = 16 * 1024 * 1024;
+  // tables copied at the same time, which also bounds the spools waiting for the zip
+  private static final int COPY_WINDOW = 4;
+  private static final String TABLE_FILE_SUFFIX = ".txt";
+  // the first statement takes the snapshot, now() is the start of this transaction
+  private static final String EXPORT_SNAPSHOT_SQL = "SELECT pg_export_snapshot(), "
+      + "(SELECT least(now(), coalesce(min(a.xact_start), now())) FROM pg_stat_activity a "
+      + "WHERE a.datname = current_database() AND a.xact_start IS NOT NULL AND a.pid <> pg_backend_pid())";
+
   private final JdbcTemplate jdbc;
 
-  public List<File> copyDateToFile(String zipDirectory, Map<String, String> tableNameToSql, UUID homeFacilityId) {
-    List<File> tableFiles;
-    try (BaseConnection connection = (BaseConnection) jdbc.getDataSource().getConnection().getMetaData()
-        .getConnection();) {
-      connection.setAutoCommit(false);
-      tableFiles = handleTableNameToSqlMap(zipDirectory, tableNameToSql, homeFacilityId, connection);
-      connection.commit();
-    } catch (SQLException e) {
-      log.error("facilityId {} copy business data table to file fail,{}", homeFacilityId, e);
-      throw new DbOperationException(e, new Message("copy business data table to file fail"));
+  /**
+   * Copies the tables into entries of the zip, in the order of the map. A few tables are copied at a time, on
+   * connections that share the snapshot exported by one coordinating transaction, so they stay consistent with each
+   * other as when they were copied one by one in a single transaction.
+   *
+   * @param lockTables whether to take share locks on the tables until the snapshot is shared, as the master data
+   *                   snapshot does
+   */
+  public void copyToZip(Map<String, String> tableNameToSql, UUID homeFacilityId, boolean lockTables,
+      ZipOutputStream zipOutputStream) {
+    copyToZip(tableNameToSql, homeFacilityId, lockTables, zipOutputStream, watermark -> { });
+  }
+
+  /**
+   * Same as {@link #copyToZip(Map, UUID, boolean, ZipOutputStream)}, and hands the watermark of the snapshot to the
+   * consumer before anything is written to the zip. Every row committed after the snapshot was written by a
+   * transaction that started at or after the watermark, as it is the start of the oldest transaction still open when
+   * the snapshot was taken, so rows stamped before it are all in the snapshot.
+   */
+  public void copyToZip(Map<String, String> tableNameToSql, UUID homeFacilityId, boolean lockTables,
+      ZipOutputStream zipOutputStream, Consumer<ZonedDateTime> watermarkConsumer) {
+    List<String> tableNames = new ArrayList<>(tableNameToSql.keySet());
+    List<CompletableFuture<DeferredFileOutputStream>> tableData = tableNames.stream()
+        .map(tableName -> new CompletableFuture<DeferredFileOutputStream>())
+        .collect(Collectors.toList());
+    int workerCount = Math.max(1, Math.min(COPY_WINDOW, tableNames.size()));
+    // a worker takes the next table only when the zip has room for it, so at most this many spools are held
+    Semaphore window = new Semaphore(workerCount);
+    AtomicInteger nextTable = new AtomicInteger();
+    ExecutorService copyExecutor = Executors.newFixedThreadPool(workerCount,
+        new ThreadFactoryBuilder().setNameFormat("table-copy-%d").setDaemon(true).build());
+    try {
+      List<Connection> workerConnections = openWorkerConnections(tableNameToSql, workerCount, lockTables,
+          watermarkConsumer);
+      for (Connection workerConnection : workerConnections) {
+        copyExecutor.execute(() -> copyTables(workerConnection, tableNames, tableNameToSql, homeFacilityId, tableData,
+            window, nextTable));
+      }
+      for (int i = 0; i < tableNames.size(); i++) {
+        try {
+          writeZipEntry(tableNames.get(i), tableData.get(i).join(), homeFacilityId, zipOutputStream);
+        } finally {
+          window.release();
+        }
+      }
+    } catch (SQLException | IOException e) {
+      log.error("facilityId {} copy table data to zip fail,{}", homeFacilityId, e);
+      throw new DbOperationException(e, new Message("copy table data to zip fail"));
+    } finally {
+      copyExecutor.shutdownNow();
+      tableData.forEach(future -> future.thenAccept(spool -> FileUtils.deleteQuietly(spool.getFile())));
     }
-    return tableFiles;
   }
 
-  public List<File> copyMasterDateToFile(String zipDirectory, Map<String, String> tableNameToSql, UUID homeFacilityId) {
-    List<File> tableFiles;
-    String lockTablesSql = buildLockTablesSql(tableNameToSql);
-    try (BaseConnection connection = (BaseConnection) jdbc.getDataSource().getConnection().getMetaData()
-        .getConnection();
-        PreparedStatement psLockTables = connection.prepareStatement(lockTablesSql);) {
+  /**
+   * Opens the connections the tables are copied on, all of them on the snapshot of the coordinating transaction.
+   * The coordinating transaction, and the share locks it holds, ends as soon as every connection has attached the
+   * snapshot, so the locks are not held while the data is copied and uploaded.
+   */
+  private List<Connection> openWorkerConnections(Map<String, String> tableNameToSql, int workerCount,
+      boolean lockTables, Consumer<ZonedDateTime> watermarkConsumer) throws SQLException {
+    List<Connection> workerConnections = new ArrayList<>();
+    try (Connection connection = jdbc.getDataSource().getConnection()) {
       connection.setAutoCommit(false);
-      psLockTables.execute();
-      tableFiles = handleTableNameToSqlMap(zipDirectory, tableNameToSql, homeFacilityId, connection);
+      Snapshot snapshot = exportSnapshot(connection, lockTables ? buildLockTablesSql(tableNameToSql) : null);
+      for (int i = 0; i < workerCount; i++) {
+        workerConnections.add(jdbc.getDataSource().getConnection());
+        importSnapshot(workerConnections.get(i), snapshot.getId());
+      }
       connection.commit();
+      watermarkConsumer.accept(snapshot.getWatermark());
+      return workerConnections;
+    } catch (SQLException | RuntimeException e) {
+      workerConnections.forEach(this::closeQuietly);
+      throw e;
+    }
+  }
+
+  private void copyTables(Connection connection, List<String> tableNames, Map<String, String> tableNameToSql,
+      UUID homeFacilityId, List<CompletableFuture<DeferredFileOutputStream>> tableData, Semaphore window,
+      AtomicInteger nextTable) {
+    try {
+      while (true) {
+        window.acquire();
+        int index = nextTable.getAndIncrement();
+        if (index >= tableNames.size()) {
+          return;
+        }
+        String selectSql = tableNameToSql.get(tableNames.get(index));
+        String querySql = homeFacilityId == null ? selectSql : selectSql.replace("@@", homeFacilityId.toString());
+        try {
+          tableData.get(index).complete(copyToSpool(connection, querySql));
+        } catch (RuntimeException e) {
+          tableData.get(index).completeExceptionally(e);
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      closeQuietly(connection);
+    }
+  }
+
+  private Snapshot exportSnapshot(Connection connection, String lockTablesSql) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ");
+      if (lockTablesSql != null) {
+        statement.execute(lockTablesSql);
+      }
+      try (ResultSet resultSet = statement.executeQuery(EXPORT_SNAPSHOT_SQL)) {
+        resultSet.next();
+        return new Snapshot(resultSet.getString(1),
+            ZonedDateTime.ofInstant(resultSet.getTimestamp(2).toInstant(), ZoneOffset.UTC));
+      }
+    }
+  }
+
+  private void importSnapshot(Connection connection, String snapshotId) throws SQLException {
+    connection.setAutoCommit(false);
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ");
+      statement.execute("SET TRANSACTION SNAPSHOT '" + snapshotId + "'");
+    }
+  }
+
+  private DeferredFileOutputStream copyToSpool(Connection connection, String querySql) {
+    DeferredFileOutputStream spool =
+        new DeferredFileOutputStream(SPOOL_THRESHOLD_BYTES, "table-copy-", TABLE_FILE_SUFFIX, null);
+    try {
+      CopyManager copyManager = new CopyManager((BaseConnection) connection.getMetaData().getConnection());
+      copyManager.copyOut("COPY (" + querySql + ") TO STDOUT", spool);
+      spool.close();
+    } catch (SQLException | IOException e) {
+      FileUtils.deleteQuietly(spool.getFile());
+      log.error("querySql {} copy table data fail,{}", querySql, e);
+      throw new DbOperationException(e, new Message("copy table data fail"));
+    }
+    return spool;
+  }
+
+  private void closeQuietly(Connection connection) {
+    try (Connection closing = connection) {
+      if (!closing.getAutoCommit()) {
+        closing.rollback();
+      }
     } catch (SQLException e) {
-      log.error("facilityId {} copy master data table to file fail,{}", homeFacilityId, e);
-      throw new DbOperationException(e, new Message("copy master data table to file fail"));
+      log.warn("close table copy connection fail,{}", e);
+    }
+  }
+
+  private void writeZipEntry(String tableName, DeferredFileOutputStream spool, UUID homeFacilityId,
+      ZipOutputStream zipOutputStream) throws IOException {
+    try {
+      if (spool.getByteCount() == 0 && PHYSICAL_INVENTORIES_HISTORIES.equals(tableName)) {
+        log.info("facilityId {} ignore PHYSICAL_INVENTORIES_HISTORIES since empty query result", homeFacilityId);
+        return;
+      }
+      zipOutputStream.putNextEntry(new ZipEntry(tableName + TABLE_FILE_SUFFIX));
+      spool.writeTo(zipOutputStream);
+      zipOutputStream.closeEntry();
+    } finally {
+      FileUtils.deleteQuietly(spool.getFile());
     }
-    return tableFiles;
   }
 
   private String buildLockTablesSql(Map<String, String> tableNameToSql) {
@@ -87,31 +247,9 @@ public class TableCopyRepository {
     return lockTablesSql.toString();
   }
 
-  private List<File> handleTableNameToSqlMap(String zipDirectory, Map<String, String> tableNameToSql,
-      UUID homeFacilityId, BaseConnection connection) {
-    List<File> tableFiles = new ArrayList<>();
-    tableNameToSql.forEach((tableName, selectSql) -> {
-      File file = new File(zipDirectory + tableName + ".txt");
-      if (homeFacilityId != null) {
-        selectSql = selectSql.replace("@@", homeFacilityId.toString());
-      }
-      copyToFile(file, selectSql, connection);
-      if (file.length() == 0 && PHYSICAL_INVENTORIES_HISTORIES.equals(tableName)) {
-        log.info("facilityId {} ignore PHYSICAL_INVENTORIES_HISTORIES since empty query result", homeFacilityId);
-        return;
-      }
-      tableFiles.add(file);
-    });
-    return tableFiles;
-  }
-
-  private void copyToFile(File file, String querySql, BaseConnection connection) {
-    try (FileOutputStream fileOutputStream = new FileOutputStream(file)) {
-      CopyManager copyManager = new CopyManager(connection);
-      copyManager.copyOut("COPY (" + querySql + ") TO STDOUT", fileOutputStream);
-    } catch (SQLException | IOException e) {
-      log.error("querySql {} copy table data to file fail,{}", querySql, e);
-      throw new DbOperationException(e, new Message("copy table data to file fail"));
-    }
+  @Value
+  private static class Snapshot {
+    String id;
+    ZonedDateTime watermark;
   }
 }
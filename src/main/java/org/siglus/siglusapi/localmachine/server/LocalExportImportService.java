@@ -19,6 +19,7 @@ import static org.siglus.siglusapi.i18n.MessageKeys.ERROR_EXPORT_NO_DATA;
 import static org.siglus.siglusapi.i18n.MessageKeys.ERROR_IMPORT_FILE_RECEIVER_NOT_MATCH;
 import static org.siglus.siglusapi.i18n.MessageKeys.ERROR_IMPORT_INVALID_FILE;
 import static org.siglus.siglusapi.i18n.MessageKeys.ERROR_IMPORT_INVALID_FILE_TYPE;
+import static org.siglus.siglusapi.localmachine.io.EventFileReader.IMPORT_CHUNK_SIZE;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -35,6 +36,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.zip.ZipOutputStream;
 import javax.servlet.http.HttpServletResponse;
@@ -60,7 +62,6 @@ import org.siglus.siglusapi.util.SiglusAuthenticationHelper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -108,22 +109,29 @@ public class LocalExportImportService {
     }
   }
 
-  @Transactional
+  // not transactional on purpose: every chunk is imported and committed on its own, a failure keeps the chunks
+  // already imported and the file can simply be imported again. The files are read through once before importing,
+  // so a file with events of another receiver or a wrong checksum is rejected before any of its chunks is imported
   public void importEvents(MultipartFile[] files) {
     for (MultipartFile file : files) {
       checkFileSuffix(file);
-      try {
-        List<Event> events = eventFileReader.readAll(file);
-        checkFacility(events);
-        eventImporter.importEvents(events);
-      } catch (ChecksumNotMatchedException e) {
-        log.error("import error, checksum not match", e);
-        throw new BusinessDataException(e, new Message(ERROR_IMPORT_INVALID_FILE));
-      } catch (IOException e) {
-        log.error("err occurs when import files", e);
-        throw new BusinessDataException(
-            e, new Message("fail to import events, file name:" + file.getName()));
-      }
+      readInChunks(file, this::checkFacility);
+    }
+    for (MultipartFile file : files) {
+      readInChunks(file, eventImporter::importEvents);
+    }
+  }
+
+  private void readInChunks(MultipartFile file, Consumer<List<Event>> chunkConsumer) {
+    try {
+      eventFileReader.readInChunks(file, IMPORT_CHUNK_SIZE, chunkConsumer);
+    } catch (ChecksumNotMatchedException e) {
+      log.error("import error, checksum not match", e);
+      throw new BusinessDataException(e, new Message(ERROR_IMPORT_INVALID_FILE));
+    } catch (IOException e) {
+      log.error("err occurs when import files", e);
+      throw new BusinessDataException(
+          e, new Message("fail to import events, file name:" + file.getName()));
     }
   }
 
@@ -18,31 +18,31 @@ package org.siglus.siglusapi.localmachine.server;
 import static org.siglus.siglusapi.constant.android.UsageSectionConstants.MmiaPatientLineItems.TABLE_DISPENSED_DB_KEY;
 import static org.siglus.siglusapi.dto.enums.EventCategoryEnum.ANDROID_REQUISITION_INTERNAL_APPROVED;
 import static org.siglus.siglusapi.dto.enums.EventCategoryEnum.REQUISITION_FINAL_APPROVED;
+import static org.siglus.siglusapi.localmachine.repository.DeltaResyncSql.HIGH_WATER_MARK_PLACEHOLDER;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.time.Duration;
 import java.time.ZonedDateTime;
-import java.util.Collection;
+import java.time.format.DateTimeFormatter;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import java.util.zip.ZipOutputStream;
 import javax.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.DeferredFileOutputStream;
 import org.apache.maven.artifact.versioning.ComparableVersion;
 import org.openlmis.referencedata.domain.Facility;
 import org.openlmis.referencedata.repository.FacilityRepository;
@@ -61,6 +61,7 @@ import org.siglus.siglusapi.localmachine.eventstore.MasterDataEventRecord;
 import org.siglus.siglusapi.localmachine.eventstore.MasterDataEventRecordRepository;
 import org.siglus.siglusapi.localmachine.eventstore.MasterDataOffset;
 import org.siglus.siglusapi.localmachine.eventstore.MasterDataOffsetRepository;
+import org.siglus.siglusapi.localmachine.repository.DeltaResyncSql;
 import org.siglus.siglusapi.localmachine.repository.MasterDataSql;
 import org.siglus.siglusapi.localmachine.repository.MovementSql;
 import org.siglus.siglusapi.localmachine.repository.RequisitionOrderSql;
@@ -69,10 +70,9 @@ import org.siglus.siglusapi.localmachine.webapi.ResyncMasterDataResponse;
 import org.siglus.siglusapi.repository.AppInfoRepository;
 import org.siglus.siglusapi.repository.ResyncInfoRepository;
 import org.siglus.siglusapi.service.SiglusAdministrationsService;
-import org.siglus.siglusapi.util.FileUtil;
 import org.siglus.siglusapi.util.S3FileHandler;
+import org.siglus.siglusapi.util.S3MultipartOutputStream;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -84,6 +84,10 @@ public class OnlineWebService {
 
   static final String FINAL_APPROVE_VERSION = "2.0.11";
   static final String MMIA_NEW_TEMPLATE_VERSION = "2.1.0";
+  static final String DELTA_TABLES_HEADER = "X-Resync-Delta-Tables";
+  static final String WATERMARK_HEADER = "X-Resync-Watermark";
+  // processed dates are stamped by the application servers, so the watermark allows for their clocks being behind
+  static final Duration WATERMARK_CLOCK_SKEW = Duration.ofMinutes(1);
   private static final long ZERO = 0L;
   @Autowired
   private TableCopyRepository tableCopyRepository;
@@ -102,16 +106,15 @@ public class OnlineWebService {
   @Autowired
   private ResyncInfoRepository resyncInfoRepository;
   private final Map<String, String> tableNameToMasterSql = MasterDataSql.getMasterDataSqlMap();
-  private final Map<String, String> tableNameToMovementSql = MovementSql.getMovementSql();
-  private final Map<String, String> tableNameToRequisitionOrderSql = RequisitionOrderSql.getRequisitionOrderSql();
+  private final Map<String, String> tableNameToBusinessSql = getBusinessSqlMap();
+  private final Map<String, String> tableNameToDeltaSql = DeltaResyncSql.getDeltaSql();
   private static final String ZIP_SUFFIX = ".zip";
+  private static final int ZIP_SPOOL_THRESHOLD_BYTES = 16 * 1024 * 1024;
   private static final String CONTENT_TYPE = "application/zip";
   private static final String DISPOSITION_BASE = "attachment; filename=";
   private static final String MASTER_DATA = "masterData";
   private static final String DEFAULT_REPLAY_GROUP_LOCK = "lock.replay.group.default.";
   private final SimpleDateFormat format = new SimpleDateFormat("yyyyMMddHHmmssSSS");
-  @Value("${resync.zip.export.path}")
-  private String zipExportPath;
   @Autowired
   private SiglusAdministrationsService administrationsService;
 
@@ -158,11 +161,15 @@ public class OnlineWebService {
   }
 
   public void resyncData(UUID homeFacilityId, HttpServletResponse response) {
+    runWithGroupLock(homeFacilityId, () -> generateBusinessDataToResponse(homeFacilityId, response, null));
+  }
+
+  private void runWithGroupLock(UUID homeFacilityId, Runnable resync) {
     try (AutoClosableLock waitLock = lockFactory.waitLock(DEFAULT_REPLAY_GROUP_LOCK + homeFacilityId, 180000)) {
       if (!waitLock.isPresent()) {
         throw new UnableGetLockException(new Message("facility resync unable to get group lock," + homeFacilityId));
       }
-      waitLock.ifPresent(() -> generateBusinessDataToResponse(homeFacilityId, response, null));
+      waitLock.ifPresent(resync);
     } catch (InterruptedException e) {
       log.error("facility: {} resync group lock interrupt: {}", homeFacilityId, e);
       Thread.currentThread().interrupt();
@@ -178,7 +185,45 @@ public class OnlineWebService {
     return masterDataEventRecordRepository.save(saveRecord);
   }
 
+  /**
+   * Delta version of {@link #resyncData(UUID, HttpServletResponse)}: the append-only tables only return the rows
+   * processed since the watermark the local machine got in the {@link #WATERMARK_HEADER} header of its last resync.
+   * Rows stamped right at the watermark can be sent again, so the local machine has to skip the rows it already has.
+   * The tables sent as delta are listed in the {@link #DELTA_TABLES_HEADER} header, the others are copied in full as
+   * by the full resync. Without a watermark every table is copied in full.
+   */
+  public void resyncDeltaData(UUID homeFacilityId, ZonedDateTime watermark, HttpServletResponse response) {
+    Map<String, String> tableNameToSql = new LinkedHashMap<>(tableNameToBusinessSql);
+    List<String> deltaTables = new LinkedList<>();
+    if (watermark != null) {
+      String since = watermark.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+      tableNameToDeltaSql.forEach((tableName, deltaSql) -> {
+        if (tableNameToSql.containsKey(tableName)) {
+          tableNameToSql.put(tableName, deltaSql.replace(HIGH_WATER_MARK_PLACEHOLDER, since));
+          deltaTables.add(tableName);
+        }
+      });
+    }
+    log.info("facilityId {} delta resync tables: {}", homeFacilityId, deltaTables);
+    response.setHeader(DELTA_TABLES_HEADER, String.join(",", deltaTables));
+    // drafts are deleted before the copy, so the replay of the facility is held off as for the full resync
+    runWithGroupLock(homeFacilityId, () -> writeBusinessDataToResponse(homeFacilityId, response,
+        zipOutputStream -> tableCopyRepository.copyToZip(tableNameToSql, homeFacilityId, false, zipOutputStream,
+            watermarkHeaderSetter(response))));
+  }
+
   public void generateBusinessDataToResponse(UUID homeFacilityId, HttpServletResponse response, String type) {
+    writeBusinessDataToResponse(homeFacilityId, response,
+        zipOutputStream -> writeZip(zipOutputStream, homeFacilityId, type, watermarkHeaderSetter(response)));
+  }
+
+  private Consumer<ZonedDateTime> watermarkHeaderSetter(HttpServletResponse response) {
+    return watermark -> response.setHeader(WATERMARK_HEADER,
+        watermark.minus(WATERMARK_CLOCK_SKEW).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+  }
+
+  private void writeBusinessDataToResponse(UUID homeFacilityId, HttpServletResponse response,
+      Consumer<ZipOutputStream> zipWriter) {
     Facility facility = facilityRepository.findOne(homeFacilityId);
     AppInfo appInfo = appInfoRepository.findByFacilityCode(facility.getCode());
     if (appInfo != null) {
@@ -193,28 +238,29 @@ public class OnlineWebService {
       resyncInfoRepository.save(resyncInfo);
     }
     log.info("facilityId {} generateBusinessDataToResponse start", homeFacilityId);
-    String facilityDir = homeFacilityId + "_" + format.format(new Date());
-    String zipDirectory = zipExportPath + facilityDir + "/";
-    String zipName = facilityDir + ZIP_SUFFIX;
-    File directory = new File(zipDirectory);
-    boolean mkdirs = directory.mkdirs();
-    if (!mkdirs) {
-      log.warn("facility {} resync zip dir make fail", homeFacilityId);
-    }
+    String zipName = homeFacilityId + "_" + format.format(new Date()) + ZIP_SUFFIX;
     administrationsService.deleteDrafts(homeFacilityId);
-    File zipFile = generateZipFile(zipDirectory, zipName, homeFacilityId, type);
-    log.info("facilityId {} generateBusinessDataToResponse end size {} bytes", homeFacilityId,
-        zipFile.length());
-    response.setContentType(CONTENT_TYPE);
-    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
-    response.setHeader(HttpHeaders.CONTENT_DISPOSITION, DISPOSITION_BASE + zipName);
-    try (FileInputStream fileInputStream = new FileInputStream(zipFile)) {
-      IOUtils.copy(fileInputStream, response.getOutputStream());
+    // the zip is finished before the response is written, so a failed copy still gets an error status instead of
+    // a truncated zip, small zips never touch the disk
+    DeferredFileOutputStream zipSpool =
+        new DeferredFileOutputStream(ZIP_SPOOL_THRESHOLD_BYTES, homeFacilityId + "-", ZIP_SUFFIX, null);
+    try {
+      try (ZipOutputStream zipOutputStream = new ZipOutputStream(zipSpool)) {
+        zipWriter.accept(zipOutputStream);
+      }
+      response.setContentType(CONTENT_TYPE);
+      response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+      response.setHeader(HttpHeaders.CONTENT_DISPOSITION, DISPOSITION_BASE + zipName);
+      response.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(zipSpool.getByteCount()));
+      zipSpool.writeTo(response.getOutputStream());
       response.flushBuffer();
-      FileUtils.deleteDirectory(directory);
+      log.info("facilityId {} generateBusinessDataToResponse end size {} bytes", homeFacilityId,
+          zipSpool.getByteCount());
     } catch (IOException e) {
-      log.error("facilityId {} delete directory fail,{}", homeFacilityId, e);
+      log.error("facilityId {} flush zip to response fail,{}", homeFacilityId, e);
       throw new FileOperationException(e, new Message(homeFacilityId + " flush zip file to response fail"));
+    } finally {
+      FileUtils.deleteQuietly(zipSpool.getFile());
     }
   }
 
@@ -308,50 +354,39 @@ public class OnlineWebService {
   }
 
   private String generateMasterDataToS3() {
-    String masterDataDir = MASTER_DATA + "_" + format.format(new Date());
-    String zipDirectory = zipExportPath + masterDataDir + "/";
-    String zipName = masterDataDir + ZIP_SUFFIX;
-    File directory = new File(zipDirectory);
-    boolean mkdirs = directory.mkdirs();
-    if (!mkdirs) {
-      log.warn("master data zip dir make fail");
-    }
-    generateZipFile(zipDirectory, zipName, null, MASTER_DATA);
-    String s3Filename = getMasterDataS3Filename(zipName);
-    s3FileHandler.uploadFileToS3(zipDirectory + zipName, s3Filename);
+    String zipName = MASTER_DATA + "_" + format.format(new Date()) + ZIP_SUFFIX;
+    // the zip is uploaded part by part while the tables are copied, no file is written
+    S3MultipartOutputStream s3OutputStream = s3FileHandler.openUploadStream(getMasterDataS3Filename(zipName));
     try {
-      FileUtils.deleteDirectory(directory);
-    } catch (IOException e) {
-      log.error("Online web delete master data directory fail", e);
-      throw new FileOperationException(e, new Message("Online web delete master data directory fail"));
+      ZipOutputStream zipOutputStream = new ZipOutputStream(s3OutputStream);
+      writeZip(zipOutputStream, null, MASTER_DATA, watermark -> { });
+      zipOutputStream.close();
+    } catch (Exception e) {
+      s3OutputStream.abort();
+      log.error("Online web generate master data zip fail", e);
+      throw new FileOperationException(e, new Message("Online web generate master data zip fail"));
     }
     return zipName;
   }
 
+  private static Map<String, String> getBusinessSqlMap() {
+    Map<String, String> businessSql = new LinkedHashMap<>(MovementSql.getMovementSql());
+    businessSql.putAll(RequisitionOrderSql.getRequisitionOrderSql());
+    return businessSql;
+  }
+
   private String getMasterDataS3Filename(String zipName) {
     return "masterdata/" + zipName;
   }
 
-  private File generateZipFile(String zipDirectory, String zipName, UUID homeFacilityId, String type) {
-    File zipFile = new File(zipDirectory + zipName);
-    List<File> tableFiles;
+  private void writeZip(ZipOutputStream zipOutputStream, UUID homeFacilityId, String type,
+      Consumer<ZonedDateTime> watermarkConsumer) {
     if (MASTER_DATA.equals(type)) {
-      tableFiles = tableCopyRepository.copyMasterDateToFile(zipDirectory, tableNameToMasterSql, null);
+      tableCopyRepository.copyToZip(tableNameToMasterSql, null, true, zipOutputStream);
     } else {
-      tableFiles = Stream
-          .of(tableCopyRepository.copyDateToFile(zipDirectory, tableNameToMovementSql, homeFacilityId),
-              tableCopyRepository.copyDateToFile(zipDirectory, tableNameToRequisitionOrderSql, homeFacilityId))
-          .flatMap(Collection::stream)
-          .collect(Collectors.toList());
-    }
-    try (FileOutputStream fileOutputStream = new FileOutputStream(zipFile);
-        ZipOutputStream zipOutputStream = new ZipOutputStream(fileOutputStream)) {
-      FileUtil.write(tableFiles, zipOutputStream);
-    } catch (Exception e) {
-      log.error("facilityId {} generate zip file fail,{}", homeFacilityId, e);
-      throw new FileOperationException(e, new Message(homeFacilityId + " generate zip file fail"));
+      tableCopyRepository.copyToZip(tableNameToBusinessSql, homeFacilityId, false, zipOutputStream,
+          watermarkConsumer);
     }
-    return zipFile;
   }
 
 }
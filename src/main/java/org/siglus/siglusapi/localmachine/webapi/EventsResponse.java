@@ -32,4 +32,7 @@ public class EventsResponse {
 
   @Default
   private List<ExternalEventDto> events = new LinkedList<>();
+
+  // number of events still waiting for the receiver after this batch, only reported for capacity based requests
+  private Long remaining;
 }
@@ -15,11 +15,17 @@
 
 package org.siglus.siglusapi.localmachine.webapi;
 
+import static org.siglus.siglusapi.localmachine.io.EventFileReader.IMPORT_CHUNK_SIZE;
+import static org.siglus.siglusapi.localmachine.io.EventStreamWriter.EVENT_COUNT_HEADER;
+import static org.siglus.siglusapi.localmachine.io.EventStreamWriter.EVENT_STREAM_MEDIA_TYPE;
+import static org.siglus.siglusapi.localmachine.io.EventStreamWriter.REMAINING_EVENTS_HEADER;
+
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.lang.management.RuntimeMXBean;
 import java.util.HashSet;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 import javax.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -37,6 +43,7 @@ import org.siglus.siglusapi.localmachine.ShedLockFactory.AutoClosableLock;
 import org.siglus.siglusapi.localmachine.auth.MachineToken;
 import org.siglus.siglusapi.localmachine.eventstore.EventStore;
 import org.siglus.siglusapi.localmachine.io.EventFileReader;
+import org.siglus.siglusapi.localmachine.io.EventStreamWriter;
 import org.siglus.siglusapi.localmachine.server.ActivationService;
 import org.siglus.siglusapi.localmachine.server.OnlineWebService;
 import org.springframework.validation.annotation.Validated;
@@ -64,6 +71,7 @@ public class OnlineWebController {
   private final Machine machine;
   private final EventFileReader eventFileReader;
   private final ShedLockFactory lockFactory;
+  private final EventStreamWriter eventStreamWriter;
   private static final String DEFAULT_RESYNC_LOCK = "lock.localmachine.resync.";
 
   @PostMapping("/agents")
@@ -82,34 +90,59 @@ public class OnlineWebController {
   @PostMapping("/eventFile")
   public void syncEventFile(@RequestParam("file") MultipartFile file) throws IOException {
     log.info("sync event file, size:{}", file.getSize());
-    List<Event> events = eventFileReader.readAll(file);
-    importer.importEvents(events);
+    eventFileReader.readInChunks(file, IMPORT_CHUNK_SIZE, importer::importEvents);
   }
 
   @GetMapping("/masterDataEvents/{offsetId}")
   public EventsResponse exportMasterDataEvents(MachineToken machineToken, @PathVariable Long offsetId) {
-    List<ExternalEventDto> eventForReceiver =
-        eventStore.getMasterDataEvents(offsetId, machineToken.getFacilityId()).stream()
-            .map(masterDataEvent ->
-                externalEventDtoMapper.map(Event.from(masterDataEvent, machineToken.getFacilityId(), machine)))
-            .collect(Collectors.toList());
+    List<ExternalEventDto> eventForReceiver = getMasterDataEvents(machineToken, offsetId).stream()
+        .map(externalEventDtoMapper::map)
+        .collect(Collectors.toList());
     return EventsResponse.builder()
         .events(eventForReceiver)
         .build();
   }
 
+  @GetMapping(value = "/masterDataEvents/{offsetId}", produces = EVENT_STREAM_MEDIA_TYPE)
+  public void exportMasterDataEventStream(MachineToken machineToken, @PathVariable Long offsetId,
+      HttpServletResponse response) throws IOException {
+    List<Event> events = getMasterDataEvents(machineToken, offsetId);
+    response.setContentType(EVENT_STREAM_MEDIA_TYPE);
+    response.setHeader(EVENT_COUNT_HEADER, String.valueOf(events.size()));
+    eventStreamWriter.write(events, response.getOutputStream());
+  }
+
   @GetMapping("/peeringEvents")
-  public EventsResponse exportPeeringEvents(MachineToken machineToken) {
+  public EventsResponse exportPeeringEvents(MachineToken machineToken,
+      @RequestParam(value = "capacityBytes", required = false) Long capacityBytes) {
+    UUID facilityId = machineToken.getFacilityId();
+    List<Event> events = getPeeringEvents(facilityId, capacityBytes);
     List<ExternalEventDto> eventForReceiver =
-        onlineWebService.filterFinalApproveEventForOldVersion(
-        eventStore.getEventsForReceiver(machineToken.getFacilityId())).stream()
+        onlineWebService.filterFinalApproveEventForOldVersion(events).stream()
             .map(externalEventDtoMapper::map)
             .collect(Collectors.toList());
     return EventsResponse.builder()
         .events(eventForReceiver)
+        .remaining(getRemainingPeeringEvents(facilityId, capacityBytes, events.size()))
         .build();
   }
 
+  @GetMapping(value = "/peeringEvents", produces = EVENT_STREAM_MEDIA_TYPE)
+  public void exportPeeringEventStream(MachineToken machineToken,
+      @RequestParam(value = "capacityBytes", required = false) Long capacityBytes,
+      HttpServletResponse response) throws IOException {
+    UUID facilityId = machineToken.getFacilityId();
+    List<Event> events = getPeeringEvents(facilityId, capacityBytes);
+    Long remaining = getRemainingPeeringEvents(facilityId, capacityBytes, events.size());
+    List<Event> eventsForReceiver = onlineWebService.filterFinalApproveEventForOldVersion(events);
+    response.setContentType(EVENT_STREAM_MEDIA_TYPE);
+    response.setHeader(EVENT_COUNT_HEADER, String.valueOf(eventsForReceiver.size()));
+    if (remaining != null) {
+      response.setHeader(REMAINING_EVENTS_HEADER, String.valueOf(remaining));
+    }
+    eventStreamWriter.write(eventsForReceiver, response.getOutputStream());
+  }
+
   @PostMapping("/acks")
   public AckExchange exchangeAcks(@RequestBody @Validated AckExchange request, MachineToken authentication) {
     eventStore.routeAcks(request.getAcks());
@@ -124,21 +157,51 @@ public class OnlineWebController {
 
   @GetMapping("/resync")
   public void resync(MachineToken machineToken, HttpServletResponse response) {
+    runWithResyncLock(machineToken, () -> onlineWebService.resyncData(machineToken.getFacilityId(), response));
+  }
+
+  @PostMapping("/resync/delta")
+  public void resyncDelta(MachineToken machineToken, @RequestBody ResyncDeltaRequest request,
+      HttpServletResponse response) {
+    runWithResyncLock(machineToken, () -> onlineWebService.resyncDeltaData(machineToken.getFacilityId(),
+        request.getWatermark(), response));
+  }
+
+  @GetMapping("/resyncMasterData")
+  public ResyncMasterDataResponse resyncMasterData(MachineToken machineToken) {
+    return onlineWebService.resyncMasterData(machineToken.getFacilityId());
+  }
+
+  private void runWithResyncLock(MachineToken machineToken, Runnable resync) {
     try (AutoClosableLock waitLock = lockFactory.waitLock(DEFAULT_RESYNC_LOCK + getRuntimeMxBean(), 180000)) {
       if (!waitLock.isPresent()) {
         throw new UnableGetLockException(
             new Message("facility resync unable to get server lock," + machineToken.getFacilityId()));
       }
-      waitLock.ifPresent(() -> onlineWebService.resyncData(machineToken.getFacilityId(), response));
+      waitLock.ifPresent(resync);
     } catch (InterruptedException e) {
       log.error("facility: {} resync interrupt: {}", machineToken.getFacilityId(), e);
       Thread.currentThread().interrupt();
     }
   }
 
-  @GetMapping("/resyncMasterData")
-  public ResyncMasterDataResponse resyncMasterData(MachineToken machineToken) {
-    return onlineWebService.resyncMasterData(machineToken.getFacilityId());
+  private List<Event> getMasterDataEvents(MachineToken machineToken, Long offsetId) {
+    return eventStore.getMasterDataEvents(offsetId, machineToken.getFacilityId()).stream()
+        .map(masterDataEvent -> Event.from(masterDataEvent, machineToken.getFacilityId(), machine))
+        .collect(Collectors.toList());
+  }
+
+  private List<Event> getPeeringEvents(UUID facilityId, Long capacityBytes) {
+    return capacityBytes == null
+        ? eventStore.getEventsForReceiver(facilityId)
+        : eventStore.getEventsForReceiver(facilityId, capacityBytes);
+  }
+
+  private Long getRemainingPeeringEvents(UUID facilityId, Long capacityBytes, int pulledSize) {
+    if (capacityBytes == null) {
+      return null;
+    }
+    return Math.max(0L, eventStore.countEventsForReceiver(facilityId) - pulledSize);
   }
 
   static String getRuntimeMxBean() {
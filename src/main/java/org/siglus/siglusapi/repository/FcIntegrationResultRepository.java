@@ -23,4 +23,7 @@ public interface FcIntegrationResultRepository extends JpaRepository<FcIntegrati
 
   FcIntegrationResult findTopByApiAndFinalSuccessOrderByLastUpdatedAtDesc(String job, Boolean finalSuccess);
 
+  FcIntegrationResult findTopByApiAndStartDateAndFinalSuccessAndLastPageNotNullOrderByProcessDateDesc(String api,
+      String startDate, Boolean finalSuccess);
+
 }
@@ -0,0 +1,60 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.siglus.siglusapi.repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.siglus.siglusapi.domain.HfCmm;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@RequiredArgsConstructor
+public class HfCmmNativeSqlRepository {
+
+  private final JdbcTemplate jdbcTemplate;
+
+  // rows already written by a previous (interrupted) run are kept, so a rerun only fills the gaps
+  public void batchInsertIgnoreExisted(List<HfCmm> hfCmms) {
+    jdbcTemplate.batchUpdate("insert into siglusintegration.hf_cmms "
+        + "(id, facilitycode, productcode, periodbegin, periodend, cmm, lastupdated) "
+        + "values (?, ?, ?, ?, ?, ?, ?) "
+        + "on conflict (facilitycode, productcode, periodbegin, periodend) do nothing",
+        new BatchPreparedStatementSetter() {
+          @Override
+          public void setValues(PreparedStatement ps, int i) throws SQLException {
+            HfCmm hfCmm = hfCmms.get(i);
+            ps.setObject(1, hfCmm.getId());
+            ps.setString(2, hfCmm.getFacilityCode());
+            ps.setString(3, hfCmm.getProductCode());
+            ps.setDate(4, Date.valueOf(hfCmm.getPeriodBegin()));
+            ps.setDate(5, Date.valueOf(hfCmm.getPeriodEnd()));
+            ps.setObject(6, hfCmm.getCmm());
+            ps.setTimestamp(7, Timestamp.from(hfCmm.getLastUpdated().toInstant()));
+          }
+
+          @Override
+          public int getBatchSize() {
+            return hfCmms.size();
+          }
+        });
+  }
+}
@@ -38,6 +38,11 @@ public interface SiglusOrdersRepository extends JpaRepository<Order, UUID> {
 
   List<Order> findAllByExternalIdIn(Set<UUID> externalIds);
 
+  @Query(value = "SELECT o.* FROM fulfillment.orders o "
+      + "JOIN siglusintegration.order_external_ids oei ON oei.id = o.externalid "
+      + "WHERE oei.requisitionid IN (:requisitionIds)", nativeQuery = true)
+  List<Order> findAllBySubOrderRequisitionIdIn(@Param("requisitionIds") Set<UUID> requisitionIds);
+
   List<Order> findBySupplyingFacilityIdAndProgramIdAndStatusIn(UUID supplyingFacilityId, UUID programId,
       List<OrderStatus> statuses);
 
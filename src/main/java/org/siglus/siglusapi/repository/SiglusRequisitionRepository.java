@@ -134,6 +134,12 @@ public interface SiglusRequisitionRepository extends JpaRepository<Requisition,
   @EntityGraph(value = "requisition-statusChange-graph")
   Set<Requisition> findAllByStatus(RequisitionStatus status);
 
+  @EntityGraph(attributePaths = "requisitionLineItems")
+  Set<Requisition> findAllByIdIn(Collection<UUID> ids);
+
+  List<Requisition> findByFacilityIdAndProgramIdInAndProcessingPeriodIdInAndEmergencyFalse(
+      UUID facilityId, Collection<UUID> programIds, Collection<UUID> processingPeriodIds);
+
 
   Set<Requisition> findAllByStatusIn(Set<RequisitionStatus> statusSet);
 
@@ -51,6 +51,9 @@ public interface SiglusStockCardLineItemRepository extends JpaRepository<StockCa
 
   List<StockCardLineItem> findAllByStockCardIn(List<StockCard> stockCards);
 
+  List<StockCardLineItem> findAllByStockCardInAndOccurredDateGreaterThanEqual(List<StockCard> stockCards,
+      LocalDate occurredDate);
+
   @Query(value = "select\n"
       + "  scli.occurreddate \n"
       + "from\n"
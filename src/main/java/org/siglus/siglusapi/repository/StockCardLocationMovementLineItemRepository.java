@@ -15,6 +15,7 @@
 
 package org.siglus.siglusapi.repository;
 
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
@@ -31,6 +32,9 @@ public interface StockCardLocationMovementLineItemRepository extends
 
   List<StockCardLocationMovementLineItem> findAllByStockCardIdIn(Set<UUID> stockCardIds);
 
+  List<StockCardLocationMovementLineItem> findAllByStockCardIdInAndOccurredDateGreaterThanEqual(
+      Set<UUID> stockCardIds, LocalDate occurredDate);
+
   @Query(value = "select * from siglusintegration.stock_card_location_movement_line_items "
       + "         where (stockcardid, processeddate) in ( "
       + "         select stockcardid, max(processeddate) "
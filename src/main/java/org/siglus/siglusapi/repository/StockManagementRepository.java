@@ -15,23 +15,32 @@
 
 package org.siglus.siglusapi.repository;
 
+import static java.util.Collections.emptyList;
 import static java.util.Collections.emptySet;
 import static java.util.Comparator.comparing;
 import static java.util.Objects.requireNonNull;
 import static java.util.UUID.randomUUID;
+import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
 import static java.util.stream.Collectors.summingInt;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 import static org.openlmis.referencedata.domain.Orderable.TRADE_ITEM;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import java.sql.ResultSet;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -41,19 +50,16 @@ import java.util.UUID;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNullableByDefault;
-import javax.persistence.EntityManager;
-import javax.persistence.Query;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
-import org.hibernate.jpa.TypedParameterValue;
-import org.hibernate.type.StandardBasicTypes;
 import org.openlmis.requisition.dto.OrderableDto;
 import org.siglus.common.constant.KitConstants;
 import org.siglus.common.dto.StockOnHandByLotDto;
@@ -81,8 +87,6 @@ import org.siglus.siglusapi.dto.android.db.StockCard;
 import org.siglus.siglusapi.dto.android.db.StockCardLineItem;
 import org.siglus.siglusapi.dto.android.db.StockEvent;
 import org.siglus.siglusapi.dto.android.db.StockEventLineItem;
-import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.RowMapperResultSetExtractor;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
@@ -97,9 +101,7 @@ import org.springframework.stereotype.Repository;
 @SuppressWarnings({"PMD.AvoidDuplicateLiterals", "PMD.TooManyMethods"})
 public class StockManagementRepository extends BaseNativeRepository {
 
-  private final EntityManager em;
   private final ObjectMapper json;
-  private final JdbcTemplate jdbc;
   private final NamedParameterJdbcTemplate namedJdbc;
 
   private static final String LEFT_JOIN = "LEFT JOIN ";
@@ -108,6 +110,7 @@ public class StockManagementRepository extends BaseNativeRepository {
       "(select distinct on (id) * from referencedata.orderables order by id, versionnumber desc) o";
   private static final String LOT_ROOT = "referencedata.lots l";
   private static final String STOCK_ON_HAND = "stockonhand";
+  private static final int BATCH_QUERY_SIZE = 1000;
 
   public PeriodOfProductMovements getAllProductMovementsForSync(@Nonnull UUID facilityId,
                                                                 @Nonnull LocalDate since,
@@ -202,6 +205,11 @@ public class StockManagementRepository extends BaseNativeRepository {
     return getStockOnHand(facilityId, at, emptySet());
   }
 
+  public StocksOnHand getStockOnHandByOrderableIds(@Nonnull UUID facilityId, @Nonnull Set<UUID> orderableIds) {
+    requireNonNull(orderableIds);
+    return getStockOnHand(facilityId, null, orderableIds);
+  }
+
   @ParametersAreNullableByDefault
   private StocksOnHand getStockOnHand(@Nonnull UUID facilityId, LocalDate at, @Nonnull Set<UUID> orderableIds) {
     return new StocksOnHand(findAllLotStocks(facilityId, at, orderableIds));
@@ -278,52 +286,78 @@ public class StockManagementRepository extends BaseNativeRepository {
     namedJdbc.batchUpdate(sql, toParams(inventoryLineAdjustments));
   }
 
-  public ProductLot getLot(OrderableDto product, Lot lot) {
-    String lotCode = lot.getCode();
-    String tradeItemId = product.getIdentifiers().get(TRADE_ITEM);
-    ProductLotCode code = ProductLotCode.of(product.getProductCode(), lotCode);
-    String lotQuery = "SELECT id, lotcode, tradeitemid, expirationdate FROM referencedata.lots "
-        + "WHERE lotcode = ? AND tradeitemid = ?";
-    return jdbc.query(lotQuery, productLotExtractor(code), lotCode, tradeItemId);
-  }
-
-  public StockCard getStockCard(UUID facilityId, UUID programId, UUID productId, ProductLot productLot) {
-    StockCard querySample = StockCard.querySample(facilityId, programId, productId, productLot);
-    String sql;
-    if (!productLot.isLot()) {
-      sql = "SELECT CAST(id AS VARCHAR) FROM stockmanagement.stock_cards "
-          + "WHERE facilityid = ?1 AND programid = ?2 AND orderableid = ?3 AND lotid IS NULL ";
-    } else {
-      sql = "SELECT CAST(id AS VARCHAR) FROM stockmanagement.stock_cards "
-          + "WHERE facilityid = ?1 AND programid = ?2 AND orderableid = ?3 AND lotid = ?4 ";
+  public Map<ProductLotCode, ProductLot> getLots(Map<ProductLotCode, OrderableDto> codeToProduct) {
+    Map<LotKey, List<ProductLotCode>> keyToCodes = codeToProduct.entrySet().stream()
+        .collect(groupingBy(e -> LotKey.of(getTradeItemId(e.getValue()), e.getKey().getLotCode()),
+            mapping(Entry::getKey, toList())));
+    Map<ProductLotCode, ProductLot> codeToLot = new HashMap<>();
+    Lists.partition(new ArrayList<>(keyToCodes.keySet()), BATCH_QUERY_SIZE).forEach(keys -> {
+      String sql = "SELECT id, lotcode, tradeitemid, expirationdate FROM referencedata.lots "
+          + "WHERE (tradeitemid, lotcode) IN (:keys)";
+      MapSqlParameterSource parameters = new MapSqlParameterSource();
+      parameters.addValue("keys", keys.stream()
+          .map(key -> new Object[]{key.getTradeItemId(), key.getLotCode()})
+          .collect(toList()));
+      executeQuery(sql, parameters, (rs, i) -> ProductLot.fromDatabase(readId(rs), null,
+          readUuid(rs, "tradeitemid"), readLot(rs)))
+          .forEach(lot -> keyToCodes.getOrDefault(LotKey.of(lot.getTradeItemId(), lot.getLotCode()), emptyList())
+              .forEach(code -> codeToLot.putIfAbsent(code, ProductLot.fromDatabase(lot.getId(),
+                  code.getProductCode(), lot.getTradeItemId(), lot.getLot()))));
+    });
+    return codeToLot;
+  }
+
+  public Map<ProductLotCode, StockCard> getStockCards(UUID facilityId, Collection<StockCard> querySamples) {
+    Map<ProductLotCode, StockCard> codeToStockCard = new HashMap<>();
+    if (querySamples.isEmpty()) {
+      return codeToStockCard;
     }
-    Query query = em.createNativeQuery(sql);
-    query.setParameter(1, wrap(querySample.getFacilityId()));
-    query.setParameter(2, wrap(querySample.getProgramId()));
-    query.setParameter(3, wrap(querySample.getProductId()));
-    UUID lotId = productLot.getId();
-    if (lotId != null) {
-      query.setParameter(4, wrap(lotId));
-    }
-    @SuppressWarnings("unchecked")
-    List<String> list = query.getResultList();
-    if (list.isEmpty()) {
-      return null;
-    }
-    return StockCard.fromDatabase(UUID.fromString(list.get(0)), querySample);
+    Set<UUID> productIds = querySamples.stream().map(StockCard::getProductId).collect(toSet());
+    Map<StockCardKey, UUID> keyToId = new HashMap<>();
+    Lists.partition(new ArrayList<>(productIds), BATCH_QUERY_SIZE).forEach(batchProductIds -> {
+      String sql = "SELECT id, programid, orderableid, lotid FROM stockmanagement.stock_cards "
+          + "WHERE facilityid = :facilityId AND orderableid IN (:productIds)";
+      MapSqlParameterSource parameters = new MapSqlParameterSource();
+      parameters.addValue("facilityId", facilityId);
+      parameters.addValue("productIds", batchProductIds);
+      executeQuery(sql, parameters, (rs, i) -> Maps.immutableEntry(
+          StockCardKey.of(readUuid(rs, "programid"), readUuid(rs, "orderableid"), readUuid(rs, "lotid")), readId(rs)))
+          .forEach(entry -> keyToId.putIfAbsent(entry.getKey(), entry.getValue()));
+    });
+    querySamples.forEach(sample -> {
+      UUID id = keyToId.get(StockCardKey.of(sample.getProgramId(), sample.getProductId(), sample.getLotId()));
+      if (id != null) {
+        codeToStockCard.put(ProductLotCode.of(sample.getProductCode(), sample.getLotCode()),
+            StockCard.fromDatabase(id, sample));
+      }
+    });
+    return codeToStockCard;
   }
 
-  public List<CalculatedStockOnHand> findCalculatedStockOnHand(StockCard stockCard, EventTime earliestDate) {
-    String sql = "SELECT DISTINCT ON (root.id) root.id, stockonhand, "
+  public List<CalculatedStockOnHand> findCalculatedStocksOnHand(Map<StockCard, EventTime> stockCardToEarliestDate) {
+    if (stockCardToEarliestDate.isEmpty()) {
+      return emptyList();
+    }
+    Map<UUID, StockCard> idToStockCard = stockCardToEarliestDate.keySet().stream()
+        .collect(toMap(StockCard::getId, identity(), (a, b) -> a));
+    List<Object[]> keys = stockCardToEarliestDate.entrySet().stream()
+        .map(e -> new Object[]{e.getKey().getId(), java.sql.Date.valueOf(e.getValue().getOccurredDate())})
+        .collect(toList());
+    String sql = "SELECT DISTINCT ON (root.id) root.id, root.stockcardid, stockonhand, "
         + "l.extradata :: json ->> 'originEventTime' as recordedat, root.occurreddate, root.processeddate "
         + "FROM stockmanagement.calculated_stocks_on_hand root "
         + "LEFT JOIN stockmanagement.stock_card_line_items l "
         + "ON root.stockcardid = l.stockcardid AND root.occurreddate = l.occurreddate "
-        + "WHERE l.stockcardid = ? "
-        + "AND l.occurreddate = ? "
+        + "WHERE (l.stockcardid, l.occurreddate) IN (:keys) "
         + "ORDER BY root.id, l.processeddate DESC";
-    return jdbc
-        .query(sql, calculatedStockOnHandExtractor(stockCard), stockCard.getId(), earliestDate.getOccurredDate());
+    List<CalculatedStockOnHand> result = new ArrayList<>();
+    Lists.partition(keys, BATCH_QUERY_SIZE).forEach(batchKeys -> {
+      MapSqlParameterSource parameters = new MapSqlParameterSource();
+      parameters.addValue("keys", batchKeys);
+      result.addAll(executeQuery(sql, parameters,
+          (rs, i) -> calculatedStockOnHandExtractor(idToStockCard.get(readUuid(rs, "stockcardid"))).mapRow(rs, i)));
+    });
+    return result;
   }
 
   public void batchSaveStocksOnHand(List<CalculatedStockOnHand> calculatedList) {
@@ -365,8 +399,8 @@ public class StockManagementRepository extends BaseNativeRepository {
         .toArray(SqlParameterSource[]::new);
   }
 
-  private TypedParameterValue wrap(UUID id) {
-    return new TypedParameterValue(StandardBasicTypes.UUID_CHAR, id);
+  private UUID getTradeItemId(OrderableDto product) {
+    return UUID.fromString(product.getIdentifiers().get(TRADE_ITEM));
   }
 
   @ParametersAreNullableByDefault
@@ -378,15 +412,6 @@ public class StockManagementRepository extends BaseNativeRepository {
     return executeQuery(sql, parameters, buildProductLotMovementFromResult());
   }
 
-  private ResultSetExtractor<ProductLot> productLotExtractor(ProductLotCode code) {
-    return rs -> {
-      if (!rs.next()) {
-        return null;
-      }
-      return ProductLot.fromDatabase(readId(rs), code.getProductCode(), readUuid(rs, "tradeitemid"), readLot(rs));
-    };
-  }
-
   private RowMapper<CalculatedStockOnHand> calculatedStockOnHandExtractor(StockCard stockCard) {
     return (rs, i) -> {
       CalculatedStockOnHand stockOnHand = CalculatedStockOnHand
@@ -724,6 +749,23 @@ public class StockManagementRepository extends BaseNativeRepository {
 
   }
 
+  @Data
+  @AllArgsConstructor(staticName = "of")
+  private static class LotKey {
+
+    private final UUID tradeItemId;
+    private final String lotCode;
+  }
+
+  @Data
+  @AllArgsConstructor(staticName = "of")
+  private static class StockCardKey {
+
+    private final UUID programId;
+    private final UUID productId;
+    private final UUID lotId;
+  }
+
   private static class ToJsonBeanPropertySqlParameterSource extends BeanPropertySqlParameterSource {
 
     private final ObjectMapper objectMapper;
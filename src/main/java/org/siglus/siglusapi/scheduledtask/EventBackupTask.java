@@ -15,20 +15,14 @@
 
 package org.siglus.siglusapi.scheduledtask;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
-import org.apache.commons.collections.CollectionUtils;
-import org.siglus.siglusapi.localmachine.EventBackupDeleteTask;
-import org.siglus.siglusapi.localmachine.eventstore.EventRecord;
-import org.siglus.siglusapi.localmachine.eventstore.EventRecordRepository;
-import org.siglus.siglusapi.localmachine.eventstore.backup.EventPayloadBackup;
-import org.siglus.siglusapi.localmachine.eventstore.backup.EventPayloadBackupRepository;
+import org.siglus.siglusapi.localmachine.eventstore.backup.EventArchiveRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
@@ -37,47 +31,35 @@ import org.springframework.stereotype.Service;
 @Slf4j
 public class EventBackupTask {
 
-  private final EventRecordRepository eventRecordRepository;
-  private final EventPayloadBackupRepository eventPayloadBackupRepository;
-  private final EventBackupDeleteTask eventBackupDeleteTask;
+  static final int ARCHIVE_CHUNK_SIZE = 5000;
 
+  private final EventArchiveRepository eventArchiveRepository;
+
+  @Value("${event.archive.time.budget.minutes}")
+  private long timeBudgetMinutes;
+
+  // every chunk is committed on its own, the events left when the time budget is used up are archived by the next run
   @Scheduled(cron = "${event.archive.cron}", zone = "${time.zoneId}")
-  @SchedulerLock(name = "localmachine_archive_event")
+  @SchedulerLock(name = "localmachine_archive_event", lockAtMostFor = "${event.archive.lock.at.most.for}")
   public void run() {
     log.info("start archiving events ...");
-    boolean hasMoreRecords = true;
-    List<UUID> archiveEventIds = new ArrayList<>(Collections.emptySet());
-    while (hasMoreRecords) {
-      List<EventRecord> archiveEventRecords = eventRecordRepository
-          .findFirst100ByArchivedFalseAndReceiverSyncedTrueAndOnlineWebSyncedTrueAndLocalReplayedTrue();
-      if (CollectionUtils.isEmpty(archiveEventRecords)) {
-        hasMoreRecords = false;
-      } else {
-        List<EventPayloadBackup> backups = archiveEventRecords.stream()
-            .map(item -> new EventPayloadBackup(item.getId(), item.getPayload()))
-            .collect(Collectors.toList());
-        eventPayloadBackupRepository.save(backups);
-        archiveEventRecords.forEach(event -> event.setArchived(true));
-        archiveEventIds.addAll(archiveEventRecords.stream().map(EventRecord::getId).collect(Collectors.toSet()));
-        eventRecordRepository.save(archiveEventRecords);
-        log.info("archived 100 events.");
-      }
-    }
-
-    log.info("delete event_payload, total: {}", archiveEventIds.size());
-    if (!archiveEventIds.isEmpty()) {
-      int batchSize = 100;
-      List<List<UUID>> archiveEventBatches = new ArrayList<>();
-      for (int i = 0; i < archiveEventIds.size(); i += batchSize) {
-        archiveEventBatches.add(archiveEventIds.subList(i, Math.min(i + batchSize, archiveEventIds.size())));
+    long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(timeBudgetMinutes);
+    UUID lastEventId = EventArchiveRepository.FIRST_EVENT_ID;
+    int chunks = 0;
+    while (true) {
+      if (System.currentTimeMillis() >= deadline) {
+        log.info("archive time budget used up after {} chunks, continue in next run", chunks);
+        return;
       }
-      for (List<UUID> batch : archiveEventBatches) {
-        log.info("delete event_payload, batch size: {}", batch.size());
-        eventBackupDeleteTask.delete(batch);
+      Optional<UUID> chunkLastEventId = eventArchiveRepository.archiveChunk(lastEventId, ARCHIVE_CHUNK_SIZE);
+      if (!chunkLastEventId.isPresent()) {
+        break;
       }
+      lastEventId = chunkLastEventId.get();
+      chunks++;
+      log.info("archived events chunk {}, up to event {}", chunks, lastEventId);
     }
-
-    log.info("finish archived events.");
+    log.info("finish archived events, chunks: {}", chunks);
   }
 
 }
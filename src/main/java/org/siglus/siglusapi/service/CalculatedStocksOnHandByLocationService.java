@@ -20,6 +20,7 @@ import static org.openlmis.stockmanagement.i18n.MessageKeys.ERROR_EVENT_DEBIT_QU
 import static org.siglus.siglusapi.constant.FieldConstants.SEPARATOR;
 import static org.siglus.siglusapi.constant.LocationConstants.VIRTUAL_LOCATION_CODE;
 
+import com.google.common.collect.Lists;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.ArrayList;
@@ -52,7 +53,6 @@ import org.openlmis.stockmanagement.dto.StockEventLineItemDto;
 import org.openlmis.stockmanagement.dto.referencedata.OrderableDto;
 import org.openlmis.stockmanagement.exception.ValidationMessageException;
 import org.openlmis.stockmanagement.repository.CalculatedStockOnHandRepository;
-import org.openlmis.stockmanagement.repository.StockCardLineItemRepository;
 import org.openlmis.stockmanagement.repository.StockCardRepository;
 import org.openlmis.stockmanagement.service.referencedata.OrderableReferenceDataService;
 import org.openlmis.stockmanagement.util.Message;
@@ -60,6 +60,7 @@ import org.siglus.siglusapi.domain.CalculatedStockOnHandByLocation;
 import org.siglus.siglusapi.domain.StockCardLineItemExtension;
 import org.siglus.siglusapi.domain.StockCardLocationMovementLineItem;
 import org.siglus.siglusapi.repository.CalculatedStockOnHandByLocationRepository;
+import org.siglus.siglusapi.repository.SiglusStockCardLineItemRepository;
 import org.siglus.siglusapi.repository.SiglusStockCardRepository;
 import org.siglus.siglusapi.repository.StockCardLineItemExtensionRepository;
 import org.siglus.siglusapi.repository.StockCardLocationMovementLineItemRepository;
@@ -70,13 +71,15 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class CalculatedStocksOnHandByLocationService {
 
+  private static final int EXTENSION_QUERY_BATCH_SIZE = 1000;
+
   private final CalculatedStockOnHandByLocationRepository calculatedStockOnHandByLocationRepository;
   private final CalculatedStockOnHandRepository calculatedStocksOnHandRepository;
   private final SiglusStockCardRepository siglusStockCardRepository;
   private final StockCardLineItemExtensionRepository stockCardLineItemExtensionRepository;
   private final StockCardLocationMovementLineItemRepository locationMovementRepository;
   private final OrderableReferenceDataService orderableService;
-  private final StockCardLineItemRepository stockCardLineItemRepository;
+  private final SiglusStockCardLineItemRepository siglusStockCardLineItemRepository;
   private final StockCardRepository stockCardRepository;
 
   public void calculateStockOnHandByLocationForMovement(List<StockCardLocationMovementLineItem> movementLineItems) {
@@ -146,7 +149,10 @@ public class CalculatedStocksOnHandByLocationService {
     Map<String, StockCard> uniKeyToStockCard = stockCards.stream()
         .collect(Collectors.toMap(this::getUniqueKey, Function.identity()));
 
-    List<StockCardLineItem> allLineItems = stockCardLineItemRepository.findAllByStockCardIn(stockCards);
+    // replay starts from the latest persisted location SOH, so history before the event is never needed
+    LocalDate replayFromDate = getEarliestOccurredDate(lineItemDtos);
+    List<StockCardLineItem> allLineItems = siglusStockCardLineItemRepository
+        .findAllByStockCardInAndOccurredDateGreaterThanEqual(stockCards, replayFromDate);
     Map<UUID, List<StockCardLineItem>> stockCardIdToLineItems = allLineItems.stream()
         .collect(Collectors.groupingBy(lineItem -> lineItem.getStockCardId() == null
             ? lineItem.getStockCard().getId() : lineItem.getStockCardId()));
@@ -163,7 +169,7 @@ public class CalculatedStocksOnHandByLocationService {
     deleteFollowingStockOnHands(allStockEventLineItems, lineItemIdToExtension, occurredDate);
 
     List<StockCardLocationMovementLineItem> allMovements = locationMovementRepository
-        .findAllByStockCardIdIn(stockCardIds);
+        .findAllByStockCardIdInAndOccurredDateGreaterThanEqual(stockCardIds, replayFromDate);
     Map<UUID, List<StockCardLocationMovementLineItem>> stockCardIdToMovements = allMovements.stream()
         .collect(Collectors.groupingBy(StockCardLocationMovementLineItem::getStockCardId));
 
@@ -178,6 +184,14 @@ public class CalculatedStocksOnHandByLocationService {
     saveAll(toSaveList, eventDto.isPhysicalInventory(), false);
   }
 
+  private LocalDate getEarliestOccurredDate(List<StockEventLineItemDto> lineItemDtos) {
+    return lineItemDtos.stream()
+        .map(StockEventLineItemDto::getOccurredDate)
+        .filter(Objects::nonNull)
+        .min(LocalDate::compareTo)
+        .orElse(lineItemDtos.get(0).getOccurredDate());
+  }
+
   private String getOrderableLotIdPair(StockEventLineItemDto eventLineItemDto) {
     return eventLineItemDto.getOrderableId().toString()
         + Optional.ofNullable(eventLineItemDto.getLotId()).map(UUID::toString).orElse("");
@@ -255,10 +269,12 @@ public class CalculatedStocksOnHandByLocationService {
   }
 
   private Map<UUID, StockCardLineItemExtension> buildExtensionMap(List<StockCardLineItem> lineItems) {
-    Set<UUID> ids = lineItems.stream().map(StockCardLineItem::getId).collect(Collectors.toSet());
-    return stockCardLineItemExtensionRepository.findAll().stream()
-        .filter(extension -> ids.contains(extension.getStockCardLineItemId()))
-        .collect(Collectors.toMap(StockCardLineItemExtension::getStockCardLineItemId, Function.identity()));
+    List<UUID> ids = lineItems.stream().map(StockCardLineItem::getId).distinct().collect(Collectors.toList());
+    Map<UUID, StockCardLineItemExtension> lineItemIdToExtension = new HashMap<>();
+    Lists.partition(ids, EXTENSION_QUERY_BATCH_SIZE).forEach(batchIds ->
+        stockCardLineItemExtensionRepository.findAllByStockCardLineItemIdIn(batchIds)
+            .forEach(extension -> lineItemIdToExtension.put(extension.getStockCardLineItemId(), extension)));
+    return lineItemIdToExtension;
   }
 
   private void deleteFollowingStockOnHands(List<StockCardLineItem> allLineItems,
@@ -15,6 +15,8 @@
 
 package org.siglus.siglusapi.service;
 
+import java.util.Collection;
+import java.util.Objects;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.Cache;
@@ -34,4 +36,12 @@ public class SiglusCacheService {
         .map(cacheManager::getCache)
         .forEach(Cache::clear);
   }
+
+  public void invalidateCache(Collection<String> cacheNames) {
+    log.info("invalidate caches: {}", cacheNames);
+    cacheNames.stream()
+        .map(cacheManager::getCache)
+        .filter(Objects::nonNull)
+        .forEach(Cache::clear);
+  }
 }
@@ -34,6 +34,7 @@ import static org.siglus.siglusapi.constant.ProgramConstants.TARV_PROGRAM_CODE;
 import static org.siglus.siglusapi.i18n.MessageKeys.ERROR_NO_PERIOD_MATCH;
 import static org.siglus.siglusapi.i18n.MessageKeys.ERROR_ORDER_NOT_EXIST;
 import static org.siglus.siglusapi.i18n.MessageKeys.ERROR_PERIOD_NOT_FOUND;
+import static org.siglus.siglusapi.i18n.MessageKeys.ERROR_REQUISITION_NOT_FOUND;
 import static org.siglus.siglusapi.util.SiglusDateHelper.DATE_MONTH_YEAR;
 import static org.siglus.siglusapi.util.SiglusDateHelper.getFormatDate;
 
@@ -758,6 +759,53 @@ public class SiglusOrderService {
     return requisitionController.findRequisition(requisitionId, requisitionController.getProfiler("GET_ORDER"));
   }
 
+  public List<SiglusOrderDto> searchOrdersWithoutProducts(Collection<Order> orders,
+      Map<UUID, Requisition> orderIdToRequisition) {
+    if (CollectionUtils.isEmpty(orders)) {
+      return Collections.emptyList();
+    }
+    List<OrderDto> orderDtos = orderDtoBuilder.build(new ArrayList<>(orders));
+    setOrderLineItemExtension(orderDtos.stream()
+        .map(OrderDto::orderLineItems)
+        .flatMap(Collection::stream)
+        .collect(toList()));
+    fillPartialFulfillQuantity(orderDtos);
+    Map<UUID, String> requisitionIdToNumber = siglusRequisitionExtensionService.getRequisitionNumbers(
+        orderIdToRequisition.values().stream().map(Requisition::getId).collect(toSet()));
+    List<SiglusOrderDto> orders = orderDtos.stream()
+        .map(orderDto -> {
+          Requisition requisition = orderIdToRequisition.get(orderDto.getId());
+          orderDto.setRequisitionNumber(requisitionIdToNumber.get(requisition.getId()));
+          orderDto.setActualStartDate(requisition.getActualStartDate());
+          orderDto.setActualEndDate(requisition.getActualEndDate());
+          return SiglusOrderDto.builder().order(orderDto).build();
+        })
+        .collect(toList());
+    setIfIsKit(orders);
+    return orders;
+  }
+
+  public Map<UUID, Requisition> getOrderIdToRequisition(Collection<Order> orders) {
+    if (CollectionUtils.isEmpty(orders)) {
+      return Collections.emptyMap();
+    }
+    Map<UUID, UUID> externalIdToRequisitionId = getExternalIdToRequisitionId(
+        orders.stream().map(Order::getExternalId).collect(toSet()));
+    Map<UUID, Requisition> requisitionIdToRequisition = siglusRequisitionRepository
+        .findAll(new HashSet<>(externalIdToRequisitionId.values())).stream()
+        .collect(toMap(Requisition::getId, Function.identity()));
+    Map<UUID, Requisition> orderIdToRequisition = new HashMap<>();
+    orders.forEach(order -> {
+      Requisition requisition = requisitionIdToRequisition.get(
+          externalIdToRequisitionId.get(order.getExternalId()));
+      if (requisition == null) {
+        throw new NotFoundException(ERROR_REQUISITION_NOT_FOUND);
+      }
+      orderIdToRequisition.put(order.getId(), requisition);
+    });
+    return orderIdToRequisition;
+  }
+
   public OrderSuggestedQuantityResponse getOrderSuggestedQuantityResponse(UUID orderId) {
     Order order = getOrder(orderId);
     List<ProcessingPeriod> periods = getUpToNowMonthlyPeriods();
@@ -1070,6 +1118,13 @@ public class SiglusOrderService {
     return Objects.isNull(orderExternal) ? externalId : orderExternal.getRequisitionId();
   }
 
+  private Map<UUID, UUID> getExternalIdToRequisitionId(Set<UUID> externalIds) {
+    Map<UUID, UUID> externalIdToRequisitionId = orderExternalRepository.findAll(externalIds).stream()
+        .collect(toMap(OrderExternal::getId, OrderExternal::getRequisitionId));
+    externalIds.forEach(externalId -> externalIdToRequisitionId.putIfAbsent(externalId, externalId));
+    return externalIdToRequisitionId;
+  }
+
   private Map<UUID, Integer> getOrderableIdToSoh(Set<UUID> orderableIds, UUID programId, UUID facilityId) {
     return stockManagementRepository.getAvailableStockOnHandByProduct(facilityId, programId, orderableIds,
         LocalDate.now());
@@ -1167,6 +1222,34 @@ public class SiglusOrderService {
     if (CollectionUtils.isEmpty(shipments)) {
       return;
     }
+    setPartialFulfilledQuantity(orderDto, sumQuantityShippedByOrderable(shipments));
+  }
+
+  private void fillPartialFulfillQuantity(List<OrderDto> orderDtos) {
+    Map<UUID, UUID> externalIdToRequisitionId = getExternalIdToRequisitionId(
+        orderDtos.stream().map(OrderDto::getExternalId).collect(toSet()));
+    List<Order> siblingOrders = siglusOrdersRepository.findAllBySubOrderRequisitionIdIn(
+        new HashSet<>(externalIdToRequisitionId.values()));
+    if (CollectionUtils.isEmpty(siblingOrders)) {
+      return;
+    }
+    Map<UUID, UUID> siblingExternalIdToRequisitionId = getExternalIdToRequisitionId(
+        siblingOrders.stream().map(Order::getExternalId).collect(toSet()));
+    Map<UUID, UUID> siblingOrderIdToRequisitionId = siblingOrders.stream()
+        .collect(toMap(Order::getId, order -> siblingExternalIdToRequisitionId.get(order.getExternalId())));
+    Map<UUID, List<Shipment>> requisitionIdToShipments = siglusShipmentRepository
+        .findAllByOrderIdIn(siblingOrderIdToRequisitionId.keySet()).stream()
+        .collect(Collectors.groupingBy(shipment -> siblingOrderIdToRequisitionId.get(shipment.getOrder().getId())));
+    orderDtos.forEach(orderDto -> {
+      List<Shipment> shipments = requisitionIdToShipments.get(
+          externalIdToRequisitionId.get(orderDto.getExternalId()));
+      if (CollectionUtils.isNotEmpty(shipments)) {
+        setPartialFulfilledQuantity(orderDto, sumQuantityShippedByOrderable(shipments));
+      }
+    });
+  }
+
+  private Map<UUID, Long> sumQuantityShippedByOrderable(List<Shipment> shipments) {
     Map<UUID, Long> orderableIdToPartialFulfillQuantity = new HashMap<>();
     Map<UUID, List<ShipmentLineItem>> orderableIdToItems = shipments
         .stream().map(Shipment::getLineItems)
@@ -1177,6 +1260,10 @@ public class SiglusOrderService {
           .map(ShipmentLineItem::getQuantityShipped).reduce(Long::sum).orElse(0L);
       orderableIdToPartialFulfillQuantity.put(entry.getKey(), sum);
     });
+    return orderableIdToPartialFulfillQuantity;
+  }
+
+  private void setPartialFulfilledQuantity(OrderDto orderDto, Map<UUID, Long> orderableIdToPartialFulfillQuantity) {
     orderDto.orderLineItems().forEach(lineItem -> {
       UUID orderableId = lineItem.getOrderableIdentity().getId();
       if (orderableIdToPartialFulfillQuantity.containsKey(orderableId)) {
@@ -1186,10 +1273,18 @@ public class SiglusOrderService {
   }
 
   private void setIfIsKit(SiglusOrderDto siglusOrderDto) {
-    List<UUID> orderableIds = siglusOrderDto.getOrder().orderLineItems().stream()
-        .map(orderableDto -> orderableDto.getOrderable().getId()).collect(Collectors.toList());
-    log.info("siglusOrderDto id: {}, lineItems size: {}", siglusOrderDto.getOrder().getId(),
-            siglusOrderDto.getOrder().orderLineItems().size());
+    setIfIsKit(Collections.singletonList(siglusOrderDto));
+  }
+
+  private void setIfIsKit(List<SiglusOrderDto> siglusOrderDtos) {
+    List<OrderLineItemDto> lineItems = new ArrayList<>();
+    siglusOrderDtos.forEach(siglusOrderDto -> {
+      log.info("siglusOrderDto id: {}, lineItems size: {}", siglusOrderDto.getOrder().getId(),
+          siglusOrderDto.getOrder().orderLineItems().size());
+      lineItems.addAll(siglusOrderDto.getOrder().orderLineItems());
+    });
+    List<UUID> orderableIds = lineItems.stream()
+        .map(orderableDto -> orderableDto.getOrderable().getId()).distinct().collect(Collectors.toList());
     if (CollectionUtils.isEmpty(orderableIds)) {
       return;
     }
@@ -1198,7 +1293,7 @@ public class SiglusOrderService {
     orderables.forEach(orderable ->
         orderableToIsKitMap.put(orderable.getId(), CollectionUtils.isNotEmpty(orderable.getChildren())
             || APE_KITS.contains(orderable.getProductCode().toString())));
-    siglusOrderDto.getOrder().orderLineItems().forEach(orderLineItemDto -> {
+    lineItems.forEach(orderLineItemDto -> {
       OrderableDto orderable = orderLineItemDto.getOrderable();
       orderable.setIsKit(orderableToIsKitMap.get(orderable.getId()));
     });
@@ -32,7 +32,6 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -47,6 +46,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.Session;
 import org.openlmis.fulfillment.domain.BaseEntity;
+import org.openlmis.fulfillment.domain.Order;
 import org.openlmis.fulfillment.domain.OrderStatus;
 import org.openlmis.fulfillment.domain.ProofOfDelivery;
 import org.openlmis.fulfillment.domain.Shipment;
@@ -342,7 +342,8 @@ public class MeService {
     LocalDate earliest = requests.stream().map(StockCardCreateRequest::getEventTime).map(EventTime::getOccurredDate)
         .min(Comparator.naturalOrder()).orElseThrow(IllegalStateException::new);
     profiler.start("init context");
-    stockCardCreateContextHolder.initContext(facilityDto, earliest);
+    Set<String> productCodes = requests.stream().map(StockCardCreateRequest::getProductCode).collect(toSet());
+    stockCardCreateContextHolder.initContext(facilityDto, earliest, productCodes);
     profiler.start("validate data");
     try {
       validatedStockCards = stockCardCreateRequestValidator.validateStockCardCreateRequest(requests);
@@ -447,19 +448,20 @@ public class MeService {
       pods = podRepo
           .findAllByFacilitySince(homeFacilityId, since, orderCode, OrderStatus.SHIPPED, OrderStatus.RECEIVED);
     }
-    Map<UUID, OrderDto> orderIdToOrder = pods.stream()
+    Collection<Order> orders = pods.stream()
         .map(ProofOfDelivery::getShipment)
         .map(Shipment::getOrder)
-        .map(BaseEntity::getId)
-        .map(orderService::searchOrderByIdWithoutProducts)
+        .collect(toMap(BaseEntity::getId, Function.identity(), (a, b) -> a))
+        .values();
+    Map<UUID, Requisition> orderIdToRequisition = orderService.getOrderIdToRequisition(orders);
+    Map<UUID, OrderDto> orderIdToOrder = orderService.searchOrdersWithoutProducts(orders, orderIdToRequisition)
+        .stream()
         .collect(toMap(o -> o.getOrder().getId(), SiglusOrderDto::getOrder));
     Map<UUID, String> reasonIdToName =
         validReasonAssignmentService.getAllReasons(homeFacility.getType().getId()).stream()
             .map(ValidReasonAssignmentDto::getReason)
             .distinct()
             .collect(toMap(org.openlmis.stockmanagement.domain.BaseEntity::getId, StockCardLineItemReason::getName));
-    Map<UUID, Requisition> orderIdToRequisition = orderIdToOrder.entrySet().stream()
-        .collect(toMap(Entry::getKey, e -> orderService.getRequisitionByOrder(e.getValue())));
     return pods.stream()
         .map(pod -> toPodResponse(pod, orderIdToOrder, reasonIdToName, orderIdToRequisition))
         .collect(toList());
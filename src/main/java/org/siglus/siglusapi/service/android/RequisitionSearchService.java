@@ -16,6 +16,7 @@
 package org.siglus.siglusapi.service.android;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static org.openlmis.requisition.web.ResourceNames.PROGRAMS;
 import static org.siglus.common.constant.ExtraDataConstants.ACTUAL_END_DATE;
 import static org.siglus.common.constant.ExtraDataConstants.ACTUAL_START_DATE;
 import static org.siglus.common.constant.ExtraDataConstants.APPROVE;
@@ -39,6 +40,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -55,10 +57,14 @@ import org.openlmis.requisition.domain.requisition.Requisition;
 import org.openlmis.requisition.domain.requisition.RequisitionLineItem;
 import org.openlmis.requisition.domain.requisition.RequisitionLineItem.Importer;
 import org.openlmis.requisition.domain.requisition.RequisitionStatus;
+import org.openlmis.requisition.domain.requisition.VersionEntityReference;
 import org.openlmis.requisition.dto.BaseDto;
+import org.openlmis.requisition.dto.ObjectReferenceDto;
 import org.openlmis.requisition.dto.ProcessingPeriodDto;
 import org.openlmis.requisition.dto.ProgramDto;
+import org.openlmis.requisition.dto.RequisitionLineItemV2Dto;
 import org.openlmis.requisition.dto.RequisitionV2Dto;
+import org.openlmis.requisition.dto.VersionObjectReferenceDto;
 import org.openlmis.requisition.service.PeriodService;
 import org.siglus.siglusapi.constant.FieldConstants;
 import org.siglus.siglusapi.constant.android.UsageSectionConstants.UsageInformationLineItems;
@@ -110,7 +116,6 @@ import org.siglus.siglusapi.repository.SiglusRequisitionRepository;
 import org.siglus.siglusapi.repository.TestConsumptionLineItemRepository;
 import org.siglus.siglusapi.repository.UsageInformationLineItemRepository;
 import org.siglus.siglusapi.service.SiglusProgramService;
-import org.siglus.siglusapi.service.client.SiglusRequisitionRequisitionService;
 import org.siglus.siglusapi.service.mapper.ConsultationNumberLineItemMapper;
 import org.siglus.siglusapi.service.mapper.PatientLineItemMapper;
 import org.springframework.stereotype.Service;
@@ -125,7 +130,6 @@ public class RequisitionSearchService {
 
   private final SiglusProgramService siglusProgramService;
   private final PeriodService periodService;
-  private final SiglusRequisitionRequisitionService siglusRequisitionRequisitionService;
   private final SiglusRequisitionRepository siglusRequisitionRepository;
   private final RequisitionLineItemExtensionRepository requisitionLineItemExtensionRepository;
   private final RequisitionExtensionRepository requisitionExtensionRepository;
@@ -144,6 +148,8 @@ public class RequisitionSearchService {
       UUID facilityId, List<RequisitionStatusDto> requisitionDtos, Map<String, SupportedProgramDto> programMap) {
     Map<String, Collection<ProcessingPeriodDto>> periodMapByProgram =
         getPeriodMapByProgram(facilityId, requisitionDtos, programMap);
+    Map<UUID, Map<UUID, Requisition>> programIdToPeriodIdToRequisition =
+        getRegularRequisitions(facilityId, requisitionDtos, programMap, periodMapByProgram);
     requisitionDtos.forEach(dto -> {
       Collection<ProcessingPeriodDto> processingPeriods = periodMapByProgram.get(dto.getProgramCode());
       UUID periodId = getPeriodId(processingPeriods, dto.getRequisitionStartDate());
@@ -151,8 +157,9 @@ public class RequisitionSearchService {
       log.info("programCode {}, programMap.get(dto.getProgramCode()).getId() {}, periodId {}, startdate {}",
           dto.getProgramCode(), programMap.get(dto.getProgramCode()).getId(), periodId, dto.getRequisitionStartDate()
       );
-      Requisition requisition = siglusRequisitionRepository.findOneByFacilityIdAndProgramIdAndProcessingPeriodId(
-          facilityId, programMap.get(dto.getProgramCode()).getId(), periodId);
+      Requisition requisition = programIdToPeriodIdToRequisition
+          .getOrDefault(programMap.get(dto.getProgramCode()).getId(), Collections.emptyMap())
+          .get(periodId);
       if (!ObjectUtils.isEmpty(requisition) && !skippedStatus(requisition.getStatus())) {
         dto.setStatus(convertStatusForAndroid(requisition.getStatus()));
       }
@@ -160,6 +167,28 @@ public class RequisitionSearchService {
     return requisitionDtos;
   }
 
+  private Map<UUID, Map<UUID, Requisition>> getRegularRequisitions(UUID facilityId,
+      List<RequisitionStatusDto> requisitionDtos, Map<String, SupportedProgramDto> programMap,
+      Map<String, Collection<ProcessingPeriodDto>> periodMapByProgram) {
+    Set<UUID> programIds = new HashSet<>();
+    Set<UUID> periodIds = new HashSet<>();
+    requisitionDtos.forEach(dto -> {
+      UUID periodId = getPeriodId(periodMapByProgram.get(dto.getProgramCode()), dto.getRequisitionStartDate());
+      if (periodId != null) {
+        programIds.add(programMap.get(dto.getProgramCode()).getId());
+        periodIds.add(periodId);
+      }
+    });
+    if (periodIds.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    return siglusRequisitionRepository
+        .findByFacilityIdAndProgramIdInAndProcessingPeriodIdInAndEmergencyFalse(facilityId, programIds, periodIds)
+        .stream()
+        .collect(Collectors.groupingBy(Requisition::getProgramId,
+            Collectors.toMap(Requisition::getProcessingPeriodId, Function.identity(), (first, second) -> first)));
+  }
+
   private Map<String, Collection<ProcessingPeriodDto>> getPeriodMapByProgram(UUID facilityId,
       List<RequisitionStatusDto> requisitions, Map<String, SupportedProgramDto> programMap) {
     Set<String> programCodes = requisitions.stream()
@@ -203,11 +232,14 @@ public class RequisitionSearchService {
         .filter(RequisitionExtension::createdBySupplier)
         .map(RequisitionExtension::getRequisitionId)
         .collect(Collectors.toSet());
+    Map<UUID, RequisitionV2Dto> requisitionIdToV2Dto = buildIdToRequisitionV2DtoMap(requisitionIds);
+    Map<UUID, RequisitionLineItemExtension> lineItemIdToExtension = buildLineItemIdToExtensionMap(
+        requisitionIdToV2Dto.values());
+    Map<UUID, String> programIdToCode = new HashMap<>();
     requisitionExtensions.forEach(
         extension -> {
-          RequisitionV2Dto requisitionV2Dto = siglusRequisitionRequisitionService
-              .searchRequisition(extension.getRequisitionId());
-          if (skippedStatus(requisitionV2Dto.getStatus())) {
+          RequisitionV2Dto requisitionV2Dto = requisitionIdToV2Dto.get(extension.getRequisitionId());
+          if (requisitionV2Dto == null || skippedStatus(requisitionV2Dto.getStatus())) {
             return;
           }
           if (createdBySupplierRequisitionIds.contains(extension.getRequisitionId())
@@ -215,12 +247,13 @@ public class RequisitionSearchService {
             return;
           }
           UUID requisitionId = requisitionV2Dto.getId();
-          String programCode = getProgramCode(requisitionV2Dto.getProgram().getId());
+          String programCode = programIdToCode.computeIfAbsent(requisitionV2Dto.getProgram().getId(),
+              this::getProgramCode);
           RequisitionCreateRequest requisitionCreateRequest = RequisitionCreateRequest.builder()
               .programCode(programCode)
               .emergency(requisitionV2Dto.getEmergency())
               .consultationNumber(getConsultationNumber(requisitionV2Dto, requisitionIdToConsultationNumbers))
-              .products(getProducts(requisitionV2Dto, orderableIdToCode))
+              .products(getProducts(requisitionV2Dto, orderableIdToCode, lineItemIdToExtension))
               .regimenLineItems(getLineItems(requisitionId, requisitionIdToRegimenLines))
               .regimenSummaryLineItems(getLineItems(requisitionId, requisitionIdToRegimenSummaryLines))
               .patientLineItems(getPatientLineItemsRequest(requisitionId, programCode, requisitionIdToPatientLineItems))
@@ -238,6 +271,62 @@ public class RequisitionSearchService {
     return RequisitionResponse.builder().requisitionResponseList(requisitionCreateRequests).build();
   }
 
+  private Map<UUID, RequisitionV2Dto> buildIdToRequisitionV2DtoMap(Set<UUID> requisitionIds) {
+    if (requisitionIds.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    return siglusRequisitionRepository.findAllByIdIn(requisitionIds).stream()
+        .collect(Collectors.toMap(Requisition::getId, this::toRequisitionV2Dto));
+  }
+
+  private RequisitionV2Dto toRequisitionV2Dto(Requisition requisition) {
+    RequisitionV2Dto requisitionV2Dto = new RequisitionV2Dto();
+    requisitionV2Dto.setId(requisition.getId());
+    requisitionV2Dto.setStatus(requisition.getStatus());
+    requisitionV2Dto.setEmergency(requisition.getEmergency());
+    requisitionV2Dto.setDraftStatusMessage(requisition.getDraftStatusMessage());
+    requisitionV2Dto.setExtraData(requisition.getExtraData());
+    requisitionV2Dto.setProgram(new ObjectReferenceDto(requisition.getProgramId(), "", PROGRAMS));
+    List<RequisitionLineItem> lineItems = Optional.ofNullable(requisition.getRequisitionLineItems())
+        .orElse(Collections.emptyList());
+    requisitionV2Dto.setRequisitionLineItems(lineItems.stream()
+        .map(this::toRequisitionLineItemV2Dto)
+        .collect(Collectors.toList()));
+    return requisitionV2Dto;
+  }
+
+  private RequisitionLineItemV2Dto toRequisitionLineItemV2Dto(RequisitionLineItem lineItem) {
+    RequisitionLineItemV2Dto lineItemV2Dto = new RequisitionLineItemV2Dto();
+    lineItemV2Dto.setId(lineItem.getId());
+    lineItemV2Dto.setBeginningBalance(lineItem.getBeginningBalance());
+    lineItemV2Dto.setTotalReceivedQuantity(lineItem.getTotalReceivedQuantity());
+    lineItemV2Dto.setTotalConsumedQuantity(lineItem.getTotalConsumedQuantity());
+    lineItemV2Dto.setStockOnHand(lineItem.getStockOnHand());
+    lineItemV2Dto.setRequestedQuantity(lineItem.getRequestedQuantity());
+    lineItemV2Dto.setTotalLossesAndAdjustments(lineItem.getTotalLossesAndAdjustments());
+    VersionEntityReference orderable = lineItem.getOrderable();
+    if (orderable != null) {
+      lineItemV2Dto.setOrderable(new VersionObjectReferenceDto(orderable.getId(), "", "",
+          orderable.getVersionNumber()));
+    }
+    return lineItemV2Dto;
+  }
+
+  private Map<UUID, RequisitionLineItemExtension> buildLineItemIdToExtensionMap(
+      Collection<RequisitionV2Dto> requisitionV2Dtos) {
+    List<UUID> lineItemIds = requisitionV2Dtos.stream()
+        .map(RequisitionV2Dto::getRequisitionLineItems)
+        .flatMap(Collection::stream)
+        .map(Importer::getId)
+        .collect(Collectors.toList());
+    if (lineItemIds.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    return requisitionLineItemExtensionRepository.findLineItems(lineItemIds).stream()
+        .collect(Collectors.toMap(RequisitionLineItemExtension::getRequisitionLineItemId, Function.identity(),
+            (key1, key2) -> key2));
+  }
+
   private List<PatientLineItemsRequest> getPatientLineItemsRequest(UUID requisitionId, String programCode,
       Map<UUID, List<PatientLineItem>> requisitionIdToPatientLineItems) {
     if (requisitionIdToPatientLineItems.get(requisitionId) == null) {
@@ -498,19 +587,12 @@ public class RequisitionSearchService {
   }
 
   private List<RequisitionLineItemRequest> getProducts(RequisitionV2Dto requisitionDto,
-      Map<UUID, String> orderableIdToCode) {
+      Map<UUID, String> orderableIdToCode, Map<UUID, RequisitionLineItemExtension> requisitionLineItemExtensionMap) {
     List<RequisitionLineItem.Importer> lineItems = requisitionDto.getRequisitionLineItems();
     if (lineItems.isEmpty()) {
       return Collections.emptyList();
     }
     List<RequisitionLineItemRequest> requisitionLineItemRequestList = new ArrayList<>();
-    List<UUID> lineItemIdList = lineItems.stream()
-        .map(Importer::getId)
-        .collect(Collectors.toList());
-    Map<UUID, RequisitionLineItemExtension> requisitionLineItemExtensionMap =
-        requisitionLineItemExtensionRepository.findLineItems(lineItemIdList).stream()
-            .collect(Collectors.toMap(RequisitionLineItemExtension::getRequisitionLineItemId, Function.identity(),
-                (key1, key2) -> key2));
     lineItems.forEach(lineItem -> {
       RequisitionLineItemExtension itemExtension = requisitionLineItemExtensionMap.get(lineItem.getId());
       RequisitionLineItemRequest lineItemRequest = RequisitionLineItemRequest.builder()
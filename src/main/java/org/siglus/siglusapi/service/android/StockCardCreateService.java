@@ -18,9 +18,11 @@ package org.siglus.siglusapi.service.android;
 import static java.util.Collections.singletonList;
 import static java.util.Comparator.naturalOrder;
 import static java.util.Objects.requireNonNull;
+import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 import static org.siglus.siglusapi.constant.FieldConstants.INVENTORY;
 import static org.siglus.siglusapi.service.android.MeService.KEY_PROGRAM_CODE;
 import static org.siglus.siglusapi.service.android.context.StockCardCreateContextHolder.getContext;
@@ -33,6 +35,7 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Stream;
 import javax.validation.Valid;
@@ -141,8 +144,8 @@ public class StockCardCreateService {
   }
 
   private List<StockCardCreateRequest> filterOutExisted(List<StockCardCreateRequest> requests) {
-    List<ProductMovementKey> existed = getContext().getAllProductMovements().getProductMovements().stream()
-        .map(ProductMovement::getProductMovementKey).collect(toList());
+    Set<ProductMovementKey> existed = getContext().getAllProductMovements().getProductMovements().stream()
+        .map(ProductMovement::getProductMovementKey).collect(toSet());
     return requests.stream().filter(r -> !existed.contains(r.getProductMovementKey()))
         .collect(toList());
   }
@@ -162,11 +165,13 @@ public class StockCardCreateService {
   private void walkThroughLots(List<StockCardCreateRequest> requests, StockCardNativeCreateContext context) {
     Map<ProductLotCode, LocalDate> codeToExpirationDates = getExpirationDatesFromRequest(requests);
     Map<ProductLotCode, EventTime> lotToEarliestDate = mapLotToEarliestDate(requests);
+    Map<ProductLotCode, ProductLot> existedLots = loadExistedLots(lotToEarliestDate.keySet());
+    Map<ProductLot, EventTime> productLotToEarliestDate = new LinkedHashMap<>();
     lotToEarliestDate.forEach(
         (productLotCode, earliestDate) -> {
           String productCode = productLotCode.getProductCode();
           if (!productLotCode.isLot()) {
-            loadStockCardToContext(ProductLot.noLot(productCode), earliestDate);
+            productLotToEarliestDate.put(ProductLot.noLot(productCode), earliestDate);
             return;
           }
           String lotCode = productLotCode.getLotCode();
@@ -176,37 +181,51 @@ public class StockCardCreateService {
           if (cachedLot != null) {
             return;
           }
-          OrderableDto product = getContext().getProduct(productCode);
-          ProductLot existedLot = repo.getLot(product, lot);
+          ProductLot existedLot = existedLots.get(productLotCode);
           if (existedLot == null) {
-            ProductLot newLot = ProductLot.of(product, lot);
+            ProductLot newLot = ProductLot.of(getContext().getProduct(productCode), lot);
             context.lots.add(newLot);
             getContext().newLot(newLot);
             return;
           }
-          loadStockCardToContext(existedLot, earliestDate);
+          productLotToEarliestDate.put(existedLot, earliestDate);
           getContext().newLot(existedLot);
           UUID facilityId = getContext().getFacility().getId();
           lotConflictService.handleLotConflict(facilityId, lotCode, existedLot.getId(), expirationDate,
               requireNonNull(existedLot.getExpirationDate()));
         }
     );
+    loadStockCardsToContext(productLotToEarliestDate);
   }
 
-  private void loadStockCardToContext(ProductLot productLot, EventTime earliestDate) {
-    if (getContext().getStockCard(productLot.getProductCode(), productLot.getLotCode()) != null) {
-      return;
-    }
+  private Map<ProductLotCode, ProductLot> loadExistedLots(Collection<ProductLotCode> productLotCodes) {
+    Map<ProductLotCode, OrderableDto> codeToProduct = productLotCodes.stream()
+        .filter(ProductLotCode::isLot)
+        .filter(code -> getContext().getLot(code.getProductCode(), code.getLotCode()) == null)
+        .collect(toMap(identity(), code -> getContext().getProduct(code.getProductCode())));
+    return repo.getLots(codeToProduct);
+  }
+
+  private void loadStockCardsToContext(Map<ProductLot, EventTime> productLotToEarliestDate) {
     UUID facilityId = getContext().getFacility().getId();
-    String productCode = productLot.getProductCode();
-    UUID programId = getContext().getProgramId(productCode).orElseThrow(IllegalStateException::new);
-    UUID productId = getContext().getProductId(productCode);
-    StockCard stockCard = repo.getStockCard(facilityId, programId, productId, productLot);
-    if (stockCard == null) {
-      return;
-    }
-    getContext().newStockCard(stockCard);
-    repo.findCalculatedStockOnHand(stockCard, earliestDate).forEach(getContext()::addNewCalculatedStockOnHand);
+    Map<ProductLotCode, EventTime> codeToEarliestDate = new HashMap<>();
+    List<StockCard> querySamples = new ArrayList<>();
+    productLotToEarliestDate.forEach((productLot, earliestDate) -> {
+      if (getContext().getStockCard(productLot.getProductCode(), productLot.getLotCode()) != null) {
+        return;
+      }
+      String productCode = productLot.getProductCode();
+      UUID programId = getContext().getProgramId(productCode).orElseThrow(IllegalStateException::new);
+      UUID productId = getContext().getProductId(productCode);
+      querySamples.add(StockCard.querySample(facilityId, programId, productId, productLot));
+      codeToEarliestDate.put(productLot.toProductLotCode(), earliestDate);
+    });
+    Map<StockCard, EventTime> stockCardToEarliestDate = new LinkedHashMap<>();
+    repo.getStockCards(facilityId, querySamples).forEach((productLotCode, stockCard) -> {
+      getContext().newStockCard(stockCard);
+      stockCardToEarliestDate.put(stockCard, codeToEarliestDate.get(productLotCode));
+    });
+    repo.findCalculatedStocksOnHand(stockCardToEarliestDate).forEach(getContext()::addNewCalculatedStockOnHand);
   }
 
   private Map<ProductLotCode, EventTime> mapLotToEarliestDate(List<StockCardCreateRequest> requests) {
@@ -15,11 +15,14 @@
 
 package org.siglus.siglusapi.service.android.context;
 
+import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 
 import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import org.openlmis.requisition.dto.ApprovedProductDto;
@@ -68,26 +71,37 @@ public class StockCardCreateContextHolder {
     HOLDER.remove();
   }
 
-  public void initContext(FacilityDto facility, LocalDate earliest) {
-    StocksOnHand stockOnHand = stockManagementRepository.getStockOnHand(facility.getId());
-    earliest = stockOnHand.getTheEarliestDate(earliest);
-    PeriodOfProductMovements allProductMovements = stockManagementRepository
-        .getAllProductMovements(facility.getId(), earliest);
-    UUID facilityTypeId = facility.getType().getId();
-    Collection<ValidReasonAssignmentDto> reasons = reasonService.getAllReasons(facilityTypeId);
-    Collection<ValidSourceDestinationDto> destinations = nodeService.findDestinationsForAllPrograms(facility.getId());
-    Collection<ValidSourceDestinationDto> sources = nodeService.findSourcesForAllPrograms(facility.getId());
-
+  public void initContext(FacilityDto facility, LocalDate earliest, Collection<String> productCodes) {
     List<OrderableDto> products = programsHelper.findHomeFacilitySupportedProgramIds().stream()
         .map(programDataService::findOne)
         .map(program -> getProgramProducts(facility.getId(), program))
         .flatMap(Collection::stream)
         .collect(toList());
+    // only the products in the request are validated and created, so there is no need to load the others
+    Set<UUID> orderableIds = products.stream()
+        .filter(product -> productCodes.contains(product.getProductCode()))
+        .map(OrderableDto::getId)
+        .collect(toSet());
+    PeriodOfProductMovements allProductMovements = getProductMovements(facility.getId(), orderableIds, earliest);
+    UUID facilityTypeId = facility.getType().getId();
+    Collection<ValidReasonAssignmentDto> reasons = reasonService.getAllReasons(facilityTypeId);
+    Collection<ValidSourceDestinationDto> destinations = nodeService.findDestinationsForAllPrograms(facility.getId());
+    Collection<ValidSourceDestinationDto> sources = nodeService.findSourcesForAllPrograms(facility.getId());
     StockCardCreateContext context = new StockCardCreateContext(facility, reasons, sources, destinations, products,
         allProductMovements);
     HOLDER.set(context);
   }
 
+  private PeriodOfProductMovements getProductMovements(UUID facilityId, Set<UUID> orderableIds,
+      LocalDate earliest) {
+    if (orderableIds.isEmpty()) {
+      return new PeriodOfProductMovements(emptyList(), new StocksOnHand(emptyList()));
+    }
+    StocksOnHand stockOnHand = stockManagementRepository.getStockOnHandByOrderableIds(facilityId, orderableIds);
+    return stockManagementRepository.getAllProductMovements(facilityId, orderableIds,
+        stockOnHand.getTheEarliestDate(earliest), null);
+  }
+
   List<OrderableDto> getProgramProducts(UUID homeFacilityId, ProgramDto program) {
     List<OrderableDto> orderableDtos = getActualApprovedOrderableDtos(homeFacilityId, program);
     if (authenticationHelper.isTheDataMigrationUser()) {
@@ -29,17 +29,15 @@ import static org.siglus.siglusapi.constant.FcConstants.RECEIPT_PLAN_API;
 import static org.siglus.siglusapi.constant.FcConstants.REGIMEN_API;
 import static org.siglus.siglusapi.constant.FcConstants.REGION_API;
 
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.siglus.siglusapi.dto.fc.ApiResponse;
 import org.siglus.siglusapi.dto.fc.CmmDto;
@@ -48,6 +46,7 @@ import org.siglus.siglusapi.dto.fc.DistrictDto;
 import org.siglus.siglusapi.dto.fc.FcFacilityDto;
 import org.siglus.siglusapi.dto.fc.FcFacilityTypeDto;
 import org.siglus.siglusapi.dto.fc.FcGeographicZoneNationalDto;
+import org.siglus.siglusapi.dto.fc.FcPageDto;
 import org.siglus.siglusapi.dto.fc.IssueVoucherDto;
 import org.siglus.siglusapi.dto.fc.PageInfoDto;
 import org.siglus.siglusapi.dto.fc.ProductInfoDto;
@@ -72,26 +71,9 @@ import org.springframework.web.client.RestTemplate;
 
 @Service
 @Slf4j
-@Getter
-@Setter
-@SuppressWarnings("PMD.CyclomaticComplexity")
 @RequiredArgsConstructor
 public class CallFcService {
 
-  private List<IssueVoucherDto> issueVouchers = new ArrayList<>();
-  private List<ReceiptPlanDto> receiptPlans = new ArrayList<>();
-  private List<CmmDto> cmms = new ArrayList<>();
-  private List<CpDto> cps = new ArrayList<>();
-  private List<ProgramDto> programs = new ArrayList<>();
-  private List<ProductInfoDto> products = new ArrayList<>();
-  private List<RegimenDto> regimens = new ArrayList<>();
-  private List<FcFacilityDto> facilities = new ArrayList<>();
-  private List<FcFacilityTypeDto> facilityTypes = new ArrayList<>();
-  private List<FcGeographicZoneNationalDto> geographicZones = new ArrayList<>();
-  private List<RegionDto> regions = new ArrayList<>();
-  private List<ProvinceDto> provinces = new ArrayList<>();
-  private List<DistrictDto> district = new ArrayList<>();
-  private PageInfoDto pageInfoDto = new PageInfoDto();
   private static final Map<String, Class> apiToClassMap = new HashMap<>();
 
   private final RestTemplate remoteRestTemplate;
@@ -113,18 +95,20 @@ public class CallFcService {
   }
 
   @Retryable(value = Exception.class, backoff = @Backoff(delay = 2000, multiplier = 2))
-  public void fetchData(String url, String api) {
-    String param = url.split("psize=20&")[1];
+  public FcPageDto fetchData(String url, String api) {
+    String param = getParam(url);
     log.info("[FC] fetch {}: {}", api, param);
     try {
       ResponseEntity<Object[]> responseEntity = remoteRestTemplate.getForEntity(url, getClassByApi(api));
       Object[] body = responseEntity.getBody();
       if (body.length == 0) {
         log.info("[FC] fetch {}: no result returned from fc", api);
-        return;
+        return FcPageDto.empty();
       }
-      setPageInfo(responseEntity.getHeaders());
-      updateResponseResult(api, body);
+      return FcPageDto.builder()
+          .pageInfo(getPageInfo(responseEntity.getHeaders()))
+          .content(Arrays.asList((ResponseBaseDto[]) body))
+          .build();
     } catch (Exception e) {
       log.warn("[FC] fetch {} {} failed: {}, retry...", api, param, e.getMessage());
       throw e;
@@ -132,8 +116,8 @@ public class CallFcService {
   }
 
   @Retryable(value = Exception.class, backoff = @Backoff(delay = 2000, multiplier = 2))
-  public <T> void fetchDataForNewFc(String url, String api, Class<? extends ResponseBaseDto> responseType) {
-    String param = url.split("psize=20&")[1];
+  public <T> FcPageDto fetchDataForNewFc(String url, String api, Class<? extends ResponseBaseDto> responseType) {
+    String param = getParam(url);
     log.info("[FC] fetch {}: {}", api, param);
     try {
       ResponseEntity<ApiResponse<T>> response =
@@ -144,34 +128,36 @@ public class CallFcService {
               new ParameterizedTypeReference<ApiResponse<T>>() {}
           );
 
-      if (response.getBody() != null && response.getBody().getResult() != null) {
-        ResultDto<T> result = response.getBody().getResult();
-        List<T> content = result.getContent();
-        if (CollectionUtils.isEmpty(content)) {
-          log.info("[FC] fetch {}: no result returned from fc", api);
-          return;
-        }
-        this.pageInfoDto = PageInfoDto.builder()
-            .totalObjects(result.getTotalElements())
-            .totalPages(result.getTotalPages())
-            .pageNumber(result.getNumber())
-            .pageSize(result.getSize())
-            .build();
-        if (result.getNumber() == 1) {
-          log.info("[FC] page info: {}", pageInfoDto);
-        }
-        updateResponseResultForNewFc(api, content);
+      if (response.getBody() == null || response.getBody().getResult() == null) {
+        return FcPageDto.empty();
       }
+      ResultDto<T> result = response.getBody().getResult();
+      List<T> content = result.getContent();
+      if (CollectionUtils.isEmpty(content)) {
+        log.info("[FC] fetch {}: no result returned from fc", api);
+        return FcPageDto.empty();
+      }
+      PageInfoDto pageInfoDto = PageInfoDto.builder()
+          .totalObjects(result.getTotalElements())
+          .totalPages(result.getTotalPages())
+          .pageNumber(result.getNumber())
+          .pageSize(result.getSize())
+          .build();
+      if (result.getNumber() == 1) {
+        log.info("[FC] page info: {}", pageInfoDto);
+      }
+      return FcPageDto.builder()
+          .pageInfo(pageInfoDto)
+          .content(convertNewFcContent(api, content))
+          .build();
     } catch (Exception e) {
       log.warn("[FC] fetch {} {} failed: {}, retry...", api, param, e.getMessage());
       throw e;
     }
   }
 
-
-
   @Recover
-  public void recover(RuntimeException e) {
+  public FcPageDto recover(RuntimeException e) {
     log.error("[FC] call fc api failed with retry 3 times, message: {}", e.getMessage());
     throw e;
   }
@@ -183,56 +169,31 @@ public class CallFcService {
     return null;
   }
 
-  private void updateResponseResult(String api, Object[] body) {
-    if (RECEIPT_PLAN_API.equals(api)) {
-      this.receiptPlans.addAll(Arrays.asList((ReceiptPlanDto[]) body));
-    } else if (ISSUE_VOUCHER_API.equals(api)) {
-      this.issueVouchers.addAll(Arrays.asList((IssueVoucherDto[]) body));
-    } else if (REGIMEN_API.equals(api)) {
-      this.regimens.addAll(Arrays.asList((RegimenDto[]) body));
-    } else if (CMM_API.equals(api)) {
-      this.cmms.addAll(Arrays.asList((CmmDto[]) body));
-    } else if (CP_API.equals(api)) {
-      this.cps.addAll(Arrays.asList((CpDto[]) body));
-    } else if (PROGRAM_API.equals(api)) {
-      this.programs.addAll(Arrays.asList((ProgramDto[]) body));
-    } else if (PRODUCT_API.equals(api)) {
-      this.products.addAll(Arrays.asList((ProductInfoDto[]) body));
-    } else if (FACILITY_TYPE_API.equals(api)) {
-      this.facilityTypes.addAll(Arrays.asList((FcFacilityTypeDto[]) body));
-    } else if (FACILITY_API.equals(api)) {
-      this.facilities.addAll(Arrays.asList((FcFacilityDto[]) body));
-    } else if (GEOGRAPHIC_ZONE_API.equals(api)) {
-      this.geographicZones.addAll(Arrays.asList((FcGeographicZoneNationalDto[]) body));
-    } else if (REGION_API.equals(api)) {
-      this.regions.addAll(Arrays.asList((RegionDto[]) body));
-    } else if (PROVINCE_API.equals(api)) {
-      this.provinces.addAll(Arrays.asList((ProvinceDto[]) body));
-    }
+  private String getParam(String url) {
+    // everything after the key, so it never ends up in the log
+    return url.substring(url.indexOf("psize="));
   }
 
-  private <T> void updateResponseResultForNewFc(String api, List<T> content) {
+  private <T> List<? extends ResponseBaseDto> convertNewFcContent(String api, List<T> content) {
     if (REGION_API.equals(api)) {
-      List<RegionDto> converted = content.stream()
+      return content.stream()
           .map(region -> RegionDto.from((LinkedHashMap<String, String>) region)).collect(Collectors.toList());
-      this.regions.addAll(converted);
     } else if (PROVINCE_API.equals(api)) {
-      List<ProvinceDto> converted = content.stream()
+      return content.stream()
           .map(province -> ProvinceDto.from((LinkedHashMap<String, String>) province)).collect(Collectors.toList());
-      this.provinces.addAll(converted);
     } else if (DISTRICT_API.equals(api)) {
-      List<DistrictDto> converted = content.stream()
+      return content.stream()
           .map(district -> DistrictDto.from((LinkedHashMap<String, String>) district)).collect(Collectors.toList());
-      this.district.addAll(converted);
     }
+    return Collections.emptyList();
   }
 
-  private void setPageInfo(HttpHeaders headers) {
+  private PageInfoDto getPageInfo(HttpHeaders headers) {
     int totalObjects = Integer.parseInt(headers.get("TotalObjects").get(0));
     int totalPages = Integer.parseInt(headers.get("TotalPages").get(0));
     int pageNumber = Integer.parseInt(headers.get("PageNumber").get(0));
     int pageSize = Integer.parseInt(headers.get("PSize").get(0));
-    this.pageInfoDto = PageInfoDto.builder()
+    PageInfoDto pageInfoDto = PageInfoDto.builder()
         .totalObjects(totalObjects)
         .totalPages(totalPages)
         .pageNumber(pageNumber)
@@ -241,6 +202,7 @@ public class CallFcService {
     if (pageNumber == 1) {
       log.info("[FC] page info: {}", pageInfoDto);
     }
+    return pageInfoDto;
   }
 
 }
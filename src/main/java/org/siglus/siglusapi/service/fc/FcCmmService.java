@@ -40,6 +40,11 @@ public class FcCmmService implements ProcessDataService {
 
   private final CmmRepository cmmRepository;
 
+  @Override
+  public boolean isPageProcessable() {
+    return true;
+  }
+
   @Override
   public FcIntegrationResultDto processData(List<? extends ResponseBaseDto> cmms, String startDate,
       ZonedDateTime previousLastUpdatedAt) {
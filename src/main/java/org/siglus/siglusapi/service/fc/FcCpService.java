@@ -40,6 +40,11 @@ public class FcCpService implements ProcessDataService {
 
   private final CpRepository cpRepository;
 
+  @Override
+  public boolean isPageProcessable() {
+    return true;
+  }
+
   @Override
   public FcIntegrationResultDto processData(List<? extends ResponseBaseDto> cps, String startDate,
       ZonedDateTime previousLastUpdatedAt) {
@@ -15,18 +15,9 @@
 
 package org.siglus.siglusapi.service.fc;
 
-import static org.siglus.siglusapi.constant.FcConstants.CMM_API;
-import static org.siglus.siglusapi.constant.FcConstants.CP_API;
-import static org.siglus.siglusapi.constant.FcConstants.FACILITY_API;
-import static org.siglus.siglusapi.constant.FcConstants.FACILITY_TYPE_API;
-import static org.siglus.siglusapi.constant.FcConstants.GEOGRAPHIC_ZONE_API;
-import static org.siglus.siglusapi.constant.FcConstants.ISSUE_VOUCHER_API;
-import static org.siglus.siglusapi.constant.FcConstants.PRODUCT_API;
-import static org.siglus.siglusapi.constant.FcConstants.PROGRAM_API;
-import static org.siglus.siglusapi.constant.FcConstants.RECEIPT_PLAN_API;
-import static org.siglus.siglusapi.constant.FcConstants.REGIMEN_API;
 import static org.siglus.siglusapi.constant.FcConstants.getCmmAndCpApis;
 
+import java.time.Duration;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import lombok.RequiredArgsConstructor;
@@ -40,11 +31,12 @@ import org.springframework.stereotype.Service;
 @Service
 @Slf4j
 @RequiredArgsConstructor
-@SuppressWarnings("PMD.CyclomaticComplexity")
 public class FcIntegrationResultService {
 
+  // the fc data can change between runs, so resuming a page number of an older run would skip moved records
+  static final Duration CHECKPOINT_MAX_AGE = Duration.ofHours(6);
+
   private final FcIntegrationResultRepository fcIntegrationResultRepository;
-  private final CallFcService callFcService;
   private final SiglusDateHelper dateHelper;
 
   public ZonedDateTime getLastUpdatedAt(String api) {
@@ -61,11 +53,10 @@ public class FcIntegrationResultService {
       return null;
     }
     String api = resultDto.getApi();
-    String endDate = getCmmAndCpApis().contains(api) ? dateHelper.getCurrentMonthStr() : dateHelper.getTodayDateStr();
     FcIntegrationResult result = FcIntegrationResult.builder()
         .api(api)
         .startDate(resultDto.getStartDate())
-        .endDate(endDate)
+        .endDate(getEndDate(api))
         .lastUpdatedAt(resultDto.getLastUpdatedAt())
         .totalObjects(resultDto.getTotalObjects())
         .createdObjects(resultDto.getCreatedObjects())
@@ -75,32 +66,86 @@ public class FcIntegrationResultService {
         .build();
     log.info("save fc_integration_results: {}", result);
     fcIntegrationResultRepository.save(result);
-    clearFcData(api);
     return result;
   }
 
-  private void clearFcData(String api) {
-    if (RECEIPT_PLAN_API.equals(api)) {
-      callFcService.getReceiptPlans().clear();
-    } else if (ISSUE_VOUCHER_API.equals(api)) {
-      callFcService.getIssueVouchers().clear();
-    } else if (CMM_API.equals(api)) {
-      callFcService.getCmms().clear();
-    } else if (CP_API.equals(api)) {
-      callFcService.getCps().clear();
-    } else if (PROGRAM_API.equals(api)) {
-      callFcService.getPrograms().clear();
-    } else if (PRODUCT_API.equals(api)) {
-      callFcService.getProducts().clear();
-    } else if (FACILITY_TYPE_API.equals(api)) {
-      callFcService.getFacilityTypes().clear();
-    } else if (FACILITY_API.equals(api)) {
-      callFcService.getFacilities().clear();
-    } else if (REGIMEN_API.equals(api)) {
-      callFcService.getRegimens().clear();
-    } else if (GEOGRAPHIC_ZONE_API.equals(api)) {
-      callFcService.getGeographicZones().clear();
+  public FcIntegrationResult getCheckpoint(String api, String startDate, ZonedDateTime lastUpdatedAt) {
+    FcIntegrationResult checkpoint = fcIntegrationResultRepository
+        .findTopByApiAndStartDateAndFinalSuccessAndLastPageNotNullOrderByProcessDateDesc(api, startDate, false);
+    if (checkpoint != null && !isStale(checkpoint)) {
+      log.info("[FC {}] resume from checkpoint: {}", api, checkpoint);
+      return checkpoint;
+    }
+    if (checkpoint != null) {
+      log.info("[FC {}] discard stale checkpoint, restart from the first page: {}", api, checkpoint);
+    }
+    return FcIntegrationResult.builder()
+        .api(api)
+        .startDate(startDate)
+        .lastUpdatedAt(lastUpdatedAt)
+        .totalObjects(0)
+        .createdObjects(0)
+        .updatedObjects(0)
+        .finalSuccess(false)
+        .build();
+  }
+
+  /**
+   * Saves the checkpoint advanced by the page on a copy, so the given checkpoint stays the last committed one when
+   * the page transaction rolls back.
+   */
+  public FcIntegrationResult recordCheckpoint(FcIntegrationResult checkpoint, FcIntegrationResultDto pageResultDto,
+      int page) {
+    FcIntegrationResult pageCheckpoint = FcIntegrationResult.builder()
+        .api(checkpoint.getApi())
+        .startDate(checkpoint.getStartDate())
+        .endDate(checkpoint.getEndDate())
+        .lastUpdatedAt(checkpoint.getLastUpdatedAt())
+        .processDate(checkpoint.getProcessDate())
+        .totalObjects(checkpoint.getTotalObjects() + nullToZero(pageResultDto.getTotalObjects()))
+        .createdObjects(checkpoint.getCreatedObjects() + nullToZero(pageResultDto.getCreatedObjects()))
+        .updatedObjects(checkpoint.getUpdatedObjects() + nullToZero(pageResultDto.getUpdatedObjects()))
+        .finalSuccess(checkpoint.getFinalSuccess())
+        .lastPage(page)
+        .build();
+    pageCheckpoint.setId(checkpoint.getId());
+    if (pageResultDto.getLastUpdatedAt() != null
+        && pageResultDto.getLastUpdatedAt().isAfter(checkpoint.getLastUpdatedAt())) {
+      pageCheckpoint.setLastUpdatedAt(pageResultDto.getLastUpdatedAt());
     }
+    return fcIntegrationResultRepository.save(pageCheckpoint);
+  }
+
+  public FcIntegrationResult finishCheckpoint(FcIntegrationResult checkpoint) {
+    checkpoint.setEndDate(getEndDate(checkpoint.getApi()));
+    checkpoint.setFinalSuccess(true);
+    log.info("save fc_integration_results: {}", checkpoint);
+    return fcIntegrationResultRepository.save(checkpoint);
+  }
+
+  public void recordCheckpointError(FcIntegrationResult checkpoint, String errorMessage) {
+    // only what is persisted can be resumed from, whatever the failed page left in memory
+    FcIntegrationResult persisted = checkpoint.getId() == null
+        ? null : fcIntegrationResultRepository.findOne(checkpoint.getId());
+    if (persisted == null || persisted.getLastPage() == null) {
+      // nothing committed yet, there is nothing to resume from
+      return;
+    }
+    persisted.setErrorMessage(errorMessage);
+    fcIntegrationResultRepository.save(persisted);
+  }
+
+  private boolean isStale(FcIntegrationResult checkpoint) {
+    return checkpoint.getProcessDate() == null
+        || checkpoint.getProcessDate().isBefore(ZonedDateTime.now().minus(CHECKPOINT_MAX_AGE));
+  }
+
+  private String getEndDate(String api) {
+    return getCmmAndCpApis().contains(api) ? dateHelper.getCurrentMonthStr() : dateHelper.getTodayDateStr();
+  }
+
+  private int nullToZero(Integer value) {
+    return value == null ? 0 : value;
   }
 
 }
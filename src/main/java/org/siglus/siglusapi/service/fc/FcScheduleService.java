@@ -15,7 +15,7 @@
 
 package org.siglus.siglusapi.service.fc;
 
-import static com.google.common.collect.Lists.newArrayList;
+import static java.util.stream.Collectors.toList;
 import static org.siglus.siglusapi.constant.FcConstants.CMM_API;
 import static org.siglus.siglusapi.constant.FcConstants.CP_API;
 import static org.siglus.siglusapi.constant.FcConstants.DATE_FORMAT;
@@ -37,9 +37,15 @@ import static org.siglus.siglusapi.constant.FcConstants.getFcNewApis;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections.CollectionUtils;
@@ -47,7 +53,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.siglus.siglusapi.domain.FcIntegrationChanges;
 import org.siglus.siglusapi.domain.FcIntegrationResult;
 import org.siglus.siglusapi.dto.fc.FcIntegrationResultDto;
-import org.siglus.siglusapi.dto.fc.PageInfoDto;
+import org.siglus.siglusapi.dto.fc.FcPageDto;
 import org.siglus.siglusapi.dto.fc.ResponseBaseDto;
 import org.siglus.siglusapi.repository.FcIntegrationChangesRepository;
 import org.siglus.siglusapi.service.client.SiglusIssueVoucherService;
@@ -57,7 +63,10 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Profile("!localmachine")
 @Service
@@ -80,6 +89,12 @@ public class FcScheduleService {
   @Value("${fc.key}")
   private String fcKey;
 
+  @Value("${fc.page.size}")
+  private int pageSize;
+
+  @Value("${fc.fetch.concurrency}")
+  private int fetchConcurrency;
+
   private final CallFcService callFcService;
   private final FcIntegrationResultService fcIntegrationResultService;
   private final FcCmmService fcCmmService;
@@ -99,6 +114,8 @@ public class FcScheduleService {
   private final FcRegionService fcRegionService;
   private final FcProvinceService fcProvinceService;
   private final FcDistrictService fcDistrictService;
+  private final ExecutorService executorService;
+  private final PlatformTransactionManager transactionManager;
 
   @Scheduled(cron = "${fc.receiptplan.cron}", zone = TIME_ZONE_ID)
   @Transactional
@@ -121,13 +138,11 @@ public class FcScheduleService {
     });
   }
 
-  @Transactional
   public void syncCmms(String date) {
     log.info("[FC cmm] start sync");
     process(CMM_API, date);
   }
 
-  @Transactional
   public void syncCps(String date) {
     log.info("[FC cp] start sync");
     process(CP_API, date);
@@ -210,12 +225,56 @@ public class FcScheduleService {
       LocalDate localDate = LocalDate.parse(date, DateTimeFormatter.ofPattern(DATE_FORMAT));
       date = localDate.format(getFormatter(api));
     }
-    if (getFcNewApis().contains(api)) {
-      fetchDataForNewFc(api, date);
-    } else {
-      fetchData(api, date);
+    ProcessDataService processDataService = getProcessDataService(api);
+    if (processDataService != null && processDataService.isPageProcessable() && !getFcNewApis().contains(api)) {
+      processByPage(api, date, lastUpdatedAt, processDataService);
+      return;
     }
-    processAndRecordResult(api, date, lastUpdatedAt);
+    List<ResponseBaseDto> result = getFcNewApis().contains(api) ? fetchDataForNewFc(api, date) : fetchData(api, date);
+    processAndRecordResult(api, date, lastUpdatedAt, result);
+  }
+
+  private void processByPage(String api, String date, ZonedDateTime lastUpdatedAt,
+      ProcessDataService processDataService) {
+    // the last committed checkpoint, only advanced once a page transaction has committed
+    AtomicReference<FcIntegrationResult> checkpoint =
+        new AtomicReference<>(fcIntegrationResultService.getCheckpoint(api, date, lastUpdatedAt));
+    int firstPage = checkpoint.get().getLastPage() == null ? 1 : checkpoint.get().getLastPage() + 1;
+    // every page commits on its own together with the checkpoint, so only the pages in flight are held in memory
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    try {
+      int total = fetchPages(api, firstPage,
+          page -> callFcService.fetchData(getUrl(fcDomain, api, page, date), api),
+          (fcPage, page) -> checkpoint.set(transactionTemplate.execute(status ->
+              processPage(checkpoint.get(), processDataService, fcPage, page, lastUpdatedAt))));
+      log.info("[FC] process {} by page finish, total size: {}", api, total);
+    } catch (RuntimeException e) {
+      log.error("[FC] process {} by page failed, checkpoint: {}", api, checkpoint.get().getLastPage(), e);
+      fcIntegrationResultService.recordCheckpointError(checkpoint.get(), e.getMessage());
+      throw e;
+    }
+    if (checkpoint.get().getLastPage() == null) {
+      log.info("no new data for {}", api);
+      return;
+    }
+    fcIntegrationResultService.finishCheckpoint(checkpoint.get());
+  }
+
+  private FcIntegrationResult processPage(FcIntegrationResult checkpoint, ProcessDataService processDataService,
+      FcPageDto fcPage, int page, ZonedDateTime lastUpdatedAt) {
+    if (fcPage.isEmpty()) {
+      return checkpoint;
+    }
+    FcIntegrationResultDto resultDto = processDataService.processData(fcPage.getContent(), checkpoint.getStartDate(),
+        lastUpdatedAt);
+    if (!Boolean.TRUE.equals(resultDto.getFinalSuccess())) {
+      throw new IllegalStateException("process " + checkpoint.getApi() + " page " + page + " failed: "
+          + resultDto.getErrorMessage());
+    }
+    FcIntegrationResult fcIntegrationResult = fcIntegrationResultService.recordCheckpoint(checkpoint, resultDto, page);
+    recordFcIntegrationChanges(fcIntegrationResult, resultDto.getFcIntegrationChanges());
+    return fcIntegrationResult;
   }
 
   private DateTimeFormatter getFormatter(String api) {
@@ -223,49 +282,9 @@ public class FcScheduleService {
         getCmmAndCpApis().contains(api) ? MONTH_FORMAT : DATE_FORMAT);
   }
 
-  private void processAndRecordResult(String api, String date, ZonedDateTime lastUpdatedAt) {
-    List<? extends ResponseBaseDto> result = Collections.emptyList();
-    ProcessDataService processDataService = null;
-    if (PRODUCT_API.equals(api)) {
-      result = callFcService.getProducts();
-      processDataService = fcProductService;
-    } else if (REGIMEN_API.equals(api)) {
-      result = callFcService.getRegimens();
-      processDataService = fcRegimenService;
-    } else if (FACILITY_TYPE_API.equals(api)) {
-      result = callFcService.getFacilityTypes();
-      processDataService = fcFacilityTypeService;
-    } else if (PROGRAM_API.equals(api)) {
-      result = callFcService.getPrograms();
-      processDataService = fcProgramService;
-    } else if (FACILITY_API.equals(api)) {
-      result = callFcService.getFacilities();
-      processDataService = fcFacilityService;
-    } else if (GEOGRAPHIC_ZONE_API.equals(api)) {
-      result = callFcService.getGeographicZones();
-      processDataService = fcGeographicZoneService;
-    } else if (CMM_API.equals(api)) {
-      result = callFcService.getCmms();
-      processDataService = fcCmmService;
-    } else if (CP_API.equals(api)) {
-      result = callFcService.getCps();
-      processDataService = fcCpService;
-    } else if (RECEIPT_PLAN_API.equals(api)) {
-      result = callFcService.getReceiptPlans();
-      processDataService = fcReceiptPlanService;
-    } else if (ISSUE_VOUCHER_API.equals(api)) {
-      result = callFcService.getIssueVouchers();
-      processDataService = fcIssueVoucherService;
-    } else if (REGION_API.equals(api)) {
-      result = callFcService.getRegions();
-      processDataService = fcRegionService;
-    } else if (PROVINCE_API.equals(api)) {
-      result = callFcService.getProvinces();
-      processDataService = fcProvinceService;
-    } else if (DISTRICT_API.equals(api)) {
-      result = callFcService.getDistrict();
-      processDataService = fcDistrictService;
-    }
+  private void processAndRecordResult(String api, String date, ZonedDateTime lastUpdatedAt,
+      List<ResponseBaseDto> result) {
+    ProcessDataService processDataService = getProcessDataService(api);
     if (result.isEmpty() || processDataService == null) {
       log.info("no new data for {}", api);
       return;
@@ -276,26 +295,42 @@ public class FcScheduleService {
     recordFcIntegrationChanges(fcIntegrationResult, resultDto.getFcIntegrationChanges());
   }
 
-  public void fetchData(String api, String date) {
-    try {
-      initData(api);
-      for (int page = 1; page <= callFcService.getPageInfoDto().getTotalPages(); page++) {
-        callFcService.fetchData(getUrl(api, page, date), api);
-      }
-      log.info("[FC] fetch {} finish, total size: {}", api, getTotalSize(api));
-    } catch (Exception e) {
-      log.error("[FC] fetch api {} failed", api);
-      throw e;
-    }
+  public List<ResponseBaseDto> fetchData(String api, String date) {
+    List<ResponseBaseDto> result = new ArrayList<>();
+    fetchPages(api, 1, page -> callFcService.fetchData(getUrl(fcDomain, api, page, date), api),
+        (fcPage, page) -> result.addAll(fcPage.getContent()));
+    return result;
   }
 
-  public void fetchDataForNewFc(String api, String date) {
+  public List<ResponseBaseDto> fetchDataForNewFc(String api, String date) {
+    List<ResponseBaseDto> result = new ArrayList<>();
+    fetchPages(api, 0, page -> callFcService.fetchDataForNewFc(getUrl(fcNewDomain, api, page, date), api,
+        callFcService.getClassByApi(api)), (fcPage, page) -> result.addAll(fcPage.getContent()));
+    return result;
+  }
+
+  private int fetchPages(String api, int firstPage, IntFunction<FcPageDto> pageFetcher,
+      ObjIntConsumer<FcPageDto> pageConsumer) {
     try {
-      initData(api);
-      for (int page = 0; page <= callFcService.getPageInfoDto().getTotalPages(); page++) {
-        callFcService.fetchDataForNewFc(getNewUrl(api, page, date), api, callFcService.getClassByApi(api));
+      // the first page tells how many pages there are, the rest are fetched fetchConcurrency pages at a time
+      // and handed to the consumer in page order
+      FcPageDto first = pageFetcher.apply(firstPage);
+      pageConsumer.accept(first, firstPage);
+      int total = first.getContent().size();
+      int lastPage = first.getPageInfo().getTotalPages();
+      for (int windowStart = firstPage + 1; windowStart <= lastPage; windowStart += fetchConcurrency) {
+        int windowEnd = Math.min(windowStart + fetchConcurrency - 1, lastPage);
+        List<CompletableFuture<FcPageDto>> futures = IntStream.rangeClosed(windowStart, windowEnd)
+            .mapToObj(page -> CompletableFuture.supplyAsync(() -> pageFetcher.apply(page), executorService))
+            .collect(toList());
+        for (int i = 0; i < futures.size(); i++) {
+          FcPageDto fcPage = futures.get(i).join();
+          pageConsumer.accept(fcPage, windowStart + i);
+          total += fcPage.getContent().size();
+        }
       }
-      log.info("[FC] fetch {} finish, total size: {}", api, getTotalSize(api));
+      log.info("[FC] fetch {} finish, total size: {}", api, total);
+      return total;
     } catch (Exception e) {
       log.error("[FC] fetch api {} failed", api);
       throw e;
@@ -313,18 +348,8 @@ public class FcScheduleService {
     });
   }
 
-  private String getUrl(String path, int page, String date) {
-    String url = fcDomain + path + "?key=" + fcKey + "&psize=20&page=" + page + "&";
-    if (date.contains("-")) {
-      url += "period=" + date;
-    } else {
-      url += "date=" + date;
-    }
-    return url;
-  }
-
-  private String getNewUrl(String path, int page, String date) {
-    String url = fcNewDomain + path + "?key=" + fcKey + "&psize=20&page=" + page + "&";
+  private String getUrl(String domain, String path, int page, String date) {
+    String url = domain + path + "?key=" + fcKey + "&psize=" + pageSize + "&page=" + page + "&";
     if (date.contains("-")) {
       url += "period=" + date;
     } else {
@@ -333,67 +358,35 @@ public class FcScheduleService {
     return url;
   }
 
-  private int getTotalSize(String api) {
-    if (ISSUE_VOUCHER_API.equals(api)) {
-      return callFcService.getIssueVouchers().size();
-    } else if (RECEIPT_PLAN_API.equals(api)) {
-      return callFcService.getReceiptPlans().size();
-    } else if (GEOGRAPHIC_ZONE_API.equals(api)) {
-      return callFcService.getGeographicZones().size();
-    } else if (PROGRAM_API.equals(api)) {
-      return callFcService.getPrograms().size();
-    } else if (PRODUCT_API.equals(api)) {
-      return callFcService.getProducts().size();
+  private ProcessDataService getProcessDataService(String api) {
+    if (PRODUCT_API.equals(api)) {
+      return fcProductService;
     } else if (REGIMEN_API.equals(api)) {
-      return callFcService.getRegimens().size();
-    } else if (FACILITY_API.equals(api)) {
-      return callFcService.getFacilities().size();
+      return fcRegimenService;
     } else if (FACILITY_TYPE_API.equals(api)) {
-      return callFcService.getFacilityTypes().size();
+      return fcFacilityTypeService;
+    } else if (PROGRAM_API.equals(api)) {
+      return fcProgramService;
+    } else if (FACILITY_API.equals(api)) {
+      return fcFacilityService;
+    } else if (GEOGRAPHIC_ZONE_API.equals(api)) {
+      return fcGeographicZoneService;
     } else if (CMM_API.equals(api)) {
-      return callFcService.getCmms().size();
+      return fcCmmService;
     } else if (CP_API.equals(api)) {
-      return callFcService.getCps().size();
-    } else if (REGION_API.equals(api)) {
-      return callFcService.getRegions().size();
-    } else if (PROVINCE_API.equals(api)) {
-      return callFcService.getProvinces().size();
-    } else if (DISTRICT_API.equals(api)) {
-      return callFcService.getDistrict().size();
-    } else {
-      return -1;
-    }
-  }
-
-  private void initData(String api) {
-    if (RECEIPT_PLAN_API.equals(api)) {
-      callFcService.setReceiptPlans(newArrayList());
+      return fcCpService;
+    } else if (RECEIPT_PLAN_API.equals(api)) {
+      return fcReceiptPlanService;
     } else if (ISSUE_VOUCHER_API.equals(api)) {
-      callFcService.setIssueVouchers(newArrayList());
-    } else if (CMM_API.equals(api)) {
-      callFcService.setCmms(newArrayList());
-    } else if (CP_API.equals(api)) {
-      callFcService.setCps(newArrayList());
-    } else if (FACILITY_API.equals(api)) {
-      callFcService.setFacilities(newArrayList());
-    } else if (FACILITY_TYPE_API.equals(api)) {
-      callFcService.setFacilityTypes(newArrayList());
-    } else if (REGIMEN_API.equals(api)) {
-      callFcService.setRegimens(newArrayList());
-    } else if (GEOGRAPHIC_ZONE_API.equals(api)) {
-      callFcService.setGeographicZones(newArrayList());
-    } else if (PROGRAM_API.equals(api)) {
-      callFcService.setPrograms(newArrayList());
-    } else if (PRODUCT_API.equals(api)) {
-      callFcService.setProducts(newArrayList());
+      return fcIssueVoucherService;
     } else if (REGION_API.equals(api)) {
-      callFcService.setRegions(newArrayList());
+      return fcRegionService;
     } else if (PROVINCE_API.equals(api)) {
-      callFcService.setProvinces(newArrayList());
+      return fcProvinceService;
     } else if (DISTRICT_API.equals(api)) {
-      callFcService.setDistrict(newArrayList());
+      return fcDistrictService;
     }
-    callFcService.setPageInfoDto(new PageInfoDto());
+    return null;
   }
 
 }
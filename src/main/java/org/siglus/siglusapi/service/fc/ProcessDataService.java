@@ -25,4 +25,12 @@ public interface ProcessDataService {
   FcIntegrationResultDto processData(List<? extends ResponseBaseDto> data, String startDate,
       ZonedDateTime previousLastUpdatedAt);
 
+  /**
+   * Whether every row is processed independently of the others, so that the data can be processed and committed
+   * one fc page at a time instead of as a whole.
+   */
+  default boolean isPageProcessable() {
+    return false;
+  }
+
 }
@@ -20,12 +20,17 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -35,6 +40,7 @@ import org.openlmis.referencedata.domain.ProcessingPeriod;
 import org.siglus.siglusapi.domain.HfCmm;
 import org.siglus.siglusapi.dto.HfCmmCountDto;
 import org.siglus.siglusapi.repository.FacilityCmmsRepository;
+import org.siglus.siglusapi.repository.HfCmmNativeSqlRepository;
 import org.siglus.siglusapi.repository.SiglusFacilityRepository;
 import org.siglus.siglusapi.repository.SiglusStockCardLineItemRepository;
 import org.siglus.siglusapi.repository.SiglusStockCardRepository;
@@ -42,10 +48,14 @@ import org.siglus.siglusapi.repository.dto.StockCardLineItemDto;
 import org.siglus.siglusapi.repository.dto.StockOnHandDto;
 import org.siglus.siglusapi.service.SiglusOrderableService;
 import org.siglus.siglusapi.service.SiglusProcessingPeriodService;
+import org.siglus.siglusapi.util.PeriodIndex;
 import org.siglus.siglusapi.util.PeriodUtil;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -58,31 +68,56 @@ public class CalculateCmmService {
   private final SiglusStockCardLineItemRepository siglusStockCardLineItemRepository;
   private final SiglusOrderableService siglusOrderableService;
   private final SiglusProcessingPeriodService periodService;
+  private final HfCmmNativeSqlRepository hfCmmNativeSqlRepository;
+  private final PlatformTransactionManager transactionManager;
 
   private static final Long SKIP_ISSUE_QUANTITY = -1L;
   private static final Long STOCK_OUT_QUANTITY = 0L;
   private static final double INIT_CMM = -1d;
   private static final int MAX_PERIOD_ISSUE_COUNT = 3;
 
-  @Transactional
+  @Value("${web.cmm.calculate.partition.size}")
+  private int partitionSize;
+
+  @Value("${web.cmm.calculate.concurrency}")
+  private int concurrency;
+
   public void calculateAllWebCmm(LocalDate requestDate) {
     List<Facility> webFacilities = siglusFacilityRepository.findAllWebFacility();
-    Set<UUID> webFacilityIds = webFacilities.stream().map(Facility::getId).collect(Collectors.toSet());
-    Map<UUID, String> facilityIdToCode = webFacilities.stream()
-        .collect(Collectors.toMap(Facility::getId, Facility::getCode));
     Map<UUID, String> orderableIdToCode = siglusOrderableService.getAllProductIdToCode();
     List<ProcessingPeriod> periods = getOneYearPeriods(periodService.getUpToNowMonthlyPeriods(), requestDate);
     Map<String, List<HfCmmCountDto>> facilityCodeToHfCmmCountDtos = facilityCmmsRepository.findAllFacilityCmmCountDtos(
             periods.stream().map(ProcessingPeriod::getStartDate).collect(Collectors.toList()))
         .stream().collect(Collectors.groupingBy(HfCmmCountDto::getFacilityCode));
-
-    webFacilityIds.forEach(facilityId -> {
-      if (!webFacilityIds.contains(facilityId)) {
-        return;
-      }
-      calculateAndSavaCmms(requestDate, Pair.of(facilityId, facilityIdToCode.get(facilityId)), orderableIdToCode,
-          periods, facilityCodeToHfCmmCountDtos.get(facilityIdToCode.get(facilityId)));
-    });
+    PeriodIndex periodIndex = PeriodIndex.of(periods);
+
+    // each partition commits on its own, a rerun after failure skips the periods already counted in hf_cmms
+    List<List<Facility>> partitions = Lists.partition(webFacilities, partitionSize);
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    AtomicInteger finishedCount = new AtomicInteger();
+    // a pool of its own, so at most concurrency partitions are in flight and the shared pool stays free
+    ExecutorService executorService = Executors.newFixedThreadPool(concurrency);
+    List<String> failedFacilityCodes;
+    try {
+      List<CompletableFuture<List<String>>> futures = partitions.stream()
+          .map(partition -> CompletableFuture.supplyAsync(() -> {
+            List<String> failedPartitionFacilityCodes = calculatePartitionCmms(transactionTemplate, requestDate,
+                partition, orderableIdToCode, periodIndex, facilityCodeToHfCmmCountDtos);
+            log.info("calculate web cmm partition finished, progress: {}/{}", finishedCount.incrementAndGet(),
+                partitions.size());
+            return failedPartitionFacilityCodes;
+          }, executorService))
+          .collect(Collectors.toList());
+      failedFacilityCodes = futures.stream()
+          .map(CompletableFuture::join)
+          .flatMap(List::stream)
+          .collect(Collectors.toList());
+    } finally {
+      executorService.shutdown();
+    }
+    if (CollectionUtils.isNotEmpty(failedFacilityCodes)) {
+      log.warn("calculate web cmm failed, facilityCodes:{}", failedFacilityCodes);
+    }
   }
 
   @Transactional
@@ -93,8 +128,25 @@ public class CalculateCmmService {
     List<HfCmmCountDto> hfCmmCountDtos = facilityCmmsRepository.findOneFacilityCmmCountDtos(
         periods.stream().map(ProcessingPeriod::getStartDate).collect(Collectors.toList()), facility.getCode());
 
-    calculateAndSavaCmms(requestDate, Pair.of(facilityId, facility.getCode()), orderableIdToCode, periods,
-        hfCmmCountDtos);
+    calculateAndSavaCmms(requestDate, Pair.of(facilityId, facility.getCode()), orderableIdToCode,
+        PeriodIndex.of(periods), hfCmmCountDtos);
+  }
+
+  private List<String> calculatePartitionCmms(TransactionTemplate transactionTemplate, LocalDate requestDate,
+      List<Facility> facilities, Map<UUID, String> orderableIdToCode, PeriodIndex periodIndex,
+      Map<String, List<HfCmmCountDto>> facilityCodeToHfCmmCountDtos) {
+    try {
+      transactionTemplate.execute(status -> {
+        facilities.forEach(facility -> calculateAndSavaCmms(requestDate, Pair.of(facility.getId(), facility.getCode()),
+            orderableIdToCode, periodIndex, facilityCodeToHfCmmCountDtos.get(facility.getCode())));
+        return null;
+      });
+      return Collections.emptyList();
+    } catch (RuntimeException e) {
+      List<String> facilityCodes = facilities.stream().map(Facility::getCode).collect(Collectors.toList());
+      log.error("calculate partition cmm failed, facilityCodes:{}", facilityCodes, e);
+      return facilityCodes;
+    }
   }
 
   private List<ProcessingPeriod> getOneYearPeriods(List<ProcessingPeriod> upToNowAllPeriods,
@@ -109,9 +161,10 @@ public class CalculateCmmService {
   }
 
   private void calculateAndSavaCmms(LocalDate requestDate, Pair<UUID, String> facilityIdToCode,
-      Map<UUID, String> orderableIdToCode, List<ProcessingPeriod> periods, List<HfCmmCountDto> hfCmmCountDtos) {
+      Map<UUID, String> orderableIdToCode, PeriodIndex periodIndex, List<HfCmmCountDto> hfCmmCountDtos) {
 
     UUID facilityId = facilityIdToCode.getFirst();
+    List<ProcessingPeriod> periods = periodIndex.getPeriods();
     LocalDate startDate = periods.get(0).getStartDate();
     LocalDate endDate = periods.get(periods.size() - 1).getEndDate();
 
@@ -120,11 +173,11 @@ public class CalculateCmmService {
         startDate, endDate, facilityId);
     Map<LocalDate, Integer> periodStartDateToCount = getPeriodStartDateToCount(hfCmmCountDtos);
 
-    List<HfCmm> hfCmms = buildHfCmms(requestDate, facilityIdToCode, orderableIdToCode, periods, orderableIdToSohDtos,
-        orderableIdToStockCardLineItemDtos, periodStartDateToCount);
+    List<HfCmm> hfCmms = buildHfCmms(requestDate, facilityIdToCode, orderableIdToCode, periodIndex,
+        orderableIdToSohDtos, orderableIdToStockCardLineItemDtos, periodStartDateToCount);
     if (CollectionUtils.isNotEmpty(hfCmms)) {
       log.info("save hf cmms, facilityId:{}, size:{}", facilityId, hfCmms.size());
-      facilityCmmsRepository.save(hfCmms);
+      hfCmmNativeSqlRepository.batchInsertIgnoreExisted(hfCmms);
     }
   }
 
@@ -134,7 +187,7 @@ public class CalculateCmmService {
   }
 
   private List<HfCmm> buildHfCmms(LocalDate requestDate, Pair<UUID, String> facilityIdCodePair,
-      Map<UUID, String> orderableIdToCode, List<ProcessingPeriod> periods,
+      Map<UUID, String> orderableIdToCode, PeriodIndex periodIndex,
       Map<UUID, List<StockOnHandDto>> orderableIdToSohDtos,
       Map<UUID, List<StockCardLineItemDto>> orderableIdToStockCardLineItemDtos,
       Map<LocalDate, Integer> periodStartDateToCount) {
@@ -142,18 +195,18 @@ public class CalculateCmmService {
     List<HfCmm> hfCmms = Lists.newArrayList();
 
     orderableIdToSohDtos.forEach((orderableId, sohDtos) -> {
-      LocalDate firstMovementPeriodStart = getFirstMovementPeriodStart(sohDtos, periods);
+      LocalDate firstMovementPeriodStart = getFirstMovementPeriodStart(sohDtos, periodIndex);
       if (Objects.isNull(firstMovementPeriodStart)) {
         log.warn("first movement period is null, do not calculate cmm, facilityId:{}, orderableId:{}",
             facilityIdCodePair.getFirst(), orderableId);
         return;
       }
 
-      Set<LocalDate> hasStockOutPeriodStarDate = getHasStockOutPeriodStartDates(periods, sohDtos);
-      Map<LocalDate, Long> periodStartDateToIssueQuantity = getPeriodStartDateToIssueQuantity(periods,
+      Set<LocalDate> hasStockOutPeriodStarDate = getHasStockOutPeriodStartDates(periodIndex, sohDtos);
+      Map<LocalDate, Long> periodStartDateToIssueQuantity = getPeriodStartDateToIssueQuantity(periodIndex,
           orderableIdToStockCardLineItemDtos.get(orderableId));
 
-      List<ProcessingPeriod> toBeCalculatedPeriods = getToBeCalculatedPeriods(requestDate, periods,
+      List<ProcessingPeriod> toBeCalculatedPeriods = getToBeCalculatedPeriods(requestDate, periodIndex,
           firstMovementPeriodStart);
 
       toBeCalculatedPeriods.forEach(period -> {
@@ -173,14 +226,14 @@ public class CalculateCmmService {
     return periodStartDateToCount.getOrDefault(period.getStartDate(), 0) > 0;
   }
 
-  private Map<LocalDate, Long> getPeriodStartDateToIssueQuantity(List<ProcessingPeriod> periods,
+  private Map<LocalDate, Long> getPeriodStartDateToIssueQuantity(PeriodIndex periodIndex,
       List<StockCardLineItemDto> lineItemDtos) {
     if (CollectionUtils.isEmpty(lineItemDtos)) {
       return Maps.newHashMap();
     }
     Map<LocalDate, Long> periodStartDateToIssueQuantity = Maps.newHashMap();
     lineItemDtos.forEach(lineItemDto -> {
-      ProcessingPeriod period = PeriodUtil.getPeriodDateInDefaultNull(periods, lineItemDto.getOccurredDate());
+      ProcessingPeriod period = periodIndex.getPeriodDateInDefaultNull(lineItemDto.getOccurredDate());
       Long issueQuantity = periodStartDateToIssueQuantity.getOrDefault(period.getStartDate(), 0L);
       periodStartDateToIssueQuantity.put(period.getStartDate(), lineItemDto.getIssueQuantity() + issueQuantity);
     });
@@ -201,10 +254,10 @@ public class CalculateCmmService {
     return facilitySohDtos.stream().collect(Collectors.groupingBy(StockOnHandDto::getOrderableId));
   }
 
-  private Set<LocalDate> getHasStockOutPeriodStartDates(List<ProcessingPeriod> periods, List<StockOnHandDto> sohDtos) {
+  private Set<LocalDate> getHasStockOutPeriodStartDates(PeriodIndex periodIndex, List<StockOnHandDto> sohDtos) {
     Map<LocalDate, List<StockOnHandDto>> periodStartDateToSohDtos = Maps.newHashMap();
     sohDtos.forEach(sohDto -> {
-      ProcessingPeriod period = PeriodUtil.getPeriodDateInDefaultNull(periods, sohDto.getOccurredDate());
+      ProcessingPeriod period = periodIndex.getPeriodDateInDefaultNull(sohDto.getOccurredDate());
       if (period == null) {
         return;
       }
@@ -217,7 +270,7 @@ public class CalculateCmmService {
 
     Long soh = 0L;
     Set<LocalDate> hasStockOutPeriodStarDate = Sets.newHashSet();
-    for (ProcessingPeriod period : periods) {
+    for (ProcessingPeriod period : periodIndex.getPeriods()) {
       List<StockOnHandDto> curPeriodSohDtos = periodStartDateToSohDtos.get(period.getStartDate());
       if (currentPeriodNoSohAndLastIsZero(soh, curPeriodSohDtos)
           || isStockOutExisted(curPeriodSohDtos)) {
@@ -275,14 +328,14 @@ public class CalculateCmmService {
     return 0L;
   }
 
-  private List<ProcessingPeriod> getToBeCalculatedPeriods(LocalDate requestDate, List<ProcessingPeriod> periods,
+  private List<ProcessingPeriod> getToBeCalculatedPeriods(LocalDate requestDate, PeriodIndex periodIndex,
       LocalDate firstMovementPeriodStart) {
     if (Objects.isNull(requestDate)) {
-      return periods.stream()
+      return periodIndex.getPeriods().stream()
           .filter(period -> !period.getStartDate().isBefore(firstMovementPeriodStart))
           .collect(Collectors.toList());
     }
-    ProcessingPeriod period = PeriodUtil.getPeriodDateInDefaultNull(periods, requestDate);
+    ProcessingPeriod period = periodIndex.getPeriodDateInDefaultNull(requestDate);
     if (Objects.isNull(period)) {
       log.warn("no period match, request date:{}", requestDate);
       return Lists.newArrayList();
@@ -327,15 +380,15 @@ public class CalculateCmmService {
     return hfCmm;
   }
 
-  private LocalDate getFirstMovementPeriodStart(List<StockOnHandDto> sohDtos, List<ProcessingPeriod> periods) {
+  private LocalDate getFirstMovementPeriodStart(List<StockOnHandDto> sohDtos, PeriodIndex periodIndex) {
     // first movement date is by product(any movement type)
     sohDtos.sort(Comparator.comparing(StockOnHandDto::getOccurredDate));
     LocalDate firstMovementDate = sohDtos.get(0).getOccurredDate();
-    return getPeriodStartDate(firstMovementDate, periods);
+    return getPeriodStartDate(firstMovementDate, periodIndex);
   }
 
-  private LocalDate getPeriodStartDate(LocalDate localDate, List<ProcessingPeriod> periods) {
-    ProcessingPeriod dateInPeriod = PeriodUtil.getPeriodDateInDefaultNull(periods, localDate);
+  private LocalDate getPeriodStartDate(LocalDate localDate, PeriodIndex periodIndex) {
+    ProcessingPeriod dateInPeriod = periodIndex.getPeriodDateInDefaultNull(localDate);
     if (Objects.isNull(dateInPeriod)) {
       return null;
     }
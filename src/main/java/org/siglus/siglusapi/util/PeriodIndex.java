@@ -0,0 +1,63 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.siglus.siglusapi.util;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.openlmis.referencedata.domain.ProcessingPeriod;
+
+/**
+ * Immutable lookup of the period a date falls in, by binary search over the period start dates instead of the
+ * linear scan in {@link PeriodUtil}. Periods are expected not to overlap, as the monthly periods don't.
+ */
+public final class PeriodIndex {
+
+  private final List<ProcessingPeriod> periods;
+  private final long[] startEpochDays;
+
+  private PeriodIndex(List<ProcessingPeriod> periods) {
+    this.periods = periods;
+    this.startEpochDays = periods.stream().mapToLong(period -> period.getStartDate().toEpochDay()).toArray();
+  }
+
+  public static PeriodIndex of(Collection<ProcessingPeriod> periods) {
+    return new PeriodIndex(Collections.unmodifiableList(periods.stream()
+        .sorted(Comparator.comparing(ProcessingPeriod::getStartDate))
+        .collect(Collectors.toList())));
+  }
+
+  public List<ProcessingPeriod> getPeriods() {
+    return periods;
+  }
+
+  public ProcessingPeriod getPeriodDateInDefaultNull(LocalDate localDate) {
+    int index = Arrays.binarySearch(startEpochDays, localDate.toEpochDay());
+    if (index < 0) {
+      // the period starting right before the date, if any
+      index = -index - 2;
+    }
+    if (index < 0) {
+      return null;
+    }
+    ProcessingPeriod period = periods.get(index);
+    return PeriodUtil.isDateInPeriod(period, localDate) ? period : null;
+  }
+}
@@ -94,6 +94,12 @@ public class S3FileHandler {
     }
   }
 
+  public S3MultipartOutputStream openUploadStream(String fileName) {
+    String keyName = getKeyName(fileName);
+    log.debug("bucketName: {}, keyName: {}", bucketName, keyName);
+    return new S3MultipartOutputStream(s3Client, bucketName, keyName);
+  }
+
   public String getUrlFromS3(String fileName) {
     java.util.Date expiration = new java.util.Date();
     long expTimeMillis = Instant.now().toEpochMilli();
@@ -0,0 +1,120 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.siglus.siglusapi.util;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Uploads what is written to it as a multipart upload, one part per {@link #PART_SIZE} bytes, so that a large file
+ * can be uploaded while it is generated, without being kept on disk or in memory as a whole. The upload is
+ * completed on {@link #close()}, or dropped on {@link #abort()} when the content turns out to be incomplete.
+ */
+@Slf4j
+public class S3MultipartOutputStream extends OutputStream {
+
+  // s3 requires at least 5MB for every part except the last one
+  static final int PART_SIZE = 8 * 1024 * 1024;
+
+  private final AmazonS3 s3Client;
+  private final String bucketName;
+  private final String keyName;
+  private final String uploadId;
+  private final List<PartETag> partETags = new ArrayList<>();
+  private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+  private boolean closed;
+
+  S3MultipartOutputStream(AmazonS3 s3Client, String bucketName, String keyName) {
+    this.s3Client = s3Client;
+    this.bucketName = bucketName;
+    this.keyName = keyName;
+    this.uploadId = s3Client.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucketName, keyName))
+        .getUploadId();
+  }
+
+  @Override
+  public void write(int b) {
+    buffer.write(b);
+    uploadPartIfFull();
+  }
+
+  @Override
+  public void write(byte[] bytes, int offset, int length) {
+    int written = 0;
+    while (written < length) {
+      int chunk = Math.min(length - written, PART_SIZE - buffer.size());
+      buffer.write(bytes, offset + written, chunk);
+      written += chunk;
+      uploadPartIfFull();
+    }
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    try {
+      if (buffer.size() > 0 || partETags.isEmpty()) {
+        uploadPart();
+      }
+      s3Client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, keyName, uploadId, partETags));
+    } catch (RuntimeException e) {
+      // an upload left neither completed nor aborted keeps its parts stored in s3
+      abort();
+      throw e;
+    }
+    closed = true;
+    log.info("upload {} to s3 in {} parts", keyName, partETags.size());
+  }
+
+  public void abort() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    s3Client.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, keyName, uploadId));
+    log.warn("abort uploading {} to s3", keyName);
+  }
+
+  private void uploadPartIfFull() {
+    if (buffer.size() >= PART_SIZE) {
+      uploadPart();
+    }
+  }
+
+  private void uploadPart() {
+    UploadPartRequest uploadPartRequest = new UploadPartRequest()
+        .withBucketName(bucketName)
+        .withKey(keyName)
+        .withUploadId(uploadId)
+        .withPartNumber(partETags.size() + 1)
+        .withInputStream(new ByteArrayInputStream(buffer.toByteArray()))
+        .withPartSize(buffer.size());
+    partETags.add(s3Client.uploadPart(uploadPartRequest).getPartETag());
+    buffer.reset();
+  }
+}
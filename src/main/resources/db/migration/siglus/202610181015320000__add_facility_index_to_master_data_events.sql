@@ -0,0 +1,10 @@
+-- WHEN COMMITTING OR REVIEWING THIS FILE: Make sure that the timestamp in the file name (that serves as a version) is the latest timestamp, and that no new migration have been added in the meanwhile.
+-- Adding migrations out of order may cause this migration to never execute or behave in an unexpected way.
+-- Migrations should NOT BE EDITED. Add a new migration to apply changes.
+
+-- Only CONCURRENTLY statements here, so flyway runs this migration outside a transaction and writes are not blocked.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS master_data_events_facilityid_id_index
+    ON localmachine.master_data_events (facilityid, id) WHERE facilityid IS NOT NULL;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS master_data_events_shared_incremental_id_index
+    ON localmachine.master_data_events (id) WHERE facilityid IS NULL AND snapshotversion IS NULL;
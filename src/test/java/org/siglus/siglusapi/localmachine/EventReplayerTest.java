@@ -23,7 +23,10 @@ import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
+import com.google.common.util.concurrent.MoreExecutors;
 import java.time.ZonedDateTime;
 import java.util.Arrays;
 import java.util.Collections;
@@ -31,6 +34,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import net.javacrumbs.shedlock.core.SimpleLock;
 import org.junit.Before;
 import org.junit.Test;
@@ -41,11 +46,16 @@ import org.mockito.runners.MockitoJUnitRunner;
 import org.siglus.siglusapi.localmachine.ShedLockFactory.AutoClosableLock;
 import org.siglus.siglusapi.localmachine.agent.SyncRecordService;
 import org.siglus.siglusapi.localmachine.eventstore.EventStore;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @RunWith(MockitoJUnitRunner.class)
 public class EventReplayerTest {
 
   private static final String GROUP_1 = "group1";
+  private static final String GROUP_2 = "group2";
   @Mock
   private EventStore eventStore;
   @Mock
@@ -61,6 +71,85 @@ public class EventReplayerTest {
   public void setup() throws InterruptedException {
     mockLock();
     mockWaitLock();
+    ReflectionTestUtils.setField(eventReplayer, "executorService", MoreExecutors.newDirectExecutorService());
+  }
+
+  @Test
+  public void shouldReplayGroupsOfEachReceiverAndDrainQueueWhenReplayGroupEventsOfDifferentReceivers() {
+    // given
+    Event groupEvent1 = Event.builder().id(UUID.randomUUID()).groupId(GROUP_1).receiverId(UUID.randomUUID())
+        .syncedTime(ZonedDateTime.now().minusMinutes(1)).build();
+    Event groupEvent2 = Event.builder().id(UUID.randomUUID()).groupId(GROUP_2).receiverId(UUID.randomUUID())
+        .syncedTime(ZonedDateTime.now()).build();
+    given(eventStore.getNotReplayedEventChainsInGroup(GROUP_1)).willReturn(Collections.singletonList(groupEvent1));
+    given(eventStore.getNotReplayedEventChainsInGroup(GROUP_2)).willReturn(Collections.singletonList(groupEvent2));
+    List<Event> publishedEvents = getPublishedEvents();
+    // when
+    doNothing().when(syncRecordService).storeLastReplayRecord();
+    eventReplayer.replay(Arrays.asList(groupEvent1, groupEvent2));
+    // then
+    assertThat(publishedEvents)
+        .extracting(Event::getId)
+        .containsExactlyInAnyOrder(groupEvent1.getId(), groupEvent2.getId());
+    assertThat(eventReplayer.getQueueDepth()).isZero();
+  }
+
+  @Test
+  public void shouldMeasureLagFromOldestNotReplayedEventWhenGetReplayLagSeconds() {
+    // given
+    given(eventStore.getOldestNotReplayedSyncedTime()).willReturn(Optional.of(ZonedDateTime.now().minusMinutes(2)));
+    // when
+    long lagSeconds = eventReplayer.getReplayLagSeconds();
+    // then
+    assertThat(lagSeconds).isGreaterThanOrEqualTo(120L);
+  }
+
+  @Test
+  public void shouldReturnZeroLagWhenGetReplayLagSecondsGivenAllEventsReplayed() {
+    // given
+    given(eventStore.getOldestNotReplayedSyncedTime()).willReturn(Optional.empty());
+    // when
+    long lagSeconds = eventReplayer.getReplayLagSeconds();
+    // then
+    assertThat(lagSeconds).isZero();
+  }
+
+  @Test
+  public void shouldReplayEachGroupWithCallerAuthenticationAndRestorePoolThreadWhenReplayGroupEvents()
+      throws Exception {
+    // given
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    ReflectionTestUtils.setField(eventReplayer, "executorService", executorService);
+    UUID receiverId = UUID.randomUUID();
+    Event groupEvent1 = Event.builder().id(UUID.randomUUID()).groupId(GROUP_1).receiverId(receiverId).build();
+    Event groupEvent2 = Event.builder().id(UUID.randomUUID()).groupId(GROUP_2).receiverId(receiverId).build();
+    given(eventStore.getNotReplayedEventChainsInGroup(GROUP_1)).willReturn(Collections.singletonList(groupEvent1));
+    given(eventStore.getNotReplayedEventChainsInGroup(GROUP_2)).willReturn(Collections.singletonList(groupEvent2));
+    List<Authentication> replayedWith = new LinkedList<>();
+    doAnswer(
+        invocation -> {
+          replayedWith.add(SecurityContextHolder.getContext().getAuthentication());
+          // replayers simulate the user of the event
+          SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("replayer", null));
+          return null;
+        })
+        .when(eventPublisher)
+        .publishEvent(any(Event.class));
+    Authentication callerAuthentication = new TestingAuthenticationToken("caller", null);
+    SecurityContextHolder.getContext().setAuthentication(callerAuthentication);
+    try {
+      // when
+      eventReplayer.replay(Arrays.asList(groupEvent1, groupEvent2));
+
+      // then
+      assertThat(replayedWith).containsExactly(callerAuthentication, callerAuthentication);
+      assertThat(SecurityContextHolder.getContext().getAuthentication()).isSameAs(callerAuthentication);
+      assertThat(executorService.submit(() -> SecurityContextHolder.getContext().getAuthentication()).get())
+          .isNull();
+    } finally {
+      SecurityContextHolder.clearContext();
+      executorService.shutdown();
+    }
   }
 
   @Test
@@ -73,9 +162,8 @@ public class EventReplayerTest {
     Event groupEvent4MissingDependency =
         Event.builder().id(UUID.randomUUID()).groupId(GROUP_1).parentId(UUID.randomUUID()).build();
     final List<Event> groupEvents = Arrays.asList(groupEvent2, groupEvent1, groupEvent4MissingDependency);
-    Arrays.asList(groupEvent1, groupEvent2, groupEvent4MissingDependency)
-        .forEach(it -> given(eventStore.findEvent(it.getId())).willReturn(Optional.of(it)));
-    given(eventStore.getNotReplayedLeafEventsInGroup(GROUP_1)).willReturn(Collections.singletonList(groupEvent2));
+    given(eventStore.getNotReplayedEventChainsInGroup(GROUP_1))
+        .willReturn(Arrays.asList(groupEvent1, groupEvent2, groupEvent4MissingDependency));
     List<Event> publishedEvents = getPublishedEvents();
     // when
     doNothing().when(syncRecordService).storeLastReplayRecord();
@@ -100,9 +188,8 @@ public class EventReplayerTest {
             .parentId(groupEvent2.getId())
             .build();
     final List<Event> groupEvents = Arrays.asList(groupEvent2, groupEvent1, groupEvent3);
-    Arrays.asList(groupEvent1, groupEvent2, groupEvent3)
-        .forEach(it -> given(eventStore.findEvent(it.getId())).willReturn(Optional.of(it)));
-    given(eventStore.getNotReplayedLeafEventsInGroup(GROUP_1)).willReturn(Collections.singletonList(groupEvent3));
+    given(eventStore.getNotReplayedEventChainsInGroup(GROUP_1))
+        .willReturn(Arrays.asList(groupEvent1, groupEvent2, groupEvent3));
     List<Event> publishedEvents = getPublishedEvents();
     // when
     doNothing().when(syncRecordService).storeLastReplayRecord();
@@ -113,6 +200,28 @@ public class EventReplayerTest {
         .containsExactly(groupEvent1.getId(), groupEvent2.getId(), groupEvent3.getId());
   }
 
+  @Test
+  public void shouldOnlyReplayPendingDescendantsWhenReplayGroupEventsGivenReplayedAncestor() {
+    // given
+    Event replayedEvent =
+        Event.builder().id(UUID.randomUUID()).groupId(GROUP_1).parentId(null).localReplayed(true).build();
+    Event groupEvent1 =
+        Event.builder().id(UUID.randomUUID()).groupId(GROUP_1).parentId(replayedEvent.getId()).build();
+    Event groupEvent2 =
+        Event.builder().id(UUID.randomUUID()).groupId(GROUP_1).parentId(groupEvent1.getId()).build();
+    given(eventStore.getNotReplayedEventChainsInGroup(GROUP_1))
+        .willReturn(Arrays.asList(replayedEvent, groupEvent1, groupEvent2));
+    List<Event> publishedEvents = getPublishedEvents();
+    // when
+    doNothing().when(syncRecordService).storeLastReplayRecord();
+    eventReplayer.replay(Arrays.asList(groupEvent2, groupEvent1));
+    // then
+    assertThat(publishedEvents)
+        .extracting(Event::getId)
+        .containsExactly(groupEvent1.getId(), groupEvent2.getId());
+    verify(eventStore, times(1)).getNotReplayedEventChainsInGroup(GROUP_1);
+  }
+
   @Test
   public void shouldSendEventsToPublisherWhenReplayGivenNonGroupEvents() {
     // given
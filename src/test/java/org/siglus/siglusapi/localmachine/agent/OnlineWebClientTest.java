@@ -0,0 +1,169 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.siglus.siglusapi.localmachine.agent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.siglus.siglusapi.localmachine.io.EventStreamWriter.EVENT_COUNT_HEADER;
+import static org.siglus.siglusapi.localmachine.io.EventStreamWriter.EVENT_STREAM_MEDIA_TYPE;
+import static org.siglus.siglusapi.localmachine.io.EventStreamWriter.REMAINING_EVENTS_HEADER;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.siglus.siglusapi.localmachine.Event;
+import org.siglus.siglusapi.localmachine.ExternalEventDtoMapper;
+import org.siglus.siglusapi.localmachine.auth.LocalTokenInterceptor;
+import org.siglus.siglusapi.localmachine.eventstore.PayloadSerializer;
+import org.siglus.siglusapi.localmachine.io.EventFileReader;
+import org.siglus.siglusapi.localmachine.io.EventStreamWriter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+public class OnlineWebClientTest {
+
+  private static final String WEB_BASE_URL = "http://online-web";
+  private static final String PEERING_EVENTS_URL = WEB_BASE_URL + "/server/peeringEvents?capacityBytes=1024";
+
+  private OnlineWebClient onlineWebClient;
+  private MockRestServiceServer server;
+  private EventStreamWriter eventStreamWriter;
+  private List<Event> rawEvents;
+
+  @Before
+  public void setup() {
+    ExternalEventDtoMapper mapper = new ExternalEventDtoMapper(new PayloadSerializer());
+    eventStreamWriter = new EventStreamWriter(mapper);
+    onlineWebClient = new OnlineWebClient(
+        Mockito.mock(LocalTokenInterceptor.class), new EventFileReader(mapper), mapper);
+    ReflectionTestUtils.setField(onlineWebClient, "webBaseUrl", WEB_BASE_URL);
+    RestTemplate restTemplate = (RestTemplate) ReflectionTestUtils.getField(onlineWebClient, "restTemplate");
+    restTemplate.setInterceptors(Collections.emptyList());
+    server = MockRestServiceServer.bindTo(restTemplate).build();
+    rawEvents = Arrays.asList(buildEvent("first"), buildEvent("second"));
+  }
+
+  @Test
+  public void shouldReturnEventsWhenExportPeeringEventsGivenCompleteEventStream() throws IOException {
+    // given
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(EVENT_COUNT_HEADER, "2");
+    headers.set(REMAINING_EVENTS_HEADER, "5");
+    server.expect(requestTo(PEERING_EVENTS_URL))
+        .andExpect(header(HttpHeaders.ACCEPT, EVENT_STREAM_MEDIA_TYPE))
+        .andRespond(withSuccess(writeEventStream(), MediaType.valueOf(EVENT_STREAM_MEDIA_TYPE)).headers(headers));
+
+    // when
+    EventBatch eventBatch = onlineWebClient.exportPeeringEvents(1024L);
+
+    // then
+    assertThat(eventBatch.getEvents()).containsExactlyElementsOf(rawEvents);
+    assertThat(eventBatch.getRemaining()).isEqualTo(5L);
+    server.verify();
+  }
+
+  @Test
+  public void shouldThrowExceptionWhenExportPeeringEventsGivenEventStreamEndedEarly() throws IOException {
+    // given
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(EVENT_COUNT_HEADER, "3");
+    server.expect(requestTo(PEERING_EVENTS_URL))
+        .andRespond(withSuccess(writeEventStream(), MediaType.valueOf(EVENT_STREAM_MEDIA_TYPE)).headers(headers));
+
+    // when
+    try {
+      onlineWebClient.exportPeeringEvents(1024L);
+      fail("should not reach here");
+    } catch (ResourceAccessException e) {
+      // then
+      assertThat(e.getMessage()).contains("incomplete event stream");
+    }
+  }
+
+  @Test
+  public void shouldThrowExceptionWhenExportPeeringEventsGivenEventStreamWithoutCount() throws IOException {
+    // given
+    server.expect(requestTo(PEERING_EVENTS_URL))
+        .andRespond(withSuccess(writeEventStream(), MediaType.valueOf(EVENT_STREAM_MEDIA_TYPE)));
+
+    // when
+    try {
+      onlineWebClient.exportPeeringEvents(1024L);
+      fail("should not reach here");
+    } catch (ResourceAccessException e) {
+      // then
+      assertThat(e.getMessage()).contains(EVENT_COUNT_HEADER);
+    }
+  }
+
+  @Test
+  public void shouldPullJsonWhenExportPeeringEventsGivenEventStreamNotAcceptable() {
+    // given
+    server.expect(requestTo(PEERING_EVENTS_URL))
+        .andExpect(header(HttpHeaders.ACCEPT, EVENT_STREAM_MEDIA_TYPE))
+        .andRespond(withStatus(HttpStatus.NOT_ACCEPTABLE));
+    server.expect(requestTo(PEERING_EVENTS_URL))
+        .andRespond(withSuccess("{\"events\":[],\"remaining\":7}", MediaType.APPLICATION_JSON));
+
+    // when
+    EventBatch eventBatch = onlineWebClient.exportPeeringEvents(1024L);
+
+    // then
+    assertThat(eventBatch.getEvents()).isEmpty();
+    assertThat(eventBatch.getRemaining()).isEqualTo(7L);
+    server.verify();
+  }
+
+  private byte[] writeEventStream() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    eventStreamWriter.write(rawEvents, out);
+    return out.toByteArray();
+  }
+
+  private Event buildEvent(String content) {
+    return Event.builder()
+        .id(UUID.randomUUID())
+        .senderId(UUID.randomUUID())
+        .receiverId(UUID.randomUUID())
+        .payload(new TestedPayload(content))
+        .build();
+  }
+
+  @Data
+  @AllArgsConstructor
+  @NoArgsConstructor
+  static class TestedPayload {
+    private String content;
+  }
+}
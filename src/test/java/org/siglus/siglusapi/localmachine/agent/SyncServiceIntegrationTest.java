@@ -17,11 +17,15 @@ package org.siglus.siglusapi.localmachine.agent;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -33,6 +37,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.internal.verification.VerificationModeFactory;
+import org.siglus.siglusapi.localmachine.Ack;
 import org.siglus.siglusapi.localmachine.Event;
 import org.siglus.siglusapi.localmachine.EventImporter;
 import org.siglus.siglusapi.localmachine.ExternalEventDtoMapper;
@@ -57,7 +62,7 @@ import org.springframework.test.context.junit4.SpringRunner;
         EventFileReader.class,
         SyncService.class
     })
-@SuppressWarnings("PMD.UnusedPrivateField")
+@SuppressWarnings({"PMD.UnusedPrivateField", "unchecked"})
 public class SyncServiceIntegrationTest {
 
   @MockBean
@@ -110,6 +115,58 @@ public class SyncServiceIntegrationTest {
     assertThat(pushedEvents).containsExactly(rawEvents.toArray(new Event[0]));
   }
 
+  @Test
+  public void shouldAskForMoreWhenPullGivenRemainingPeeringEvents() {
+    // given
+    given(webClient.exportPeeringEvents(SyncService.PULL_CAPACITY_BYTES_PER_REQUEST)).willReturn(
+        new EventBatch(rawEvents.subList(0, 10), 90L));
+    // when
+    boolean hasMore = syncService.pull();
+    // then
+    assertThat(hasMore).isTrue();
+    ArgumentCaptor<List<Event>> captor = ArgumentCaptor.forClass(List.class);
+    verify(eventImporter).importEvents(captor.capture());
+    assertThat(captor.getValue()).extracting(Event::getId)
+        .containsExactlyElementsOf(rawEvents.subList(0, 10).stream().map(Event::getId).collect(Collectors.toList()));
+  }
+
+  @Test
+  public void shouldStopWhenPullGivenNoRemainingPeeringEvents() {
+    // given
+    given(webClient.exportPeeringEvents(SyncService.PULL_CAPACITY_BYTES_PER_REQUEST)).willReturn(
+        new EventBatch(rawEvents.subList(0, 10), 0L));
+    // when
+    boolean hasMore = syncService.pull();
+    // then
+    assertThat(hasMore).isFalse();
+  }
+
+  @Test
+  public void shouldNotMarkAcksShippedWhenExchangeAcksFailed() {
+    // given
+    Set<Ack> notShippedAcks = Collections.singleton(new Ack(UUID.randomUUID(), UUID.randomUUID()));
+    given(localEventStore.getNotShippedAcks()).willReturn(notShippedAcks);
+    given(webClient.exchangeAcks(notShippedAcks)).willThrow(new IllegalStateException("exchange fail"));
+    // when
+    boolean shipped = syncService.exchangeAcks();
+    // then
+    assertThat(shipped).isFalse();
+    verify(localEventStore, never()).confirmAckShipped(any());
+  }
+
+  @Test
+  public void shouldMarkAcksShippedWhenExchangeAcksSucceeded() {
+    // given
+    Set<Ack> notShippedAcks = Collections.singleton(new Ack(UUID.randomUUID(), UUID.randomUUID()));
+    given(localEventStore.getNotShippedAcks()).willReturn(notShippedAcks);
+    given(webClient.exchangeAcks(notShippedAcks)).willReturn(Collections.emptySet());
+    // when
+    boolean shipped = syncService.exchangeAcks();
+    // then
+    assertThat(shipped).isTrue();
+    verify(localEventStore).confirmAckShipped(notShippedAcks);
+  }
+
   private List<Event> capturePushedEvents() throws IOException {
     ArgumentCaptor<ByteArrayResource> captor = ArgumentCaptor.forClass(ByteArrayResource.class);
     verify(webClient, VerificationModeFactory.atLeastOnce()).sync(captor.capture());
@@ -0,0 +1,92 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.siglus.siglusapi.localmachine.agent;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Optional;
+import net.javacrumbs.shedlock.core.SimpleLock;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.siglus.siglusapi.localmachine.Machine;
+import org.siglus.siglusapi.localmachine.ShedLockFactory;
+import org.siglus.siglusapi.localmachine.ShedLockFactory.AutoClosableLock;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SynchronizerTest {
+
+  @Mock
+  private SyncService syncService;
+  @Mock
+  private Machine machine;
+  @Mock
+  private ShedLockFactory lockFactory;
+  @InjectMocks
+  private Synchronizer synchronizer;
+
+  @Before
+  public void setup() throws InterruptedException {
+    given(machine.isActive()).willReturn(true);
+    AutoClosableLock lock = new AutoClosableLock(Optional.ofNullable(mock(SimpleLock.class)));
+    given(lockFactory.waitLock(anyString(), anyLong())).willReturn(lock);
+  }
+
+  @Test
+  public void shouldPullUntilDrainedWhenSync() {
+    // given
+    given(syncService.pull()).willReturn(true, true, false);
+    given(syncService.exchangeAcks()).willReturn(true);
+    // when
+    synchronizer.sync();
+    // then
+    verify(syncService, times(3)).pull();
+    verify(syncService, times(3)).exchangeAcks();
+    verify(syncService).push();
+  }
+
+  @Test
+  public void shouldStopPullingWhenSyncGivenAcksNotShipped() {
+    // given
+    given(syncService.pull()).willReturn(true);
+    given(syncService.exchangeAcks()).willReturn(true, false);
+    // when
+    synchronizer.sync();
+    // then
+    verify(syncService, times(2)).pull();
+    verify(syncService).push();
+  }
+
+  @Test
+  public void shouldStopPullingAfterMaxRoundsWhenSyncGivenOnlineWebAlwaysHasMore() {
+    // given
+    given(syncService.pull()).willReturn(true);
+    given(syncService.exchangeAcks()).willReturn(true);
+    // when
+    synchronizer.sync();
+    // then
+    verify(syncService, times(Synchronizer.MAX_PULL_ROUNDS)).pull();
+    verify(syncService).push();
+  }
+}
@@ -15,12 +15,15 @@
 
 package org.siglus.siglusapi.localmachine.cdc;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import org.junit.Test;
@@ -35,10 +38,48 @@ public class CdcDispatcherTest {
     List<CdcRecord> cdcRecords = Collections.singletonList(cdcRecord);
     CdcListener cdcListener = mock(CdcListener.class);
     given(cdcListener.acceptedTables()).willReturn(new String[] {"schema.table1", "schema.table2"});
-    CdcDispatcher cdcDispatcher = new CdcDispatcher(Collections.singletonList(cdcListener), cdcRecordRepository);
+    given(cdcListener.prepare(anyListOf(CdcRecord.class)))
+        .willAnswer(invocation -> (Runnable) () -> cdcListener.on(invocation.getArgumentAt(0, List.class)));
+    CdcDispatcher cdcDispatcher = new CdcDispatcher(Collections.singletonList(cdcListener), cdcRecordRepository,
+        MoreExecutors.newDirectExecutorService());
     // when
     cdcDispatcher.doDispatch(cdcRecords);
     // then
     verify(cdcListener, times(1)).on(anyListOf(CdcRecord.class));
   }
+
+  @Test
+  public void shouldPrepareEachTableChangeSetOnceAndApplyInCaptureOrderWhenDoDispatch() {
+    // given
+    List<String> applied = new ArrayList<>();
+    CdcListener cdcListener = new CdcListener() {
+      @Override
+      public void on(List<CdcRecord> records) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Runnable prepare(List<CdcRecord> records) {
+        String changeSet = records.get(0).getTable() + ":" + records.size();
+        return () -> applied.add(changeSet);
+      }
+
+      @Override
+      public String[] acceptedTables() {
+        return new String[] {"schema.table1", "schema.table2"};
+      }
+    };
+    List<CdcRecord> cdcRecords = new ArrayList<>();
+    for (long i = 0; i < 1500; i++) {
+      cdcRecords.add(CdcRecord.builder().id(i).schema("schema").table("table1").build());
+    }
+    cdcRecords.add(CdcRecord.builder().id(1500L).schema("schema").table("table2").build());
+    CdcDispatcher cdcDispatcher = new CdcDispatcher(Collections.singletonList(cdcListener),
+        mock(CdcRecordRepository.class));
+    // when
+    cdcDispatcher.doDispatch(cdcRecords);
+    cdcDispatcher.shutdown();
+    // then
+    assertThat(applied).containsExactly("table1:1500", "table2:1");
+  }
 }
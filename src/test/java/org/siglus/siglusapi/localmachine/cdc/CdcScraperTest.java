@@ -16,11 +16,14 @@
 package org.siglus.siglusapi.localmachine.cdc;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -28,7 +31,9 @@ import static org.mockito.Mockito.when;
 import com.google.common.collect.ImmutableMap;
 import io.debezium.data.Envelope.FieldName;
 import io.debezium.data.Envelope.Operation;
+import io.debezium.engine.DebeziumEngine.RecordCommitter;
 import io.debezium.engine.RecordChangeEvent;
+import java.time.ZonedDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -42,6 +47,8 @@ import org.apache.kafka.connect.source.SourceRecord;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
@@ -59,8 +66,14 @@ public class CdcScraperTest {
   private PublicationPreparer publicationPreparer;
   @Mock
   public Machine machine;
+  @Mock
+  private CdcRecordNativeRepository cdcRecordNativeRepository;
+  @Mock
+  private RecordCommitter<RecordChangeEvent<SourceRecord>> committer;
   @InjectMocks
   private CdcScraper cdcScraper;
+  @Captor
+  private ArgumentCaptor<List<CdcRecord>> cdcRecordsCaptor;
 
   @Before
   public void setup() {
@@ -70,6 +83,7 @@ public class CdcScraperTest {
     doNothing().when(cdcDispatcher).doDispatch(any());
     cdcScraper.dispatchQueueForOnlineWeb.clear();
     cdcScraper.dispatchBuffer.clear();
+    cdcScraper.dispatchQueueForLocalMachine.clear();
   }
 
   @Test
@@ -105,7 +119,7 @@ public class CdcScraperTest {
     RecordChangeEvent<SourceRecord> changeEvent = mock(RecordChangeEvent.class);
     given(changeEvent.record()).willReturn(mock(SourceRecord.class));
     // when
-    cdcScraper.handleChangeEvent(changeEvent);
+    cdcScraper.handleChangeEvents(Collections.singletonList(changeEvent), committer);
     // then
     assertThat(cdcScraper.dispatchQueueForOnlineWeb.isEmpty()).isTrue();
   }
@@ -115,7 +129,7 @@ public class CdcScraperTest {
     // given
     RecordChangeEvent<SourceRecord> changeEvent = getChangeEvent(Operation.READ.code());
     // when
-    cdcScraper.handleChangeEvent(changeEvent);
+    cdcScraper.handleChangeEvents(Collections.singletonList(changeEvent), committer);
     // then
     assertThat(cdcScraper.dispatchQueueForOnlineWeb.isEmpty()).isTrue();
   }
@@ -125,7 +139,7 @@ public class CdcScraperTest {
     // given
     RecordChangeEvent<SourceRecord> changeEvent = getChangeEvent(Operation.UPDATE.code());
     // when
-    cdcScraper.handleChangeEvent(changeEvent);
+    cdcScraper.handleChangeEvents(Collections.singletonList(changeEvent), committer);
     // then
     CdcRecord cdcRecord = cdcScraper.dispatchQueueForOnlineWeb.peekLast();
     assertThat(cdcRecord).isNotNull();
@@ -133,6 +147,54 @@ public class CdcScraperTest {
     assertThat(cdcRecord.getPayload()).containsEntry("name", "name value");
   }
 
+  @Test
+  public void shouldBatchPersistCdcRecordsPerTxWhenHandleChangeEventsGivenLocalMachine() throws InterruptedException {
+    // given
+    when(machine.isOnlineWeb()).thenReturn(false);
+    List<RecordChangeEvent<SourceRecord>> changeEvents = Arrays.asList(
+        getChangeEvent(Operation.CREATE.code(), 1L, 2L),
+        getChangeEvent(Operation.UPDATE.code(), 1L, 3L),
+        getChangeEvent(Operation.UPDATE.code(), 2L, 4L));
+    // when
+    cdcScraper.handleChangeEvents(changeEvents, committer);
+    // then
+    verify(cdcRecordNativeRepository, times(2)).batchInsertIgnoreExisted(cdcRecordsCaptor.capture());
+    assertThat(cdcRecordsCaptor.getAllValues().get(0)).hasSize(2);
+    assertThat(cdcRecordsCaptor.getAllValues().get(1)).hasSize(1);
+    assertThat(cdcScraper.dispatchQueueForLocalMachine).contains(1L);
+    verify(committer, times(3)).markProcessed(any());
+    verify(committer).markBatchFinished();
+  }
+
+  @Test
+  public void shouldNotCommitOffsetsWhenHandleChangeEventsGivenPersistFailed() throws InterruptedException {
+    // given
+    when(machine.isOnlineWeb()).thenReturn(false);
+    doThrow(new IllegalStateException()).when(cdcRecordNativeRepository).batchInsertIgnoreExisted(any());
+    // when
+    try {
+      cdcScraper.handleChangeEvents(Collections.singletonList(getChangeEvent(Operation.CREATE.code())), committer);
+      fail("should not reach here");
+    } catch (IllegalStateException e) {
+      // then
+      verify(committer, never()).markProcessed(any());
+      verify(committer, never()).markBatchFinished();
+    }
+  }
+
+  @Test
+  public void shouldReportLagOfOldestQueuedRecordWhenGetDispatchLagSeconds() {
+    // given
+    ZonedDateTime now = ZonedDateTime.now();
+    cdcScraper.dispatchQueueForOnlineWeb.add(CdcRecord.builder().capturedAt(now.minusMinutes(2)).build());
+    cdcScraper.dispatchQueueForOnlineWeb.add(CdcRecord.builder().capturedAt(now).build());
+    // when
+    long lagSeconds = cdcScraper.getDispatchLagSeconds();
+    // then
+    assertThat(lagSeconds).isGreaterThanOrEqualTo(120L);
+    assertThat(cdcScraper.getDispatchQueueDepth()).isEqualTo(2);
+  }
+
   @Test
   public void shouldNotFlushCdcRecordsGivenTxIdNotChanged() {
     // given
@@ -177,6 +239,10 @@ public class CdcScraperTest {
   }
 
   private RecordChangeEvent<SourceRecord> getChangeEvent(String code) {
+    return getChangeEvent(code, 1L, 2L);
+  }
+
+  private RecordChangeEvent<SourceRecord> getChangeEvent(String code, long txId, long lsn) {
     Schema payloadSchema =
         SchemaBuilder.struct().field("name", SchemaBuilder.STRING_SCHEMA).build();
     Schema valueSchema =
@@ -189,7 +255,7 @@ public class CdcScraperTest {
     return () ->
         new SourceRecord(
             Collections.emptyMap(),
-            ImmutableMap.of("txId", 1L, "lsn", 2L),
+            ImmutableMap.of("txId", txId, "lsn", lsn),
             "server.schema.table",
             0,
             valueSchema,
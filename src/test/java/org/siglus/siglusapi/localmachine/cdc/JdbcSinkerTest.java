@@ -18,18 +18,28 @@ package org.siglus.siglusapi.localmachine.cdc;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
+import io.confluent.connect.jdbc.sink.JdbcSinkTask;
 import io.debezium.relational.TableId;
 import io.debezium.relational.TableSchema;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.sink.SinkRecord;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.siglus.siglusapi.localmachine.cdc.TableChangeEvent.RowChangeEvent;
@@ -43,11 +53,18 @@ public class JdbcSinkerTest {
   private DbSchemaReader schemaReader;
   @Mock
   private SinkerConvertObjectUtil sinkerConvertObjectUtil;
+  @Mock
+  private JdbcSinkTask jdbcSinkTask;
+  @Captor
+  private ArgumentCaptor<Collection<SinkRecord>> sinkRecordsCaptor;
 
   @Before
   public void setup() {
     given(sinker.convertEvent(any(), any())).willCallRealMethod();
     ReflectionTestUtils.setField(sinker, "sinkerConvertObjectUtil", sinkerConvertObjectUtil);
+    ReflectionTestUtils.setField(sinker, "schemaReader", schemaReader);
+    ReflectionTestUtils.setField(sinker, "jdbcSinkTask", jdbcSinkTask);
+    ReflectionTestUtils.setField(sinker, "tableSinks", new ConcurrentHashMap<>());
   }
 
   @Test
@@ -84,4 +101,158 @@ public class JdbcSinkerTest {
     assertThat(sinkRecords.get(0).value()).isNotNull();
     assertThat(sinkRecords.get(1).value()).isNull();
   }
+
+  @Test
+  public void shouldSinkLastChangeOfEachRowGroupedByOperationWhenSink() {
+    // given
+    doCallRealMethod().when(sinker).sink(any());
+    given(sinkerConvertObjectUtil.convertObjectByType(any(), any()))
+        .willAnswer(invocation -> invocation.getArguments()[1]);
+    mockTableSchema("table");
+    TableChangeEvent event1 = buildEvent("table", Arrays.asList(
+        new RowChangeEvent(false, Arrays.asList("id1", "v1")),
+        new RowChangeEvent(false, Arrays.asList("id2", "v1")),
+        new RowChangeEvent(true, Arrays.asList("id3", "v1"))));
+    TableChangeEvent event2 = buildEvent("table", Arrays.asList(
+        new RowChangeEvent(false, Arrays.asList("id1", "v2")),
+        new RowChangeEvent(true, Arrays.asList("id2", "v1"))));
+    // when
+    sinker.sink(Arrays.asList(event1, event2));
+    // then
+    verify(jdbcSinkTask).put(sinkRecordsCaptor.capture());
+    List<SinkRecord> sinkRecords = new ArrayList<>(sinkRecordsCaptor.getValue());
+    assertThat(sinkRecords).hasSize(3);
+    assertThat(((Struct) sinkRecords.get(0).key()).get("id")).isEqualTo("id3");
+    assertThat(sinkRecords.get(0).value()).isNull();
+    assertThat(((Struct) sinkRecords.get(1).key()).get("id")).isEqualTo("id2");
+    assertThat(sinkRecords.get(1).value()).isNull();
+    assertThat(((Struct) sinkRecords.get(2).key()).get("id")).isEqualTo("id1");
+    assertThat(((Struct) sinkRecords.get(2).value()).get("col1")).isEqualTo("v2");
+    verify(schemaReader, times(1)).schemaFor(any());
+  }
+
+  @Test
+  public void shouldSinkEveryChangeInSourceOrderWhenSinkGivenTableWithUniqueIndexBesidesPrimaryKey() {
+    // given
+    doCallRealMethod().when(sinker).sink(any());
+    given(sinkerConvertObjectUtil.convertObjectByType(any(), any()))
+        .willAnswer(invocation -> invocation.getArguments()[1]);
+    given(schemaReader.hasUniqueIndexBesidesPrimaryKey("schema.table")).willReturn(true);
+    mockTableSchema("table");
+    // id1 and id2 swap their unique col1 values through a temporary value
+    TableChangeEvent event1 = buildEvent("table", Arrays.asList(
+        new RowChangeEvent(false, Arrays.asList("id1", "tmp")),
+        new RowChangeEvent(false, Arrays.asList("id2", "a"))));
+    TableChangeEvent event2 = buildEvent("table", Arrays.asList(
+        new RowChangeEvent(true, Arrays.asList("id3", "c")),
+        new RowChangeEvent(false, Arrays.asList("id1", "b"))));
+    // when
+    sinker.sink(Arrays.asList(event1, event2));
+    // then
+    verify(jdbcSinkTask).put(sinkRecordsCaptor.capture());
+    List<SinkRecord> sinkRecords = new ArrayList<>(sinkRecordsCaptor.getValue());
+    assertThat(sinkRecords).hasSize(4);
+    assertThat(((Struct) sinkRecords.get(0).key()).get("id")).isEqualTo("id1");
+    assertThat(((Struct) sinkRecords.get(0).value()).get("col1")).isEqualTo("tmp");
+    assertThat(((Struct) sinkRecords.get(1).key()).get("id")).isEqualTo("id2");
+    assertThat(((Struct) sinkRecords.get(1).value()).get("col1")).isEqualTo("a");
+    assertThat(((Struct) sinkRecords.get(2).key()).get("id")).isEqualTo("id3");
+    assertThat(sinkRecords.get(2).value()).isNull();
+    assertThat(((Struct) sinkRecords.get(3).key()).get("id")).isEqualTo("id1");
+    assertThat(((Struct) sinkRecords.get(3).value()).get("col1")).isEqualTo("b");
+  }
+
+  @Test
+  public void shouldSinkParentBeforeChildWhenSinkGivenParentUpdatedAfterChildInserted() {
+    // given
+    doCallRealMethod().when(sinker).sink(any());
+    given(sinkerConvertObjectUtil.convertObjectByType(any(), any()))
+        .willAnswer(invocation -> invocation.getArguments()[1]);
+    mockTableSchema("parent");
+    mockTableSchema("child");
+    TableChangeEvent parentInserted = buildEvent("parent", Arrays.asList(
+        new RowChangeEvent(false, Arrays.asList("p1", "v1")),
+        new RowChangeEvent(false, Arrays.asList("p2", "v1"))));
+    TableChangeEvent childInserted = buildEvent("child", Arrays.asList(
+        new RowChangeEvent(false, Arrays.asList("c1", "p1"))));
+    TableChangeEvent parentUpdated = buildEvent("parent", Arrays.asList(
+        new RowChangeEvent(false, Arrays.asList("p2", "v2")),
+        new RowChangeEvent(false, Arrays.asList("p1", "v2"))));
+    // when
+    sinker.sink(Arrays.asList(parentInserted, childInserted, parentUpdated));
+    // then
+    verify(jdbcSinkTask).put(sinkRecordsCaptor.capture());
+    List<SinkRecord> sinkRecords = new ArrayList<>(sinkRecordsCaptor.getValue());
+    assertThat(sinkRecords).hasSize(3);
+    assertThat(((Struct) sinkRecords.get(0).key()).get("id")).isEqualTo("p1");
+    assertThat(((Struct) sinkRecords.get(0).value()).get("col1")).isEqualTo("v2");
+    assertThat(((Struct) sinkRecords.get(1).key()).get("id")).isEqualTo("p2");
+    assertThat(((Struct) sinkRecords.get(1).value()).get("col1")).isEqualTo("v2");
+    assertThat(((Struct) sinkRecords.get(2).key()).get("id")).isEqualTo("c1");
+  }
+
+  @Test
+  public void shouldSinkEveryChangeInSourceOrderWhenSinkGivenTableWithForeignKeyToItself() {
+    // given
+    doCallRealMethod().when(sinker).sink(any());
+    given(sinkerConvertObjectUtil.convertObjectByType(any(), any()))
+        .willAnswer(invocation -> invocation.getArguments()[1]);
+    given(schemaReader.hasForeignKeyToItself("schema.table")).willReturn(true);
+    mockTableSchema("table");
+    // id2 references id1 through col1, id1 is moved under id3 after id2 is inserted
+    TableChangeEvent event1 = buildEvent("table", Arrays.asList(
+        new RowChangeEvent(false, Arrays.asList("id1", "root")),
+        new RowChangeEvent(false, Arrays.asList("id2", "id1"))));
+    TableChangeEvent event2 = buildEvent("table", Arrays.asList(
+        new RowChangeEvent(false, Arrays.asList("id3", "root")),
+        new RowChangeEvent(false, Arrays.asList("id1", "id3"))));
+    // when
+    sinker.sink(Arrays.asList(event1, event2));
+    // then
+    verify(jdbcSinkTask).put(sinkRecordsCaptor.capture());
+    List<SinkRecord> sinkRecords = new ArrayList<>(sinkRecordsCaptor.getValue());
+    assertThat(sinkRecords).extracting(it -> ((Struct) it.key()).get("id"))
+        .containsExactly("id1", "id2", "id3", "id1");
+  }
+
+  @Test
+  public void shouldSinkTablesInOrderOfFirstChangeWhenSinkGivenChildTableWithUniqueIndex() {
+    // given
+    doCallRealMethod().when(sinker).sink(any());
+    given(sinkerConvertObjectUtil.convertObjectByType(any(), any()))
+        .willAnswer(invocation -> invocation.getArguments()[1]);
+    given(schemaReader.hasUniqueIndexBesidesPrimaryKey("schema.child")).willReturn(true);
+    mockTableSchema("parent");
+    mockTableSchema("child");
+    TableChangeEvent parentInserted = buildEvent("parent", Arrays.asList(
+        new RowChangeEvent(false, Arrays.asList("p1", "v1"))));
+    TableChangeEvent childInserted = buildEvent("child", Arrays.asList(
+        new RowChangeEvent(false, Arrays.asList("c1", "p1"))));
+    // when
+    sinker.sink(Arrays.asList(parentInserted, childInserted));
+    // then
+    verify(jdbcSinkTask).put(sinkRecordsCaptor.capture());
+    List<SinkRecord> sinkRecords = new ArrayList<>(sinkRecordsCaptor.getValue());
+    assertThat(sinkRecords).extracting(it -> ((Struct) it.key()).get("id")).containsExactly("p1", "c1");
+  }
+
+  private void mockTableSchema(String table) {
+    TableId tableId = new TableId("", "schema", table);
+    Schema keySchema = SchemaBuilder.struct().field("id", SchemaBuilder.STRING_SCHEMA).build();
+    Schema valueSchema = SchemaBuilder.struct()
+        .field("col1", SchemaBuilder.STRING_SCHEMA)
+        .field("id", SchemaBuilder.STRING_SCHEMA).build();
+    given(schemaReader.schemaFor(tableId))
+        .willReturn(new TableSchema(tableId, keySchema, null, null, valueSchema, null));
+  }
+
+  private TableChangeEvent buildEvent(String table, List<RowChangeEvent> rows) {
+    return TableChangeEvent.builder()
+        .tableName(table)
+        .schemaName("schema")
+        .schemaVersion("version")
+        .columns(Arrays.asList("id", "col1"))
+        .rowChangeEvents(rows)
+        .build();
+  }
 }
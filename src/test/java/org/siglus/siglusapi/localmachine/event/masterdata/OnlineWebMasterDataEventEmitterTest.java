@@ -16,8 +16,12 @@
 package org.siglus.siglusapi.localmachine.event.masterdata;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -39,6 +43,7 @@ import org.siglus.siglusapi.localmachine.EventPublisher;
 import org.siglus.siglusapi.localmachine.cdc.CdcRecord;
 import org.siglus.siglusapi.localmachine.cdc.CdcRecordMapper;
 import org.siglus.siglusapi.localmachine.server.OnlineWebService;
+import org.springframework.transaction.PlatformTransactionManager;
 
 @RunWith(MockitoJUnitRunner.class)
 @SuppressWarnings({"PMD.UnusedPrivateField"})
@@ -59,6 +64,9 @@ public class OnlineWebMasterDataEventEmitterTest {
   @Mock
   private OnlineWebService onlineWebService;
 
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
   private static final UUID userId1 = UUID.randomUUID();
 
   private static final UUID userId2 = UUID.randomUUID();
@@ -89,6 +97,46 @@ public class OnlineWebMasterDataEventEmitterTest {
     verify(onlineWebService, times(1)).evictAllMasterDataSnapshots();
   }
 
+  @Test
+  public void shouldOnlyEmitWhenRunPreparedAction() {
+    // given
+    CdcRecord incompatibleRecord =
+        CdcRecord.builder().schema("siglusintegration").table("facility_extension").build();
+    Runnable emit = mock(Runnable.class);
+    when(eventPublisher.prepareMasterDataEvent(any(MasterDataTableChangeEvent.class), eq(null))).thenReturn(emit);
+    // when
+    Runnable prepared = emitter.prepare(Collections.singletonList(incompatibleRecord));
+    // then
+    verify(emit, never()).run();
+    verify(onlineWebService, never()).evictAllMasterDataSnapshots();
+    prepared.run();
+    verify(emit).run();
+    verify(onlineWebService).evictAllMasterDataSnapshots();
+    verify(transactionManager).commit(any());
+  }
+
+  @Test
+  public void shouldRollbackAndNotEvictSnapshotWhenPreparedActionFailedToEmit() {
+    // given
+    CdcRecord incompatibleRecord =
+        CdcRecord.builder().schema("siglusintegration").table("facility_extension").build();
+    Runnable emit = mock(Runnable.class);
+    doThrow(new IllegalStateException("insert failed")).when(emit).run();
+    when(eventPublisher.prepareMasterDataEvent(any(MasterDataTableChangeEvent.class), eq(null))).thenReturn(emit);
+    Runnable prepared = emitter.prepare(Collections.singletonList(incompatibleRecord));
+
+    // when
+    try {
+      prepared.run();
+      fail("should not reach here");
+    } catch (IllegalStateException e) {
+      // then
+      verify(transactionManager).rollback(any());
+      verify(transactionManager, never()).commit(any());
+      verify(onlineWebService, never()).evictAllMasterDataSnapshots();
+    }
+  }
+
   @Test
   public void shouldEmitSuccessfully() {
     // given
@@ -16,10 +16,14 @@
 package org.siglus.siglusapi.localmachine.event.masterdata;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyCollectionOf;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.siglus.siglusapi.constant.CacheConstants.SIGLUS_FACILITY;
+import static org.siglus.siglusapi.constant.CacheConstants.SIGLUS_USER;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import org.assertj.core.util.Lists;
@@ -108,8 +112,44 @@ public class OnlineWebMasterDataEventReplayerTest {
     // when
     replayer.replay(event);
 
+    // then
+    verify(siglusCacheService).invalidateCache(Collections.singleton(SIGLUS_FACILITY));
+    verify(siglusCacheService, times(0)).invalidateCache();
+  }
+
+  @Test
+  public void shouldOnlyClearDependentCachesWhenReplayGivenMappedTableEvent() {
+    // given
+    MasterDataTableChangeEvent event = buildRightAssignmentsMasterDataEvent();
+    when(machine.getLocalFacilityId()).thenReturn(facilityId);
+
+    // when
+    replayer.replay(event);
+
+    // then
+    verify(siglusCacheService).invalidateCache(Collections.singleton(SIGLUS_USER));
+    verify(siglusCacheService, times(0)).invalidateCache();
+  }
+
+  @Test
+  public void shouldClearAllCachesWhenReplayGivenUnmappedTableEvent() {
+    // given
+    MasterDataTableChangeEvent event = buildRightAssignmentsMasterDataEvent();
+    event.getTableChangeEvents().add(TableChangeEvent.builder()
+        .tableName("regimens")
+        .schemaName("siglusintegration")
+        .schemaVersion("schemaVersion")
+        .columns(Lists.newArrayList("id"))
+        .rowChangeEvents(Lists.newArrayList())
+        .build());
+    when(machine.getLocalFacilityId()).thenReturn(facilityId);
+
+    // when
+    replayer.replay(event);
+
     // then
     verify(siglusCacheService).invalidateCache();
+    verify(siglusCacheService, times(0)).invalidateCache(anyCollectionOf(String.class));
   }
 
   @Ignore("remove ignore after MasterDataEventEmitter.doNotClearCacheTableNames has data")
@@ -15,73 +15,81 @@
 
 package org.siglus.siglusapi.localmachine.eventstore;
 
-import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
-import static org.powermock.api.mockito.PowerMockito.when;
+import static org.mockito.Mockito.when;
+import static org.siglus.siglusapi.localmachine.eventstore.backup.EventArchiveRepository.FIRST_EVENT_ID;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
-import org.siglus.siglusapi.localmachine.EventBackupDeleteTask;
-import org.siglus.siglusapi.localmachine.eventstore.backup.EventPayloadBackupRepository;
+import org.siglus.siglusapi.localmachine.eventstore.backup.EventArchiveRepository;
 import org.siglus.siglusapi.scheduledtask.EventBackupTask;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @RunWith(MockitoJUnitRunner.class)
-@SuppressWarnings({"PMD.UnusedPrivateField"})
 public class EventBackupTaskTest {
 
   @InjectMocks
   private EventBackupTask eventBackupTask;
   @Mock
-  private EventRecordRepository eventRecordRepository;
-  @Mock
-  private EventPayloadBackupRepository eventRecordBackupRepository;
-  @Mock
-  private EventBackupDeleteTask eventBackupDeleteTask;
+  private EventArchiveRepository eventArchiveRepository;
+
+  @Before
+  public void setup() {
+    ReflectionTestUtils.setField(eventBackupTask, "timeBudgetMinutes", 60L);
+  }
 
   @Test
   public void shouldNotBackupWhenNothingToArchive() {
     // given
-    when(eventRecordRepository
-        .findFirst100ByArchivedFalseAndReceiverSyncedTrueAndOnlineWebSyncedTrueAndLocalReplayedTrue())
-        .thenReturn(Collections.emptyList());
+    when(eventArchiveRepository.archiveChunk(any(UUID.class), anyInt())).thenReturn(Optional.empty());
+
+    // when
+    eventBackupTask.run();
+
+    // then
+    verify(eventArchiveRepository, times(1)).archiveChunk(eq(FIRST_EVENT_ID), anyInt());
+  }
+
+  @Test
+  public void shouldArchiveChunksAfterLastArchivedEventWhenNeedArchiveForOnlineWeb() {
+    // given
+    UUID firstChunkLastEventId = UUID.randomUUID();
+    UUID secondChunkLastEventId = UUID.randomUUID();
+    when(eventArchiveRepository.archiveChunk(eq(FIRST_EVENT_ID), anyInt()))
+        .thenReturn(Optional.of(firstChunkLastEventId));
+    when(eventArchiveRepository.archiveChunk(eq(firstChunkLastEventId), anyInt()))
+        .thenReturn(Optional.of(secondChunkLastEventId));
+    when(eventArchiveRepository.archiveChunk(eq(secondChunkLastEventId), anyInt())).thenReturn(Optional.empty());
 
     // when
     eventBackupTask.run();
 
     // then
-    verify(eventBackupDeleteTask, never()).delete(anyListOf(UUID.class));
+    verify(eventArchiveRepository).archiveChunk(eq(FIRST_EVENT_ID), anyInt());
+    verify(eventArchiveRepository).archiveChunk(eq(firstChunkLastEventId), anyInt());
+    verify(eventArchiveRepository).archiveChunk(eq(secondChunkLastEventId), anyInt());
   }
 
   @Test
-  public void shouldBackupWhenNeedArchiveForOnlineWeb() {
+  public void shouldStopArchivingWhenTimeBudgetUsedUp() {
     // given
-    final EventRecord event = new EventRecord();
-    event.setPayload(new byte[]{0, 1, 2});
-    event.setArchived(true);
-    event.setId(UUID.randomUUID());
-    event.setOnlineWebSynced(true);
-    event.setReceiverSynced(true);
-    event.setLocalReplayed(true);
-    final List<EventRecord> list = new ArrayList<>();
-    list.add(event);
-    when(eventRecordRepository
-        .findFirst100ByArchivedFalseAndReceiverSyncedTrueAndOnlineWebSyncedTrueAndLocalReplayedTrue())
-        .thenReturn(list)
-        .thenReturn(list)
-        .thenReturn(Collections.emptyList());
+    ReflectionTestUtils.setField(eventBackupTask, "timeBudgetMinutes", 0L);
 
     // when
     eventBackupTask.run();
 
     // then
-    verify(eventBackupDeleteTask).delete(anyListOf(UUID.class));
+    verify(eventArchiveRepository, never()).archiveChunk(any(UUID.class), anyInt());
   }
 }
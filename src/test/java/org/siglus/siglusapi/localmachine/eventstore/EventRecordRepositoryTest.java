@@ -18,8 +18,14 @@ package org.siglus.siglusapi.localmachine.eventstore;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -28,6 +34,7 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class EventRecordRepositoryTest extends LocalMachineIntegrationTest {
   @Autowired private EventRecordRepository eventRecordRepository;
+  @Autowired private EventPayloadRepository eventPayloadRepository;
 
   @Test
   public void hasParentIdWhenBuildSqlForInsertGivenParentIdIsNull() {
@@ -92,6 +99,50 @@ public class EventRecordRepositoryTest extends LocalMachineIntegrationTest {
     eventRecordRepository.insertAndAllocateLocalSequenceNumber(eventRecord);
   }
 
+  @Test
+  public void shouldSkipExistedEventsAndWritePayloadsOnlyForNewEventsWhenImportExternalEvents() {
+    // given
+    EventRecord existed = getImportedEventRecord(1L);
+    eventRecordRepository.importExternalEvents(Collections.singletonList(existed));
+    EventRecord existedAgain = getImportedEventRecord(1L);
+    existedAgain.setId(existed.getId());
+    existedAgain.setPayload("changed".getBytes());
+    EventRecord newEvent = getImportedEventRecord(2L);
+
+    // when
+    Set<UUID> insertedIds = eventRecordRepository.importExternalEvents(Arrays.asList(existedAgain, newEvent));
+
+    // then
+    assertThat(insertedIds).containsExactly(newEvent.getId());
+    assertThat(eventRecordRepository.count()).isEqualTo(2);
+    assertThat(eventPayloadRepository.findOne(existed.getId()).getPayload()).isEqualTo("payload".getBytes());
+    assertThat(eventPayloadRepository.findOne(newEvent.getId()).getPayload()).isEqualTo("payload".getBytes());
+  }
+
+  @Test
+  public void shouldImportAllEventsWhenImportExternalEventsGivenMoreEventsThanOneBatch() {
+    // given
+    List<EventRecord> eventRecords = LongStream.rangeClosed(1, 1201)
+        .mapToObj(this::getImportedEventRecord)
+        .collect(Collectors.toList());
+
+    // when
+    Set<UUID> insertedIds = eventRecordRepository.importExternalEvents(eventRecords);
+
+    // then
+    assertThat(insertedIds).hasSize(1201)
+        .containsAll(eventRecords.stream().map(EventRecord::getId).collect(Collectors.toList()));
+    assertThat(eventRecordRepository.count()).isEqualTo(1201);
+    assertThat(eventPayloadRepository.count()).isEqualTo(1201);
+  }
+
+  private EventRecord getImportedEventRecord(long localSequenceNumber) {
+    EventRecord eventRecord = getEventRecord();
+    eventRecord.setLocalSequenceNumber(localSequenceNumber);
+    eventRecord.setGroupId("group-id");
+    return eventRecord;
+  }
+
   private EventRecord getEventRecord() {
     return EventRecord.builder()
         .id(UUID.randomUUID())
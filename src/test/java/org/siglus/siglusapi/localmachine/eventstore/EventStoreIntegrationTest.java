@@ -21,11 +21,11 @@ import static org.assertj.core.api.Assertions.fail;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.junit.Before;
-import org.junit.Ignore;
 import org.junit.Test;
 import org.siglus.siglusapi.localmachine.Event;
 import org.siglus.siglusapi.localmachine.EventPayload;
@@ -35,6 +35,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 @Transactional
 public class EventStoreIntegrationTest extends LocalMachineIntegrationTest {
+  private static final String GROUP_ID = "group-id";
+
   @Autowired private EventStore eventStore;
   @Autowired private EventRecordRepository eventRecordRepository;
 
@@ -43,22 +45,53 @@ public class EventStoreIntegrationTest extends LocalMachineIntegrationTest {
     eventRecordRepository.deleteAll();
   }
 
-  @Ignore("ignore this test")
   @Test
-  public void canFindLeafEventInGroup() {
+  public void shouldReturnAncestorsBeforeDescendantsWhenGetNotReplayedEventChainsInGroup() {
+    // given
+    Event root = getEvent(null, true);
+    Event event1 = getEvent(root, false);
+    Event event2 = getEvent(event1, false);
+    Event event3 = getEvent(event2, false);
+    Event event4 = getEvent(root, false);
+    Arrays.asList(root, event1, event2, event3, event4).forEach(it -> eventStore.importQuietly(it));
+    // when
+    List<UUID> chainIds = eventStore.getNotReplayedEventChainsInGroup(GROUP_ID).stream()
+        .map(Event::getId)
+        .collect(Collectors.toList());
+    // then
+    assertThat(chainIds).hasSize(5);
+    assertThat(chainIds.subList(0, 3)).containsExactly(root.getId(), event1.getId(), event2.getId());
+    assertThat(chainIds.subList(3, 5)).containsExactlyInAnyOrder(event3.getId(), event4.getId());
+  }
+
+  @Test
+  public void shouldStopAtFirstReplayedAncestorWhenGetNotReplayedEventChainsInGroupGivenPartlyReplayedChain() {
+    // given
+    Event event1 = getEvent(null, true);
+    Event event2 = getEvent(event1, true);
+    Event event3 = getEvent(event2, false);
+    Event event4 = getEvent(event3, false);
+    Event otherGroupEvent = getEvent();
+    otherGroupEvent.setGroupId("other-group-id");
+    Arrays.asList(event1, event2, event3, event4, otherGroupEvent).forEach(it -> eventStore.importQuietly(it));
+    // when
+    List<Event> chains = eventStore.getNotReplayedEventChainsInGroup(GROUP_ID);
+    // then
+    assertThat(chains.stream().map(Event::getId))
+        .containsExactly(event2.getId(), event3.getId(), event4.getId());
+    assertThat(chains.get(0).isLocalReplayed()).isTrue();
+  }
+
+  @Test
+  public void shouldReturnNothingWhenGetNotReplayedEventChainsInGroupGivenAllReplayed() {
     // given
-    Event event1 = getEvent();
-    Event event2 = getEvent();
-    Event event3 = getEvent();
-    Event event4 = getEvent();
-    event2.setParentId(event1.getId());
-    event3.setParentId(event1.getId());
-    event4.setParentId(event2.getId());
-    Arrays.asList(event1, event2, event3, event4).forEach(it -> eventStore.importQuietly(it));
+    Event event1 = getEvent(null, true);
+    Event event2 = getEvent(event1, true);
+    Arrays.asList(event1, event2).forEach(it -> eventStore.importQuietly(it));
     // when
-    List<Event> leafEvents = eventStore.getNotReplayedLeafEventsInGroup(event1.getGroupId());
+    List<Event> chains = eventStore.getNotReplayedEventChainsInGroup(GROUP_ID);
     // then
-    assertThat(leafEvents.stream().map(Event::getId)).containsExactlyInAnyOrder(event4.getId(), event3.getId());
+    assertThat(chains).isEmpty();
   }
 
   @Test
@@ -103,17 +136,23 @@ public class EventStoreIntegrationTest extends LocalMachineIntegrationTest {
 
   private Event getEvent() {
     TestEventPayload eventPayload = new TestEventPayload(UUID.randomUUID(), "test event payload");
-    String groupId = "group-id";
     int localSeq = 999;
     return Event.builder()
         .id(UUID.randomUUID())
         .senderId(UUID.randomUUID())
         .payload(eventPayload)
         .localSequenceNumber(localSeq)
-        .groupId(groupId)
+        .groupId(GROUP_ID)
         .build();
   }
 
+  private Event getEvent(Event parent, boolean localReplayed) {
+    Event event = getEvent();
+    event.setParentId(parent == null ? null : parent.getId());
+    event.setLocalReplayed(localReplayed);
+    return event;
+  }
+
   @Data
   @EventPayload
   @AllArgsConstructor
@@ -18,9 +18,11 @@ package org.siglus.siglusapi.localmachine.eventstore;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.siglus.siglusapi.localmachine.eventstore.EventStore.MASTER_DATA_EVENT_BATCH_LIMIT;
 
 import com.google.common.collect.Sets;
 import java.util.Arrays;
@@ -58,6 +60,8 @@ public class EventStoreTest {
   private AckRepository ackRepository;
   @Captor
   private ArgumentCaptor<MasterDataOffset> masterDataOffsetCaptor;
+  @Captor
+  private ArgumentCaptor<Iterable<AckRecord>> ackRecordsCaptor;
 
   private static final UUID facilityId = UUID.randomUUID();
   private static final UUID eventId1 = UUID.randomUUID();
@@ -75,6 +79,22 @@ public class EventStoreTest {
     verify(eventPayloadRepository, times(0)).save(any(EventPayload.class));
   }
 
+  @Test
+  public void shouldReturnInsertedEventsAndEmitAllAcksWhenImportAllQuietly() {
+    //given
+    when(repository.importExternalEvents(anyListOf(EventRecord.class))).thenReturn(Sets.newHashSet(eventId3));
+
+    //when
+    List<Event> newAdded = eventStore.importAllQuietly(buildImportEvents());
+
+    //then
+    assertEquals(1, newAdded.size());
+    assertEquals(eventId3, newAdded.get(0).getId());
+    verify(ackRepository).save(ackRecordsCaptor.capture());
+    assertThat(ackRecordsCaptor.getValue()).extracting(AckRecord::getEventId)
+        .containsExactlyInAnyOrder(eventId1, eventId2, eventId3);
+  }
+
   @Test
   public void shouldEmitAckWhenExcludeExistsEventGivenImportedEventsExists() {
     //given
@@ -108,8 +128,8 @@ public class EventStoreTest {
   @Test
   public void shouldReturnMasterDataEventWhenLocalMachineGet() {
     // given
-    when(masterDataEventRecordRepository.streamMasterDataEventRecordsByIdAfterOrderById(2L))
-        .thenReturn(buildMasterDataEvents().stream());
+    when(masterDataEventRecordRepository.findMasterDataEventRecordsForFacility(2L, facilityId,
+        MASTER_DATA_EVENT_BATCH_LIMIT)).thenReturn(buildMasterDataEvents());
 
     // when
     List<MasterDataEvent> masterDataEvents = eventStore.getMasterDataEvents(2L, facilityId);
@@ -137,14 +157,10 @@ public class EventStoreTest {
         .payload(new byte[1])
         .build();
     MasterDataEventRecord masterDataEventRecord2 = MasterDataEventRecord.builder()
-        .id(4L)
-        .snapshotVersion("masterdata_test.zip")
-        .build();
-    MasterDataEventRecord masterDataEventRecord3 = MasterDataEventRecord.builder()
         .id(5L)
         .payload(new byte[2])
         .build();
-    return Arrays.asList(masterDataEventRecord1, masterDataEventRecord2, masterDataEventRecord3);
+    return Arrays.asList(masterDataEventRecord1, masterDataEventRecord2);
   }
 
   private List<Event> buildImportEvents() {
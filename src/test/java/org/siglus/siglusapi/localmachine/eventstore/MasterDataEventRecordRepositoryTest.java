@@ -0,0 +1,105 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.siglus.siglusapi.localmachine.eventstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+@Transactional
+public class MasterDataEventRecordRepositoryTest extends LocalMachineIntegrationTest {
+
+  private final UUID facilityId = UUID.randomUUID();
+  private final UUID otherFacilityId = UUID.randomUUID();
+
+  @Autowired private MasterDataEventRecordRepository masterDataEventRecordRepository;
+
+  @Before
+  public void setup() {
+    masterDataEventRecordRepository.deleteAll();
+  }
+
+  @Test
+  public void shouldReturnSharedAndOwnRecordsAfterOffsetWhenFindMasterDataEventRecordsForFacility() {
+    // given
+    Long offset = save(null, null).getId();
+    Long shared = save(null, null).getId();
+    save(null, "masterdata_test.zip");
+    Long own = save(facilityId, null).getId();
+    save(otherFacilityId, null);
+    Long ownSnapshot = save(facilityId, "masterdata_test.zip").getId();
+
+    // when
+    List<MasterDataEventRecord> records =
+        masterDataEventRecordRepository.findMasterDataEventRecordsForFacility(offset, facilityId, 10);
+
+    // then
+    assertThat(ids(records)).containsExactly(shared, own, ownSnapshot);
+  }
+
+  @Test
+  public void shouldReturnFirstRecordsAcrossBothBranchesWhenFindMasterDataEventRecordsForFacilityGivenLimit() {
+    // given
+    Long shared1 = save(null, null).getId();
+    Long own1 = save(facilityId, null).getId();
+    Long shared2 = save(null, null).getId();
+    Long own2 = save(facilityId, null).getId();
+    save(null, null);
+    save(facilityId, null);
+
+    // when
+    List<MasterDataEventRecord> records =
+        masterDataEventRecordRepository.findMasterDataEventRecordsForFacility(0L, facilityId, 4);
+
+    // then
+    assertThat(ids(records)).containsExactly(shared1, own1, shared2, own2);
+  }
+
+  @Test
+  public void shouldReturnOnlySharedRecordsWhenFindMasterDataEventRecordsForFacilityGivenSharedBranchFillsLimit() {
+    // given
+    Long shared1 = save(null, null).getId();
+    Long shared2 = save(null, null).getId();
+    Long shared3 = save(null, null).getId();
+    save(facilityId, null);
+
+    // when
+    List<MasterDataEventRecord> records =
+        masterDataEventRecordRepository.findMasterDataEventRecordsForFacility(0L, facilityId, 3);
+
+    // then
+    assertThat(ids(records)).containsExactly(shared1, shared2, shared3);
+  }
+
+  private MasterDataEventRecord save(UUID facilityId, String snapshotVersion) {
+    return masterDataEventRecordRepository.saveAndFlush(MasterDataEventRecord.builder()
+        .facilityId(facilityId)
+        .snapshotVersion(snapshotVersion)
+        .payload(new byte[1])
+        .tableFullName("referencedata.facilities")
+        .build());
+  }
+
+  private List<Long> ids(List<MasterDataEventRecord> records) {
+    return records.stream().map(MasterDataEventRecord::getId).collect(Collectors.toList());
+  }
+}
@@ -16,11 +16,17 @@
 package org.siglus.siglusapi.localmachine.eventstore;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.siglus.siglusapi.localmachine.eventstore.PayloadSerializer.LOCALMACHINE_EVENT_OBJECT_MAPPER;
 
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.junit.Test;
+import org.siglus.siglusapi.localmachine.Event;
+import org.siglus.siglusapi.localmachine.eventstore.PayloadSerializer.PayloadWrapper;
+import org.springframework.test.util.ReflectionTestUtils;
 
 public class PayloadSerializerTest {
   @Test
@@ -34,6 +40,63 @@ public class PayloadSerializerTest {
     assertThat(payloadLoaded).isEqualTo(payload);
   }
 
+  @Test
+  public void canLoadPayloadByLegacyReaderGivenDumpedBytes() throws Exception {
+    TestPayload payload = new TestPayload("id");
+    PayloadSerializer payloadSerializer = new PayloadSerializer();
+    byte[] payloadBytes = payloadSerializer.dump(payload);
+
+    PayloadWrapper payloadWrapper = LOCALMACHINE_EVENT_OBJECT_MAPPER.readValue(payloadBytes, PayloadWrapper.class);
+    Object payloadLoaded = LOCALMACHINE_EVENT_OBJECT_MAPPER.readValue(payloadWrapper.getPayload(),
+        payloadSerializer.getPayloadClass(payloadWrapper.getName()));
+
+    assertThat(payloadLoaded).isEqualTo(payload);
+  }
+
+  @Test
+  public void canLoadPayloadSuccessfullyGivenInlineDumpedBytes() {
+    TestPayload payload = new TestPayload("id");
+    PayloadSerializer payloadSerializer = new PayloadSerializer();
+    ReflectionTestUtils.setField(payloadSerializer, "inlinePayload", true);
+    byte[] payloadBytes = payloadSerializer.dump(payload);
+
+    Object payloadLoaded = payloadSerializer.load(payloadBytes);
+
+    assertThat(new String(payloadBytes)).contains("\"data\"");
+    assertThat(payloadLoaded).isEqualTo(payload);
+  }
+
+  @Test
+  public void canLoadPayloadSuccessfullyGivenLegacyWrappedBytes() throws Exception {
+    TestPayload payload = new TestPayload("id");
+    PayloadSerializer payloadSerializer = new PayloadSerializer();
+    byte[] legacyBytes = LOCALMACHINE_EVENT_OBJECT_MAPPER.writeValueAsBytes(new PayloadWrapper(
+        TestPayload.class.getName(), LOCALMACHINE_EVENT_OBJECT_MAPPER.writeValueAsBytes(payload)));
+
+    Object payloadLoaded = payloadSerializer.load(legacyBytes);
+
+    assertThat(payloadLoaded).isEqualTo(payload);
+  }
+
+  @Test
+  public void shouldNotLoadPayloadUntilAccessedWhenConvertRecordToEvent() {
+    TestPayload payload = new TestPayload("id");
+    PayloadSerializer payloadSerializer = new PayloadSerializer();
+    EventRecord eventRecord = EventRecord.builder().id(UUID.randomUUID()).payload(payloadSerializer.dump(payload))
+        .build();
+    AtomicInteger loadCount = new AtomicInteger();
+
+    Event event = eventRecord.toEvent(bytes -> {
+      loadCount.incrementAndGet();
+      return payloadSerializer.load(bytes);
+    });
+
+    assertThat(loadCount.get()).isZero();
+    assertThat(event.getPayload()).isEqualTo(payload);
+    assertThat(event.getPayload()).isEqualTo(payload);
+    assertThat(loadCount.get()).isEqualTo(1);
+  }
+
   @Data
   @NoArgsConstructor
   @AllArgsConstructor
@@ -87,6 +87,23 @@ public class EventFileReaderIntegrationTest {
     assertThat(events).containsExactly(rawEvents.toArray(new Event[] {}));
   }
 
+  @Test
+  public void canReadEventsInBoundedChunks() throws IOException {
+    // given
+    EventResourcePacker packer = new EventResourcePacker(Integer.MAX_VALUE, mapper);
+    for (Event it : rawEvents) {
+      packer.writeEventAndGetRemainingCapacity(it);
+    }
+    ByteArrayResource resource = packer.toResource();
+    // when
+    List<List<Event>> chunks = new LinkedList<>();
+    eventReader.readInChunks(resource.getInputStream(), 30, chunks::add);
+    // then
+    assertThat(chunks).extracting(List::size).containsExactly(30, 30, 30, 10);
+    assertThat(chunks.stream().flatMap(List::stream).collect(Collectors.toList()))
+        .containsExactly(rawEvents.toArray(new Event[] {}));
+  }
+
   @Test
   public void canReadAllEventsFromCapacityLimitedEventResource() throws IOException {
     // given
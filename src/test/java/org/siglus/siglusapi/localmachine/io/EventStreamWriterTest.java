@@ -0,0 +1,82 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.siglus.siglusapi.localmachine.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Before;
+import org.junit.Test;
+import org.siglus.siglusapi.localmachine.Event;
+import org.siglus.siglusapi.localmachine.ExternalEventDtoMapper;
+import org.siglus.siglusapi.localmachine.eventstore.PayloadSerializer;
+import org.siglus.siglusapi.localmachine.io.EventReaderTest.TestedPayload;
+
+public class EventStreamWriterTest {
+
+  private List<Event> rawEvents;
+  private EventStreamWriter eventStreamWriter;
+  private EventFileReader eventFileReader;
+
+  @Before
+  public void setup() {
+    rawEvents =
+        IntStream.range(0, 10)
+            .mapToObj(
+                it ->
+                    Event.builder()
+                        .id(UUID.randomUUID())
+                        .senderId(UUID.randomUUID())
+                        .receiverId(UUID.randomUUID())
+                        .payload(new TestedPayload("this is the content of seq#" + it))
+                        .build())
+            .collect(Collectors.toList());
+    ExternalEventDtoMapper mapper = new ExternalEventDtoMapper(new PayloadSerializer());
+    eventStreamWriter = new EventStreamWriter(mapper);
+    eventFileReader = new EventFileReader(mapper);
+  }
+
+  @Test
+  public void canReadEventsInOrderFromWrittenStream() throws IOException {
+    // given
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    eventStreamWriter.write(rawEvents, out);
+    // when
+    List<Event> events = new LinkedList<>();
+    eventFileReader.read(new ByteArrayInputStream(out.toByteArray()), events::add);
+    // then
+    assertThat(events).containsExactly(rawEvents.toArray(new Event[] {}));
+  }
+
+  @Test
+  public void canReadNothingFromEmptyStream() throws IOException {
+    // given
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    eventStreamWriter.write(Collections.emptyList(), out);
+    // when
+    List<Event> events = eventFileReader.readAll(new ByteArrayInputStream(out.toByteArray()));
+    // then
+    assertThat(events).isEmpty();
+  }
+}
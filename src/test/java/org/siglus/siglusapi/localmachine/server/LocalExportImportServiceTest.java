@@ -16,10 +16,15 @@
 package org.siglus.siglusapi.localmachine.server;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -31,6 +36,7 @@ import java.nio.file.Files;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
 import javax.servlet.http.HttpServletResponse;
 import org.assertj.core.util.Arrays;
 import org.assertj.core.util.Lists;
@@ -55,7 +61,7 @@ import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 @RunWith(MockitoJUnitRunner.class)
-@SuppressWarnings({"checkstyle:LineLength", "PMD.UnusedPrivateField"})
+@SuppressWarnings({"checkstyle:LineLength", "PMD.UnusedPrivateField", "unchecked"})
 public class LocalExportImportServiceTest {
 
   private final UUID receiverId1 = UUID.randomUUID();
@@ -128,9 +134,10 @@ public class LocalExportImportServiceTest {
   }
 
   @Test
-  public void shouldSuccessWhenImport() {
+  public void shouldSuccessWhenImport() throws IOException {
     // given
     when(authenticationHelper.getCurrentUser()).thenReturn(buildMockUserDto());
+    mockReadInChunks(Lists.newArrayList(Event.builder().receiverId(homeFacilityId).build()));
     MultipartFile multipartFile = mock(MultipartFile.class);
     when(multipartFile.getOriginalFilename()).thenReturn("test.dat");
     MultipartFile[] multipartFiles = Arrays.array(multipartFile);
@@ -142,6 +149,50 @@ public class LocalExportImportServiceTest {
     verify(eventImporter).importEvents(anyList());
   }
 
+  @Test
+  public void shouldNotImportAnyChunkWhenImportGivenSecondChunkOfForeignReceiver() throws IOException {
+    // given
+    when(authenticationHelper.getCurrentUser()).thenReturn(buildMockUserDto());
+    List<Event> goodChunk = Lists.newArrayList(Event.builder().receiverId(homeFacilityId).build());
+    mockReadInChunks(goodChunk, buildEventWithWrongReciecerId());
+    MultipartFile multipartFile = mock(MultipartFile.class);
+    when(multipartFile.getOriginalFilename()).thenReturn("test.dat");
+    MultipartFile[] multipartFiles = Arrays.array(multipartFile);
+
+    // when
+    try {
+      localExportImportService.importEvents(multipartFiles);
+      fail("should not reach here");
+    } catch (BusinessDataException e) {
+      // then
+      verify(eventImporter, never()).importEvents(anyList());
+    }
+  }
+
+  @Test
+  public void shouldKeepImportedChunksWhenImportGivenLaterChunkFailedToImport() throws IOException {
+    // given
+    when(authenticationHelper.getCurrentUser()).thenReturn(buildMockUserDto());
+    List<Event> goodChunk =
+        Lists.newArrayList(Event.builder().id(UUID.randomUUID()).receiverId(homeFacilityId).build());
+    List<Event> badChunk =
+        Lists.newArrayList(Event.builder().id(UUID.randomUUID()).receiverId(homeFacilityId).build());
+    mockReadInChunks(goodChunk, badChunk);
+    doThrow(new IllegalStateException("import fail")).when(eventImporter).importEvents(badChunk);
+    MultipartFile multipartFile = mock(MultipartFile.class);
+    when(multipartFile.getOriginalFilename()).thenReturn("test.dat");
+    MultipartFile[] multipartFiles = Arrays.array(multipartFile);
+
+    // when
+    try {
+      localExportImportService.importEvents(multipartFiles);
+      fail("should not reach here");
+    } catch (IllegalStateException e) {
+      // then
+      verify(eventImporter).importEvents(goodChunk);
+    }
+  }
+
   @Test(expected = BusinessDataException.class)
   public void shouldThrowWhenImportGivenWrongFileSuffix() {
     // given
@@ -158,8 +209,8 @@ public class LocalExportImportServiceTest {
   @Test(expected = BusinessDataException.class)
   public void shouldThrowWhenImportGivenChecksumNotMatchedThrown() throws Exception {
     // given
-    given(eventFileReader.readAll(any(MultipartFile.class)))
-        .willThrow(new ChecksumNotMatchedException("invalid checksum"));
+    doThrow(new ChecksumNotMatchedException("invalid checksum"))
+        .when(eventFileReader).readInChunks(any(MultipartFile.class), anyInt(), any());
     MultipartFile multipartFile = mock(MultipartFile.class);
     when(multipartFile.getOriginalFilename()).thenReturn("test.dat");
     MultipartFile[] multipartFiles = Arrays.array(multipartFile);
@@ -172,8 +223,7 @@ public class LocalExportImportServiceTest {
   public void shouldThrowWhenImportGivenWrongReceiver() throws Exception {
     // given
     when(authenticationHelper.getCurrentUser()).thenReturn(buildMockUserDto());
-    given(eventFileReader.readAll(any(MultipartFile.class)))
-        .willReturn(buildEventWithWrongReciecerId());
+    mockReadInChunks(buildEventWithWrongReciecerId());
 
     MultipartFile multipartFile = mock(MultipartFile.class);
     when(multipartFile.getOriginalFilename()).thenReturn("test.dat");
@@ -183,6 +233,17 @@ public class LocalExportImportServiceTest {
     localExportImportService.importEvents(multipartFiles);
   }
 
+  @SafeVarargs
+  private final void mockReadInChunks(List<Event>... chunks) throws IOException {
+    doAnswer(invocation -> {
+      Consumer<List<Event>> chunkConsumer = invocation.getArgumentAt(2, Consumer.class);
+      for (List<Event> chunk : chunks) {
+        chunkConsumer.accept(chunk);
+      }
+      return null;
+    }).when(eventFileReader).readInChunks(any(MultipartFile.class), anyInt(), any());
+  }
+
   private byte[] buildMockData() {
     return "data".getBytes();
   }
@@ -16,13 +16,18 @@
 package org.siglus.siglusapi.localmachine.server;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -30,19 +35,18 @@ import static org.siglus.siglusapi.constant.android.UsageSectionConstants.MmiaPa
 import static org.siglus.siglusapi.dto.enums.EventCategoryEnum.ANDROID_REQUISITION_INTERNAL_APPROVED;
 import static org.siglus.siglusapi.dto.enums.EventCategoryEnum.REQUISITION_FINAL_APPROVED;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.util.ArrayList;
+import java.sql.SQLException;
+import java.time.ZonedDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.zip.ZipOutputStream;
 import javax.servlet.http.HttpServletResponse;
 import net.javacrumbs.shedlock.core.SimpleLock;
 import org.junit.Test;
@@ -55,8 +59,11 @@ import org.mockito.runners.MockitoJUnitRunner;
 import org.openlmis.referencedata.domain.Facility;
 import org.openlmis.referencedata.repository.FacilityRepository;
 import org.siglus.siglusapi.domain.AppInfo;
+import org.siglus.siglusapi.dto.Message;
 import org.siglus.siglusapi.dto.android.request.PatientLineItemsRequest;
 import org.siglus.siglusapi.dto.android.request.RequisitionCreateRequest;
+import org.siglus.siglusapi.exception.DbOperationException;
+import org.siglus.siglusapi.exception.FileOperationException;
 import org.siglus.siglusapi.localmachine.Event;
 import org.siglus.siglusapi.localmachine.ShedLockFactory;
 import org.siglus.siglusapi.localmachine.ShedLockFactory.AutoClosableLock;
@@ -73,6 +80,7 @@ import org.siglus.siglusapi.localmachine.webapi.ResyncMasterDataResponse;
 import org.siglus.siglusapi.repository.AppInfoRepository;
 import org.siglus.siglusapi.service.SiglusAdministrationsService;
 import org.siglus.siglusapi.util.S3FileHandler;
+import org.siglus.siglusapi.util.S3MultipartOutputStream;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.util.ReflectionTestUtils;
 
@@ -161,43 +169,105 @@ public class OnlineWebServiceTest {
   }
 
   @Test
-  public void shouldGenerateZipWhenLocalMachineResync() throws IOException, InterruptedException {
+  public void shouldGenerateZipWhenLocalMachineResync() throws InterruptedException {
     // given
     mockWaitLock();
-    ReflectionTestUtils.setField(onlineWebService, "zipExportPath", "/tmp/simam/resync/");
-    List<File> tableFiles = new ArrayList<>();
-    tableFiles.add(new File("/tmp/movement.txt"));
-    tableFiles.add(new File("/tmp/requisitionOrder.txt"));
+    when(facilityRepository.findOne(facilityId)).thenReturn(mockFacility());
+    mockSnapshotWatermark(ZonedDateTime.parse("2024-01-01T10:00:00Z"));
+    MockHttpServletResponse httpServletResponse = new MockHttpServletResponse();
+
+    // when
+    onlineWebService.resyncData(facilityId, httpServletResponse);
+
+    // then
+    ArgumentCaptor<Map<String, String>> tableNameToSqlCaptor = ArgumentCaptor.forClass(Map.class);
+    verify(tableCopyRepository, times(1))
+        .copyToZip(tableNameToSqlCaptor.capture(), eq(facilityId), eq(false), any(ZipOutputStream.class), any());
+    assertThat(tableNameToSqlCaptor.getValue())
+        .containsAllEntriesOf(MovementSql.getMovementSql())
+        .containsAllEntriesOf(RequisitionOrderSql.getRequisitionOrderSql());
+    verify(administrationsService, times(1)).deleteDrafts(facilityId);
+    assertEquals("application/zip", httpServletResponse.getContentType());
+    assertEquals("2024-01-01T09:59:00Z", httpServletResponse.getHeader("X-Resync-Watermark"));
+    assertThat(httpServletResponse.getContentAsByteArray()).isNotEmpty();
+    assertEquals(httpServletResponse.getContentAsByteArray().length, httpServletResponse.getContentLength());
+  }
 
+  @Test
+  public void shouldNotWriteResponseWhenLocalMachineResyncGivenTableCopyFailed() throws InterruptedException {
+    // given
+    mockWaitLock();
     when(facilityRepository.findOne(facilityId)).thenReturn(mockFacility());
-    when(tableCopyRepository.copyDateToFile(any(), eq(MovementSql.getMovementSql()), eq(facilityId)))
-        .thenReturn(Collections.singletonList(tableFiles.get(0)));
-    when(tableCopyRepository.copyDateToFile(any(), eq(RequisitionOrderSql.getRequisitionOrderSql()), eq(facilityId)))
-        .thenReturn(Collections.singletonList(tableFiles.get(1)));
+    doThrow(new DbOperationException(new SQLException("copy fail"), new Message("copy table data to zip fail")))
+        .when(tableCopyRepository)
+        .copyToZip(any(), eq(facilityId), eq(false), any(ZipOutputStream.class), any());
+    MockHttpServletResponse httpServletResponse = new MockHttpServletResponse();
 
-    writeDataToFile(tableFiles.get(0));
-    writeDataToFile(tableFiles.get(1));
+    // when
+    try {
+      onlineWebService.resyncData(facilityId, httpServletResponse);
+      fail("should not reach here");
+    } catch (DbOperationException e) {
+      // then
+      assertThat(httpServletResponse.isCommitted()).isFalse();
+      assertThat(httpServletResponse.getContentAsByteArray()).isEmpty();
+      assertThat(httpServletResponse.getContentType()).isNull();
+    }
+  }
 
-    HttpServletResponse httpServletResponse = new MockHttpServletResponse();
+  @Test
+  public void shouldOnlyCopyRowsSinceWatermarkUnderGroupLockWhenLocalMachineDeltaResync()
+      throws InterruptedException {
+    // given
+    mockWaitLock();
+    when(facilityRepository.findOne(facilityId)).thenReturn(mockFacility());
+    mockSnapshotWatermark(ZonedDateTime.parse("2024-01-02T10:00:00Z"));
+    MockHttpServletResponse httpServletResponse = new MockHttpServletResponse();
 
     // when
-    onlineWebService.resyncData(facilityId, httpServletResponse);
+    onlineWebService.resyncDeltaData(facilityId, ZonedDateTime.parse("2024-01-01T10:00:00Z"), httpServletResponse);
 
     // then
-    verify(tableCopyRepository, times(1)).copyDateToFile(any(), eq(MovementSql.getMovementSql()), eq(facilityId));
+    verify(lockFactory).waitLock(eq("lock.replay.group.default." + facilityId), anyLong());
+    ArgumentCaptor<Map<String, String>> tableNameToSqlCaptor = ArgumentCaptor.forClass(Map.class);
     verify(tableCopyRepository, times(1))
-        .copyDateToFile(any(), eq(RequisitionOrderSql.getRequisitionOrderSql()), eq(facilityId));
-    verify(administrationsService, times(1)).deleteDrafts(facilityId);
+        .copyToZip(tableNameToSqlCaptor.capture(), eq(facilityId), eq(false), any(ZipOutputStream.class), any());
+    Map<String, String> tableNameToSql = tableNameToSqlCaptor.getValue();
+    assertThat(tableNameToSql.get(MovementSql.STOCK_CARD_LINE_ITEMS))
+        .contains("processeddate >= '2024-01-01T10:00:00Z'");
+    assertThat(tableNameToSql.get(MovementSql.STOCK_EVENTS))
+        .contains("processeddate >= '2024-01-01T10:00:00Z'");
+    assertEquals(MovementSql.STOCK_CARDS_QUERY, tableNameToSql.get(MovementSql.STOCK_CARDS));
+    assertThat(httpServletResponse.getHeader("X-Resync-Delta-Tables").split(","))
+        .containsExactlyInAnyOrder(MovementSql.STOCK_EVENTS, MovementSql.STOCK_EVENT_LINE_ITEMS,
+            MovementSql.STOCK_CARD_LINE_ITEMS);
+    assertEquals("2024-01-02T09:59:00Z", httpServletResponse.getHeader("X-Resync-Watermark"));
+    verify(administrationsService).deleteDrafts(facilityId);
+  }
+
+  @Test
+  public void shouldCopyAllTablesInFullWhenLocalMachineDeltaResyncWithoutWatermark() throws InterruptedException {
+    // given
+    mockWaitLock();
+    when(facilityRepository.findOne(facilityId)).thenReturn(mockFacility());
+    MockHttpServletResponse httpServletResponse = new MockHttpServletResponse();
+
+    // when
+    onlineWebService.resyncDeltaData(facilityId, null, httpServletResponse);
+
+    // then
+    ArgumentCaptor<Map<String, String>> tableNameToSqlCaptor = ArgumentCaptor.forClass(Map.class);
+    verify(tableCopyRepository, times(1))
+        .copyToZip(tableNameToSqlCaptor.capture(), eq(facilityId), eq(false), any(ZipOutputStream.class), any());
+    assertEquals(MovementSql.STOCK_EVENTS_QUERY, tableNameToSqlCaptor.getValue().get(MovementSql.STOCK_EVENTS));
+    assertEquals("", httpServletResponse.getHeader("X-Resync-Delta-Tables"));
   }
 
   @Test
-  public void shouldReturnS3UrlWhenLocalMachineResyncMasterData() throws IOException {
+  public void shouldReturnS3UrlWhenLocalMachineResyncMasterData() {
     // given
-    ReflectionTestUtils.setField(onlineWebService, "zipExportPath", "/tmp/simam/resync/");
-    List<File> tableFiles = Collections.singletonList(new File("/tmp/masterdata.txt"));
-    when(tableCopyRepository.copyDateToFile(any(), eq(MasterDataSql.getMasterDataSqlMap()), eq(facilityId)))
-        .thenReturn(Collections.singletonList(tableFiles.get(0)));
-    writeDataToFile(tableFiles.get(0));
+    S3MultipartOutputStream s3OutputStream = mock(S3MultipartOutputStream.class);
+    when(s3FileHandler.openUploadStream(anyString())).thenReturn(s3OutputStream);
     String snapshotVersion = "test.zip";
     when(masterDataEventRecordRepository.save(any(MasterDataEventRecord.class)))
         .thenReturn(MasterDataEventRecord.builder().id(10L).snapshotVersion(snapshotVersion).build());
@@ -211,11 +281,32 @@ public class OnlineWebServiceTest {
     // then
     assertEquals("https://test.zip", resp.getDownloadUrl());
     verify(tableCopyRepository, times(1))
-        .copyMasterDateToFile(any(), eq(MasterDataSql.getMasterDataSqlMap()), eq(null));
+        .copyToZip(eq(MasterDataSql.getMasterDataSqlMap()), eq(null), eq(true), any(ZipOutputStream.class));
+    verify(s3OutputStream).close();
     verify(masterDataEventRecordRepository, times(1)).save(any(MasterDataEventRecord.class));
     verify(masterDataOffsetRepository, times(1)).save(any(MasterDataOffset.class));
   }
 
+  @Test
+  public void shouldAbortS3UploadWhenGenerateMasterDataFail() {
+    // given
+    S3MultipartOutputStream s3OutputStream = mock(S3MultipartOutputStream.class);
+    when(s3FileHandler.openUploadStream(anyString())).thenReturn(s3OutputStream);
+    doThrow(new IllegalStateException("copy fail")).when(tableCopyRepository)
+        .copyToZip(any(), any(), anyBoolean(), any(ZipOutputStream.class));
+
+    // when
+    try {
+      onlineWebService.generateMasterData();
+      fail("should not reach here");
+    } catch (FileOperationException e) {
+      // then
+      verify(s3OutputStream).abort();
+      verify(s3OutputStream, never()).close();
+      verify(masterDataEventRecordRepository, never()).save(any(MasterDataEventRecord.class));
+    }
+  }
+
   @Test
   public void shouldReturnFinalApproveEventWhenVersionIsEqual2011() {
     // given
@@ -349,10 +440,12 @@ public class OnlineWebServiceTest {
         .build();
   }
 
-  private void writeDataToFile(File file) throws IOException {
-    BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file)));
-    out.write("test");
-    out.close();
+  private void mockSnapshotWatermark(ZonedDateTime watermark) {
+    doAnswer(invocation -> {
+      invocation.getArgumentAt(4, Consumer.class).accept(watermark);
+      return null;
+    }).when(tableCopyRepository)
+        .copyToZip(any(), any(), anyBoolean(), any(ZipOutputStream.class), any());
   }
 
   private void mockWaitLock() throws InterruptedException {
@@ -17,6 +17,7 @@
 package org.siglus.siglusapi.localmachine.webapi;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
@@ -24,8 +25,14 @@ import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.siglus.siglusapi.localmachine.io.EventStreamWriter.EVENT_COUNT_HEADER;
+import static org.siglus.siglusapi.localmachine.io.EventStreamWriter.EVENT_STREAM_MEDIA_TYPE;
+import static org.siglus.siglusapi.localmachine.io.EventStreamWriter.REMAINING_EVENTS_HEADER;
 
+import java.io.IOException;
+import java.time.ZonedDateTime;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import javax.servlet.http.HttpServletResponse;
@@ -46,6 +53,7 @@ import org.siglus.siglusapi.localmachine.ShedLockFactory;
 import org.siglus.siglusapi.localmachine.ShedLockFactory.AutoClosableLock;
 import org.siglus.siglusapi.localmachine.auth.MachineToken;
 import org.siglus.siglusapi.localmachine.eventstore.EventStore;
+import org.siglus.siglusapi.localmachine.io.EventStreamWriter;
 import org.siglus.siglusapi.localmachine.server.ActivationService;
 import org.siglus.siglusapi.localmachine.server.OnlineWebService;
 import org.springframework.mock.web.MockHttpServletResponse;
@@ -77,6 +85,9 @@ public class OnlineWebControllerTest {
   @Mock
   private ExternalEventDtoMapper externalEventDtoMapper;
 
+  @Mock
+  private EventStreamWriter eventStreamWriter;
+
   private static final UUID facilityId = UUID.randomUUID();
 
   @Test
@@ -129,9 +140,44 @@ public class OnlineWebControllerTest {
     when(eventStore.getEventsForReceiver(facilityId)).thenReturn(Collections.emptyList());
 
     // when
-    onlineWebController.exportPeeringEvents(buildMachineToken());
+    EventsResponse response = onlineWebController.exportPeeringEvents(buildMachineToken(), null);
     // then
     verify(eventStore).getEventsForReceiver(facilityId);
+    assertNull(response.getRemaining());
+  }
+
+  @Test
+  public void shouldReportRemainingWhenExportPeeringEventsGivenCapacity() {
+    // given
+    Event event = Event.builder().id(UUID.randomUUID()).receiverId(facilityId).build();
+    when(eventStore.getEventsForReceiver(facilityId, 1024L)).thenReturn(Collections.singletonList(event));
+    when(eventStore.countEventsForReceiver(facilityId)).thenReturn(10L);
+
+    // when
+    EventsResponse response = onlineWebController.exportPeeringEvents(buildMachineToken(), 1024L);
+
+    // then
+    verify(eventStore).getEventsForReceiver(facilityId, 1024L);
+    assertEquals(Long.valueOf(9), response.getRemaining());
+  }
+
+  @Test
+  public void shouldWriteEventStreamWhenExportPeeringEventStream() throws IOException {
+    // given
+    List<Event> events = Collections.singletonList(Event.builder().id(UUID.randomUUID()).build());
+    when(eventStore.getEventsForReceiver(facilityId, 1024L)).thenReturn(events);
+    when(eventStore.countEventsForReceiver(facilityId)).thenReturn(3L);
+    when(onlineWebService.filterFinalApproveEventForOldVersion(events)).thenReturn(events);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    // when
+    onlineWebController.exportPeeringEventStream(buildMachineToken(), 1024L, response);
+
+    // then
+    verify(eventStreamWriter).write(events, response.getOutputStream());
+    assertEquals(EVENT_STREAM_MEDIA_TYPE, response.getContentType());
+    assertEquals("1", response.getHeader(EVENT_COUNT_HEADER));
+    assertEquals("2", response.getHeader(REMAINING_EVENTS_HEADER));
   }
 
   @Test
@@ -145,6 +191,18 @@ public class OnlineWebControllerTest {
     verify(onlineWebService).resyncData(facilityId, httpServletResponse);
   }
 
+  @Test
+  public void deltaResyncDataFromOnlineWeb() throws InterruptedException {
+    // given
+    mockWaitLock();
+    HttpServletResponse httpServletResponse = new MockHttpServletResponse();
+    ResyncDeltaRequest request = ResyncDeltaRequest.builder().watermark(ZonedDateTime.now()).build();
+    // when
+    onlineWebController.resyncDelta(buildMachineToken(), request, httpServletResponse);
+    // then
+    verify(onlineWebService).resyncDeltaData(facilityId, request.getWatermark(), httpServletResponse);
+  }
+
   @Test
   public void exchangeAcksToOnlineWeb() {
     // given
@@ -0,0 +1,293 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.siglus.siglusapi.repository;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.UUID.randomUUID;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.openlmis.referencedata.domain.Orderable.TRADE_ITEM;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Matchers;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.openlmis.requisition.dto.OrderableDto;
+import org.siglus.siglusapi.dto.android.EventTime;
+import org.siglus.siglusapi.dto.android.Lot;
+import org.siglus.siglusapi.dto.android.ProductLotCode;
+import org.siglus.siglusapi.dto.android.db.CalculatedStockOnHand;
+import org.siglus.siglusapi.dto.android.db.ProductLot;
+import org.siglus.siglusapi.dto.android.db.StockCard;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StockManagementRepositoryTest {
+
+  @Mock
+  private NamedParameterJdbcTemplate namedJdbc;
+
+  private StockManagementRepository repository;
+
+  private final UUID facilityId = randomUUID();
+  private final UUID programId1 = randomUUID();
+  private final UUID programId2 = randomUUID();
+  private final UUID productId1 = randomUUID();
+  private final UUID productId2 = randomUUID();
+  private final UUID tradeItemId1 = randomUUID();
+  private final UUID tradeItemId2 = randomUUID();
+
+  @Before
+  public void setup() {
+    repository = new StockManagementRepository(new ObjectMapper(), namedJdbc);
+  }
+
+  @Test
+  public void shouldMatchEveryCodeToItsOwnLotWhenGetLots() throws SQLException {
+    // given
+    UUID lot1Id = randomUUID();
+    UUID lot2Id = randomUUID();
+    mockQueryResult(
+        row("id", lot1Id, "lotcode", "LOT-A", "tradeitemid", tradeItemId1, "expirationdate",
+            Date.valueOf("2030-01-31")),
+        row("id", lot2Id, "lotcode", "LOT-A", "tradeitemid", tradeItemId2, "expirationdate",
+            Date.valueOf("2031-01-31")));
+    Map<ProductLotCode, OrderableDto> codeToProduct = new LinkedHashMap<>();
+    codeToProduct.put(ProductLotCode.of("P1", "LOT-A"), mockProduct("P1", tradeItemId1));
+    codeToProduct.put(ProductLotCode.of("P1", "LOT-B"), mockProduct("P1", tradeItemId1));
+    codeToProduct.put(ProductLotCode.of("P2", "LOT-A"), mockProduct("P2", tradeItemId2));
+
+    // when
+    Map<ProductLotCode, ProductLot> codeToLot = repository.getLots(codeToProduct);
+
+    // then
+    assertThat(codeToLot).hasSize(2).doesNotContainKey(ProductLotCode.of("P1", "LOT-B"));
+    ProductLot lot1 = codeToLot.get(ProductLotCode.of("P1", "LOT-A"));
+    assertThat(lot1.getId()).isEqualTo(lot1Id);
+    assertThat(lot1.getProductCode()).isEqualTo("P1");
+    assertThat(lot1.getTradeItemId()).isEqualTo(tradeItemId1);
+    assertThat(lot1.getExpirationDate()).isEqualTo(LocalDate.of(2030, 1, 31));
+    ProductLot lot2 = codeToLot.get(ProductLotCode.of("P2", "LOT-A"));
+    assertThat(lot2.getId()).isEqualTo(lot2Id);
+    assertThat(lot2.getProductCode()).isEqualTo("P2");
+    assertThat(queryKeys()).containsExactlyInAnyOrder(
+        Arrays.asList(tradeItemId1, "LOT-A"), Arrays.asList(tradeItemId1, "LOT-B"),
+        Arrays.asList(tradeItemId2, "LOT-A"));
+  }
+
+  @Test
+  public void shouldPickStockCardOfSameProgramProductAndLotWhenGetStockCardsGivenLotOnSeveralStockCards()
+      throws SQLException {
+    // given
+    UUID lotId = randomUUID();
+    UUID noLotStockCardId = randomUUID();
+    UUID program2LotStockCardId = randomUUID();
+    mockQueryResult(
+        row("id", noLotStockCardId, "programid", programId1, "orderableid", productId1, "lotid", null),
+        row("id", randomUUID(), "programid", programId1, "orderableid", productId2, "lotid", lotId),
+        row("id", program2LotStockCardId, "programid", programId2, "orderableid", productId2, "lotid", lotId),
+        row("id", randomUUID(), "programid", programId2, "orderableid", productId2, "lotid", randomUUID()));
+    ProductLot lot = ProductLot.fromDatabase(lotId, "P2", tradeItemId2, Lot.of("LOT-A", LocalDate.of(2030, 1, 31)));
+    StockCard noLotSample = StockCard.querySample(facilityId, programId1, productId1, ProductLot.noLot("P1"));
+    StockCard lotSample = StockCard.querySample(facilityId, programId2, productId2, lot);
+    StockCard missingSample = StockCard.querySample(facilityId, programId1, randomUUID(), ProductLot.noLot("P3"));
+
+    // when
+    Map<ProductLotCode, StockCard> codeToStockCard =
+        repository.getStockCards(facilityId, Arrays.asList(noLotSample, lotSample, missingSample));
+
+    // then
+    assertThat(codeToStockCard).hasSize(2);
+    StockCard noLotStockCard = codeToStockCard.get(ProductLotCode.noLot("P1"));
+    assertThat(noLotStockCard.getId()).isEqualTo(noLotStockCardId);
+    assertThat(noLotStockCard.getLotId()).isNull();
+    StockCard lotStockCard = codeToStockCard.get(ProductLotCode.of("P2", "LOT-A"));
+    assertThat(lotStockCard.getId()).isEqualTo(program2LotStockCardId);
+    assertThat(lotStockCard.getProgramId()).isEqualTo(programId2);
+    assertThat(lotStockCard.getLotId()).isEqualTo(lotId);
+  }
+
+  @Test
+  public void shouldQueryProductsInChunksWhenGetStockCardsGivenMoreProductsThanOneChunk() throws SQLException {
+    // given
+    mockQueryResult();
+    List<StockCard> samples = IntStream.range(0, 1001)
+        .mapToObj(i -> StockCard.querySample(facilityId, programId1, randomUUID(), ProductLot.noLot("P" + i)))
+        .collect(toList());
+
+    // when
+    repository.getStockCards(facilityId, samples);
+
+    // then
+    ArgumentCaptor<SqlParameterSource> parametersCaptor = ArgumentCaptor.forClass(SqlParameterSource.class);
+    verify(namedJdbc, times(2))
+        .query(anyString(), parametersCaptor.capture(), Matchers.<ResultSetExtractor<Object>>any());
+    List<Object> queriedProductIds = parametersCaptor.getAllValues().stream()
+        .flatMap(parameters -> ((Collection<?>) parameters.getValue("productIds")).stream())
+        .collect(toList());
+    assertThat(parametersCaptor.getAllValues()).extracting(parameters -> parameters.getValue("productIds"))
+        .extracting(productIds -> ((Collection<?>) productIds).size())
+        .containsExactlyInAnyOrder(1000, 1);
+    assertThat(queriedProductIds)
+        .containsExactlyInAnyOrderElementsOf(samples.stream().map(StockCard::getProductId).collect(toList()));
+  }
+
+  @Test
+  public void shouldNotQueryWhenGetStockCardsGivenNoSample() {
+    // when
+    Map<ProductLotCode, StockCard> codeToStockCard = repository.getStockCards(facilityId, emptyList());
+
+    // then
+    assertThat(codeToStockCard).isEmpty();
+    verify(namedJdbc, never())
+        .query(anyString(), any(SqlParameterSource.class), Matchers.<ResultSetExtractor<Object>>any());
+  }
+
+  @Test
+  public void shouldAttachEveryStockOnHandToItsStockCardWhenFindCalculatedStocksOnHand() throws SQLException {
+    // given
+    StockCard stockCard1 = StockCard.fromDatabase(randomUUID(),
+        StockCard.querySample(facilityId, programId1, productId1, ProductLot.noLot("P1")));
+    StockCard stockCard2 = StockCard.fromDatabase(randomUUID(),
+        StockCard.querySample(facilityId, programId2, productId2, ProductLot.noLot("P2")));
+    UUID stockOnHand1Id = randomUUID();
+    UUID stockOnHand2Id = randomUUID();
+    mockQueryResult(
+        row("id", stockOnHand2Id, "stockcardid", stockCard2.getId(), "stockonhand", 20,
+            "recordedat", "2021-02-01T08:00:00Z", "occurreddate", Date.valueOf("2021-02-01"),
+            "processeddate", Timestamp.valueOf("2021-02-01 09:00:00")),
+        row("id", stockOnHand1Id, "stockcardid", stockCard1.getId(), "stockonhand", 10,
+            "recordedat", null, "occurreddate", Date.valueOf("2021-01-01"),
+            "processeddate", Timestamp.valueOf("2021-01-01 09:00:00")));
+    Map<StockCard, EventTime> stockCardToEarliestDate = new LinkedHashMap<>();
+    stockCardToEarliestDate.put(stockCard1, eventTime("2021-01-01"));
+    stockCardToEarliestDate.put(stockCard2, eventTime("2021-02-01"));
+
+    // when
+    List<CalculatedStockOnHand> stocksOnHand = repository.findCalculatedStocksOnHand(stockCardToEarliestDate);
+
+    // then
+    assertThat(stocksOnHand).hasSize(2);
+    assertThat(stocksOnHand.get(0).getId()).isEqualTo(stockOnHand2Id);
+    assertThat(stocksOnHand.get(0).getStockCard()).isSameAs(stockCard2);
+    assertThat(stocksOnHand.get(0).getInventoryDetail().getStockQuantity()).isEqualTo(20);
+    assertThat(stocksOnHand.get(1).getId()).isEqualTo(stockOnHand1Id);
+    assertThat(stocksOnHand.get(1).getStockCard()).isSameAs(stockCard1);
+    assertThat(stocksOnHand.get(1).getInventoryDetail().getStockQuantity()).isEqualTo(10);
+    assertThat(queryKeys()).containsExactlyInAnyOrder(
+        Arrays.asList(stockCard1.getId(), Date.valueOf("2021-01-01")),
+        Arrays.asList(stockCard2.getId(), Date.valueOf("2021-02-01")));
+  }
+
+  @Test
+  public void shouldNotQueryWhenFindCalculatedStocksOnHandGivenNoStockCard() {
+    // when
+    List<CalculatedStockOnHand> stocksOnHand = repository.findCalculatedStocksOnHand(emptyMap());
+
+    // then
+    assertThat(stocksOnHand).isEmpty();
+    verify(namedJdbc, never())
+        .query(anyString(), any(SqlParameterSource.class), Matchers.<ResultSetExtractor<Object>>any());
+  }
+
+  private List<List<Object>> queryKeys() {
+    ArgumentCaptor<SqlParameterSource> parametersCaptor = ArgumentCaptor.forClass(SqlParameterSource.class);
+    verify(namedJdbc).query(anyString(), parametersCaptor.capture(), Matchers.<ResultSetExtractor<Object>>any());
+    List<?> keys = (List<?>) parametersCaptor.getValue().getValue("keys");
+    return keys.stream().map(key -> Arrays.asList((Object[]) key)).collect(toList());
+  }
+
+  @SafeVarargs
+  private final void mockQueryResult(Map<String, Object>... rows) throws SQLException {
+    ResultSet resultSet = mockResultSet(Arrays.asList(rows));
+    when(namedJdbc.query(anyString(), any(SqlParameterSource.class), Matchers.<ResultSetExtractor<Object>>any()))
+        .thenAnswer(invocation -> invocation.getArgumentAt(2, ResultSetExtractor.class).extractData(resultSet));
+  }
+
+  private ResultSet mockResultSet(List<Map<String, Object>> rows) throws SQLException {
+    AtomicInteger cursor = new AtomicInteger(-1);
+    List<String> columns = rows.isEmpty() ? new ArrayList<>() : new ArrayList<>(rows.get(0).keySet());
+    ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+    when(metaData.getColumnCount()).thenReturn(columns.size());
+    when(metaData.getColumnName(anyInt()))
+        .thenAnswer(invocation -> columns.get(invocation.getArgumentAt(0, Integer.class) - 1));
+    ResultSet resultSet = mock(ResultSet.class);
+    when(resultSet.getMetaData()).thenReturn(metaData);
+    when(resultSet.next()).thenAnswer(invocation -> cursor.incrementAndGet() < rows.size());
+    Answer<Object> column = invocation -> rows.get(cursor.get()).get(invocation.getArgumentAt(0, String.class));
+    when(resultSet.getObject(anyString(), eq(UUID.class))).thenAnswer(column);
+    when(resultSet.getString(anyString())).thenAnswer(column);
+    when(resultSet.getDate(anyString())).thenAnswer(column);
+    when(resultSet.getTimestamp(anyString())).thenAnswer(column);
+    when(resultSet.getInt(anyString())).thenAnswer(column);
+    return resultSet;
+  }
+
+  private Map<String, Object> row(Object... columnsAndValues) {
+    Map<String, Object> row = new LinkedHashMap<>();
+    for (int i = 0; i < columnsAndValues.length; i += 2) {
+      row.put((String) columnsAndValues[i], columnsAndValues[i + 1]);
+    }
+    return row;
+  }
+
+  private OrderableDto mockProduct(String productCode, UUID tradeItemId) {
+    OrderableDto product = new OrderableDto();
+    product.setId(randomUUID());
+    product.setProductCode(productCode);
+    product.setExtraData(new HashMap<>());
+    product.setIdentifiers(ImmutableMap.of(TRADE_ITEM, tradeItemId.toString()));
+    return product;
+  }
+
+  private EventTime eventTime(String occurredDate) {
+    return EventTime.fromRequest(LocalDate.parse(occurredDate), null);
+  }
+}
@@ -18,10 +18,12 @@ package org.siglus.siglusapi.service;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anySetOf;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -48,6 +50,8 @@ import org.openlmis.stockmanagement.domain.card.StockCard;
 import org.openlmis.stockmanagement.domain.card.StockCardLineItem;
 import org.openlmis.stockmanagement.domain.reason.ReasonType;
 import org.openlmis.stockmanagement.domain.reason.StockCardLineItemReason;
+import org.openlmis.stockmanagement.dto.StockEventDto;
+import org.openlmis.stockmanagement.dto.StockEventLineItemDto;
 import org.openlmis.stockmanagement.repository.CalculatedStockOnHandRepository;
 import org.openlmis.stockmanagement.repository.StockCardRepository;
 import org.openlmis.stockmanagement.service.referencedata.OrderableReferenceDataService;
@@ -55,6 +59,7 @@ import org.siglus.siglusapi.domain.CalculatedStockOnHandByLocation;
 import org.siglus.siglusapi.domain.StockCardLineItemExtension;
 import org.siglus.siglusapi.domain.StockCardLocationMovementLineItem;
 import org.siglus.siglusapi.repository.CalculatedStockOnHandByLocationRepository;
+import org.siglus.siglusapi.repository.SiglusStockCardLineItemRepository;
 import org.siglus.siglusapi.repository.SiglusStockCardRepository;
 import org.siglus.siglusapi.repository.StockCardLineItemExtensionRepository;
 import org.siglus.siglusapi.repository.StockCardLocationMovementLineItemRepository;
@@ -79,6 +84,8 @@ public class CalculatedStockOnHandByLocationServiceTest {
   private StockCardLocationMovementLineItemRepository locationMovementRepository;
   @Mock
   private OrderableReferenceDataService orderableService;
+  @Mock
+  private SiglusStockCardLineItemRepository siglusStockCardLineItemRepository;
 
   @Captor
   private ArgumentCaptor<List<CalculatedStockOnHandByLocation>> sohByLocationArgumentCaptor;
@@ -170,6 +177,50 @@ public class CalculatedStockOnHandByLocationServiceTest {
     assertEquals(LocalDate.now().minusDays(1L), toDate(toSaveList.get(4).getOccurredDate()));
   }
 
+  @Test
+  public void shouldOnlyLoadLineItemsAndMovementsSinceEarliestEventDateWhenCalculateSohByLocation() {
+    // given
+    LocalDate occurredDate = LocalDate.now().minusDays(5L);
+    StockCard stockCard = createStockCard();
+    StockCardLineItem target = StockCardLineItem.builder().build();
+    target.setId(lineItemId1);
+    target.setQuantity(10);
+    target.setReason(buildReceiveReason());
+    target.setOccurredDate(occurredDate);
+    target.setProcessedDate(occurredDate.atStartOfDay(ZoneId.systemDefault()));
+    target.setStockCard(stockCard);
+    StockEventLineItemDto eventLineItem = new StockEventLineItemDto();
+    eventLineItem.setId(lineItemId1);
+    eventLineItem.setOrderableId(orderableId);
+    eventLineItem.setLotId(lotId);
+    eventLineItem.setOccurredDate(occurredDate);
+    StockEventDto eventDto = StockEventDto.builder()
+        .facilityId(facilityId)
+        .lineItems(Lists.newArrayList(eventLineItem))
+        .build();
+
+    when(siglusStockCardRepository.findByFacilityIdAndOrderableLotIdPairs(any(), anySetOf(String.class)))
+        .thenReturn(Collections.singletonList(stockCard));
+    when(siglusStockCardLineItemRepository.findAllByStockCardInAndOccurredDateGreaterThanEqual(
+        Collections.singletonList(stockCard), occurredDate))
+        .thenReturn(Lists.newArrayList(target));
+    when(stockCardLineItemExtensionRepository.findAllByStockCardLineItemIdIn(Collections.singletonList(lineItemId1)))
+        .thenReturn(Collections.singletonList(StockCardLineItemExtension.builder()
+            .stockCardLineItemId(lineItemId1).locationCode(locationCode).build()));
+
+    // when
+    calculatedStocksOnHandByLocationService.calculateStockOnHandByLocation(eventDto);
+
+    // then
+    verify(locationMovementRepository)
+        .findAllByStockCardIdInAndOccurredDateGreaterThanEqual(ImmutableSet.of(stockCardId), occurredDate);
+    verify(calculatedStockOnHandByLocationRepository).save(sohByLocationArgumentCaptor.capture());
+    List<CalculatedStockOnHandByLocation> sohToSave = sohByLocationArgumentCaptor.getValue();
+    assertEquals(1, sohToSave.size());
+    assertEquals(10, (int) sohToSave.get(0).getStockOnHand());
+    assertEquals(locationCode, sohToSave.get(0).getLocationCode());
+  }
+
   // test case, location1 -> location2 30, location2 -> location3 10
   @Test
   public void shouldCalculateSohByLocationWhenSubmitLocationMovement() {
@@ -25,13 +25,16 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyList;
 import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.anySetOf;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.siglus.siglusapi.util.SiglusDateHelper.DATE_MONTH_YEAR;
 import static org.siglus.siglusapi.util.SiglusDateHelper.getFormatDate;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -76,6 +79,7 @@ import org.openlmis.fulfillment.web.shipmentdraft.ShipmentDraftDto;
 import org.openlmis.fulfillment.web.util.BasicOrderDto;
 import org.openlmis.fulfillment.web.util.BasicOrderDtoBuilder;
 import org.openlmis.fulfillment.web.util.OrderDto;
+import org.openlmis.fulfillment.web.util.OrderDtoBuilder;
 import org.openlmis.fulfillment.web.util.OrderLineItemDto;
 import org.openlmis.fulfillment.web.util.OrderObjectReferenceDto;
 import org.openlmis.referencedata.domain.Facility;
@@ -151,6 +155,9 @@ public class SiglusOrderServiceTest {
   @Mock
   private BasicOrderDtoBuilder basicOrderDtoBuilder;
 
+  @Mock
+  private OrderDtoBuilder orderDtoBuilder;
+
   @Mock
   private RequisitionController requisitionController;
 
@@ -326,6 +333,60 @@ public class SiglusOrderServiceTest {
     assertEquals("requisitionNumber-1", response.getOrder().getRequisitionNumber());
   }
 
+  @Test
+  public void shouldExtendOrdersInBatchWhenSearchOrdersWithoutProducts() {
+    // given
+    OrderDto orderDto = createOrderDto();
+    Order order = createOrder();
+    when(orderDtoBuilder.build(newArrayList(order))).thenReturn(newArrayList(orderDto));
+    Requisition requisition = createRequisition();
+    when(siglusRequisitionExtensionService.getRequisitionNumbers(newHashSet(requisitionId)))
+        .thenReturn(ImmutableMap.of(requisitionId, "requisitionNumber-1"));
+    OrderLineItemExtension extension = OrderLineItemExtension.builder()
+        .orderLineItemId(lineItemId)
+        .skipped(true)
+        .build();
+    when(lineItemExtensionRepository.findByOrderLineItemIdIn((newHashSet(lineItemId))))
+        .thenReturn(newArrayList(extension));
+
+    // when
+    List<SiglusOrderDto> response = siglusOrderService
+        .searchOrdersWithoutProducts(newArrayList(order), ImmutableMap.of(orderId, requisition));
+
+    // then
+    assertEquals(1, response.size());
+    assertEquals("requisitionNumber-1", response.get(0).getOrder().getRequisitionNumber());
+    response.get(0).getOrder().getOrderLineItems().forEach(lineItem -> assertTrue(lineItem.isSkipped()));
+    verify(orderController, never()).getOrder(any(), any());
+    verify(requisitionController, never()).findRequisition(any(), any());
+    verify(siglusRequisitionRepository, never()).findAll(anySetOf(UUID.class));
+  }
+
+  @Test
+  public void shouldResolveRequisitionsInBatchWhenGetOrderIdToRequisition() {
+    // given
+    when(orderExternalRepository.findAll(anySetOf(UUID.class))).thenReturn(Collections.emptyList());
+    Requisition requisition = createRequisition();
+    when(siglusRequisitionRepository.findAll(newHashSet(requisitionId))).thenReturn(newArrayList(requisition));
+
+    // when
+    Map<UUID, Requisition> orderIdToRequisition = siglusOrderService.getOrderIdToRequisition(
+        newArrayList(createOrder()));
+
+    // then
+    assertEquals(ImmutableMap.of(orderId, requisition), orderIdToRequisition);
+  }
+
+  @Test(expected = NotFoundException.class)
+  public void shouldThrowExceptionWhenGetOrderIdToRequisitionGivenRequisitionNotExist() {
+    // given
+    when(orderExternalRepository.findAll(anySetOf(UUID.class))).thenReturn(Collections.emptyList());
+    when(siglusRequisitionRepository.findAll(newHashSet(requisitionId))).thenReturn(Collections.emptyList());
+
+    // when
+    siglusOrderService.getOrderIdToRequisition(newArrayList(createOrder()));
+  }
+
   @Test
   public void shouldFilterInProgressProductWhenReqIsEmergency() {
     // given
@@ -1642,6 +1703,13 @@ public class SiglusOrderServiceTest {
     return productDto;
   }
 
+  private Order createOrder() {
+    Order order = new Order();
+    order.setId(orderId);
+    order.setExternalId(requisitionId);
+    return order;
+  }
+
   private OrderDto createOrderDto() {
     OrderDto order = new OrderDto();
     order.setFacility(getFacilityDto());
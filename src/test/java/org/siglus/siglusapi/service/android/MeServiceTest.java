@@ -795,7 +795,7 @@ public class MeServiceTest {
     service.createStockCards(stockCardCreateRequests);
 
     // then
-    verify(stockCardCreateContextHolder, times(1)).initContext(any(), any());
+    verify(stockCardCreateContextHolder, times(1)).initContext(any(), any(), any());
   }
 
   @Test
@@ -1457,11 +1457,12 @@ public class MeServiceTest {
     when(order1Line1.getOrderable()).thenReturn(product1);
     when(order1Line1.getOrderedQuantity()).thenReturn(20L);
     when(order1Line1.getPartialFulfilledQuantity()).thenReturn(0L);
-    when(orderService.searchOrderByIdWithoutProducts(order1Id)).thenReturn(new SiglusOrderDto(order1, emptySet()));
+    when(orderService.searchOrdersWithoutProducts(any(), any()))
+        .thenReturn(singletonList(new SiglusOrderDto(order1, emptySet())));
     Requisition requisition = new Requisition();
     requisition.setCreatedDate(ZonedDateTime.now());
     requisition.setModifiedDate(ZonedDateTime.now());
-    when(orderService.getRequisitionByOrder(order1)).thenReturn(requisition);
+    when(orderService.getOrderIdToRequisition(any())).thenReturn(ImmutableMap.of(order1Id, requisition));
     when(facilityReferenceDataService.findOne(order1FacilityId))
         .thenReturn(new org.siglus.siglusapi.dto.FacilityDto());
   }
@@ -19,6 +19,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.powermock.api.mockito.PowerMockito.when;
 import static org.siglus.siglusapi.constant.FieldConstants.TOTAL;
 import static org.siglus.siglusapi.constant.android.UsageSectionConstants.ConsultationNumberLineItems.COLUMN_NAME;
@@ -30,6 +32,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -42,15 +45,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.openlmis.requisition.domain.requisition.Requisition;
+import org.openlmis.requisition.domain.requisition.RequisitionLineItem;
 import org.openlmis.requisition.domain.requisition.RequisitionStatus;
-import org.openlmis.requisition.dto.BasicRequisitionTemplateDto;
-import org.openlmis.requisition.dto.ObjectReferenceDto;
+import org.openlmis.requisition.domain.requisition.VersionEntityReference;
 import org.openlmis.requisition.dto.ProcessingPeriodDto;
 import org.openlmis.requisition.dto.ProgramDto;
-import org.openlmis.requisition.dto.RequisitionLineItemV2Dto;
 import org.openlmis.requisition.dto.RequisitionPeriodDto;
-import org.openlmis.requisition.dto.RequisitionV2Dto;
-import org.openlmis.requisition.dto.VersionObjectReferenceDto;
 import org.openlmis.requisition.service.PeriodService;
 import org.siglus.siglusapi.constant.android.UsageSectionConstants.TestConsumptionLineItems;
 import org.siglus.siglusapi.domain.AgeGroupLineItem;
@@ -90,7 +90,6 @@ import org.siglus.siglusapi.repository.SiglusRequisitionRepository;
 import org.siglus.siglusapi.repository.TestConsumptionLineItemRepository;
 import org.siglus.siglusapi.repository.UsageInformationLineItemRepository;
 import org.siglus.siglusapi.service.SiglusProgramService;
-import org.siglus.siglusapi.service.client.SiglusRequisitionRequisitionService;
 import org.siglus.siglusapi.service.mapper.ConsultationNumberLineItemMapper;
 import org.siglus.siglusapi.service.mapper.PatientLineItemMapper;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -105,9 +104,6 @@ public class RequisitionSearchServiceTest {
   @Mock
   private SiglusProgramService siglusProgramService;
 
-  @Mock
-  private SiglusRequisitionRequisitionService siglusRequisitionRequisitionService;
-
   @Mock
   private RequisitionLineItemExtensionRepository requisitionLineItemExtensionRepository;
 
@@ -153,11 +149,6 @@ public class RequisitionSearchServiceTest {
   private final UUID programIdMmtb = UUID.randomUUID();
   private final UUID orderableId = UUID.randomUUID();
   private final UUID orderableId2 = UUID.randomUUID();
-  private final UUID templateId = UUID.fromString("610a52a5-2217-4fb7-9e8e-90bba3051d4d");
-  private final UUID mmiaTemplateId = UUID.fromString("873c25d6-e53b-11eb-8494-acde48001122");
-  private final UUID malariaTemplateId = UUID.fromString("3f2245ce-ee9f-11eb-ba79-acde48001122");
-  private final UUID rapidtestTemplateId = UUID.fromString("2c10856e-eead-11eb-9718-acde48001122");
-  private final UUID mmtbTemplateId = UUID.randomUUID();
   private final UUID requisitionId = UUID.randomUUID();
   private final UUID requisitionIdMmia = UUID.randomUUID();
   private final UUID requisitionIdMalaria = UUID.randomUUID();
@@ -174,6 +165,8 @@ public class RequisitionSearchServiceTest {
   private String newColumn0 = "newColumn0";
   private final String startDate = "2021-07-13";
 
+  private final List<Requisition> requisitions = new ArrayList<>();
+
   @Before
   public void prepare() {
     ConsultationNumberLineItemMapper consultationNumberLineItemMapper = new ConsultationNumberLineItemMapper();
@@ -183,6 +176,7 @@ public class RequisitionSearchServiceTest {
     createGetMalariaRequisitionData();
     createGetRapidTestRequisitionData();
     createGetMmtbRequisitionData();
+    when(siglusRequisitionRepository.findAllByIdIn(any())).thenReturn(new LinkedHashSet<>(requisitions));
   }
 
   @Test
@@ -204,9 +198,11 @@ public class RequisitionSearchServiceTest {
     requisitionStatusDto.setStartDate("2024-05-05");
     Requisition requisition = new Requisition();
     requisition.setStatus(RequisitionStatus.SUBMITTED);
-    when(siglusRequisitionRepository
-        .findOneByFacilityIdAndProgramIdAndProcessingPeriodId(facilityId, programDto.getId(), periodDto.getId()))
-        .thenReturn(requisition);
+    requisition.setProgramId(programDto.getId());
+    requisition.setProcessingPeriodId(periodDto.getId());
+    when(siglusRequisitionRepository.findByFacilityIdAndProgramIdInAndProcessingPeriodIdInAndEmergencyFalse(
+        facilityId, Collections.singleton(programDto.getId()), Collections.singleton(periodDto.getId())))
+        .thenReturn(Collections.singletonList(requisition));
     List<RequisitionStatusDto> requisitionDtos = Collections.singletonList(requisitionStatusDto);
 
     List<RequisitionStatusDto> requisitionsStatus =
@@ -235,9 +231,11 @@ public class RequisitionSearchServiceTest {
     requisitionStatusDto.setStartDate("2024-05-05");
     Requisition requisition = new Requisition();
     requisition.setStatus(RequisitionStatus.REJECTED);
-    when(siglusRequisitionRepository
-        .findOneByFacilityIdAndProgramIdAndProcessingPeriodId(facilityId, programDto.getId(), periodDto.getId()))
-        .thenReturn(requisition);
+    requisition.setProgramId(programDto.getId());
+    requisition.setProcessingPeriodId(periodDto.getId());
+    when(siglusRequisitionRepository.findByFacilityIdAndProgramIdInAndProcessingPeriodIdInAndEmergencyFalse(
+        facilityId, Collections.singleton(programDto.getId()), Collections.singleton(periodDto.getId())))
+        .thenReturn(Collections.singletonList(requisition));
     List<RequisitionStatusDto> requisitionDtos = Collections.singletonList(requisitionStatusDto);
 
     List<RequisitionStatusDto> requisitionsStatus =
@@ -279,6 +277,19 @@ public class RequisitionSearchServiceTest {
     assertEquals("yyd3", signatureMap.get("approve"));
   }
 
+  @Test
+  public void shouldLoadRequisitionsInBatchWhenGetRequisitionResponseByFacilityIdAndStartDate() {
+    // when
+    RequisitionResponse requisitionResponse = service
+        .getRequisitionResponseByFacilityIdAndDate(UUID.randomUUID(), startDate, orderableIdToCode);
+
+    // then
+    assertEquals(5, requisitionResponse.getRequisitionResponseList().size());
+    verify(siglusRequisitionRepository, times(1)).findAllByIdIn(any());
+    verify(requisitionLineItemExtensionRepository, times(1)).findLineItems(any());
+    verify(siglusProgramService, times(1)).getProgram(programId);
+  }
+
   @Test
   public void shouldGetMmiaRequisitionResponseWhenByFacilityIdAndStartDate() {
     // when
@@ -411,30 +422,30 @@ public class RequisitionSearchServiceTest {
     when(consultationNumberLineItemRepository.findByRequisitionIdIn(any()))
         .thenReturn(Arrays.asList(consultationNumberLineItem, mmiaConsultationNumberLineItem));
 
-    RequisitionLineItemV2Dto itemV2Dto = new RequisitionLineItemV2Dto();
-    itemV2Dto.setId(requisitionLineItemId);
-    itemV2Dto.setBeginningBalance(20);
-    itemV2Dto.setTotalReceivedQuantity(30);
-    itemV2Dto.setTotalConsumedQuantity(40);
-    itemV2Dto.setStockOnHand(50);
-    itemV2Dto.setRequestedQuantity(10);
-    VersionObjectReferenceDto orderableReference = new VersionObjectReferenceDto();
+    RequisitionLineItem lineItem = new RequisitionLineItem();
+    lineItem.setId(requisitionLineItemId);
+    lineItem.setBeginningBalance(20);
+    lineItem.setTotalReceivedQuantity(30);
+    lineItem.setTotalConsumedQuantity(40);
+    lineItem.setStockOnHand(50);
+    lineItem.setRequestedQuantity(10);
+    VersionEntityReference orderableReference = new VersionEntityReference();
     orderableReference.setId(orderableId);
-    itemV2Dto.setOrderable(orderableReference);
-
-    RequisitionLineItemV2Dto itemV2Dto2 = new RequisitionLineItemV2Dto();
-    itemV2Dto2.setId(requisitionLineItemId2);
-    itemV2Dto2.setBeginningBalance(200);
-    itemV2Dto2.setTotalReceivedQuantity(300);
-    itemV2Dto2.setTotalConsumedQuantity(400);
-    itemV2Dto2.setStockOnHand(500);
-    itemV2Dto2.setRequestedQuantity(100);
-    VersionObjectReferenceDto orderableReference2 = new VersionObjectReferenceDto();
+    lineItem.setOrderable(orderableReference);
+
+    RequisitionLineItem lineItem2 = new RequisitionLineItem();
+    lineItem2.setId(requisitionLineItemId2);
+    lineItem2.setBeginningBalance(200);
+    lineItem2.setTotalReceivedQuantity(300);
+    lineItem2.setTotalConsumedQuantity(400);
+    lineItem2.setStockOnHand(500);
+    lineItem2.setRequestedQuantity(100);
+    VersionEntityReference orderableReference2 = new VersionEntityReference();
     orderableReference2.setId(orderableId2);
-    itemV2Dto2.setOrderable(orderableReference2);
+    lineItem2.setOrderable(orderableReference2);
 
-    RequisitionV2Dto v2Dto = new RequisitionV2Dto();
-    v2Dto.setRequisitionLineItems(Arrays.asList(itemV2Dto, itemV2Dto2));
+    Requisition requisition = new Requisition();
+    requisition.setRequisitionLineItems(Arrays.asList(lineItem, lineItem2));
 
     ExtraDataSignatureDto signatureDto = new ExtraDataSignatureDto();
     signatureDto.setSubmit("yyd1");
@@ -442,17 +453,13 @@ public class RequisitionSearchServiceTest {
     String[] approve = {"yyd3", "yye4"};
     signatureDto.setApprove(approve);
 
-    v2Dto.setExtraData(buildExtraData(signatureDto));
-
-    BasicRequisitionTemplateDto templateDto = new BasicRequisitionTemplateDto();
-    templateDto.setId(templateId);
-    v2Dto.setTemplate(templateDto);
-    v2Dto.setId(requisitionId);
-    v2Dto.setProgram(new ObjectReferenceDto(programId));
-    v2Dto.setEmergency(true);
-    v2Dto.setStatus(RequisitionStatus.AUTHORIZED);
+    requisition.setExtraData(buildExtraData(signatureDto));
+    requisition.setId(requisitionId);
+    requisition.setProgramId(programId);
+    requisition.setEmergency(true);
+    requisition.setStatus(RequisitionStatus.AUTHORIZED);
 
-    when(siglusRequisitionRequisitionService.searchRequisition(requisitionId)).thenReturn(v2Dto);
+    requisitions.add(requisition);
 
     List<RequisitionLineItemExtension> extensions = Arrays
         .asList(RequisitionLineItemExtension.builder().requisitionLineItemId(requisitionLineItemId)
@@ -476,7 +483,7 @@ public class RequisitionSearchServiceTest {
         .thenReturn(buildRegimenSummaryLineItems());
     when(patientLineItemRepository.findByRequisitionIdIn(any())).thenReturn(buildAllPatientLineItems());
     when(patientLineItemMapper.from(buildMmiaPatientLineItems())).thenReturn(buildPatientGroupDtos());
-    when(siglusRequisitionRequisitionService.searchRequisition(requisitionIdMmia)).thenReturn(buildMmiaV2Dto());
+    requisitions.add(buildMmiaRequisition());
 
     ProgramDto programDto = new ProgramDto();
     programDto.setCode("T");
@@ -486,7 +493,7 @@ public class RequisitionSearchServiceTest {
 
   private void createGetMalariaRequisitionData() {
     when(usageInformationLineItemRepository.findByRequisitionIdIn(any())).thenReturn(buildUsageInformationLineItems());
-    when(siglusRequisitionRequisitionService.searchRequisition(requisitionIdMalaria)).thenReturn(buildMalariaV2Dto());
+    requisitions.add(buildMalariaRequisition());
 
     ProgramDto programDto = new ProgramDto();
     programDto.setCode("ML");
@@ -496,8 +503,7 @@ public class RequisitionSearchServiceTest {
 
   private void createGetRapidTestRequisitionData() {
     when(testConsumptionLineItemRepository.findByRequisitionIdIn(any())).thenReturn(buildTestConsumptionLineItems());
-    when(siglusRequisitionRequisitionService.searchRequisition(requisitionIdRapidTest))
-        .thenReturn(buildRapidTestV2Dto());
+    requisitions.add(buildRapidTestRequisition());
 
     ProgramDto programDto = new ProgramDto();
     programDto.setCode("TR");
@@ -509,7 +515,7 @@ public class RequisitionSearchServiceTest {
     when(ageGroupLineItemRepository.findByRequisitionIdIn(any())).thenReturn(buildAgeGroupLineItems());
     when(patientLineItemRepository.findByRequisitionIdIn(any())).thenReturn(buildAllPatientLineItems());
     when(patientLineItemMapper.from(buildMmtbPatientLineItems())).thenReturn(buildPatientGroupDtos());
-    when(siglusRequisitionRequisitionService.searchRequisition(requisitionIdMmtb)).thenReturn(buildMmtbV2Dto());
+    requisitions.add(buildMmtbRequisition());
     ProgramDto programDto = new ProgramDto();
     programDto.setCode("TB");
     programDto.setId(programIdMmtb);
@@ -614,7 +620,7 @@ public class RequisitionSearchServiceTest {
         ageGroupLineItem6);
   }
 
-  private RequisitionV2Dto buildMalariaV2Dto() {
+  private Requisition buildMalariaRequisition() {
     ExtraDataSignatureDto signatureDto = new ExtraDataSignatureDto();
     signatureDto.setSubmit("yyds2");
     signatureDto.setAuthorize("yyds3");
@@ -625,71 +631,59 @@ public class RequisitionSearchServiceTest {
     extraData.put("actualStartDate", "2021-07-01");
     extraData.put("actualEndDate", "2021-07-21");
     extraData.put("clientSubmittedTime", "2021-07-21T07:59:59Z");
-    BasicRequisitionTemplateDto templateDto = new BasicRequisitionTemplateDto();
-    templateDto.setId(malariaTemplateId);
-    RequisitionV2Dto v2Dto = new RequisitionV2Dto();
-    v2Dto.setExtraData(extraData);
-    v2Dto.setTemplate(templateDto);
-    v2Dto.setId(requisitionIdMalaria);
-    v2Dto.setStatus(RequisitionStatus.AUTHORIZED);
-    v2Dto.setProgram(new ObjectReferenceDto(programIdMalaria));
-    v2Dto.setEmergency(false);
-    return v2Dto;
+    Requisition requisition = new Requisition();
+    requisition.setExtraData(extraData);
+    requisition.setId(requisitionIdMalaria);
+    requisition.setStatus(RequisitionStatus.AUTHORIZED);
+    requisition.setProgramId(programIdMalaria);
+    requisition.setEmergency(false);
+    return requisition;
   }
 
-  private RequisitionV2Dto buildMmiaV2Dto() {
+  private Requisition buildMmiaRequisition() {
     ExtraDataSignatureDto signatureDto = new ExtraDataSignatureDto();
     signatureDto.setSubmit("wangj1");
     signatureDto.setAuthorize("wangj2");
     String[] approve = {"wangj3", "wangj4"};
     signatureDto.setApprove(approve);
-    BasicRequisitionTemplateDto templateDto = new BasicRequisitionTemplateDto();
-    templateDto.setId(mmiaTemplateId);
-    RequisitionV2Dto v2Dto = new RequisitionV2Dto();
-    v2Dto.setExtraData(buildExtraData(signatureDto));
-    v2Dto.setTemplate(templateDto);
-    v2Dto.setId(requisitionIdMmia);
-    v2Dto.setDraftStatusMessage("comments");
-    v2Dto.setStatus(RequisitionStatus.AUTHORIZED);
-    v2Dto.setProgram(new ObjectReferenceDto(programIdMmia));
-    v2Dto.setEmergency(false);
-    return v2Dto;
+    Requisition requisition = new Requisition();
+    requisition.setExtraData(buildExtraData(signatureDto));
+    requisition.setId(requisitionIdMmia);
+    requisition.setDraftStatusMessage("comments");
+    requisition.setStatus(RequisitionStatus.AUTHORIZED);
+    requisition.setProgramId(programIdMmia);
+    requisition.setEmergency(false);
+    return requisition;
   }
 
-  private RequisitionV2Dto buildRapidTestV2Dto() {
+  private Requisition buildRapidTestRequisition() {
     ExtraDataSignatureDto signatureDto = new ExtraDataSignatureDto();
     signatureDto.setSubmit("wangj5");
     signatureDto.setAuthorize("wangj6");
     String[] approve = {"wangj7", "wangj8"};
     signatureDto.setApprove(approve);
-    BasicRequisitionTemplateDto templateDto = new BasicRequisitionTemplateDto();
-    templateDto.setId(rapidtestTemplateId);
-    RequisitionV2Dto v2Dto = new RequisitionV2Dto();
-    v2Dto.setExtraData(buildExtraData(signatureDto));
-    v2Dto.setTemplate(templateDto);
-    v2Dto.setId(requisitionIdRapidTest);
-    v2Dto.setStatus(RequisitionStatus.AUTHORIZED);
-    v2Dto.setProgram(new ObjectReferenceDto(programIdRapidTest));
-    v2Dto.setEmergency(false);
-    return v2Dto;
+    Requisition requisition = new Requisition();
+    requisition.setExtraData(buildExtraData(signatureDto));
+    requisition.setId(requisitionIdRapidTest);
+    requisition.setStatus(RequisitionStatus.AUTHORIZED);
+    requisition.setProgramId(programIdRapidTest);
+    requisition.setEmergency(false);
+    return requisition;
   }
 
-  private RequisitionV2Dto buildMmtbV2Dto() {
+  private Requisition buildMmtbRequisition() {
     ExtraDataSignatureDto signatureDto = new ExtraDataSignatureDto();
     signatureDto.setSubmit("wangj5");
     signatureDto.setAuthorize("wangj6");
     String[] approve = {"wangj7", "wangj8"};
     signatureDto.setApprove(approve);
-    BasicRequisitionTemplateDto templateDto = new BasicRequisitionTemplateDto();
-    templateDto.setId(mmtbTemplateId);
-    RequisitionV2Dto v2Dto = new RequisitionV2Dto();
-    v2Dto.setExtraData(buildExtraData(signatureDto));
-    v2Dto.setTemplate(templateDto);
-    v2Dto.setId(requisitionIdMmtb);
-    v2Dto.setStatus(RequisitionStatus.AUTHORIZED);
-    v2Dto.setProgram(new ObjectReferenceDto(programIdMmtb));
-    v2Dto.setEmergency(false);
-    return v2Dto;
+    Requisition requisition = new Requisition();
+    requisition.setExtraData(buildExtraData(signatureDto));
+    requisition.setId(requisitionIdMmtb);
+    requisition.setStatus(RequisitionStatus.AUTHORIZED);
+    requisition.setProgramId(programIdMmtb);
+    requisition.setEmergency(false);
+    return requisition;
   }
 
   private List<RequisitionExtension> buildRequisitionExtension() {
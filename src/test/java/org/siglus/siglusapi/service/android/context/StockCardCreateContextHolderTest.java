@@ -15,13 +15,19 @@
 
 package org.siglus.siglusapi.service.android.context;
 
+import static java.util.Collections.singleton;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
+import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -32,13 +38,24 @@ import org.openlmis.requisition.dto.ApprovedProductDto;
 import org.openlmis.requisition.dto.OrderableDto;
 import org.openlmis.requisition.dto.ProgramDto;
 import org.openlmis.requisition.service.RequisitionService;
+import org.openlmis.requisition.service.referencedata.ProgramReferenceDataService;
+import org.siglus.siglusapi.dto.FacilityDto;
+import org.siglus.siglusapi.dto.FacilityTypeDto;
+import org.siglus.siglusapi.dto.android.PeriodOfProductMovements;
+import org.siglus.siglusapi.dto.android.StocksOnHand;
 import org.siglus.siglusapi.migration.AdditionalOrderable;
 import org.siglus.siglusapi.migration.MasterDataRepository;
+import org.siglus.siglusapi.repository.StockManagementRepository;
+import org.siglus.siglusapi.service.SiglusValidReasonAssignmentService;
+import org.siglus.siglusapi.service.SiglusValidSourceDestinationService;
 import org.siglus.siglusapi.util.SiglusAuthenticationHelper;
+import org.siglus.siglusapi.util.SupportedProgramsHelper;
 
 @RunWith(MockitoJUnitRunner.class)
 public class StockCardCreateContextHolderTest {
 
+  private static final String PRODUCT_CODE = "product-code";
+
   private ProgramDto program;
   private UUID homeFacilityId;
   private AdditionalOrderable additionalOrderable;
@@ -51,6 +68,16 @@ public class StockCardCreateContextHolderTest {
   private MasterDataRepository masterDataRepository;
   @Mock
   private RequisitionService requisitionService;
+  @Mock
+  private SupportedProgramsHelper programsHelper;
+  @Mock
+  private ProgramReferenceDataService programDataService;
+  @Mock
+  private StockManagementRepository stockManagementRepository;
+  @Mock
+  private SiglusValidReasonAssignmentService reasonService;
+  @Mock
+  private SiglusValidSourceDestinationService nodeService;
 
   private ApprovedProductDto actualApprovedOrderable;
 
@@ -67,6 +94,50 @@ public class StockCardCreateContextHolderTest {
     actualApprovedOrderable = prepareMockedApprovedProduct(homeFacilityId, program);
   }
 
+  @After
+  public void tearDown() {
+    StockCardCreateContextHolder.clearContext();
+  }
+
+  @Test
+  public void shouldLoadMovementsOfRequestedProductsOnlyWhenInitContextGivenProductCodes() {
+    // given
+    LocalDate earliest = LocalDate.of(2026, 1, 1);
+    mockSupportedProgram();
+    PeriodOfProductMovements movements = new PeriodOfProductMovements(Collections.emptyList(),
+        new StocksOnHand(Collections.emptyList()));
+    given(stockManagementRepository.getStockOnHandByOrderableIds(homeFacilityId,
+        singleton(actualApprovedOrderable.getId()))).willReturn(new StocksOnHand(Collections.emptyList()));
+    given(stockManagementRepository.getAllProductMovements(homeFacilityId, singleton(actualApprovedOrderable.getId()),
+        earliest, null)).willReturn(movements);
+
+    // when
+    stockCardCreateContextHolder.initContext(buildFacility(), earliest, singletonList(PRODUCT_CODE));
+
+    // then
+    StockCardCreateContext context = StockCardCreateContextHolder.getContext();
+    assertThat(context.getAllProductMovements()).isSameAs(movements);
+    assertThat(context.getApprovedProducts()).containsOnlyKeys(PRODUCT_CODE);
+    verify(stockManagementRepository).getStockOnHandByOrderableIds(homeFacilityId,
+        singleton(actualApprovedOrderable.getId()));
+  }
+
+  @Test
+  public void shouldNotLoadMovementsWhenInitContextGivenNoRequestedProductApproved() {
+    // given
+    mockSupportedProgram();
+
+    // when
+    stockCardCreateContextHolder.initContext(buildFacility(), LocalDate.of(2026, 1, 1),
+        singletonList("not-approved-code"));
+
+    // then
+    StockCardCreateContext context = StockCardCreateContextHolder.getContext();
+    assertThat(context.getAllProductMovements().getProductMovements()).isEmpty();
+    assertThat(context.getApprovedProducts()).containsOnlyKeys(PRODUCT_CODE);
+    verifyZeroInteractions(stockManagementRepository);
+  }
+
   @Test
   public void shouldReturnApprovedOrderablesPlusAdditionalOderablesWhenGetProgramProductsGivenMigrationAuthContext() {
     // given
@@ -97,11 +168,26 @@ public class StockCardCreateContextHolderTest {
         .containsExactlyInAnyOrder(actualApprovedOrderable.getId());
   }
 
+  private void mockSupportedProgram() {
+    given(programsHelper.findHomeFacilitySupportedProgramIds()).willReturn(singleton(program.getId()));
+    given(programDataService.findOne(program.getId())).willReturn(program);
+  }
+
+  private FacilityDto buildFacility() {
+    FacilityTypeDto facilityType = new FacilityTypeDto();
+    facilityType.setId(UUID.randomUUID());
+    FacilityDto facility = new FacilityDto();
+    facility.setId(homeFacilityId);
+    facility.setType(facilityType);
+    return facility;
+  }
+
   private ApprovedProductDto prepareMockedApprovedProduct(UUID homeFacilityId, ProgramDto program) {
     ApprovedProductDto actualApprovedOrderable = new ApprovedProductDto();
     actualApprovedOrderable.setId(UUID.randomUUID());
     OrderableDto orderable = new OrderableDto();
     orderable.setId(actualApprovedOrderable.getId());
+    orderable.setProductCode(PRODUCT_CODE);
     actualApprovedOrderable.setOrderable(orderable);
     given(requisitionService.getApprovedProductsWithoutAdditional(homeFacilityId, program.getId()))
         .willReturn(singletonList(actualApprovedOrderable));
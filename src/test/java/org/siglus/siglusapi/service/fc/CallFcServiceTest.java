@@ -25,13 +25,12 @@ import static org.siglus.siglusapi.constant.FcConstants.PROGRAM_API;
 import static org.siglus.siglusapi.constant.FcConstants.RECEIPT_PLAN_API;
 import static org.siglus.siglusapi.constant.FcConstants.REGIMEN_API;
 
-import java.util.ArrayList;
 import org.junit.Assert;
-import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.siglus.siglusapi.dto.fc.CmmDto;
 import org.siglus.siglusapi.dto.fc.CpDto;
+import org.siglus.siglusapi.dto.fc.FcPageDto;
 import org.siglus.siglusapi.dto.fc.IssueVoucherDto;
 import org.siglus.siglusapi.dto.fc.ProductInfoDto;
 import org.siglus.siglusapi.dto.fc.ProgramDto;
@@ -61,16 +60,6 @@ public class CallFcServiceTest {
 
   public static final String URL = "http://localhost/test/tests?psize=20&page=1";
 
-  @Before
-  public void setup() {
-    callFcService.setIssueVouchers(new ArrayList<>());
-    callFcService.setReceiptPlans(new ArrayList<>());
-    callFcService.setCmms(new ArrayList<>());
-    callFcService.setCps(new ArrayList<>());
-    callFcService.setPrograms(new ArrayList<>());
-    callFcService.setRegimens(new ArrayList<>());
-  }
-
   @Test(expected = Exception.class)
   public void shouldRetryAndThrowExceptionWhenFetchDataFailed() {
     // given
@@ -92,11 +81,11 @@ public class CallFcServiceTest {
         .thenReturn(new ResponseEntity<>(issueVoucherDtos, headers, HttpStatus.OK));
 
     // when
-    callFcService.fetchData(URL, ISSUE_VOUCHER_API);
+    FcPageDto page = callFcService.fetchData(URL, ISSUE_VOUCHER_API);
 
     // then
     verify(remoteRestTemplate).getForEntity(URL, IssueVoucherDto[].class);
-    Assert.assertEquals(1, callFcService.getIssueVouchers().size());
+    Assert.assertEquals(1, page.getContent().size());
   }
 
   @Test
@@ -109,11 +98,11 @@ public class CallFcServiceTest {
         .thenReturn(new ResponseEntity<>(receiptPlanDtos, headers, HttpStatus.OK));
 
     // when
-    callFcService.fetchData(URL, RECEIPT_PLAN_API);
+    FcPageDto page = callFcService.fetchData(URL, RECEIPT_PLAN_API);
 
     // then
     verify(remoteRestTemplate).getForEntity(URL, ReceiptPlanDto[].class);
-    Assert.assertEquals(1, callFcService.getReceiptPlans().size());
+    Assert.assertEquals(1, page.getContent().size());
   }
 
   @Test
@@ -126,11 +115,11 @@ public class CallFcServiceTest {
         .thenReturn(new ResponseEntity<>(cmmDtos, headers, HttpStatus.OK));
 
     // when
-    callFcService.fetchData(URL, CMM_API);
+    FcPageDto page = callFcService.fetchData(URL, CMM_API);
 
     // then
     verify(remoteRestTemplate).getForEntity(URL, CmmDto[].class);
-    Assert.assertEquals(1, callFcService.getCmms().size());
+    Assert.assertEquals(1, page.getContent().size());
   }
 
   @Test
@@ -143,11 +132,11 @@ public class CallFcServiceTest {
         .thenReturn(new ResponseEntity<>(cpDtos, headers, HttpStatus.OK));
 
     // when
-    callFcService.fetchData(URL, CP_API);
+    FcPageDto page = callFcService.fetchData(URL, CP_API);
 
     // then
     verify(remoteRestTemplate).getForEntity(URL, CpDto[].class);
-    Assert.assertEquals(1, callFcService.getCps().size());
+    Assert.assertEquals(1, page.getContent().size());
   }
 
   @Test
@@ -160,11 +149,11 @@ public class CallFcServiceTest {
         .thenReturn(new ResponseEntity<>(programDtos, headers, HttpStatus.OK));
 
     // when
-    callFcService.fetchData(URL, PROGRAM_API);
+    FcPageDto page = callFcService.fetchData(URL, PROGRAM_API);
 
     // then
     verify(remoteRestTemplate).getForEntity(URL, ProgramDto[].class);
-    Assert.assertEquals(1, callFcService.getPrograms().size());
+    Assert.assertEquals(1, page.getContent().size());
   }
 
   @Test
@@ -177,11 +166,11 @@ public class CallFcServiceTest {
         .thenReturn(new ResponseEntity<>(productInfoDtos, headers, HttpStatus.OK));
 
     // when
-    callFcService.fetchData(URL, PRODUCT_API);
+    FcPageDto page = callFcService.fetchData(URL, PRODUCT_API);
 
     // then
     verify(remoteRestTemplate).getForEntity(URL, ProductInfoDto[].class);
-    Assert.assertEquals(1, callFcService.getProducts().size());
+    Assert.assertEquals(1, page.getContent().size());
   }
 
   @Test
@@ -194,11 +183,11 @@ public class CallFcServiceTest {
         .thenReturn(new ResponseEntity<>(regimenDtos, headers, HttpStatus.OK));
 
     // when
-    callFcService.fetchData(URL, REGIMEN_API);
+    FcPageDto page = callFcService.fetchData(URL, REGIMEN_API);
 
     // then
     verify(remoteRestTemplate).getForEntity(URL, RegimenDto[].class);
-    Assert.assertEquals(1, callFcService.getRegimens().size());
+    Assert.assertEquals(1, page.getContent().size());
   }
 
   @Test
@@ -211,11 +200,11 @@ public class CallFcServiceTest {
         .thenReturn(new ResponseEntity<>(issueVoucherDtos, headers, HttpStatus.OK));
 
     // when
-    callFcService.fetchData(URL, ISSUE_VOUCHER_API);
+    FcPageDto page = callFcService.fetchData(URL, ISSUE_VOUCHER_API);
 
     // then
     verify(remoteRestTemplate).getForEntity(URL, IssueVoucherDto[].class);
-    Assert.assertEquals(0, callFcService.getIssueVouchers().size());
+    Assert.assertEquals(0, page.getContent().size());
   }
 
   @Test
@@ -227,14 +216,11 @@ public class CallFcServiceTest {
         .thenReturn(new ResponseEntity<>(issueVoucherDtos, headers, HttpStatus.OK));
 
     // when
-    callFcService.fetchData(URL, ISSUE_VOUCHER_API);
+    FcPageDto page = callFcService.fetchData(URL, ISSUE_VOUCHER_API);
 
     // then
     verify(remoteRestTemplate).getForEntity(URL, IssueVoucherDto[].class);
-    Assert.assertEquals(0, callFcService.getIssueVouchers().size());
-    Assert.assertEquals(0, callFcService.getReceiptPlans().size());
-    Assert.assertEquals(0, callFcService.getCmms().size());
-    Assert.assertEquals(0, callFcService.getCps().size());
+    Assert.assertTrue(page.isEmpty());
   }
 
   private MultiValueMap<String, String> getHeaders(String s) {
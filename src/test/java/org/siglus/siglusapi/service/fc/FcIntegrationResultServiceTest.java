@@ -16,8 +16,12 @@
 package org.siglus.siglusapi.service.fc;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.siglus.siglusapi.constant.FcConstants.CMM_API;
@@ -34,7 +38,7 @@ import static org.siglus.siglusapi.service.fc.FcVariables.LAST_UPDATED_AT;
 import static org.siglus.siglusapi.service.fc.FcVariables.START_DATE;
 
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
+import java.util.UUID;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -61,9 +65,6 @@ public class FcIntegrationResultServiceTest {
   @Mock
   private SiglusDateHelper dateHelper;
 
-  @Mock
-  private CallFcService callFcService;
-
   @InjectMocks
   private FcIntegrationResultService fcIntegrationResultService;
 
@@ -155,7 +156,6 @@ public class FcIntegrationResultServiceTest {
         .api(CMM_API)
         .lastUpdatedAt(LAST_UPDATED_AT)
         .build();
-    when(callFcService.getCmms()).thenReturn(new ArrayList<>());
 
     // when
     fcIntegrationResultService.recordFcIntegrationResult(resultDto);
@@ -172,7 +172,6 @@ public class FcIntegrationResultServiceTest {
         .api(CP_API)
         .lastUpdatedAt(LAST_UPDATED_AT)
         .build();
-    when(callFcService.getCps()).thenReturn(new ArrayList<>());
 
     // when
     fcIntegrationResultService.recordFcIntegrationResult(resultDto);
@@ -189,7 +188,6 @@ public class FcIntegrationResultServiceTest {
         .api(PROGRAM_API)
         .lastUpdatedAt(LAST_UPDATED_AT)
         .build();
-    when(callFcService.getPrograms()).thenReturn(new ArrayList<>());
 
     // when
     fcIntegrationResultService.recordFcIntegrationResult(resultDto);
@@ -206,7 +204,6 @@ public class FcIntegrationResultServiceTest {
         .api(PRODUCT_API)
         .lastUpdatedAt(LAST_UPDATED_AT)
         .build();
-    when(callFcService.getProducts()).thenReturn(new ArrayList<>());
 
     // when
     fcIntegrationResultService.recordFcIntegrationResult(resultDto);
@@ -223,7 +220,6 @@ public class FcIntegrationResultServiceTest {
         .api(FACILITY_TYPE_API)
         .lastUpdatedAt(LAST_UPDATED_AT)
         .build();
-    when(callFcService.getFacilityTypes()).thenReturn(new ArrayList<>());
 
     // when
     fcIntegrationResultService.recordFcIntegrationResult(resultDto);
@@ -240,7 +236,6 @@ public class FcIntegrationResultServiceTest {
         .api(FACILITY_API)
         .lastUpdatedAt(LAST_UPDATED_AT)
         .build();
-    when(callFcService.getFacilities()).thenReturn(new ArrayList<>());
 
     // when
     fcIntegrationResultService.recordFcIntegrationResult(resultDto);
@@ -257,7 +252,6 @@ public class FcIntegrationResultServiceTest {
         .api(REGIMEN_API)
         .lastUpdatedAt(LAST_UPDATED_AT)
         .build();
-    when(callFcService.getRegimens()).thenReturn(new ArrayList<>());
 
     // when
     fcIntegrationResultService.recordFcIntegrationResult(resultDto);
@@ -274,7 +268,6 @@ public class FcIntegrationResultServiceTest {
         .api(GEOGRAPHIC_ZONE_API)
         .lastUpdatedAt(LAST_UPDATED_AT)
         .build();
-    when(callFcService.getGeographicZones()).thenReturn(new ArrayList<>());
 
     // when
     fcIntegrationResultService.recordFcIntegrationResult(resultDto);
@@ -291,7 +284,6 @@ public class FcIntegrationResultServiceTest {
         .api(RECEIPT_PLAN_API)
         .lastUpdatedAt(LAST_UPDATED_AT)
         .build();
-    when(callFcService.getReceiptPlans()).thenReturn(new ArrayList<>());
 
     // when
     fcIntegrationResultService.recordFcIntegrationResult(resultDto);
@@ -301,4 +293,137 @@ public class FcIntegrationResultServiceTest {
     assertEquals(LAST_UPDATED_AT, resultCaptor.getValue().getLastUpdatedAt());
   }
 
+  @Test
+  public void shouldStartNewCheckpointWhenGetCheckpointGivenNoUnfinishedCheckpoint() {
+    // given
+    when(fcIntegrationResultRepository.findTopByApiAndStartDateAndFinalSuccessAndLastPageNotNullOrderByProcessDateDesc(
+        CMM_API, START_DATE, false)).thenReturn(null);
+
+    // when
+    FcIntegrationResult checkpoint = fcIntegrationResultService.getCheckpoint(CMM_API, START_DATE, LAST_UPDATED_AT);
+
+    // then
+    assertNull(checkpoint.getLastPage());
+    assertEquals(LAST_UPDATED_AT, checkpoint.getLastUpdatedAt());
+    assertEquals(Integer.valueOf(0), checkpoint.getTotalObjects());
+  }
+
+  @Test
+  public void shouldAccumulateCountsWhenRecordCheckpoint() {
+    // given
+    FcIntegrationResult checkpoint = FcIntegrationResult.builder()
+        .api(CMM_API)
+        .lastUpdatedAt(LAST_UPDATED_AT)
+        .totalObjects(20)
+        .createdObjects(5)
+        .updatedObjects(15)
+        .lastPage(1)
+        .build();
+    FcIntegrationResultDto pageResultDto = FcIntegrationResultDto.builder()
+        .lastUpdatedAt(LAST_UPDATED_AT.plusDays(1))
+        .totalObjects(10)
+        .createdObjects(10)
+        .updatedObjects(0)
+        .build();
+
+    // when
+    fcIntegrationResultService.recordCheckpoint(checkpoint, pageResultDto, 2);
+
+    // then
+    verify(fcIntegrationResultRepository).save(resultCaptor.capture());
+    assertEquals(Integer.valueOf(1), checkpoint.getLastPage());
+    assertEquals(Integer.valueOf(20), checkpoint.getTotalObjects());
+    assertEquals(Integer.valueOf(2), resultCaptor.getValue().getLastPage());
+    assertEquals(Integer.valueOf(30), resultCaptor.getValue().getTotalObjects());
+    assertEquals(Integer.valueOf(15), resultCaptor.getValue().getCreatedObjects());
+    assertEquals(LAST_UPDATED_AT.plusDays(1), resultCaptor.getValue().getLastUpdatedAt());
+  }
+
+  @Test
+  public void shouldMarkFinalSuccessWhenFinishCheckpoint() {
+    // given
+    FcIntegrationResult checkpoint = FcIntegrationResult.builder().api(CP_API).finalSuccess(false).lastPage(3).build();
+    when(dateHelper.getCurrentMonthStr()).thenReturn(START_DATE);
+
+    // when
+    fcIntegrationResultService.finishCheckpoint(checkpoint);
+
+    // then
+    verify(fcIntegrationResultRepository).save(resultCaptor.capture());
+    assertTrue(resultCaptor.getValue().getFinalSuccess());
+    assertEquals(START_DATE, resultCaptor.getValue().getEndDate());
+  }
+
+  @Test
+  public void shouldNotSaveWhenRecordCheckpointErrorGivenNoPageCommitted() {
+    // when
+    fcIntegrationResultService.recordCheckpointError(FcIntegrationResult.builder().api(CMM_API).build(), "error");
+
+    // then
+    verify(fcIntegrationResultRepository, never()).save(any(FcIntegrationResult.class));
+  }
+
+  @Test
+  public void shouldResumeCheckpointWhenGetCheckpointGivenRecentUnfinishedCheckpoint() {
+    // given
+    FcIntegrationResult unfinished = FcIntegrationResult.builder().api(CMM_API).lastPage(2)
+        .processDate(ZonedDateTime.now().minusHours(1)).build();
+    when(fcIntegrationResultRepository.findTopByApiAndStartDateAndFinalSuccessAndLastPageNotNullOrderByProcessDateDesc(
+        CMM_API, START_DATE, false)).thenReturn(unfinished);
+
+    // when
+    FcIntegrationResult checkpoint = fcIntegrationResultService.getCheckpoint(CMM_API, START_DATE, LAST_UPDATED_AT);
+
+    // then
+    assertEquals(Integer.valueOf(2), checkpoint.getLastPage());
+  }
+
+  @Test
+  public void shouldStartNewCheckpointWhenGetCheckpointGivenStaleUnfinishedCheckpoint() {
+    // given
+    FcIntegrationResult stale = FcIntegrationResult.builder().api(CMM_API).lastPage(2)
+        .processDate(ZonedDateTime.now().minus(FcIntegrationResultService.CHECKPOINT_MAX_AGE).minusMinutes(1))
+        .build();
+    when(fcIntegrationResultRepository.findTopByApiAndStartDateAndFinalSuccessAndLastPageNotNullOrderByProcessDateDesc(
+        CMM_API, START_DATE, false)).thenReturn(stale);
+
+    // when
+    FcIntegrationResult checkpoint = fcIntegrationResultService.getCheckpoint(CMM_API, START_DATE, LAST_UPDATED_AT);
+
+    // then
+    assertNull(checkpoint.getLastPage());
+    assertEquals(Integer.valueOf(0), checkpoint.getTotalObjects());
+  }
+
+  @Test
+  public void shouldSaveErrorOnPersistedCheckpointWhenRecordCheckpointError() {
+    // given
+    UUID id = UUID.randomUUID();
+    FcIntegrationResult persisted = FcIntegrationResult.builder().api(CMM_API).lastPage(1).build();
+    persisted.setId(id);
+    FcIntegrationResult inMemory = FcIntegrationResult.builder().api(CMM_API).lastPage(2).build();
+    inMemory.setId(id);
+    when(fcIntegrationResultRepository.findOne(id)).thenReturn(persisted);
+
+    // when
+    fcIntegrationResultService.recordCheckpointError(inMemory, "error");
+
+    // then
+    verify(fcIntegrationResultRepository).save(resultCaptor.capture());
+    assertEquals(Integer.valueOf(1), resultCaptor.getValue().getLastPage());
+    assertEquals("error", resultCaptor.getValue().getErrorMessage());
+  }
+
+  @Test
+  public void shouldNotSaveWhenRecordCheckpointErrorGivenCheckpointNeverCommitted() {
+    // given
+    FcIntegrationResult inMemory = FcIntegrationResult.builder().api(CMM_API).lastPage(1).build();
+    inMemory.setId(UUID.randomUUID());
+
+    // when
+    fcIntegrationResultService.recordCheckpointError(inMemory, "error");
+
+    // then
+    verify(fcIntegrationResultRepository, never()).save(any(FcIntegrationResult.class));
+  }
 }
@@ -16,10 +16,17 @@
 package org.siglus.siglusapi.service.fc;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.siglus.siglusapi.constant.FcConstants.CMM_API;
@@ -34,8 +41,10 @@ import static org.siglus.siglusapi.constant.FcConstants.RECEIPT_PLAN_API;
 import static org.siglus.siglusapi.constant.FcConstants.REGIMEN_API;
 import static org.siglus.siglusapi.service.fc.FcVariables.LAST_UPDATED_AT;
 
-import java.util.ArrayList;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -45,29 +54,34 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.siglus.siglusapi.domain.FcIntegrationResult;
 import org.siglus.siglusapi.dto.fc.CmmDto;
 import org.siglus.siglusapi.dto.fc.CpDto;
 import org.siglus.siglusapi.dto.fc.FcFacilityDto;
 import org.siglus.siglusapi.dto.fc.FcFacilityTypeDto;
 import org.siglus.siglusapi.dto.fc.FcGeographicZoneNationalDto;
 import org.siglus.siglusapi.dto.fc.FcIntegrationResultDto;
+import org.siglus.siglusapi.dto.fc.FcPageDto;
 import org.siglus.siglusapi.dto.fc.IssueVoucherDto;
 import org.siglus.siglusapi.dto.fc.PageInfoDto;
 import org.siglus.siglusapi.dto.fc.ProductInfoDto;
 import org.siglus.siglusapi.dto.fc.ProgramDto;
 import org.siglus.siglusapi.dto.fc.ReceiptPlanDto;
 import org.siglus.siglusapi.dto.fc.RegimenDto;
+import org.siglus.siglusapi.dto.fc.ResponseBaseDto;
 import org.siglus.siglusapi.service.client.SiglusIssueVoucherService;
 import org.siglus.siglusapi.service.client.SiglusReceiptPlanService;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 @RunWith(MockitoJUnitRunner.class)
 @SuppressWarnings("PMD.TooManyMethods")
 public class FcScheduleServiceTest {
 
   public static final String DATE = "20000101";
-  public static final String MONTH = "01-2020";
+  public static final String MONTH = "01-2000";
 
   @InjectMocks
   private FcScheduleService fcScheduleService;
@@ -123,8 +137,14 @@ public class FcScheduleServiceTest {
   @Mock
   private ValueOperations<String, String> valueOperations;
 
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
   @Before
   public void setup() {
+    ReflectionTestUtils.setField(fcScheduleService, "pageSize", 20);
+    ReflectionTestUtils.setField(fcScheduleService, "fetchConcurrency", 2);
+    ReflectionTestUtils.setField(fcScheduleService, "executorService", MoreExecutors.newDirectExecutorService());
     when(fcIssueVoucherService.processData(any(), any(), any())).thenReturn(new FcIntegrationResultDto());
     when(redisTemplate.opsForValue()).thenReturn(valueOperations);
     when(valueOperations.setIfAbsent(any(), any())).thenReturn(true);
@@ -134,8 +154,7 @@ public class FcScheduleServiceTest {
   @Test
   public void shouldFetchReceiptPlanFromFc() {
     // given
-    when(callFcService.getReceiptPlans()).thenReturn(Collections.singletonList(new ReceiptPlanDto()));
-    when(callFcService.getPageInfoDto()).thenReturn(new PageInfoDto());
+    when(callFcService.fetchData(anyString(), anyString())).thenReturn(buildPage(new ReceiptPlanDto()));
     when(fcIntegrationResultService.getLastUpdatedAt(RECEIPT_PLAN_API)).thenReturn(LAST_UPDATED_AT);
     when(fcReceiptPlanService.processData(any(), any(), any())).thenReturn(FcIntegrationResultDto.builder()
         .api(RECEIPT_PLAN_API).build());
@@ -168,8 +187,7 @@ public class FcScheduleServiceTest {
   @Ignore()
   public void shouldGeographicZoneScheduleFromFc() {
     // given
-    when(callFcService.getGeographicZones()).thenReturn(Collections.singletonList(new FcGeographicZoneNationalDto()));
-    when(callFcService.getPageInfoDto()).thenReturn(new PageInfoDto());
+    when(callFcService.fetchData(anyString(), anyString())).thenReturn(buildPage(new FcGeographicZoneNationalDto()));
     when(fcIntegrationResultService.getLastUpdatedAt(GEOGRAPHIC_ZONE_API)).thenReturn(LAST_UPDATED_AT);
     when(fcGeographicZoneService.processData(any(), any(), any())).thenReturn(FcIntegrationResultDto.builder()
         .api(GEOGRAPHIC_ZONE_API).build());
@@ -187,8 +205,7 @@ public class FcScheduleServiceTest {
   @Test
   public void shouldFetchFacilityScheduleFromFc() {
     // given
-    when(callFcService.getFacilities()).thenReturn(Collections.singletonList(new FcFacilityDto()));
-    when(callFcService.getPageInfoDto()).thenReturn(new PageInfoDto());
+    when(callFcService.fetchData(anyString(), anyString())).thenReturn(buildPage(new FcFacilityDto()));
     when(fcIntegrationResultService.getLastUpdatedAt(FACILITY_API)).thenReturn(LAST_UPDATED_AT);
     when(fcFacilityService.processData(any(), any(), any())).thenReturn(FcIntegrationResultDto.builder()
         .api(FACILITY_API).build());
@@ -207,8 +224,6 @@ public class FcScheduleServiceTest {
   @Test
   public void shouldFetchIssueVoucherScheduleFromFc() {
     // given
-    when(callFcService.getIssueVouchers()).thenReturn(new ArrayList<>());
-    when(callFcService.getPageInfoDto()).thenReturn(new PageInfoDto());
     when(fcIntegrationResultService.getLastUpdatedAt(ISSUE_VOUCHER_API)).thenReturn(LAST_UPDATED_AT);
 
     // when
@@ -236,8 +251,7 @@ public class FcScheduleServiceTest {
   @Test
   public void shouldFetchIssueVoucherFromFc() {
     // given
-    when(callFcService.getIssueVouchers()).thenReturn(Collections.singletonList(new IssueVoucherDto()));
-    when(callFcService.getPageInfoDto()).thenReturn(new PageInfoDto());
+    when(callFcService.fetchData(anyString(), anyString())).thenReturn(buildPage(new IssueVoucherDto()));
     when(fcIssueVoucherService.processData(any(), any(), any())).thenReturn(FcIntegrationResultDto.builder()
         .api(ISSUE_VOUCHER_API).build());
 
@@ -254,8 +268,7 @@ public class FcScheduleServiceTest {
   @Test
   public void shouldFetchProductsFromFc() {
     // given
-    when(callFcService.getProducts()).thenReturn(Collections.singletonList(new ProductInfoDto()));
-    when(callFcService.getPageInfoDto()).thenReturn(new PageInfoDto());
+    when(callFcService.fetchData(anyString(), anyString())).thenReturn(buildPage(new ProductInfoDto()));
     when(fcIntegrationResultService.getLastUpdatedAt(PRODUCT_API)).thenReturn(LAST_UPDATED_AT);
     when(fcProductService.processData(any(), any(), any())).thenReturn(FcIntegrationResultDto.builder()
         .api(PRODUCT_API).build());
@@ -273,88 +286,103 @@ public class FcScheduleServiceTest {
   @Test
   public void shouldFetchCmmsFromFcWithCurrentPeriod() {
     // given
-    when(callFcService.getCmms()).thenReturn(Collections.singletonList(new CmmDto()));
-    when(callFcService.getPageInfoDto()).thenReturn(new PageInfoDto());
+    when(callFcService.fetchData(anyString(), anyString())).thenReturn(buildPage(new CmmDto()));
     when(fcIntegrationResultService.getLastUpdatedAt(CMM_API)).thenReturn(LAST_UPDATED_AT);
+    FcIntegrationResult checkpoint = FcIntegrationResult.builder().api(CMM_API).startDate(MONTH).build();
+    when(fcIntegrationResultService.getCheckpoint(CMM_API, MONTH, LAST_UPDATED_AT)).thenReturn(checkpoint);
     when(fcCmmService.processData(any(), any(), any())).thenReturn(
-        FcIntegrationResultDto.builder().api(CMM_API).startDate(MONTH).build());
+        FcIntegrationResultDto.builder().api(CMM_API).startDate(MONTH).finalSuccess(true).build());
+    when(fcIntegrationResultService.recordCheckpoint(any(), any(), anyInt())).thenAnswer(invocation -> {
+      checkpoint.setLastPage(invocation.getArgumentAt(2, Integer.class));
+      return checkpoint;
+    });
 
     // when
     fcScheduleService.syncCmms(DATE);
 
     // then
-    verify(callFcService).fetchData(anyString(), anyString());
-    verify(fcCmmService).processData(any(), any(), any());
-    verify(fcIntegrationResultService).recordFcIntegrationResult(resultCaptor.capture());
-    assertEquals(CMM_API, resultCaptor.getValue().getApi());
-    assertEquals(MONTH, resultCaptor.getValue().getStartDate());
+    verify(callFcService).fetchData(contains("page=1&"), anyString());
+    verify(fcCmmService).processData(any(), eq(MONTH), any());
+    verify(fcIntegrationResultService).recordCheckpoint(eq(checkpoint), any(), eq(1));
+    verify(fcIntegrationResultService).finishCheckpoint(checkpoint);
   }
 
   @Test
   public void shouldFetchCmmsFromFcWithNextPeriod() {
     // given
-    when(callFcService.getCmms()).thenReturn(Collections.singletonList(new CmmDto()));
-    when(callFcService.getPageInfoDto()).thenReturn(new PageInfoDto());
+    when(callFcService.fetchData(anyString(), anyString())).thenReturn(buildPage(new CmmDto()));
     when(fcIntegrationResultService.getLastUpdatedAt(CMM_API)).thenReturn(LAST_UPDATED_AT);
+    FcIntegrationResult checkpoint = FcIntegrationResult.builder().api(CMM_API).startDate(MONTH).build();
+    when(fcIntegrationResultService.getCheckpoint(CMM_API, MONTH, LAST_UPDATED_AT)).thenReturn(checkpoint);
     when(fcCmmService.processData(any(), any(), any())).thenReturn(
-        FcIntegrationResultDto.builder().api(CMM_API).startDate(MONTH).build());
+        FcIntegrationResultDto.builder().api(CMM_API).startDate(MONTH).finalSuccess(true).build());
+    when(fcIntegrationResultService.recordCheckpoint(any(), any(), anyInt())).thenAnswer(invocation -> {
+      checkpoint.setLastPage(invocation.getArgumentAt(2, Integer.class));
+      return checkpoint;
+    });
 
     // when
     fcScheduleService.syncCmms(DATE);
 
     // then
-    verify(callFcService).fetchData(anyString(), anyString());
-    verify(fcCmmService).processData(any(), any(), any());
-    verify(fcIntegrationResultService).recordFcIntegrationResult(resultCaptor.capture());
-    assertEquals(CMM_API, resultCaptor.getValue().getApi());
-    assertEquals(MONTH, resultCaptor.getValue().getStartDate());
+    verify(callFcService).fetchData(contains("page=1&"), anyString());
+    verify(fcCmmService).processData(any(), eq(MONTH), any());
+    verify(fcIntegrationResultService).recordCheckpoint(eq(checkpoint), any(), eq(1));
+    verify(fcIntegrationResultService).finishCheckpoint(checkpoint);
   }
 
   @Test
   public void shouldFetchCpsFromFcWithCurrentPeriod() {
     // given
-    when(callFcService.getCps()).thenReturn(Collections.singletonList(new CpDto()));
-    when(callFcService.getPageInfoDto()).thenReturn(new PageInfoDto());
+    when(callFcService.fetchData(anyString(), anyString())).thenReturn(buildPage(new CpDto()));
     when(fcIntegrationResultService.getLastUpdatedAt(CP_API)).thenReturn(LAST_UPDATED_AT);
+    FcIntegrationResult checkpoint = FcIntegrationResult.builder().api(CP_API).startDate(MONTH).build();
+    when(fcIntegrationResultService.getCheckpoint(CP_API, MONTH, LAST_UPDATED_AT)).thenReturn(checkpoint);
     when(fcCpService.processData(any(), any(), any())).thenReturn(
-        FcIntegrationResultDto.builder().api(CP_API).startDate(MONTH).build());
+        FcIntegrationResultDto.builder().api(CP_API).startDate(MONTH).finalSuccess(true).build());
+    when(fcIntegrationResultService.recordCheckpoint(any(), any(), anyInt())).thenAnswer(invocation -> {
+      checkpoint.setLastPage(invocation.getArgumentAt(2, Integer.class));
+      return checkpoint;
+    });
 
     // when
     fcScheduleService.syncCps(DATE);
 
     // then
-    verify(callFcService).fetchData(anyString(), anyString());
-    verify(fcCpService).processData(any(), any(), any());
-    verify(fcIntegrationResultService).recordFcIntegrationResult(resultCaptor.capture());
-    assertEquals(CP_API, resultCaptor.getValue().getApi());
-    assertEquals(MONTH, resultCaptor.getValue().getStartDate());
+    verify(callFcService).fetchData(contains("page=1&"), anyString());
+    verify(fcCpService).processData(any(), eq(MONTH), any());
+    verify(fcIntegrationResultService).recordCheckpoint(eq(checkpoint), any(), eq(1));
+    verify(fcIntegrationResultService).finishCheckpoint(checkpoint);
   }
 
   @Test
   public void shouldFetchCpsFromFcWithNextPeriod() {
     // given
-    when(callFcService.getCps()).thenReturn(Collections.singletonList(new CpDto()));
-    when(callFcService.getPageInfoDto()).thenReturn(new PageInfoDto());
+    when(callFcService.fetchData(anyString(), anyString())).thenReturn(buildPage(new CpDto()));
     when(fcIntegrationResultService.getLastUpdatedAt(CP_API)).thenReturn(LAST_UPDATED_AT);
+    FcIntegrationResult checkpoint = FcIntegrationResult.builder().api(CP_API).startDate(MONTH).build();
+    when(fcIntegrationResultService.getCheckpoint(CP_API, MONTH, LAST_UPDATED_AT)).thenReturn(checkpoint);
     when(fcCpService.processData(any(), any(), any())).thenReturn(
-        FcIntegrationResultDto.builder().api(CP_API).startDate(MONTH).build());
+        FcIntegrationResultDto.builder().api(CP_API).startDate(MONTH).finalSuccess(true).build());
+    when(fcIntegrationResultService.recordCheckpoint(any(), any(), anyInt())).thenAnswer(invocation -> {
+      checkpoint.setLastPage(invocation.getArgumentAt(2, Integer.class));
+      return checkpoint;
+    });
 
     // when
     fcScheduleService.syncCps(DATE);
 
     // then
-    verify(callFcService).fetchData(anyString(), anyString());
-    verify(fcCpService).processData(any(), any(), any());
-    verify(fcIntegrationResultService).recordFcIntegrationResult(resultCaptor.capture());
-    assertEquals(CP_API, resultCaptor.getValue().getApi());
-    assertEquals(MONTH, resultCaptor.getValue().getStartDate());
+    verify(callFcService).fetchData(contains("page=1&"), anyString());
+    verify(fcCpService).processData(any(), eq(MONTH), any());
+    verify(fcIntegrationResultService).recordCheckpoint(eq(checkpoint), any(), eq(1));
+    verify(fcIntegrationResultService).finishCheckpoint(checkpoint);
   }
 
   @Test
   public void shouldFetchProgramsFromFc() {
     // given
-    when(callFcService.getPrograms()).thenReturn(Collections.singletonList(new ProgramDto()));
-    when(callFcService.getPageInfoDto()).thenReturn(new PageInfoDto());
+    when(callFcService.fetchData(anyString(), anyString())).thenReturn(buildPage(new ProgramDto()));
     when(fcIntegrationResultService.getLastUpdatedAt(PROGRAM_API)).thenReturn(LAST_UPDATED_AT);
     when(fcProgramService.processData(any(), any(), any())).thenReturn(FcIntegrationResultDto.builder()
         .api(PROGRAM_API).build());
@@ -372,8 +400,7 @@ public class FcScheduleServiceTest {
   @Test
   public void shouldFetchRegimensFromFc() {
     // given
-    when(callFcService.getRegimens()).thenReturn(Collections.singletonList(new RegimenDto()));
-    when(callFcService.getPageInfoDto()).thenReturn(new PageInfoDto());
+    when(callFcService.fetchData(anyString(), anyString())).thenReturn(buildPage(new RegimenDto()));
     when(fcIntegrationResultService.getLastUpdatedAt(REGIMEN_API)).thenReturn(LAST_UPDATED_AT);
     when(fcRegimenService.processData(any(), any(), any())).thenReturn(FcIntegrationResultDto.builder()
         .api(REGIMEN_API).build());
@@ -391,8 +418,7 @@ public class FcScheduleServiceTest {
   @Test
   public void shouldFetchFacilityTypeFromFc() {
     // given
-    when(callFcService.getFacilityTypes()).thenReturn(Collections.singletonList(new FcFacilityTypeDto()));
-    when(callFcService.getPageInfoDto()).thenReturn(new PageInfoDto());
+    when(callFcService.fetchData(anyString(), anyString())).thenReturn(buildPage(new FcFacilityTypeDto()));
     when(fcIntegrationResultService.getLastUpdatedAt(FACILITY_TYPE_API)).thenReturn(LAST_UPDATED_AT);
     when(fcFacilityTypeService.processData(any(), any(), any())).thenReturn(FcIntegrationResultDto.builder()
         .api(FACILITY_TYPE_API).build());
@@ -421,13 +447,123 @@ public class FcScheduleServiceTest {
     assertEquals(DATE, captor.getValue());
   }
 
+  @Test
+  public void shouldResumeFromCheckpointWhenSyncCmmsGivenUnfinishedCheckpoint() {
+    // given
+    when(fcIntegrationResultService.getLastUpdatedAt(CMM_API)).thenReturn(LAST_UPDATED_AT);
+    FcIntegrationResult checkpoint = FcIntegrationResult.builder().api(CMM_API)
+        .startDate(MONTH).lastPage(2)
+        .build();
+    when(fcIntegrationResultService.getCheckpoint(CMM_API, MONTH, LAST_UPDATED_AT)).thenReturn(checkpoint);
+    when(callFcService.fetchData(contains("page=3&"), anyString())).thenReturn(FcPageDto.builder()
+        .pageInfo(PageInfoDto.builder().totalPages(4).build())
+        .content(Collections.singletonList(new CmmDto()))
+        .build());
+    when(callFcService.fetchData(contains("page=4&"), anyString())).thenReturn(buildPage(new CmmDto()));
+    when(fcCmmService.processData(any(), any(), any())).thenReturn(
+        FcIntegrationResultDto.builder().api(CMM_API).finalSuccess(true).build());
+    when(fcIntegrationResultService.recordCheckpoint(any(), any(), anyInt())).thenReturn(checkpoint);
+
+    // when
+    fcScheduleService.syncCmms(DATE);
+
+    // then
+    verify(callFcService, times(2)).fetchData(anyString(), anyString());
+    verify(fcIntegrationResultService).recordCheckpoint(eq(checkpoint), any(), eq(3));
+    verify(fcIntegrationResultService).recordCheckpoint(eq(checkpoint), any(), eq(4));
+    verify(fcIntegrationResultService).finishCheckpoint(checkpoint);
+  }
+
+  @Test
+  public void shouldRecordLastCommittedCheckpointErrorWhenSyncCmmsGivenPageTransactionRolledBack() {
+    // given
+    when(fcIntegrationResultService.getLastUpdatedAt(CMM_API)).thenReturn(LAST_UPDATED_AT);
+    FcIntegrationResult checkpoint = FcIntegrationResult.builder().api(CMM_API).startDate(MONTH).build();
+    when(fcIntegrationResultService.getCheckpoint(CMM_API, MONTH, LAST_UPDATED_AT)).thenReturn(checkpoint);
+    when(callFcService.fetchData(contains("page=1&"), anyString())).thenReturn(FcPageDto.builder()
+        .pageInfo(PageInfoDto.builder().totalPages(2).build())
+        .content(Collections.singletonList(new CmmDto()))
+        .build());
+    when(callFcService.fetchData(contains("page=2&"), anyString())).thenReturn(buildPage(new CmmDto()));
+    when(fcCmmService.processData(any(), any(), any())).thenReturn(
+        FcIntegrationResultDto.builder().api(CMM_API).finalSuccess(true).build());
+    FcIntegrationResult firstPageCheckpoint = FcIntegrationResult.builder().api(CMM_API)
+        .startDate(MONTH).lastPage(1)
+        .build();
+    when(fcIntegrationResultService.recordCheckpoint(same(checkpoint), any(), eq(1))).thenReturn(firstPageCheckpoint);
+    when(fcIntegrationResultService.recordCheckpoint(same(firstPageCheckpoint), any(), eq(2)))
+        .thenThrow(new IllegalStateException("flush failed"));
+
+    // when
+    try {
+      fcScheduleService.syncCmms(DATE);
+      fail("should not reach here");
+    } catch (IllegalStateException e) {
+      // then
+      verify(fcIntegrationResultService).recordCheckpointError(same(firstPageCheckpoint), contains("flush failed"));
+      verify(fcIntegrationResultService, never()).finishCheckpoint(any());
+    }
+  }
+
+  @Test
+  public void shouldRecordCheckpointErrorWhenSyncCpsGivenPageProcessFailed() {
+    // given
+    when(fcIntegrationResultService.getLastUpdatedAt(CP_API)).thenReturn(LAST_UPDATED_AT);
+    FcIntegrationResult checkpoint = FcIntegrationResult.builder().api(CP_API)
+        .startDate(MONTH).lastPage(1)
+        .build();
+    when(fcIntegrationResultService.getCheckpoint(CP_API, MONTH, LAST_UPDATED_AT)).thenReturn(checkpoint);
+    when(callFcService.fetchData(anyString(), anyString())).thenReturn(buildPage(new CpDto()));
+    when(fcCpService.processData(any(), any(), any())).thenReturn(
+        FcIntegrationResultDto.builder().api(CP_API).finalSuccess(false).errorMessage("error").build());
+
+    // when
+    try {
+      fcScheduleService.syncCps(DATE);
+      fail("should not reach here");
+    } catch (IllegalStateException e) {
+      // then
+      verify(fcIntegrationResultService, never()).recordCheckpoint(any(), any(), anyInt());
+      verify(fcIntegrationResultService).recordCheckpointError(eq(checkpoint), contains("error"));
+      verify(fcIntegrationResultService, never()).finishCheckpoint(any());
+    }
+  }
+
   @Test(expected = Exception.class)
   public void shouldRecordCallFcFailedWhenFetchDataFromFcFailed() {
     // given
-    when(callFcService.getPageInfoDto()).thenReturn(null);
+    when(callFcService.fetchData(anyString(), anyString())).thenReturn(null);
 
     // when
     fcScheduleService.fetchData(ISSUE_VOUCHER_API, DATE);
   }
 
+  @Test
+  public void shouldFetchAllPagesWhenFetchDataGivenMultiplePages() {
+    // given
+    ProductInfoDto first = new ProductInfoDto();
+    ProductInfoDto second = new ProductInfoDto();
+    ProductInfoDto third = new ProductInfoDto();
+    when(callFcService.fetchData(contains("page=1&"), anyString())).thenReturn(FcPageDto.builder()
+        .pageInfo(PageInfoDto.builder().totalPages(3).build())
+        .content(Collections.singletonList(first))
+        .build());
+    when(callFcService.fetchData(contains("page=2&"), anyString())).thenReturn(buildPage(second));
+    when(callFcService.fetchData(contains("page=3&"), anyString())).thenReturn(buildPage(third));
+
+    // when
+    List<ResponseBaseDto> result = fcScheduleService.fetchData(PRODUCT_API, DATE);
+
+    // then
+    verify(callFcService, times(3)).fetchData(contains("psize=20&"), anyString());
+    assertEquals(Arrays.asList(first, second, third), result);
+  }
+
+  private FcPageDto buildPage(ResponseBaseDto content) {
+    return FcPageDto.builder()
+        .pageInfo(new PageInfoDto())
+        .content(Collections.singletonList(content))
+        .build();
+  }
+
 }
@@ -18,6 +18,7 @@ package org.siglus.siglusapi.service.scheduledtask;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyList;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.powermock.api.mockito.PowerMockito.when;
@@ -40,6 +41,7 @@ import org.openlmis.referencedata.domain.ProcessingSchedule;
 import org.siglus.siglusapi.constant.PeriodConstants;
 import org.siglus.siglusapi.dto.HfCmmCountDto;
 import org.siglus.siglusapi.repository.FacilityCmmsRepository;
+import org.siglus.siglusapi.repository.HfCmmNativeSqlRepository;
 import org.siglus.siglusapi.repository.SiglusFacilityRepository;
 import org.siglus.siglusapi.repository.SiglusStockCardLineItemRepository;
 import org.siglus.siglusapi.repository.SiglusStockCardRepository;
@@ -47,6 +49,8 @@ import org.siglus.siglusapi.repository.dto.StockCardLineItemDto;
 import org.siglus.siglusapi.repository.dto.StockOnHandDto;
 import org.siglus.siglusapi.service.SiglusOrderableService;
 import org.siglus.siglusapi.service.SiglusProcessingPeriodService;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 
 @RunWith(MockitoJUnitRunner.class)
@@ -67,6 +71,10 @@ public class CalculateCmmServiceTest {
   private SiglusStockCardLineItemRepository siglusStockCardLineItemRepository;
   @Mock
   private SiglusProcessingPeriodService periodService;
+  @Mock
+  private HfCmmNativeSqlRepository hfCmmNativeSqlRepository;
+  @Mock
+  private PlatformTransactionManager transactionManager;
 
   private final UUID orderableId = UUID.randomUUID();
   private final UUID facilityId = UUID.randomUUID();
@@ -78,6 +86,8 @@ public class CalculateCmmServiceTest {
 
   @Before
   public void setup() {
+    ReflectionTestUtils.setField(calculateCmmService, "concurrency", 1);
+    ReflectionTestUtils.setField(calculateCmmService, "partitionSize", 1);
     when(periodService.getUpToNowMonthlyPeriods()).thenReturn(buildMockPeriods());
     when(siglusOrderableService.getAllProductIdToCode()).thenReturn(buildMockOrderableIdToCode());
     when(siglusStockCardRepository.findStockCardDtos(any(), any(), any())).thenReturn(buildMockStockOhHandDtos());
@@ -95,7 +105,7 @@ public class CalculateCmmServiceTest {
     calculateCmmService.calculateAllWebCmm(now);
 
     // then
-    verify(facilityCmmsRepository).save(anyList());
+    verify(hfCmmNativeSqlRepository).batchInsertIgnoreExisted(anyList());
   }
 
   @Test
@@ -107,7 +117,7 @@ public class CalculateCmmServiceTest {
     calculateCmmService.calculateAllWebCmm(now);
 
     // then
-    verify(facilityCmmsRepository).save(anyList());
+    verify(hfCmmNativeSqlRepository).batchInsertIgnoreExisted(anyList());
   }
 
   @Test
@@ -119,7 +129,27 @@ public class CalculateCmmServiceTest {
     calculateCmmService.calculateAllWebCmm(LocalDate.of(oneYearAgo.getYear(), 8, 21));
 
     // then
-    verify(facilityCmmsRepository, times(0)).save(anyList());
+    verify(hfCmmNativeSqlRepository, times(0)).batchInsertIgnoreExisted(anyList());
+  }
+
+  @Test
+  public void shouldContinueOtherPartitionsWhenCalculateAllWebCmmGivenOnePartitionFailed() {
+    // given
+    UUID failedFacilityId = UUID.randomUUID();
+    Facility failedFacility = buildMockFacility();
+    failedFacility.setId(failedFacilityId);
+    failedFacility.setCode("failed facility code");
+    when(siglusFacilityRepository.findAllWebFacility()).thenReturn(
+        Lists.newArrayList(failedFacility, buildMockFacility()));
+    when(siglusStockCardRepository.findStockCardDtos(eq(failedFacilityId), any(), any()))
+        .thenThrow(new IllegalStateException("connection lost"));
+
+    // when
+    calculateCmmService.calculateAllWebCmm(now);
+
+    // then
+    verify(hfCmmNativeSqlRepository).batchInsertIgnoreExisted(anyList());
+    verify(transactionManager).rollback(any());
   }
 
   @Test
@@ -133,7 +163,7 @@ public class CalculateCmmServiceTest {
     calculateCmmService.calculateOneFacilityCmm(now, facilityId);
 
     // then
-    verify(facilityCmmsRepository).save(anyList());
+    verify(hfCmmNativeSqlRepository).batchInsertIgnoreExisted(anyList());
   }
 
   @Test
@@ -147,7 +177,7 @@ public class CalculateCmmServiceTest {
     calculateCmmService.calculateOneFacilityCmm(periodStartDate, facilityId);
 
     // then
-    verify(facilityCmmsRepository, times(0)).save(anyList());
+    verify(hfCmmNativeSqlRepository, times(0)).batchInsertIgnoreExisted(anyList());
   }
 
   private Map<UUID, String> buildMockOrderableIdToCode() {
@@ -0,0 +1,80 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.siglus.siglusapi.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.google.common.collect.Lists;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.ProcessingPeriod;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PeriodIndexTest {
+
+  private final LocalDate firstStartDate = LocalDate.of(2022, 1, 21);
+
+  @Test
+  public void shouldMatchLinearScanWhenGetPeriodDateInDefaultNull() {
+    // given
+    List<ProcessingPeriod> periods = buildMonthlyPeriods();
+    // leave a gap in the middle and shuffle the order
+    periods.remove(5);
+    PeriodIndex periodIndex = PeriodIndex.of(Lists.reverse(periods));
+
+    // when & then
+    for (LocalDate date = firstStartDate.minusMonths(1); date.isBefore(firstStartDate.plusMonths(13));
+        date = date.plusDays(1)) {
+      assertEquals(PeriodUtil.getPeriodDateInDefaultNull(periods, date), periodIndex.getPeriodDateInDefaultNull(date));
+    }
+  }
+
+  @Test
+  public void shouldReturnSortedPeriodsWhenGetPeriods() {
+    // given
+    List<ProcessingPeriod> periods = buildMonthlyPeriods();
+
+    // when
+    PeriodIndex periodIndex = PeriodIndex.of(Lists.reverse(periods));
+
+    // then
+    assertEquals(periods, periodIndex.getPeriods());
+  }
+
+  @Test
+  public void shouldReturnNullWhenGetPeriodDateInDefaultNullGivenEmptyPeriods() {
+    // when
+    ProcessingPeriod period = PeriodIndex.of(Lists.newArrayList()).getPeriodDateInDefaultNull(firstStartDate);
+
+    // then
+    assertNull(period);
+  }
+
+  private List<ProcessingPeriod> buildMonthlyPeriods() {
+    List<ProcessingPeriod> periods = Lists.newArrayList();
+    for (int i = 0; i < 12; i++) {
+      ProcessingPeriod period = new ProcessingPeriod();
+      period.setStartDate(firstStartDate.plusMonths(i));
+      period.setEndDate(firstStartDate.plusMonths(i + 1L).minusDays(1));
+      periods.add(period);
+    }
+    return periods;
+  }
+}
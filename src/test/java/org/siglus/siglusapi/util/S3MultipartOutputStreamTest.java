@@ -0,0 +1,112 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.siglus.siglusapi.util;
+
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class S3MultipartOutputStreamTest {
+
+  private static final String BUCKET_NAME = "bucket";
+  private static final String KEY_NAME = "key";
+
+  @Mock
+  private AmazonS3 s3Client;
+
+  @Before
+  public void setup() {
+    InitiateMultipartUploadResult initiateResult = new InitiateMultipartUploadResult();
+    initiateResult.setUploadId("upload-id");
+    given(s3Client.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).willReturn(initiateResult);
+    UploadPartResult uploadPartResult = new UploadPartResult();
+    uploadPartResult.setPartNumber(1);
+    uploadPartResult.setETag("etag");
+    given(s3Client.uploadPart(any(UploadPartRequest.class))).willReturn(uploadPartResult);
+  }
+
+  @Test
+  public void shouldCompleteUploadWhenClose() {
+    // given
+    S3MultipartOutputStream outputStream = new S3MultipartOutputStream(s3Client, BUCKET_NAME, KEY_NAME);
+    outputStream.write(new byte[] {1, 2, 3}, 0, 3);
+
+    // when
+    outputStream.close();
+    outputStream.abort();
+
+    // then
+    verify(s3Client, times(1)).uploadPart(any(UploadPartRequest.class));
+    verify(s3Client, times(1)).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    verify(s3Client, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+  }
+
+  @Test
+  public void shouldAbortUploadWhenCloseGivenCompletionFailed() {
+    // given
+    given(s3Client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+        .willThrow(new AmazonServiceException("complete failed"));
+    S3MultipartOutputStream outputStream = new S3MultipartOutputStream(s3Client, BUCKET_NAME, KEY_NAME);
+    outputStream.write(new byte[] {1, 2, 3}, 0, 3);
+
+    // when
+    try {
+      outputStream.close();
+      fail("should not reach here");
+    } catch (AmazonServiceException e) {
+      // then
+      verify(s3Client, times(1)).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+    outputStream.abort();
+    verify(s3Client, times(1)).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+  }
+
+  @Test
+  public void shouldAbortUploadWhenCloseGivenLastPartUploadFailed() {
+    // given
+    given(s3Client.uploadPart(any(UploadPartRequest.class))).willThrow(new AmazonServiceException("upload failed"));
+    S3MultipartOutputStream outputStream = new S3MultipartOutputStream(s3Client, BUCKET_NAME, KEY_NAME);
+    outputStream.write(new byte[] {1, 2, 3}, 0, 3);
+
+    // when
+    try {
+      outputStream.close();
+      fail("should not reach here");
+    } catch (AmazonServiceException e) {
+      // then
+      verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+      verify(s3Client, times(1)).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+  }
+}
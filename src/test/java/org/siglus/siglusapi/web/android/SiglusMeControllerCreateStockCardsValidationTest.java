@@ -27,6 +27,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anySetOf;
 import static org.mockito.Matchers.eq;
 import static org.powermock.api.mockito.PowerMockito.mock;
 import static org.powermock.api.mockito.PowerMockito.when;
@@ -191,7 +192,7 @@ public class SiglusMeControllerCreateStockCardsValidationTest extends FileBasedT
         EventTime.fromRequest(LocalDate.of(2021, 8, 6), Instant.parse("2021-08-06T08:52:42.063Z")));
     when(stocksOnHand.findInventory(eq(ProductLotCode.of("08O05Y", "SME-LOTE-08O05Y-072021"))))
         .thenReturn(inventoryDetail);
-    when(stockManagementRepository.getStockOnHand(any())).thenReturn(stocksOnHand);
+    when(stockManagementRepository.getStockOnHandByOrderableIds(any(), anySetOf(UUID.class))).thenReturn(stocksOnHand);
     MovementDetail movementDetail = new MovementDetail(-200, MovementType.ISSUE, "Farmácia");
     ProductMovement movement0 = ProductMovement.builder()
         .productCode("08O05Y")
@@ -217,12 +218,12 @@ public class SiglusMeControllerCreateStockCardsValidationTest extends FileBasedT
         .lotMovements(singletonList(newLotMovement(movementDetail, 200)))
         .stockQuantity(200)
         .build();
-    when(stockManagementRepository.getAllProductMovements(any(), any(LocalDate.class)))
+    when(stockManagementRepository.getAllProductMovements(any(), anySetOf(UUID.class), any(), any()))
         .thenReturn(new PeriodOfProductMovements(asList(movement0, movement1, movement2), stocksOnHand));
     mockFacilitySupportOrdrables();
     mockReasons();
     mockSourceDestinations();
-    holder.initContext(mockFacilityDto(), LocalDate.MIN);
+    holder.initContext(mockFacilityDto(), LocalDate.MIN, asList("08O05Y", "26A01"));
   }
 
   @After
@@ -23,6 +23,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.powermock.api.mockito.PowerMockito.mock;
 import static org.powermock.api.mockito.PowerMockito.when;
@@ -39,7 +42,11 @@ import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
 import java.util.UUID;
 import org.junit.Before;
@@ -155,6 +162,8 @@ public class SiglusMeControllerProofOfDeliveryMvcTest extends FileBasedTest {
   private ArgumentCaptor<String> orderCodeCaptor;
   @Captor
   private ArgumentCaptor<OrderStatus> statuesCaptor;
+  @Captor
+  private ArgumentCaptor<Collection<Order>> ordersCaptor;
 
   private final UUID homeFacilityId = randomUUID();
   private final UUID order1Id = randomUUID();
@@ -168,6 +177,8 @@ public class SiglusMeControllerProofOfDeliveryMvcTest extends FileBasedTest {
   private final UUID product1Lot1Id = randomUUID();
   private final UUID product2Lot1Id = randomUUID();
   private final UUID reasonId = randomUUID();
+  private final List<SiglusOrderDto> orders = new ArrayList<>();
+  private final Map<UUID, Requisition> orderIdToRequisition = new HashMap<>();
 
   @Before
   public void setup() throws JsonProcessingException {
@@ -359,6 +370,35 @@ public class SiglusMeControllerProofOfDeliveryMvcTest extends FileBasedTest {
     assertEquals(OrderStatus.SHIPPED, statuses.get(0));
   }
 
+  @Test
+  public void shouldResolveOrdersAndRequisitionsInBatchWhenGetPodsGivenHundredsOfPods() throws Exception {
+    // given
+    int podCount = 300;
+    List<ProofOfDelivery> pods = new ArrayList<>();
+    for (int i = 0; i < podCount; i++) {
+      UUID orderId = randomUUID();
+      pods.add(mockEmptyPod(orderId));
+      mockEmptyOrder(orderId, "ORDER-BATCH" + i);
+    }
+    when(podRepo.findAllByFacilitySince(any(), any(), any(), anyVararg())).thenReturn(pods);
+    when(podExtensionRepository.findByPodId(any())).thenReturn(new PodExtension());
+    RequestBuilder request = get("/api/siglusapi/android/me/facility/pods")
+        .contentType(MediaType.APPLICATION_JSON)
+        .characterEncoding("utf-8");
+
+    // when
+    ResultActions resultActions = mockMvc.perform(request);
+
+    // then
+    resultActions.andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(podCount));
+    verify(orderService, times(1)).getOrderIdToRequisition(any());
+    verify(orderService, times(1)).searchOrdersWithoutProducts(ordersCaptor.capture(), eq(orderIdToRequisition));
+    assertEquals(podCount, ordersCaptor.getValue().size());
+    verify(orderService, never()).searchOrderByIdWithoutProducts(any());
+    verify(orderService, never()).getRequisitionByOrder(any());
+  }
+
   private void mockProducts() {
     org.openlmis.referencedata.dto.OrderableDto product1 =
         mock(org.openlmis.referencedata.dto.OrderableDto.class);
@@ -506,6 +546,36 @@ public class SiglusMeControllerProofOfDeliveryMvcTest extends FileBasedTest {
     return pod3;
   }
 
+  private ProofOfDelivery mockEmptyPod(UUID orderId) {
+    ProofOfDelivery pod = mock(ProofOfDelivery.class);
+    Shipment shipment = mock(Shipment.class);
+    when(pod.getShipment()).thenReturn(shipment);
+    Order order = mock(Order.class);
+    when(shipment.getOrder()).thenReturn(order);
+    when(shipment.getShippedDate()).thenReturn(LocalDate.of(2020, 11, 2).atStartOfDay(ZoneId.systemDefault()));
+    when(order.getId()).thenReturn(orderId);
+    return pod;
+  }
+
+  private void mockEmptyOrder(UUID orderId, String orderCode) {
+    OrderDto order = mock(OrderDto.class);
+    when(order.getId()).thenReturn(orderId);
+    when(order.getOrderCode()).thenReturn(orderCode);
+    when(order.getStatus()).thenReturn(OrderStatus.SHIPPED);
+    when(order.getCreatedDate()).thenReturn(LocalDate.of(2020, 11, 2).atStartOfDay(ZoneId.systemDefault()));
+    when(order.getLastUpdatedDate())
+        .thenReturn(LocalDate.of(2020, 11, 2).atTime(10, 15).atZone(ZoneId.systemDefault()));
+    ProcessingPeriodDto period = new ProcessingPeriodDto();
+    period.setStartDate(LocalDate.of(2020, 9, 21));
+    period.setEndDate(LocalDate.of(2020, 10, 20));
+    when(order.getProcessingPeriod()).thenReturn(period);
+    orders.add(new SiglusOrderDto(order, emptySet()));
+    Requisition requisition = new Requisition();
+    requisition.setCreatedDate(ZonedDateTime.now());
+    requisition.setModifiedDate(ZonedDateTime.now());
+    orderIdToRequisition.put(orderId, requisition);
+  }
+
   private void mockOrders() {
     FacilityDto supplyingFacility = mock(FacilityDto.class);
     when(supplyingFacility.getName()).thenReturn("Centro de Saude de ntopa");
@@ -519,6 +589,8 @@ public class SiglusMeControllerProofOfDeliveryMvcTest extends FileBasedTest {
     mockOrder1(supplyingFacility, product1);
     mockOrder2(supplyingFacility, product2);
     mockOrder3(supplyingFacility, product1);
+    when(orderService.searchOrdersWithoutProducts(any(), any())).thenReturn(orders);
+    when(orderService.getOrderIdToRequisition(any())).thenReturn(orderIdToRequisition);
   }
 
   private void mockOrder1(FacilityDto supplyingFacility, OrderableDto product1) {
@@ -547,11 +619,11 @@ public class SiglusMeControllerProofOfDeliveryMvcTest extends FileBasedTest {
     when(order1Line1.getOrderable()).thenReturn(product1);
     when(order1Line1.getOrderedQuantity()).thenReturn(20L);
     when(order1Line1.getPartialFulfilledQuantity()).thenReturn(0L);
-    when(orderService.searchOrderByIdWithoutProducts(order1Id)).thenReturn(new SiglusOrderDto(order1, emptySet()));
+    orders.add(new SiglusOrderDto(order1, emptySet()));
     Requisition requisition1 = new Requisition();
     requisition1.setCreatedDate(ZonedDateTime.now());
     requisition1.setModifiedDate(ZonedDateTime.now());
-    when(orderService.getRequisitionByOrder(order1)).thenReturn(requisition1);
+    orderIdToRequisition.put(order1Id, requisition1);
     when(facilityReferenceDataService.findOne(order1FacilityId))
         .thenReturn(new org.siglus.siglusapi.dto.FacilityDto());
   }
@@ -582,11 +654,11 @@ public class SiglusMeControllerProofOfDeliveryMvcTest extends FileBasedTest {
     when(order2Line1.getOrderedQuantity()).thenReturn(20L);
     when(order2Line1.getPartialFulfilledQuantity()).thenReturn(0L);
     when(order2Line1.getOrderable()).thenReturn(product2);
-    when(orderService.searchOrderByIdWithoutProducts(order2Id)).thenReturn(new SiglusOrderDto(order2, emptySet()));
+    orders.add(new SiglusOrderDto(order2, emptySet()));
     Requisition requisition2 = new Requisition();
     requisition2.setCreatedDate(ZonedDateTime.now());
     requisition2.setModifiedDate(ZonedDateTime.now());
-    when(orderService.getRequisitionByOrder(order2)).thenReturn(requisition2);
+    orderIdToRequisition.put(order2Id, requisition2);
     when(facilityReferenceDataService.findOne(order2FacilityId))
         .thenReturn(new org.siglus.siglusapi.dto.FacilityDto());
   }
@@ -617,11 +689,11 @@ public class SiglusMeControllerProofOfDeliveryMvcTest extends FileBasedTest {
     when(order3Line1.getOrderedQuantity()).thenReturn(20L);
     when(order3Line1.getPartialFulfilledQuantity()).thenReturn(0L);
     when(order3Line1.getOrderable()).thenReturn(product1);
-    when(orderService.searchOrderByIdWithoutProducts(order3Id)).thenReturn(new SiglusOrderDto(order3, emptySet()));
+    orders.add(new SiglusOrderDto(order3, emptySet()));
     Requisition requisition3 = new Requisition();
     requisition3.setCreatedDate(ZonedDateTime.now());
     requisition3.setModifiedDate(ZonedDateTime.now());
-    when(orderService.getRequisitionByOrder(order3)).thenReturn(requisition3);
+    orderIdToRequisition.put(order3Id, requisition3);
     when(facilityReferenceDataService.findOne(order3FacilityId))
         .thenReturn(new org.siglus.siglusapi.dto.FacilityDto());
   }
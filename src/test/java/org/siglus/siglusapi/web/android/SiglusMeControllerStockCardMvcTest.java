@@ -20,10 +20,16 @@ import static java.util.Collections.emptyList;
 import static java.util.Collections.singleton;
 import static java.util.Collections.singletonList;
 import static java.util.UUID.randomUUID;
+import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anySetOf;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.openlmis.referencedata.domain.Orderable.TRADE_ITEM;
@@ -51,12 +57,14 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Stream;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.openlmis.requisition.dto.ApprovedProductDto;
@@ -87,7 +95,9 @@ import org.siglus.siglusapi.dto.android.ValidatedStockCards;
 import org.siglus.siglusapi.dto.android.db.CalculatedStockOnHand;
 import org.siglus.siglusapi.dto.android.db.PhysicalInventoryLine;
 import org.siglus.siglusapi.dto.android.db.PhysicalInventoryLineAdjustment;
+import org.siglus.siglusapi.dto.android.db.ProductLot;
 import org.siglus.siglusapi.dto.android.db.RequestedQuantity;
+import org.siglus.siglusapi.dto.android.db.StockCard;
 import org.siglus.siglusapi.dto.android.db.StockCardLineItem;
 import org.siglus.siglusapi.dto.android.db.StockEventLineItem;
 import org.siglus.siglusapi.dto.android.enumeration.AdjustmentReason;
@@ -98,6 +108,7 @@ import org.siglus.siglusapi.dto.android.request.StockCardCreateRequest;
 import org.siglus.siglusapi.repository.StockCardRequestBackupRepository;
 import org.siglus.siglusapi.repository.StockEventProductRequestedRepository;
 import org.siglus.siglusapi.repository.StockManagementRepository;
+import org.siglus.siglusapi.service.LotConflictService;
 import org.siglus.siglusapi.service.SiglusValidReasonAssignmentService;
 import org.siglus.siglusapi.service.SiglusValidSourceDestinationService;
 import org.siglus.siglusapi.service.android.MeService;
@@ -172,12 +183,24 @@ public class SiglusMeControllerStockCardMvcTest extends FileBasedTest {
   private StockEventProductRequestedRepository requestQuantityRepository;
   @Mock
   private SiglusLotReferenceDataService siglusLotReferenceDataService;
+  @Mock
+  @SuppressWarnings("unused")
+  private LotConflictService lotConflictService;
 
   @InjectMocks
   private StockCardCreateContextHolder holder;
   @InjectMocks
   private StockCardCreateService stockCardCreateService;
 
+  @Captor
+  private ArgumentCaptor<Map<ProductLotCode, OrderableDto>> codeToProductCaptor;
+  @Captor
+  private ArgumentCaptor<Collection<StockCard>> stockCardSamplesCaptor;
+  @Captor
+  private ArgumentCaptor<Map<StockCard, EventTime>> stockCardToEarliestDateCaptor;
+  @Captor
+  private ArgumentCaptor<List<StockCard>> stockCardsCaptor;
+
   private final UUID facilityId = randomUUID();
   private final UUID facilityTypeId = randomUUID();
   private final UUID programId1 = randomUUID();
@@ -198,9 +221,9 @@ public class SiglusMeControllerStockCardMvcTest extends FileBasedTest {
     ReflectionTestUtils.setField(service, "stockCardCreateContextHolder", holder);
     ReflectionTestUtils.setField(service, "stockCardCreateService", stockCardCreateService);
     StocksOnHand stocksOnHand = new StocksOnHand(emptyList());
-    when(stockManagementRepository.getAllProductMovements(any(), any(LocalDate.class)))
+    when(stockManagementRepository.getAllProductMovements(any(), anySetOf(UUID.class), any(), any()))
         .thenReturn(new PeriodOfProductMovements(emptyList(), stocksOnHand));
-    when(stockManagementRepository.getStockOnHand(any())).thenReturn(stocksOnHand);
+    when(stockManagementRepository.getStockOnHandByOrderableIds(any(), anySetOf(UUID.class))).thenReturn(stocksOnHand);
     objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
     objectMapper.configure(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS, false);
     objectMapper.registerModule(new JavaTimeModule());
@@ -286,6 +309,52 @@ public class SiglusMeControllerStockCardMvcTest extends FileBasedTest {
     assertTrue(sohList.stream().allMatch(l -> l.getInventoryDetail().getStockQuantity() >= 0));
   }
 
+  @Test
+  public void shouldLoadExistedLotsAndStockCardsInOneBatchWhenSaveStockCardsGivenExistedLotsAndStockCards()
+      throws Exception {
+    // given
+    RequestBuilder request = post("/api/siglusapi/android/me/facility/stockCards")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(readFromFile("happy.json"))
+        .characterEncoding("utf-8");
+    ValidatedStockCards happyRequest = mockHappyCreateRequest();
+    when(stockCardCreateRequestValidator.validateStockCardCreateRequest(any())).thenReturn(happyRequest);
+    when(stockManagementRepository.getLots(anyMapOf(ProductLotCode.class, OrderableDto.class)))
+        .thenAnswer(invocation -> ((Map<?, ?>) invocation.getArgumentAt(0, Map.class)).keySet().stream()
+            .map(ProductLotCode.class::cast)
+            .collect(toMap(identity(), code -> ProductLot.fromDatabase(randomUUID(), code.getProductCode(),
+                randomUUID(), Lot.of(code.getLotCode(), LocalDate.of(2030, 1, 31))))));
+    when(stockManagementRepository.getStockCards(eq(facilityId), anyCollectionOf(StockCard.class)))
+        .thenAnswer(invocation -> ((Collection<?>) invocation.getArgumentAt(1, Collection.class)).stream()
+            .map(StockCard.class::cast)
+            .collect(toMap(sample -> ProductLotCode.of(sample.getProductCode(), sample.getLotCode()),
+                sample -> StockCard.fromDatabase(randomUUID(), sample))));
+    Set<ProductLotCode> requestedCodes = happyRequest.getValidStockCardRequests().stream()
+        .flatMap(r -> r.getLotEvents().isEmpty()
+            ? Stream.of(ProductLotCode.noLot(r.getProductCode()))
+            : r.getLotEvents().stream().map(l -> ProductLotCode.of(r.getProductCode(), l.getLotCode())))
+        .collect(toSet());
+
+    // when
+    ResultActions resultActions = mockMvc.perform(request).andDo(print());
+
+    // then
+    resultActions.andExpect(status().isCreated());
+    verify(stockManagementRepository).getLots(codeToProductCaptor.capture());
+    Set<ProductLotCode> lotCodes = requestedCodes.stream().filter(ProductLotCode::isLot).collect(toSet());
+    assertEquals(lotCodes, codeToProductCaptor.getValue().keySet());
+    verify(stockManagementRepository).getStockCards(eq(facilityId), stockCardSamplesCaptor.capture());
+    Collection<StockCard> samples = stockCardSamplesCaptor.getValue();
+    assertEquals(requestedCodes.size(), samples.size());
+    assertEquals(requestedCodes, samples.stream()
+        .map(sample -> ProductLotCode.of(sample.getProductCode(), sample.getLotCode()))
+        .collect(toSet()));
+    verify(stockManagementRepository).findCalculatedStocksOnHand(stockCardToEarliestDateCaptor.capture());
+    assertEquals(requestedCodes.size(), stockCardToEarliestDateCaptor.getValue().size());
+    verify(stockManagementRepository).batchCreateStockCards(stockCardsCaptor.capture());
+    assertTrue(stockCardsCaptor.getValue().isEmpty());
+  }
+
   @SuppressWarnings({"rawTypes", "unchecked"})
   @Test
   public void shouldReturnCreatedWhenSaveStockCardsGivenUatsRequest() throws Exception {
@@ -15,7 +15,7 @@ CREATE TABLE IF NOT EXISTS localmachine.events (
     archived boolean NOT NULL DEFAULT FALSE,
     onlinewebsynced INT NOT NULL DEFAULT 0,
     receiversynced INT NOT NULL DEFAULT 0,
-    localreplayed INT NOT NULL DEFAULT 0,
+    localreplayed BOOLEAN NOT NULL DEFAULT FALSE,
     syncedtime TIMESTAMP DEFAULT now()
 );
 
@@ -52,4 +52,13 @@ CREATE TABLE IF NOT EXISTS localmachine.ack_records (
     shipped BOOL NOT NULL DEFAULT FALSE
 );
 
+CREATE TABLE IF NOT EXISTS localmachine.master_data_events (
+    id SERIAL PRIMARY KEY,
+    snapshotversion VARCHAR(1000),
+    payload bytea,
+    facilityid uuid,
+    occurredtime TIMESTAMP DEFAULT now(),
+    tablefullname VARCHAR(255)
+);
+
 alter table localmachine.events add column category varchar(511);
\ No newline at end of file